@@ -0,0 +1,135 @@
+package com.library.bench;
+
+import com.library.events.EventSink;
+import com.library.models.Book;
+import com.library.models.BranchAvailability;
+import com.library.services.BookService;
+import com.library.services.BranchService;
+import com.library.services.LendingService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BranchBenchmarks Class - Branch shards on BranchService
+ *
+ * Covers:
+ * - Availability and search fan-out over 16 branches holding 2 copies
+ *   of every book (a catalog of its own, 32 copies per title)
+ * - Desk checkout + return (a full LendingService loan) and transfers,
+ *   one branch per thread; each single-threaded and with one thread per CPU
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BranchBenchmarks {
+    private static final int BRANCHES = 16;
+
+    @Benchmark
+    public BranchAvailability availability(Shards b, LibraryState s, Cursor c) {
+        return b.branches.getAvailability(s.isbns[c.next() % s.size]);
+    }
+
+    @Benchmark
+    public List<BranchAvailability> search(Shards b, LibraryState s, Cursor c) {
+        return b.branches.search(s.titles[c.next() % s.size], 10);
+    }
+
+    @Benchmark
+    public boolean checkoutReturnOwn(Shards b, Desk desk, LibraryState s, Cursor c) {
+        return checkoutReturn(b, desk, s, c.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean checkoutReturnOwnContended(Shards b, Desk desk, LibraryState s, Cursor c) {
+        return checkoutReturn(b, desk, s, c.next());
+    }
+
+    @Benchmark
+    public boolean transferAndBack(Shards b, Desk desk, LibraryState s, Cursor c) {
+        return transfer(b, desk, s, c.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean transferAndBackContended(Shards b, Desk desk, LibraryState s, Cursor c) {
+        return transfer(b, desk, s, c.next());
+    }
+
+    private static boolean checkoutReturn(Shards b, Desk desk, LibraryState s, int i) {
+        Book book = b.books.get(i % s.size);
+        return b.branches.checkoutBook(desk.branchId, book, s.patron(i), LibraryState.TODAY)
+                && b.branches.returnBook(desk.branchId, book, s.patron(i), LibraryState.TODAY);
+    }
+
+    private static boolean transfer(Shards b, Desk desk, LibraryState s, int i) {
+        String isbn = s.isbns[i % s.size];
+        String other = branchId(i % BRANCHES);
+        return b.branches.transferCopies(isbn, desk.branchId, other, 1)
+                && b.branches.transferCopies(isbn, other, desk.branchId, 1);
+    }
+
+    private static String branchId(int b) {
+        return String.format("B%02d", b);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shards {
+        BranchService branches;
+        List<Book> books;
+
+        @Setup
+        public void create(LibraryState s) {
+            BookService catalog = new BookService();
+            catalog.setEventSink(EventSink.NONE);
+            books = new ArrayList<>(s.size);
+            for (Book book : s.bookList) {
+                Book copy = new Book(book.getIsbn(), book.getTitle(), book.getAuthor(), book.getPublisher(),
+                        book.getYear(), 2 * BRANCHES);
+                catalog.loadBook(copy);
+                books.add(copy);
+            }
+            LendingService lending = new LendingService(catalog, s.patrons);
+            lending.setEventSink(EventSink.NONE);
+            branches = new BranchService(catalog, lending);
+            branches.setEventSink(EventSink.NONE);
+            for (int b = 0; b < BRANCHES; b++) {
+                branches.addBranch(branchId(b), "Branch " + b);
+                for (Book book : books) {
+                    branches.addCopies(branchId(b), book, 2);
+                }
+            }
+        }
+    }
+
+    /**
+     * The branch a worker thread desks at
+     */
+    @State(Scope.Thread)
+    public static class Desk {
+        private static int nextBranch;
+
+        String branchId;
+
+        @Setup
+        public void assign() {
+            synchronized (Desk.class) {
+                branchId = branchId(nextBranch++ % BRANCHES);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.library.bench;
+
+import com.library.cache.LookupCache;
+import com.library.events.EventSink;
+import com.library.metrics.ServiceMetrics;
+import com.library.models.Book;
+import com.library.persistence.MappedCatalog;
+import com.library.search.SearchPage;
+import com.library.services.BookService;
+import com.library.snapshot.LibrarySnapshot;
+import com.library.snapshot.LibrarySnapshots;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CatalogBenchmarks Class - Lookups and searches on BookService
+ *
+ * Covers:
+ * - searchByIsbn hit and miss, with metrics attached, and through a
+ *   LookupCache on skewed keys
+ * - searchByTitle / searchByAuthor / full-text search top 10
+ * - suggestTitles autocomplete, typed prefix and typo
+ * - Dashboard statistic (available copies) and opening a snapshot
+ * - The same catalog as a mapped file under an empty BookService:
+ *   availability read in place, lookup by ISBN (copied into memory on
+ *   first use) and an author scan of the mapping
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CatalogBenchmarks {
+
+    @Benchmark
+    public Book searchByIsbn(LibraryState s, Cursor c) {
+        return s.books.searchByIsbn(s.isbns[c.next() % s.size]);
+    }
+
+    @Benchmark
+    public Book searchByIsbnMiss(LibraryState s) {
+        return s.books.searchByIsbn("MISSING");
+    }
+
+    @Benchmark
+    public Book searchByIsbnWithMetrics(Metered m, LibraryState s, Cursor c) {
+        return s.books.searchByIsbn(s.isbns[c.next() % s.size]);
+    }
+
+    @Benchmark
+    public Book searchByIsbnCached(Cached cached, LibraryState s, Cursor c) {
+        return s.books.searchByIsbn(s.isbns[LibraryState.skewed(c.next(), s.size)]);
+    }
+
+    @Benchmark
+    public Book searchByTitle(LibraryState s, Cursor c) {
+        return s.books.searchByTitle(s.titles[c.next() % s.size]);
+    }
+
+    @Benchmark
+    public List<Book> searchByAuthor(LibraryState s, Cursor c) {
+        return s.books.searchByAuthor(s.authors[c.next() % s.authors.length]);
+    }
+
+    @Benchmark
+    public SearchPage searchFullTextTop10(LibraryState s, Cursor c) {
+        return s.books.search(s.titles[c.next() % s.size], 10, null);
+    }
+
+    @Benchmark
+    public List<Book> suggestTitlesPrefix(LibraryState s, Cursor c) {
+        // "Title 1234 Volume 5" typed as far as "title 123"
+        return s.books.suggestTitles("title " + (c.next() % s.size) / 10, 10);
+    }
+
+    @Benchmark
+    public List<Book> suggestTitlesTypo(LibraryState s, Cursor c) {
+        return s.books.suggestTitles("ttile " + c.next() % s.size + " volmue", 10);
+    }
+
+    @Benchmark
+    public int getTotalAvailableCopies(LibraryState s) {
+        return s.books.getTotalAvailableCopies();
+    }
+
+    @Benchmark
+    public boolean mappedIsAvailable(Mapped mapped, LibraryState s, Cursor c) {
+        return mapped.books.isAvailable(s.isbns[c.next() % s.size]);
+    }
+
+    @Benchmark
+    public Book mappedSearchByIsbn(Mapped mapped, LibraryState s, Cursor c) {
+        return mapped.books.searchByIsbn(s.isbns[c.next() % s.size]);
+    }
+
+    @Benchmark
+    public List<Book> mappedSearchByAuthor(Mapped mapped, LibraryState s, Cursor c) {
+        return mapped.books.searchByAuthor(s.authors[c.next() % s.authors.length]);
+    }
+
+    @Benchmark
+    public long snapshotOpen(Snapshots snapshots) {
+        try (LibrarySnapshot snapshot = snapshots.snapshots.open()) {
+            return snapshot.getVersion();
+        }
+    }
+
+    /**
+     * ServiceMetrics sampling 1 call in 16
+     */
+    @State(Scope.Benchmark)
+    public static class Metered {
+        @Setup
+        public void attach(LibraryState s) {
+            s.books.setMetrics(new ServiceMetrics(16));
+        }
+
+        @TearDown
+        public void detach(LibraryState s) {
+            s.books.setMetrics(null);
+        }
+    }
+
+    /**
+     * LookupCache holding 1% of the catalog
+     */
+    @State(Scope.Benchmark)
+    public static class Cached {
+        LookupCache<String, Book> cache;
+
+        @Setup
+        public void attach(LibraryState s) {
+            cache = new LookupCache<>(Math.max(1, s.size / 100));
+            s.books.setCache(cache);
+        }
+
+        @TearDown
+        public void detach(LibraryState s) {
+            s.books.setCache(null);
+            System.out.println("# cache (1% of catalog, skewed keys): " + cache.stats());
+        }
+    }
+
+    /**
+     * The catalog written to a mapped file and attached to an empty
+     * BookService
+     */
+    @State(Scope.Benchmark)
+    public static class Mapped {
+        Path file;
+        BookService books;
+
+        @Setup
+        public void attach(LibraryState s) throws IOException {
+            file = Files.createTempFile("library-catalog", ".map");
+            MappedCatalog.write(file, s.bookList);
+            books = new BookService();
+            books.setEventSink(EventSink.NONE);
+            books.attachCatalog(MappedCatalog.open(file));
+        }
+
+        @TearDown
+        public void delete() throws IOException {
+            System.out.println("# mapped catalog: " + books.getResidentBooks().size() + " books copied into memory");
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Snapshots {
+        LibrarySnapshots snapshots;
+
+        @Setup
+        public void attach(LibraryState s) {
+            snapshots = new LibrarySnapshots(s.books, s.patrons, s.lending);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.library.bench;
+
+import com.library.events.EventSink;
+import com.library.io.CatalogExporter;
+import com.library.io.CatalogFormat;
+import com.library.io.CatalogImporter;
+import com.library.io.ExportFormat;
+import com.library.io.ImportStats;
+import com.library.models.Book;
+import com.library.persistence.MappedCatalog;
+import com.library.reports.InventoryReport;
+import com.library.reports.ReportGenerator;
+import com.library.services.BookService;
+import com.library.snapshot.LibrarySnapshot;
+import com.library.snapshot.LibrarySnapshots;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CatalogBulkBenchmarks Class - Whole-catalog operations, timed one run at a time
+ *
+ * Covers:
+ * - addBook bulk load of the whole catalog into an empty BookService,
+ *   and attaching the same catalog as a mapped file instead
+ * - CatalogImporter on the same books as CSV (parse only, and parse +
+ *   merge into the catalog)
+ * - Streaming CSV/JSON export of the catalog
+ * - Inventory report, live and from a snapshot
+ *
+ * Scores are milliseconds per whole-catalog run; divide by size for
+ * the cost per book.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CatalogBulkBenchmarks {
+
+    @Benchmark
+    public BookService addBookBulk(FreshBooks fresh) {
+        BookService service = new BookService();
+        service.setEventSink(EventSink.NONE);
+        for (Book b : fresh.books) {
+            service.addBook(b);
+        }
+        return service;
+    }
+
+    @Benchmark
+    public BookService attachMappedCatalog(MappedFile mapped) throws IOException {
+        BookService service = new BookService();
+        service.setEventSink(EventSink.NONE);
+        service.attachCatalog(MappedCatalog.open(mapped.file));
+        return service;
+    }
+
+    @Benchmark
+    public ImportStats importCsvParseOnly(CsvDump dump) throws IOException {
+        BookService discard = new BookService() {
+            @Override
+            public int addBooks(List<Book> batch) {
+                return batch.size();
+            }
+        };
+        return new CatalogImporter(discard).importFile(dump.csv, CatalogFormat.CSV);
+    }
+
+    @Benchmark
+    public ImportStats importCsv(CsvDump dump) throws IOException {
+        BookService service = new BookService();
+        service.setEventSink(EventSink.NONE);
+        return new CatalogImporter(service).importFile(dump.csv, CatalogFormat.CSV);
+    }
+
+    @Benchmark
+    public long exportBooks(Export export, LibraryState s) throws IOException {
+        return export.exporter.exportBooks(Channels.newChannel(OutputStream.nullOutputStream()), export.format);
+    }
+
+    @Benchmark
+    public InventoryReport inventoryReport(LibraryState s) {
+        return new ReportGenerator(s.books, s.patrons, s.lending).inventory();
+    }
+
+    @Benchmark
+    public InventoryReport inventoryReportSnapshot(Snapshot open, LibraryState s) {
+        return new ReportGenerator(s.books, s.patrons, s.lending).inventory(open.snapshot);
+    }
+
+    /**
+     * A new set of Book objects for every run (books are adopted by the service)
+     */
+    @State(Scope.Benchmark)
+    public static class FreshBooks {
+        List<Book> books;
+
+        @Setup(Level.Iteration)
+        public void create(LibraryState s) {
+            books = s.freshBooks();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class MappedFile {
+        Path file;
+
+        @Setup
+        public void write(LibraryState s) throws IOException {
+            file = Files.createTempFile("library-catalog", ".map");
+            MappedCatalog.write(file, s.bookList);
+        }
+
+        @TearDown
+        public void delete() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CsvDump {
+        Path csv;
+
+        @Setup
+        public void write(LibraryState s) throws IOException {
+            csv = s.writeCsv();
+        }
+
+        @TearDown
+        public void delete() throws IOException {
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Export {
+        @Param({"CSV", "JSON"})
+        public ExportFormat format;
+
+        CatalogExporter exporter;
+
+        @Setup
+        public void create(LibraryState s) {
+            exporter = new CatalogExporter(s.books, s.patrons, s.lending);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Snapshot {
+        LibrarySnapshots snapshots;
+        LibrarySnapshot snapshot;
+
+        @Setup(Level.Iteration)
+        public void open(LibraryState s) {
+            if (snapshots == null) {
+                snapshots = new LibrarySnapshots(s.books, s.patrons, s.lending);
+            }
+            snapshot = snapshots.open();
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() {
+            snapshot.close();
+        }
+    }
+}
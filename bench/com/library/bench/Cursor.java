@@ -0,0 +1,31 @@
+package com.library.bench;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cursor Class - Per-thread key counter for the JMH benchmarks
+ *
+ * Each benchmark thread walks its own sequence of keys; threads start
+ * far apart so they do not work on the same titles in lock step.
+ */
+@State(Scope.Thread)
+public class Cursor {
+    private static int nextStart;
+
+    private int i;
+
+    public Cursor() {
+        synchronized (Cursor.class) {
+            i = nextStart;
+            nextStart += 7919;
+        }
+    }
+
+    /**
+     * Next non-negative key index
+     */
+    int next() {
+        return i++ & Integer.MAX_VALUE;
+    }
+}
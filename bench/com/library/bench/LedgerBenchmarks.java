@@ -0,0 +1,134 @@
+package com.library.bench;
+
+import com.library.analytics.CirculationAnalytics;
+import com.library.analytics.CirculationStore;
+import com.library.analytics.Ranked;
+import com.library.ledger.CopiesOnLoan;
+import com.library.ledger.LendingLedger;
+import com.library.ledger.OpenLoans;
+import com.library.ledger.PatronBalances;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LedgerBenchmarks Class - Lending ledger replay and circulation analytics
+ *
+ * Covers:
+ * - Parallel rebuild of balances, open loans and copies on loan, and
+ *   opening a ledger from disk (10 events per book)
+ * - Circulation analytics over the same history: top titles and
+ *   authors, loans by publication year, fine totals by month
+ *
+ * Scores are milliseconds per whole-history run.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LedgerBenchmarks {
+
+    @Benchmark
+    public PatronBalances rebuild(History h) {
+        PatronBalances balances = new PatronBalances();
+        h.ledger.rebuild(balances, new OpenLoans(), new CopiesOnLoan());
+        return balances;
+    }
+
+    @Benchmark
+    public long open(LedgerDir d) throws IOException {
+        try (LendingLedger ledger = LendingLedger.open(d.dir)) {
+            return ledger.getEventCount();
+        }
+    }
+
+    @Benchmark
+    public List<Ranked> topTitles(Analytics a) {
+        return a.analytics.topTitles(a.from, LibraryState.TODAY, 10);
+    }
+
+    @Benchmark
+    public List<Ranked> topAuthors(Analytics a) {
+        return a.analytics.topAuthors(a.from, LibraryState.TODAY, 10);
+    }
+
+    @Benchmark
+    public SortedMap<Integer, Long> loansByYear(Analytics a) {
+        return a.analytics.loansByYear(a.from, LibraryState.TODAY);
+    }
+
+    @Benchmark
+    public SortedMap<LocalDate, Long> fineTotals(Analytics a) {
+        return a.analytics.fineTotals(a.from, LibraryState.TODAY, ChronoUnit.MONTHS);
+    }
+
+    /**
+     * In-memory ledger with 10 events per book
+     */
+    @State(Scope.Benchmark)
+    public static class History {
+        LendingLedger ledger;
+
+        @Setup
+        public void fill(LibraryState s) {
+            ledger = LendingLedger.inMemory();
+            s.fillLedger(ledger, 10L * s.size);
+        }
+    }
+
+    /**
+     * The same history written to disk
+     */
+    @State(Scope.Benchmark)
+    public static class LedgerDir {
+        Path dir;
+
+        @Setup
+        public void fill(LibraryState s) throws IOException {
+            dir = Files.createTempDirectory("library-ledger");
+            try (LendingLedger ledger = LendingLedger.open(dir)) {
+                s.fillLedger(ledger, 10L * s.size);
+            }
+        }
+
+        @TearDown
+        public void delete() throws IOException {
+            LibraryState.deleteTree(dir);
+        }
+    }
+
+    /**
+     * The history loaded into a column store, queried over the last 3 years
+     */
+    @State(Scope.Benchmark)
+    public static class Analytics {
+        CirculationAnalytics analytics;
+        LocalDate from;
+
+        @Setup
+        public void load(History h, LibraryState s) {
+            CirculationStore store = new CirculationStore();
+            store.addTitles(s.bookList);
+            store.load(h.ledger);
+            analytics = new CirculationAnalytics(store);
+            from = LibraryState.TODAY.minusYears(3);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.library.bench;
+
+import com.library.events.EventSink;
+import com.library.events.RingBufferEventSink;
+import com.library.ledger.LendingLedger;
+import com.library.models.BatchResult;
+import com.library.models.Book;
+import com.library.models.Patron;
+import com.library.snapshot.LibrarySnapshot;
+import com.library.snapshot.LibrarySnapshots;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LendingBenchmarks Class - checkoutBook + returnBook cycles on LendingService
+ *
+ * Covers:
+ * - Cycle spread over the catalog, on one hot title, and on a 512-copy
+ *   textbook with most copies out; each single-threaded and with one
+ *   thread per CPU
+ * - The spread cycle with an asynchronous event log, versioned with a
+ *   snapshot open, and recorded in an on-disk lending ledger
+ * - 20-item checkout + return: batch API vs one call per item
+ * - Hold hand-off of a one-copy title with every patron queued for it
+ *
+ * Every trial ends by checking that all copies came back and that the
+ * copy counts agree with the copy inventories; a drift fails the run.
+ * Run any of them at other thread counts with -t.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LendingBenchmarks {
+
+    @Benchmark
+    public Book checkoutReturn(Verified v, LibraryState s, Cursor c) {
+        return cycle(s, c.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Book checkoutReturnContended(Verified v, LibraryState s, Cursor c) {
+        return cycle(s, c.next());
+    }
+
+    @Benchmark
+    public Book checkoutReturnHotTitle(Verified v, LibraryState s, Cursor c) {
+        return cycle(s, s.book(0), c.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Book checkoutReturnHotTitleContended(Verified v, LibraryState s, Cursor c) {
+        return cycle(s, s.book(0), c.next());
+    }
+
+    @Benchmark
+    public Book checkoutReturnTextbook(Textbook t, LibraryState s, Cursor c) {
+        return cycle(s, t.textbook, c.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Book checkoutReturnTextbookContended(Textbook t, LibraryState s, Cursor c) {
+        return cycle(s, t.textbook, c.next());
+    }
+
+    @Benchmark
+    public Book checkoutReturnEventLog(EventLog log, Verified v, LibraryState s, Cursor c) {
+        return cycle(s, c.next());
+    }
+
+    @Benchmark
+    public Book checkoutReturnVersioned(Versioned open, Verified v, LibraryState s, Cursor c) {
+        return cycle(s, c.next());
+    }
+
+    @Benchmark
+    public Book checkoutReturnLedger(Ledger ledger, Verified v, LibraryState s, Cursor c) {
+        return cycle(s, c.next());
+    }
+
+    @Benchmark
+    public Patron twentyItemsOneByOne(Verified v, LibraryState s, Cursor c) {
+        int i = c.next();
+        Patron patron = s.patron(i);
+        List<String> isbns = s.slice(i, 20);
+        for (String isbn : isbns) {
+            s.lending.checkoutBook(s.books.searchByIsbn(isbn), patron, LibraryState.TODAY);
+        }
+        for (String isbn : isbns) {
+            s.lending.returnBook(s.books.searchByIsbn(isbn), patron, LibraryState.TODAY);
+        }
+        return patron;
+    }
+
+    @Benchmark
+    public BatchResult twentyItemsBatch(Verified v, LibraryState s, Cursor c) {
+        int i = c.next();
+        String patronId = s.patronIds[i % s.patronIds.length];
+        List<String> isbns = s.slice(i, 20);
+        s.lending.checkoutBatch(patronId, isbns, LibraryState.TODAY, false);
+        return s.lending.returnBatch(patronId, isbns, LibraryState.TODAY, false);
+    }
+
+    /**
+     * Return hands the copy to the head of the queue, who collects it;
+     * the returner joins the back, so the queue stays full
+     */
+    @Benchmark
+    @Threads(1)
+    public Book holdHandOff(HoldQueue q, LibraryState s) {
+        Patron current = s.patronList.get(q.holder);
+        int next = (q.holder + 1) % s.patronList.size();
+        s.lending.returnBook(q.hot, current, LibraryState.TODAY);
+        s.lending.checkoutBook(q.hot, s.patronList.get(next), LibraryState.TODAY);
+        s.lending.placeHold(q.hot, current, LibraryState.TODAY);
+        q.holder = next;
+        return q.hot;
+    }
+
+    private static Book cycle(LibraryState s, int i) {
+        return cycle(s, s.book(i), i);
+    }
+
+    private static Book cycle(LibraryState s, Book book, int i) {
+        Patron patron = s.patron(i);
+        if (s.lending.checkoutBook(book, patron, LibraryState.TODAY)) {
+            s.lending.returnBook(book, patron, LibraryState.TODAY);
+        }
+        return book;
+    }
+
+    /**
+     * Checks every copy is back once the trial is over
+     */
+    @State(Scope.Benchmark)
+    public static class Verified {
+        @TearDown
+        public void verify(LibraryState s) {
+            s.verifyCopies();
+        }
+    }
+
+    /**
+     * 512 copies, 448 of them already out: the free ones sit in the last words
+     */
+    @State(Scope.Benchmark)
+    public static class Textbook {
+        Book textbook;
+        int[] lent;
+
+        @Setup
+        public void load(LibraryState s) {
+            textbook = new Book("978TEXTBOOK", "Textbook", "Author 0", "Publisher 0", 2024, 512);
+            s.books.loadBook(textbook);
+            lent = new int[448];
+            for (int k = 0; k < lent.length; k++) {
+                lent[k] = textbook.checkoutCopy();
+            }
+        }
+
+        @TearDown
+        public void unload(LibraryState s) {
+            for (int copy : lent) {
+                textbook.returnCopy(copy);
+            }
+            s.books.unloadBook(textbook.getIsbn());
+            if (!textbook.copiesMatch() || textbook.getAvailableCopies() != 512) {
+                throw new IllegalStateException("Copy count drift on " + textbook);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EventLog {
+        Path log;
+        RingBufferEventSink sink;
+
+        @Setup
+        public void attach(LibraryState s) throws IOException {
+            log = Files.createTempFile("library-events", ".log");
+            sink = new RingBufferEventSink(log, 1 << 16);
+            s.lending.setEventSink(sink);
+        }
+
+        @TearDown
+        public void detach(LibraryState s) throws IOException {
+            s.lending.setEventSink(EventSink.NONE);
+            sink.close();
+            Files.deleteIfExists(log);
+        }
+    }
+
+    /**
+     * With a snapshot open, every first change per epoch keeps the old state
+     */
+    @State(Scope.Benchmark)
+    public static class Versioned {
+        LibrarySnapshot open;
+
+        @Setup
+        public void attach(LibraryState s) {
+            open = new LibrarySnapshots(s.books, s.patrons, s.lending).open();
+        }
+
+        @TearDown
+        public void detach(LibraryState s) {
+            open.close();
+            s.books.setVersionClock(null);
+            s.patrons.setVersionClock(null);
+            s.lending.setVersionClock(null);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Ledger {
+        Path dir;
+        LendingLedger ledger;
+
+        @Setup
+        public void attach(LibraryState s) throws IOException {
+            dir = Files.createTempDirectory("library-ledger");
+            ledger = LendingLedger.open(dir);
+            s.lending.setLedger(ledger);
+        }
+
+        @TearDown
+        public void detach(LibraryState s) throws IOException {
+            s.lending.setLedger(null);
+            ledger.close();
+            LibraryState.deleteTree(dir);
+        }
+    }
+
+    /**
+     * A one-copy bestseller, lent to the first patron with every other
+     * patron holding it
+     */
+    @State(Scope.Benchmark)
+    public static class HoldQueue {
+        Book hot;
+        int holder;
+
+        @Setup
+        public void queue(LibraryState s) {
+            hot = new Book("978HOLDHOT", "Bestseller", "Author 0", "Publisher 0", 2024, 1);
+            s.books.loadBook(hot);
+            s.lending.checkoutBook(hot, s.patronList.get(0), LibraryState.TODAY);
+            for (int k = 1; k < s.patronList.size(); k++) {
+                s.lending.placeHold(hot, s.patronList.get(k), LibraryState.TODAY);
+            }
+        }
+
+        @TearDown
+        public void release(LibraryState s) {
+            s.lending.returnBook(hot, s.patronList.get(holder), LibraryState.TODAY);
+            for (Patron patron : s.patronList) {
+                s.lending.cancelHold(hot, patron, LibraryState.TODAY);
+            }
+            s.books.unloadBook(hot.getIsbn());
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.library.bench;
+
+import com.library.events.EventSink;
+import com.library.events.EventType;
+import com.library.models.Book;
+import com.library.models.Loan;
+import com.library.models.Patron;
+import com.library.services.BookService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LendingStressTest Class - Concurrent checkout/return stress test for LendingService
+ *
+ * Features:
+ * - Worker threads check out a few shared titles with few copies and
+ *   return them, for patrons shared between threads, so desks race for
+ *   the last copy and for the same patron's returns
+ * - Returns pick a book the patron currently holds, which another
+ *   thread may be returning at the same moment
+ * - After each round, with lending quiet, checks the invariants:
+ *   successful checkouts minus returns equals active loans; each
+ *   patron's books match their loans; every loan holds its own copy;
+ *   copy counts agree with the copy inventories; once everything is
+ *   handed back, every copy is on the shelf
+ * - Reports operations per second at each thread count
+ *
+ * Usage:
+ *   java -cp benchmarks/target/benchmarks.jar com.library.bench.LendingStressTest [options]
+ *
+ * Options:
+ *   --threads 1,2,4,8      thread counts, one round each (default 1,2,4,N for N CPUs)
+ *   --seconds 5            length of each round
+ *   --titles 16            shared titles
+ *   --copies 3             copies per title
+ *   --patrons 64           patrons
+ *
+ * Exits with status 1 on the first broken invariant.
+ */
+public class LendingStressTest {
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private int[] threads;
+    private int seconds = 5;
+    private int titles = 16;
+    private int copies = 3;
+    private int patrons = 64;
+
+    private BookService bookService;
+    private PatronService patronService;
+    private LendingService lendingService;
+    private final List<Book> books = new ArrayList<>();
+    private final List<Patron> patronList = new ArrayList<>();
+    private final LongAdder checkedOut = new LongAdder();
+    private final LongAdder returned = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        LendingStressTest test = new LendingStressTest();
+        test.parse(args);
+        List<String> failures = test.run();
+        if (!failures.isEmpty()) {
+            for (String failure : failures) {
+                System.out.println("FAILED: " + failure);
+            }
+            System.exit(1);
+        }
+        System.out.println("All invariants held");
+    }
+
+    private void parse(String[] args) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        threads = cpus > 4 ? new int[] {1, 2, 4, cpus} : new int[] {1, 2, 4};
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads":
+                    String[] parts = args[i + 1].split(",");
+                    threads = new int[parts.length];
+                    for (int k = 0; k < parts.length; k++) {
+                        threads[k] = Integer.parseInt(parts[k].trim());
+                    }
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--titles":
+                    titles = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--copies":
+                    copies = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--patrons":
+                    patrons = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    private List<String> run() throws InterruptedException {
+        bookService = new BookService();
+        patronService = new PatronService();
+        lendingService = new LendingService(bookService, patronService);
+        bookService.setEventSink(EventSink.NONE);
+        patronService.setEventSink(EventSink.NONE);
+        // Count outcomes as the service reports them
+        lendingService.setEventSink((type, patronId, isbn, title, name, amount, date) -> {
+            if (type == EventType.CHECKED_OUT) {
+                checkedOut.increment();
+            } else if (type == EventType.RETURNED) {
+                returned.increment();
+            }
+        });
+        for (int i = 0; i < titles; i++) {
+            Book book = new Book(String.format("978%010d", i), "Title " + i, "Author " + i, "Publisher", 2000, copies);
+            bookService.loadBook(book);
+            books.add(book);
+        }
+        for (int i = 0; i < patrons; i++) {
+            Patron patron = new Patron("P" + i, "Patron " + i, "p" + i + "@example.com", "000");
+            patronService.loadPatron(patron);
+            patronList.add(patron);
+        }
+
+        System.out.printf("%d titles x %d copies, %d patrons, %d s per round%n", titles, copies, patrons, seconds);
+        List<String> failures = new ArrayList<>();
+        for (int t : threads) {
+            long ops = round(t);
+            System.out.printf("%3d threads  %,12d ops  %,10.0f ops/s  checkouts %,d  returns %,d%n",
+                    t, ops, ops / (double) seconds, checkedOut.sum(), returned.sum());
+            failures.addAll(check("after " + t + " threads"));
+            handBack();
+            failures.addAll(check("after hand-back at " + t + " threads"));
+            for (Book book : books) {
+                if (book.getAvailableCopies() != book.getTotalCopies()) {
+                    failures.add("copies missing after hand-back at " + t + " threads: " + book);
+                }
+            }
+            if (!failures.isEmpty()) {
+                break;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Run t workers for the round's length
+     *
+     * @return operations completed
+     */
+    private long round(int t) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>(t);
+        for (int w = 0; w < t; w++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = 0;
+                while ((done & 63) != 0 || System.nanoTime() < end) {
+                    Patron patron = patronList.get(random.nextInt(patronList.size()));
+                    List<String> held = patron.getBorrowedBooks();
+                    if (held.isEmpty() || random.nextInt(100) < 55) {
+                        lendingService.checkoutBook(books.get(random.nextInt(books.size())), patron, TODAY);
+                    } else {
+                        Book book = bookService.searchByIsbn(held.get(random.nextInt(held.size())));
+                        lendingService.returnBook(book, patron, TODAY);
+                    }
+                    done++;
+                }
+                ops.add(done);
+            }, "desk-" + w);
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum();
+    }
+
+    private void handBack() {
+        for (Patron patron : patronList) {
+            for (String isbn : patron.getBorrowedBooks()) {
+                lendingService.returnBook(bookService.searchByIsbn(isbn), patron, TODAY);
+            }
+        }
+    }
+
+    /**
+     * Invariants of a quiet library
+     */
+    private List<String> check(String when) {
+        List<String> failures = new ArrayList<>();
+        List<Loan> loans = lendingService.getAllActiveLoans();
+        long open = checkedOut.sum() - returned.sum();
+        if (open != loans.size()) {
+            failures.add(when + ": " + checkedOut.sum() + " checkouts - " + returned.sum() + " returns = " + open
+                    + " but " + loans.size() + " active loans");
+        }
+
+        int borrowed = 0;
+        for (Patron patron : patronList) {
+            List<String> held = patron.getBorrowedBooks();
+            int patronLoans = lendingService.getActiveLoans(patron.getPatronId()).size();
+            if (patronLoans != held.size()) {
+                failures.add(when + ": " + patron.getPatronId() + " holds " + held + " on " + patronLoans + " loans");
+            }
+            for (String isbn : new LinkedHashSet<>(held)) {
+                if (lendingService.findLoan(patron.getPatronId(), isbn) == null) {
+                    failures.add(when + ": " + patron.getPatronId() + " holds " + isbn + " without a loan");
+                }
+            }
+            borrowed += held.size();
+        }
+        if (borrowed != loans.size()) {
+            failures.add(when + ": patrons hold " + borrowed + " books but there are " + loans.size() + " active loans");
+        }
+
+        int onLoan = 0;
+        for (Book book : books) {
+            onLoan += book.getCopiesOnLoan();
+            if (book.getAvailableCopies() < 0 || book.getAvailableCopies() > book.getTotalCopies()) {
+                failures.add(when + ": available copies out of range: " + book);
+            }
+        }
+        if (onLoan != loans.size()) {
+            failures.add(when + ": " + onLoan + " copies on loan but " + loans.size() + " active loans");
+        }
+        for (String isbn : lendingService.findCopyDrift()) {
+            failures.add(when + ": copy drift on " + isbn);
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,192 @@
+package com.library.bench;
+
+import com.library.events.EventSink;
+import com.library.ledger.LedgerEvent;
+import com.library.ledger.LendingLedger;
+import com.library.models.Book;
+import com.library.models.Patron;
+import com.library.services.BookService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * LibraryState Class - Shared JMH fixture: a catalog, its patrons and the services
+ *
+ * Features:
+ * - Catalog of size books (titles "Title i Volume i%7", size/10 authors,
+ *   4 copies each), size/10 patrons (at least 100), 1% of them with a fine
+ * - Lookup keys (ISBNs, titles, authors, patron IDs) prepared up front
+ * - Helpers for skewed keys, ISBN slices, CSV dumps and synthetic ledgers
+ *
+ * Sizes run from 1K to 1M by default; 10M needs about 12 GB of heap:
+ *   java -jar benchmarks.jar -p size=10000000 -jvmArgsAppend -Xmx12g
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+    static final LocalDate TODAY = LocalDate.now();
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    BookService books;
+    PatronService patrons;
+    LendingService lending;
+    List<Book> bookList;
+    List<Patron> patronList;
+    String[] isbns;
+    String[] titles;
+    String[] authors;
+    String[] patronIds;
+
+    @Setup
+    public void setUp() {
+        books = new BookService();
+        patrons = new PatronService();
+        lending = new LendingService(books, patrons);
+        books.setEventSink(EventSink.NONE);
+        patrons.setEventSink(EventSink.NONE);
+        lending.setEventSink(EventSink.NONE);
+        authors = new String[Math.max(1, size / 10)];
+        for (int a = 0; a < authors.length; a++) {
+            authors[a] = "Author " + a;
+        }
+        bookList = freshBooks();
+        isbns = new String[size];
+        titles = new String[size];
+        for (int i = 0; i < size; i++) {
+            Book b = bookList.get(i);
+            books.loadBook(b);
+            isbns[i] = b.getIsbn();
+            titles[i] = b.getTitle();
+        }
+
+        int patronCount = Math.max(100, size / 10);
+        patronList = new ArrayList<>(patronCount);
+        patronIds = new String[patronCount];
+        for (int i = 0; i < patronCount; i++) {
+            Patron patron = new Patron("P" + i, "Patron " + i, "p" + i + "@example.com", "000");
+            if (i % 100 == 0) {
+                patron.addFine(1000);
+            }
+            patrons.loadPatron(patron);
+            patronList.add(patron);
+            patronIds[i] = patron.getPatronId();
+        }
+    }
+
+    // ===== KEYS =====
+
+    Book book(int i) {
+        return bookList.get(i % size);
+    }
+
+    Patron patron(int i) {
+        return patronList.get(i % patronList.size());
+    }
+
+    /**
+     * Index in [0, size) derived from i, heavily skewed towards 0 the
+     * way real lookup traffic favours a few hundred hot titles
+     */
+    static int skewed(int i, int size) {
+        long h = i * 0x9E3779B97F4A7C15L;
+        double u = ((h ^ (h >>> 29)) >>> 11) * 0x1.0p-53;
+        double u2 = u * u;
+        double u4 = u2 * u2;
+        return (int) (size * (u4 * u4));           // top 1% of keys take about 56% of lookups
+    }
+
+    /**
+     * count consecutive ISBNs starting at a position derived from i
+     */
+    List<String> slice(int i, int count) {
+        int start = i % size;
+        List<String> list = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            list.add(isbns[(start + k) % size]);
+        }
+        return list;
+    }
+
+    // ===== DATA =====
+
+    List<Book> freshBooks() {
+        List<Book> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new Book(String.format("978%010d", i), "Title " + i + " Volume " + (i % 7),
+                    "Author " + (i % authors.length), "Publisher " + (i % 50), 1900 + i % 120, 4));
+        }
+        return list;
+    }
+
+    /**
+     * Write freshBooks() as a CSV catalog dump in a temporary file
+     */
+    Path writeCsv() throws IOException {
+        Path csv = Files.createTempFile("library-catalog", ".csv");
+        try (Writer out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write("isbn,title,author,publisher,year,copies\n");
+            for (Book b : freshBooks()) {
+                out.write(b.getIsbn() + "," + b.getTitle() + "," + b.getAuthor() + "," + b.getPublisher()
+                        + "," + b.getYear() + "," + b.getTotalCopies() + "\n");
+            }
+        }
+        return csv;
+    }
+
+    /**
+     * Append a synthetic history: each step checks a book out to a
+     * patron, and returns it with a fine and a payment every tenth time
+     */
+    void fillLedger(LendingLedger ledger, long events) {
+        LocalDate start = TODAY.minusYears(5);
+        for (long i = 0; ledger.getEventCount() < events; i++) {
+            String patronId = patronIds[(int) (i % patronIds.length)];
+            String isbn = isbns[(int) (i % size)];
+            LocalDate date = start.plusDays(i % 1800);
+            ledger.append(LedgerEvent.Type.CHECKOUT, patronId, isbn, date, 0);
+            ledger.append(LedgerEvent.Type.RETURN, patronId, isbn, date.plusDays(14), 0);
+            if (i % 10 == 0) {
+                ledger.append(LedgerEvent.Type.FINE, patronId, isbn, date.plusDays(14), 1000);
+                ledger.append(LedgerEvent.Type.PAYMENT, patronId, null, date.plusDays(20), 1000);
+            }
+        }
+    }
+
+    // ===== CHECKS =====
+
+    /**
+     * After every checkout was matched by a return, all copies must be back
+     *
+     * @throws IllegalStateException on the first title with copies missing
+     */
+    void verifyCopies() {
+        for (Book b : bookList) {
+            if (b.getAvailableCopies() != b.getTotalCopies() || !b.copiesMatch()) {
+                throw new IllegalStateException("Copy count drift on " + b);
+            }
+        }
+    }
+
+    static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,144 @@
+package com.library.bench;
+
+import com.library.models.Money;
+import com.library.models.Patron;
+import com.library.models.PatronStatus;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ModelBenchmarks Class - Patron model before and after enums and paise
+ *
+ * Covers, each on the old model (String status, double fine in rupees)
+ * and on Patron (PatronStatus, long fine in paise):
+ * - The status check on the checkout path
+ * - The active patron count, a status scan of every patron
+ * - The fine total over every patron
+ *
+ * LegacyPatron keeps the fields of the Patron the enums replaced. Its
+ * statuses are separate String objects, as when read from a file, so
+ * equals() compares characters. Both models accrue the same fines
+ * (8 per patron, with paise); setup prints how far the double total
+ * is from the exact one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ModelBenchmarks {
+
+    @Benchmark
+    public boolean statusCheckString(Models m, Cursor c) {
+        return "ACTIVE".equals(m.legacy[c.next() % m.patrons].status);
+    }
+
+    @Benchmark
+    public boolean statusCheckEnum(Models m, Cursor c) {
+        return m.current[c.next() % m.patrons].getStatus() == PatronStatus.ACTIVE;
+    }
+
+    @Benchmark
+    public int activeCountString(Models m) {
+        int count = 0;
+        for (LegacyPatron p : m.legacy) {
+            if ("ACTIVE".equals(p.status)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int activeCountEnum(Models m) {
+        int count = 0;
+        for (Patron p : m.current) {
+            if (p.getStatus() == PatronStatus.ACTIVE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public double fineTotalDouble(Models m) {
+        double total = 0;
+        for (LegacyPatron p : m.legacy) {
+            total += p.fineAmount;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long fineTotalPaise(Models m) {
+        long total = 0;
+        for (Patron p : m.current) {
+            total += p.getFineAmount();
+        }
+        return total;
+    }
+
+    /**
+     * The same patrons in both models, 1 in 10 suspended
+     */
+    @State(Scope.Benchmark)
+    public static class Models {
+        private static final int FINES_PER_PATRON = 8;
+
+        @Param({"1000", "100000"})
+        public int patrons;
+
+        LegacyPatron[] legacy;
+        Patron[] current;
+
+        @Setup
+        public void create() {
+            Random random = new Random(42);
+            legacy = new LegacyPatron[patrons];
+            current = new Patron[patrons];
+            for (int i = 0; i < patrons; i++) {
+                String status = i % 10 == 0 ? "SUSPENDED" : "ACTIVE";
+                legacy[i] = new LegacyPatron(new String(status));
+                current[i] = new Patron("P" + i, "Patron " + i, "p" + i + "@example.com", "000");
+                current[i].setStatus(PatronStatus.valueOf(status));
+                for (int f = 0; f < FINES_PER_PATRON; f++) {
+                    long paise = 1 + random.nextInt(5_000);
+                    legacy[i].fineAmount += paise / 100.0;
+                    current[i].addFine(paise);
+                }
+            }
+            double total = 0;
+            long exact = 0;
+            for (int i = 0; i < patrons; i++) {
+                total += legacy[i].fineAmount;
+                exact += current[i].getFineAmount();
+            }
+            BigDecimal drift = new BigDecimal(total).subtract(BigDecimal.valueOf(exact, 2));
+            System.out.println("# fine total " + Money.format(exact) + ", double off by " + drift.toPlainString());
+        }
+    }
+
+    /**
+     * Patron state as held before the enum/paise change
+     */
+    static final class LegacyPatron {
+        final String status;
+        double fineAmount;
+
+        LegacyPatron(String status) {
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.library.bench;
+
+import com.library.cache.LookupCache;
+import com.library.metrics.ServiceMetrics;
+import com.library.models.Patron;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PatronBenchmarks Class - Lookups and scans on PatronService
+ *
+ * Covers:
+ * - findPatron, with metrics attached, and through a LookupCache on
+ *   skewed keys
+ * - searchByName and suggestNames autocomplete, typed prefix and typo
+ * - Scans of the registry's fine column (patrons with fines, total,
+ *   owing at least) and the active patron count
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PatronBenchmarks {
+
+    @Benchmark
+    public Patron findPatron(LibraryState s, Cursor c) {
+        return s.patrons.findPatron(s.patronIds[c.next() % s.patronIds.length]);
+    }
+
+    @Benchmark
+    public Patron findPatronWithMetrics(Metered m, LibraryState s, Cursor c) {
+        return s.patrons.findPatron(s.patronIds[c.next() % s.patronIds.length]);
+    }
+
+    @Benchmark
+    public Patron findPatronCached(Cached cached, LibraryState s, Cursor c) {
+        return s.patrons.findPatron(s.patronIds[LibraryState.skewed(c.next(), s.patronIds.length)]);
+    }
+
+    @Benchmark
+    public List<Patron> searchByName(LibraryState s, Cursor c) {
+        return s.patrons.searchByName("Patron " + c.next() % s.patronIds.length);
+    }
+
+    @Benchmark
+    public List<Patron> suggestNamesPrefix(LibraryState s, Cursor c) {
+        return s.patrons.suggestNames("patron " + (c.next() % s.patronIds.length) / 10, 10);
+    }
+
+    @Benchmark
+    public List<Patron> suggestNamesTypo(LibraryState s, Cursor c) {
+        return s.patrons.suggestNames("patorn " + c.next() % s.patronIds.length, 10);
+    }
+
+    @Benchmark
+    public List<Patron> getPatronsWithFines(LibraryState s) {
+        return s.patrons.getPatronsWithFines();
+    }
+
+    @Benchmark
+    public long getTotalFines(LibraryState s) {
+        return s.patrons.getTotalFines();
+    }
+
+    @Benchmark
+    public List<Patron> getPatronsOwingAtLeast(LibraryState s) {
+        return s.patrons.getPatronsOwingAtLeast(1);
+    }
+
+    @Benchmark
+    public int getActivePatronsCount(LibraryState s) {
+        return s.patrons.getActivePatronsCount();
+    }
+
+    /**
+     * ServiceMetrics sampling 1 call in 16
+     */
+    @State(Scope.Benchmark)
+    public static class Metered {
+        @Setup
+        public void attach(LibraryState s) {
+            s.patrons.setMetrics(new ServiceMetrics(16));
+        }
+
+        @TearDown
+        public void detach(LibraryState s) {
+            s.patrons.setMetrics(null);
+        }
+    }
+
+    /**
+     * LookupCache holding 1% of the patrons
+     */
+    @State(Scope.Benchmark)
+    public static class Cached {
+        LookupCache<String, Patron> cache;
+
+        @Setup
+        public void attach(LibraryState s) {
+            cache = new LookupCache<>(Math.max(1, s.patronIds.length / 100));
+            s.patrons.setCache(cache);
+        }
+
+        @TearDown
+        public void detach(LibraryState s) {
+            s.patrons.setCache(null);
+            System.out.println("# cache (1% of patrons, skewed keys): " + cache.stats());
+        }
+    }
+}
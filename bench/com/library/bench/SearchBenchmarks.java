@@ -0,0 +1,90 @@
+package com.library.bench;
+
+import com.library.models.Book;
+import com.library.search.InvertedIndex;
+import com.library.search.SearchPage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SearchBenchmarks Class - Ranked full-text search on a large synthetic corpus
+ *
+ * Covers:
+ * - InvertedIndex top 10 and top 100 for queries of 2 to 4 words
+ * - The second page of the same queries, through the cursor
+ *
+ * Words are drawn from a 50K vocabulary with a steep skew, so queries
+ * mix very common words (long posting lists, low weight) with rare ones,
+ * the case max-score pruning is for. The catalog fixture's titles are
+ * too uniform for that, hence a corpus of its own.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SearchBenchmarks {
+    private static final int VOCABULARY = 50_000;
+    private static final int QUERIES = 1024;
+
+    @Param({"100000", "1000000"})
+    public int corpus;
+
+    private InvertedIndex index;
+    private String[] queries;
+    private String[] secondPages;
+
+    @Setup
+    public void build() {
+        Random random = new Random(42);
+        index = new InvertedIndex();
+        for (int d = 0; d < corpus; d++) {
+            index.add(new Book(String.format("979%010d", d), words(random, 5), words(random, 2),
+                    words(random, 1), 2000, 1));
+        }
+        queries = new String[QUERIES];
+        secondPages = new String[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = words(random, 2 + random.nextInt(3));
+            secondPages[q] = index.search(queries[q], 10, null).getNextCursor();
+        }
+    }
+
+    @Benchmark
+    public SearchPage top10(Cursor c) {
+        return index.search(queries[c.next() % QUERIES], 10, null);
+    }
+
+    @Benchmark
+    public SearchPage top100(Cursor c) {
+        return index.search(queries[c.next() % QUERIES], 100, null);
+    }
+
+    @Benchmark
+    public SearchPage secondPage(Cursor c) {
+        int q = c.next() % QUERIES;
+        return index.search(queries[q], 10, secondPages[q]);
+    }
+
+    // Word k is picked with probability falling off steeply in k
+    private static String words(Random random, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            double u = random.nextDouble();
+            sb.append(i == 0 ? "" : " ").append('w').append((int) (VOCABULARY * u * u * u));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,446 @@
+package com.library.bench;
+
+import com.library.events.EventSink;
+import com.library.metrics.LatencyHistogram;
+import com.library.models.Book;
+import com.library.models.Patron;
+import com.library.server.LibraryServer;
+import com.library.services.BookService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ServerLoadTest Class - Many-connection load generator for LibraryServer
+ *
+ * Features:
+ * - Opens thousands of keep-alive connections from one selector thread;
+ *   each connection behaves like a circulation desk: send a request,
+ *   wait for the answer, think, repeat
+ * - Request mix: 70% book by ISBN, 15% search, 10% patron lookup,
+ *   5% checkout followed by the matching return
+ * - Reports every second: requests, errors, open connections and
+ *   p50/p99/p99.9/max latency, then totals over the measured run
+ * - Starts the server in a child JVM by default, so server and client
+ *   each get their own file-descriptor limit
+ *
+ * Usage:
+ *   java -cp bin com.library.bench.ServerLoadTest [options]
+ *
+ * Options:
+ *   --connections 15000     concurrent connections
+ *   --think 15000           mean ms between a response and the next request
+ *   --warmup 10             s to run once every connection is open, unmeasured
+ *   --seconds 30            measured time after the warmup
+ *   --books 20000           catalog size of the spawned server
+ *   --server-heap 2g        -Xms/-Xmx of the spawned server
+ *   --port 8080             drive an already running server instead
+ */
+public class ServerLoadTest {
+    private static final int CONNECTS_PER_TICK = 100;
+
+    private int connections = 15_000;
+    private long thinkMillis = 15_000;
+    private int seconds = 30;
+    private int warmupSeconds = 10;
+    private int books = 20_000;
+    private int port = -1;
+    private String serverHeap = "2g";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 1 && args[0].equals("--serve")) {
+            serve(Integer.parseInt(args[1]));
+            return;
+        }
+        ServerLoadTest test = new ServerLoadTest();
+        test.parse(args);
+        test.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--connections":
+                    connections = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--think":
+                    thinkMillis = Long.parseLong(args[i + 1]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--warmup":
+                    warmupSeconds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--books":
+                    books = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--server-heap":
+                    serverHeap = args[i + 1];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        Process child = null;
+        int target = port;
+        if (target < 0) {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            // Heap sized up front: each open connection holds about 20 KB of
+            // server buffers, and growing into that through full collections
+            // would show up as multi-second stalls
+            child = new ProcessBuilder(java, "-Xms" + serverHeap, "-Xmx" + serverHeap, "-cp", System.getProperty("java.class.path"),
+                    ServerLoadTest.class.getName(), "--serve", String.valueOf(books))
+                    .redirectErrorStream(true)
+                    .start();
+            BufferedReader lines = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8));
+            String line = lines.readLine();
+            while (line != null && !line.startsWith("port ")) {
+                System.out.println(line);                   // JVM notices, or a startup failure
+                line = lines.readLine();
+            }
+            if (line == null) {
+                child.destroy();
+                throw new IllegalStateException("Server did not start");
+            }
+            target = Integer.parseInt(line.substring(5).trim());
+        }
+        System.out.printf("Driving localhost:%d with %d connections, %d ms think time, %d books%n",
+                target, connections, thinkMillis, books);
+        try {
+            new Driver(new InetSocketAddress("127.0.0.1", target)).run();
+        } finally {
+            if (child != null) {
+                child.destroy();
+                child.waitFor();
+            }
+        }
+    }
+
+    /**
+     * Child JVM: a synthetic catalog behind a LibraryServer on a free port
+     */
+    private static void serve(int bookCount) throws Exception {
+        BookService bookService = new BookService();
+        PatronService patronService = new PatronService();
+        LendingService lendingService = new LendingService(bookService, patronService);
+        bookService.setEventSink(EventSink.NONE);
+        patronService.setEventSink(EventSink.NONE);
+        lendingService.setEventSink(EventSink.NONE);
+        for (int i = 0; i < bookCount; i++) {
+            bookService.loadBook(new Book(isbn(i), "Title " + i + " Volume " + (i % 7),
+                    "Author " + (i % Math.max(1, bookCount / 10)), "Publisher " + (i % 50), 1900 + i % 120, 4));
+        }
+        for (int i = 0; i < patronCount(bookCount); i++) {
+            patronService.loadPatron(new Patron("P" + i, "Patron " + i, "p" + i + "@example.com", "000"));
+        }
+        try (LibraryServer server = new LibraryServer(bookService, patronService, lendingService)) {
+            server.start(0);
+            System.out.println("port " + server.getPort());
+            System.out.flush();
+            while (System.in.read() >= 0) {
+                // runs until the parent closes our stdin or kills us
+            }
+        }
+    }
+
+    private static String isbn(int i) {
+        return String.format("978%010d", i);
+    }
+
+    private static int patronCount(int bookCount) {
+        return Math.max(100, bookCount / 10);
+    }
+
+    /**
+     * Single-threaded NIO client holding every connection
+     */
+    private class Driver {
+        private final InetSocketAddress address;
+        private final Selector selector;
+        private final PriorityQueue<Desk> waiting;
+        private final List<Desk> desks;
+        private LatencyHistogram second;
+        private LatencyHistogram total;
+        private long errors;
+        private long secondErrors;
+        private int open;
+        private int connecting;
+
+        Driver(InetSocketAddress address) throws IOException {
+            this.address = address;
+            this.selector = Selector.open();
+            this.waiting = new PriorityQueue<>((a, b) -> Long.compare(a.sendAt, b.sendAt));
+            this.desks = new ArrayList<>(connections);
+            this.second = new LatencyHistogram();
+        }
+
+        void run() throws IOException {
+            long start = System.nanoTime();
+            long nextTick = start + 100_000_000L;
+            long nextReport = start + 1_000_000_000L;
+            long measureStart = Long.MAX_VALUE;
+            long measureEnd = Long.MAX_VALUE;
+            int elapsed = 0;
+            while (System.nanoTime() < measureEnd) {
+                long now = System.nanoTime();
+                if (now >= nextTick) {
+                    for (int i = 0; i < CONNECTS_PER_TICK && desks.size() < connections; i++) {
+                        connect(now);
+                    }
+                    nextTick += 100_000_000L;
+                }
+                while (!waiting.isEmpty() && waiting.peek().sendAt <= now) {
+                    send(waiting.poll(), now);
+                }
+                long wait = waiting.isEmpty() ? 10 : Math.max(1, (waiting.peek().sendAt - now) / 1_000_000L);
+                selector.select(Math.min(wait, 10));
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                now = System.nanoTime();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Desk desk = (Desk) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            desk.channel.finishConnect();
+                            connecting--;
+                            open++;
+                            key.interestOps(0);
+                            desk.sendAt = now + ThreadLocalRandom.current().nextLong(thinkMillis * 1_000_000L + 1);   // spread first requests
+                            waiting.add(desk);
+                        } else if (key.isWritable()) {
+                            flush(desk, key);
+                        } else if (key.isReadable()) {
+                            receive(desk, key, now);
+                        }
+                    } catch (IOException e) {
+                        fail(desk, key);
+                    }
+                }
+                if (now >= nextReport) {
+                    elapsed++;
+                    report(elapsed, total != null ? "" : measureStart == Long.MAX_VALUE ? "ramp" : "warm");
+                    nextReport += 1_000_000_000L;
+                    if (measureStart == Long.MAX_VALUE && desks.size() == connections && connecting == 0) {
+                        measureStart = now + warmupSeconds * 1_000_000_000L;
+                    }
+                    if (total == null && now >= measureStart) {
+                        // every desk is connected and the server's JIT has settled
+                        total = new LatencyHistogram();
+                        errors = 0;
+                        measureEnd = now + seconds * 1_000_000_000L;
+                    }
+                }
+            }
+            LatencyHistogram.Snapshot s = total.snapshot();
+            System.out.printf("%nTotal: %d requests over %d s (%.0f/s), %d errors, %d/%d connections open%n",
+                    s.getCount(), seconds, (double) s.getCount() / seconds, errors, open, connections);
+            System.out.printf("Latency: p50 %s  p99 %s  p99.9 %s  max %s%n",
+                    millis(s.getValueAtPercentile(50)), millis(s.getValueAtPercentile(99)),
+                    millis(s.getValueAtPercentile(99.9)), millis(s.getMax()));
+            for (Desk desk : desks) {
+                desk.channel.close();
+            }
+            selector.close();
+        }
+
+        private void connect(long now) throws IOException {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            Desk desk = new Desk(channel, desks.size());
+            desks.add(desk);
+            if (channel.connect(address)) {
+                open++;
+                channel.register(selector, 0, desk);
+                desk.sendAt = now;
+                waiting.add(desk);
+            } else {
+                connecting++;
+                channel.register(selector, SelectionKey.OP_CONNECT, desk);
+            }
+        }
+
+        private void send(Desk desk, long now) {
+            SelectionKey key = desk.channel.keyFor(selector);
+            desk.request(books);
+            desk.sentAt = now;
+            try {
+                flush(desk, key);
+            } catch (IOException e) {
+                fail(desk, key);
+            }
+        }
+
+        private void flush(Desk desk, SelectionKey key) throws IOException {
+            desk.channel.write(desk.out);
+            key.interestOps(desk.out.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        private void receive(Desk desk, SelectionKey key, long now) throws IOException {
+            if (desk.channel.read(desk.in) < 0) {
+                throw new IOException("closed by server");
+            }
+            int status = desk.complete();
+            if (status == 0) {
+                if (!desk.in.hasRemaining()) {
+                    desk.grow();
+                }
+                return;
+            }
+            long latency = now - desk.sentAt;
+            second.record(latency);
+            if (total != null) {
+                total.record(latency);
+            }
+            if (status >= 500 || status == 400 || status == 405) {
+                errors++;
+                secondErrors++;
+            }
+            key.interestOps(0);
+            desk.sendAt = desk.pendingReturn != null ? now : now + think();
+            waiting.add(desk);
+        }
+
+        /**
+         * Think time drawn from 0.5x to 1.5x the mean, so desks that
+         * started together do not stay in lockstep
+         */
+        private long think() {
+            long mean = thinkMillis * 1_000_000L;
+            return mean / 2 + ThreadLocalRandom.current().nextLong(mean + 1);
+        }
+
+        private void fail(Desk desk, SelectionKey key) {
+            errors++;
+            secondErrors++;
+            if (key.isValid() && key.interestOps() == SelectionKey.OP_CONNECT) {
+                connecting--;
+            } else {
+                open--;
+            }
+            key.cancel();
+            try {
+                desk.channel.close();
+            } catch (IOException ignored) {
+                // already failed
+            }
+        }
+
+        private void report(int elapsed, String phase) {
+            LatencyHistogram.Snapshot s = second.snapshot();
+            second = new LatencyHistogram();
+            System.out.printf("%4ds %-4s open %6d  req/s %7d  err %4d  p50 %8s  p99 %8s  p99.9 %8s  max %8s%n",
+                    elapsed, phase, open, s.getCount(), secondErrors,
+                    millis(s.getValueAtPercentile(50)), millis(s.getValueAtPercentile(99)),
+                    millis(s.getValueAtPercentile(99.9)), millis(s.getMax()));
+            secondErrors = 0;
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2fms", nanos / 1e6);
+    }
+
+    /**
+     * One simulated circulation desk on its own keep-alive connection
+     */
+    private static class Desk {
+        final SocketChannel channel;
+        final String patronId;
+        ByteBuffer out;
+        ByteBuffer in = ByteBuffer.allocate(4096);
+        long sendAt;
+        long sentAt;
+        String pendingReturn;
+
+        Desk(SocketChannel channel, int id) {
+            this.channel = channel;
+            this.patronId = "P" + id;
+        }
+
+        /**
+         * Build the next request of the mix into out
+         */
+        void request(int books) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String line;
+            if (pendingReturn != null) {
+                line = "POST /return?patronId=" + patronId + "&isbn=" + pendingReturn;
+                pendingReturn = null;
+            } else {
+                int roll = random.nextInt(100);
+                int book = random.nextInt(books);
+                if (roll < 70) {
+                    line = "GET /books/" + isbn(book);
+                } else if (roll < 85) {
+                    line = "GET /books?q=title+" + book + "&limit=10";
+                } else if (roll < 95) {
+                    line = "GET /patrons/P" + random.nextInt(patronCount(books));
+                } else {
+                    line = "POST /checkout?patronId=" + patronId + "&isbn=" + isbn(book);
+                    pendingReturn = isbn(book);
+                }
+            }
+            String request = line + " HTTP/1.1\r\nHost: localhost\r\nContent-Length: 0\r\n\r\n";
+            out = ByteBuffer.wrap(request.getBytes(StandardCharsets.US_ASCII));
+            in.clear();
+        }
+
+        /**
+         * Status code once a whole response is buffered, else 0
+         */
+        int complete() {
+            byte[] data = in.array();
+            int length = in.position();
+            int headerEnd = -1;
+            for (int i = 3; i < length; i++) {
+                if (data[i] == '\n' && data[i - 1] == '\r' && data[i - 2] == '\n' && data[i - 3] == '\r') {
+                    headerEnd = i + 1;
+                    break;
+                }
+            }
+            if (headerEnd < 0) {
+                return 0;
+            }
+            String headers = new String(data, 0, headerEnd, StandardCharsets.US_ASCII);
+            int contentLength = 0;
+            for (String header : headers.split("\r\n")) {
+                if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    contentLength = Integer.parseInt(header.substring(15).trim());
+                }
+            }
+            if (length < headerEnd + contentLength) {
+                return 0;
+            }
+            return Integer.parseInt(headers.substring(9, 12));
+        }
+
+        void grow() {
+            ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+            in.flip();
+            bigger.put(in);
+            in = bigger;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.library;
 
 import com.library.models.Book;
+import com.library.models.Money;
 import com.library.models.Patron;
 import com.library.services.BookService;
 import com.library.services.PatronService;
@@ -106,18 +107,16 @@ public class App {
         System.out.println("-".repeat(60));
         
         System.out.println("Patron: " + patron1.getName());
-        System.out.println("Total Fine: Rs. " + patron1.getFineAmount());
+        System.out.println("Total Fine: Rs. " + Money.format(patron1.getFineAmount()));
         
         System.out.println("\nPatron: " + patron3.getName());
-        System.out.println("Total Fine: Rs. " + patron3.getFineAmount());
+        System.out.println("Total Fine: Rs. " + Money.format(patron3.getFineAmount()));
 
         // ===== 8. DISPLAY ALL BOOKS WITH AVAILABILITY =====
         System.out.println("\n[8] ALL BOOKS IN LIBRARY");
         System.out.println("-".repeat(60));
         
-        for (Book b : bookService.getAllBooks()) {
-            System.out.println(b);
-        }
+        bookService.streamBooks().forEach(System.out::println);
         
         System.out.println("\nTotal Books: " + bookService.getTotalBooks());
         System.out.println("Total Available Copies: " + bookService.getTotalAvailableCopies());
@@ -126,9 +125,7 @@ public class App {
         System.out.println("\n[9] ALL REGISTERED PATRONS");
         System.out.println("-".repeat(60));
         
-        for (Patron p : patronService.getAllPatrons()) {
-            System.out.println(p);
-        }
+        patronService.streamPatrons().forEach(System.out::println);
         
         System.out.println("\nTotal Patrons: " + patronService.getTotalPatrons());
         System.out.println("Active Patrons: " + patronService.getActivePatronsCount());
@@ -138,7 +135,7 @@ public class App {
         System.out.println("-".repeat(60));
         
         for (Patron p : patronService.getPatronsWithFines()) {
-            System.out.println(p.getName() + " - Fine: Rs. " + p.getFineAmount());
+            System.out.println(p.getName() + " - Fine: Rs. " + Money.format(p.getFineAmount()));
         }
 
         // ===== COMPLETION =====
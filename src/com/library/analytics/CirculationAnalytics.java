@@ -0,0 +1,367 @@
+package com.library.analytics;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * CirculationAnalytics Class - Group-by and top-K queries over a CirculationStore
+ *
+ * Features:
+ * - Most-borrowed titles and authors, loans by publication year, loans
+ *   and fine totals by day, week, month or year
+ * - Every query is one pass over the columns, split into fork-join tasks
+ *   that each fill their own histogram; histograms are summed as the
+ *   tasks join, so no task ever locks or shares a counter
+ * - Inner loops are plain indexed loops over primitive arrays, one per
+ *   grouping, with the filter and grouping chosen outside the loop
+ * - Top-K through a bounded heap over the summed histogram
+ *
+ * Dates are inclusive; a null bound is open. Ties rank by the order
+ * titles and authors were first seen.
+ *
+ * Usage:
+ *   CirculationAnalytics analytics = new CirculationAnalytics(store);
+ *   List<Ranked> top = analytics.topTitles(from, to, 10);
+ *   SortedMap<LocalDate, Long> fines = analytics.fineTotals(from, to, ChronoUnit.MONTHS);
+ */
+public class CirculationAnalytics {
+    private static final int MIN_SLICE = 1 << 16;           // events scanned by one task without splitting
+    private static final long HISTOGRAM_BUDGET = 1L << 24;  // counters alive at once across tasks
+
+    private final CirculationStore store;
+    private ForkJoinPool pool;
+
+    public CirculationAnalytics(CirculationStore store) {
+        this.store = store;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Run queries on the given pool (the common pool by default)
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // ===== QUERIES =====
+
+    /**
+     * Count loans (checkouts) between two dates
+     */
+    public long countLoans(LocalDate from, LocalDate to) {
+        CirculationStore.View view = store.view();
+        return run(new Query(view, CirculationStore.Kind.LOAN, Key.NONE, from, to, 1))[0];
+    }
+
+    /**
+     * Sum fines charged between two dates (paise)
+     */
+    public long totalFines(LocalDate from, LocalDate to) {
+        CirculationStore.View view = store.view();
+        return run(new Query(view, CirculationStore.Kind.FINE, Key.NONE, from, to, 1))[0];
+    }
+
+    /**
+     * Get the k most-borrowed titles between two dates
+     */
+    public List<Ranked> topTitles(LocalDate from, LocalDate to, int k) {
+        CirculationStore.View view = store.view();
+        long[] loans = run(new Query(view, CirculationStore.Kind.LOAN, Key.TITLE, from, to, view.titleCount));
+        List<Ranked> result = new ArrayList<>();
+        for (int id : topK(loans, k)) {
+            String name = view.titleNames[id];
+            result.add(new Ranked(view.isbns[id], name != null ? name : CirculationStore.UNKNOWN, loans[id]));
+        }
+        return result;
+    }
+
+    /**
+     * Get the k most-borrowed authors between two dates
+     */
+    public List<Ranked> topAuthors(LocalDate from, LocalDate to, int k) {
+        CirculationStore.View view = store.view();
+        long[] loans = run(new Query(view, CirculationStore.Kind.LOAN, Key.AUTHOR, from, to, view.authorCount));
+        List<Ranked> result = new ArrayList<>();
+        for (int id : topK(loans, k)) {
+            result.add(new Ranked(view.authorNames[id], view.authorNames[id], loans[id]));
+        }
+        return result;
+    }
+
+    /**
+     * Count loans between two dates by the borrowed title's publication
+     * year (0 for titles never described)
+     */
+    public SortedMap<Integer, Long> loansByYear(LocalDate from, LocalDate to) {
+        CirculationStore.View view = store.view();
+        long[] loans = run(new Query(view, CirculationStore.Kind.LOAN, Key.YEAR, from, to, view.maxYear + 1));
+        SortedMap<Integer, Long> result = new TreeMap<>();
+        for (int year = 0; year < loans.length; year++) {
+            if (loans[year] != 0) {
+                result.put(year, loans[year]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Count loans per period (DAYS, WEEKS, MONTHS or YEARS), keyed by the
+     * first day of each period; empty periods are included
+     */
+    public SortedMap<LocalDate, Long> loansByPeriod(LocalDate from, LocalDate to, ChronoUnit period) {
+        return byPeriod(CirculationStore.Kind.LOAN, from, to, period);
+    }
+
+    /**
+     * Sum fines charged per period (DAYS, WEEKS, MONTHS or YEARS), in
+     * paise, keyed by the first day of each period; empty periods are included
+     */
+    public SortedMap<LocalDate, Long> fineTotals(LocalDate from, LocalDate to, ChronoUnit period) {
+        return byPeriod(CirculationStore.Kind.FINE, from, to, period);
+    }
+
+    /**
+     * Sum fine payments received per period (paise), like fineTotals()
+     */
+    public SortedMap<LocalDate, Long> paymentTotals(LocalDate from, LocalDate to, ChronoUnit period) {
+        return byPeriod(CirculationStore.Kind.PAYMENT, from, to, period);
+    }
+
+    private SortedMap<LocalDate, Long> byPeriod(CirculationStore.Kind kind, LocalDate from, LocalDate to,
+                                                ChronoUnit period) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Period totals need a date range: " + from + " to " + to);
+        }
+        List<LocalDate> starts = new ArrayList<>();
+        int[] buckets = new int[(int) ChronoUnit.DAYS.between(from, to) + 1];
+        LocalDate start = periodStart(from, period);
+        LocalDate next = start.plus(1, period);
+        starts.add(start);
+        for (int day = 0; day < buckets.length; day++) {
+            if (!from.plusDays(day).isBefore(next)) {
+                start = next;
+                next = start.plus(1, period);
+                starts.add(start);
+            }
+            buckets[day] = starts.size() - 1;
+        }
+
+        Query query = new Query(store.view(), kind, Key.PERIOD, from, to, starts.size());
+        query.buckets = buckets;
+        long[] totals = run(query);
+        SortedMap<LocalDate, Long> result = new TreeMap<>();
+        for (int i = 0; i < totals.length; i++) {
+            result.put(starts.get(i), totals[i]);
+        }
+        return result;
+    }
+
+    private static LocalDate periodStart(LocalDate date, ChronoUnit period) {
+        switch (period) {
+            case DAYS:
+                return date;
+            case WEEKS:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTHS:
+                return date.withDayOfMonth(1);
+            case YEARS:
+                return date.withDayOfYear(1);
+            default:
+                throw new IllegalArgumentException("Unsupported period: " + period);
+        }
+    }
+
+    // ===== EXECUTION =====
+
+    private long[] run(Query query) {
+        int count = query.view.count;
+        if (count == 0) {
+            return new long[query.groups];
+        }
+        // Enough tasks to keep every worker busy, few enough that their histograms fit the budget
+        long tasks = Math.max(1, Math.min(pool.getParallelism() * 4L, HISTOGRAM_BUDGET / Math.max(1, query.groups)));
+        int slice = (int) Math.max(MIN_SLICE, (count + tasks - 1) / tasks);
+        return pool.invoke(new GroupTask(query, 0, count, slice));
+    }
+
+    /**
+     * Indexes of the k largest non-zero values, largest first
+     */
+    private static List<Integer> topK(long[] values, int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        // Min-heap on (value, then later ID), so the weakest entry is evicted first
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k, (a, b) -> values[a] != values[b]
+                ? Long.compare(values[a], values[b]) : Integer.compare(b, a));
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == 0) {
+                continue;
+            }
+            if (heap.size() < k) {
+                heap.add(i);
+            } else if (values[i] > values[heap.peek()]) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        List<Integer> top = new ArrayList<>(heap);
+        top.sort((a, b) -> values[a] != values[b] ? Long.compare(values[b], values[a]) : Integer.compare(a, b));
+        return top;
+    }
+
+    /**
+     * What events are grouped by
+     */
+    private enum Key {
+        NONE,
+        TITLE,
+        AUTHOR,
+        YEAR,
+        PERIOD
+    }
+
+    /**
+     * One scan: which kind of event, the day range, grouping and measure
+     */
+    private static final class Query {
+        final CirculationStore.View view;
+        final byte kind;
+        final boolean sumAmounts;
+        final Key key;
+        final int fromDay;
+        final int toDay;
+        final int groups;
+        int[] buckets;              // day - fromDay -> period, for Key.PERIOD
+
+        Query(CirculationStore.View view, CirculationStore.Kind kind, Key key, LocalDate from, LocalDate to, int groups) {
+            this.view = view;
+            this.kind = (byte) kind.ordinal();
+            this.sumAmounts = kind != CirculationStore.Kind.LOAN;
+            this.key = key;
+            this.fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+            this.toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+            this.groups = groups;
+        }
+    }
+
+    private static class GroupTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Query query;
+        private final int from;
+        private final int to;
+        private final int slice;
+
+        GroupTask(Query query, int from, int to, int slice) {
+            this.query = query;
+            this.from = from;
+            this.to = to;
+            this.slice = slice;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > slice) {
+                int mid = from + (to - from) / 2;
+                GroupTask left = new GroupTask(query, from, mid, slice);
+                left.fork();
+                long[] right = new GroupTask(query, mid, to, slice).compute();
+                long[] sums = left.join();
+                for (int i = 0; i < sums.length; i++) {
+                    sums[i] += right[i];
+                }
+                return sums;
+            }
+            long[] sums = new long[query.groups];
+            int position = from;
+            while (position < to) {
+                int chunk = position >>> CirculationStore.CHUNK_BITS;
+                int start = position & (CirculationStore.CHUNK - 1);
+                int end = Math.min(CirculationStore.CHUNK, start + (to - position));
+                scan(chunk, start, end, sums);
+                position += end - start;
+            }
+            return sums;
+        }
+
+        // One loop per grouping, so the loop body stays small and branch-light
+        private void scan(int chunk, int start, int end, long[] sums) {
+            CirculationStore.View view = query.view;
+            byte[] kinds = view.kinds[chunk];
+            int[] days = view.days[chunk];
+            int[] titles = view.titles[chunk];
+            int[] amounts = view.amounts[chunk];
+            byte kind = query.kind;
+            int lo = query.fromDay;
+            int hi = query.toDay;
+            boolean sum = query.sumAmounts;
+            switch (query.key) {
+                case NONE: {
+                    // No branches: the filter becomes a 0/1 mask the JIT can keep in registers
+                    long total = 0;
+                    if (sum) {
+                        for (int i = start; i < end; i++) {
+                            total += (kinds[i] == kind & days[i] >= lo & days[i] <= hi) ? amounts[i] : 0;
+                        }
+                    } else {
+                        for (int i = start; i < end; i++) {
+                            total += (kinds[i] == kind & days[i] >= lo & days[i] <= hi) ? 1 : 0;
+                        }
+                    }
+                    sums[0] += total;
+                    break;
+                }
+                case TITLE:
+                    for (int i = start; i < end; i++) {
+                        if (kinds[i] == kind && days[i] >= lo && days[i] <= hi) {
+                            sums[titles[i]] += sum ? amounts[i] : 1;
+                        }
+                    }
+                    break;
+                case AUTHOR: {
+                    int[] authors = view.titleAuthors;
+                    int authorCount = view.authorCount;
+                    for (int i = start; i < end; i++) {
+                        if (kinds[i] == kind && days[i] >= lo && days[i] <= hi) {
+                            int author = authors[titles[i]];
+                            sums[author < authorCount ? author : 0] += sum ? amounts[i] : 1;
+                        }
+                    }
+                    break;
+                }
+                case YEAR: {
+                    short[] years = view.titleYears;
+                    int maxYear = view.maxYear;
+                    for (int i = start; i < end; i++) {
+                        if (kinds[i] == kind && days[i] >= lo && days[i] <= hi) {
+                            sums[Math.min(years[titles[i]], maxYear)] += sum ? amounts[i] : 1;
+                        }
+                    }
+                    break;
+                }
+                case PERIOD: {
+                    int[] buckets = query.buckets;
+                    for (int i = start; i < end; i++) {
+                        if (kinds[i] == kind && days[i] >= lo && days[i] <= hi) {
+                            sums[buckets[days[i] - lo]] += sum ? amounts[i] : 1;
+                        }
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown grouping: " + query.key);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.library.analytics;
+
+import com.library.ledger.LedgerEvent;
+import com.library.ledger.LendingLedger;
+import com.library.models.Book;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CirculationStore Class - Circulation events in columnar primitive arrays
+ *
+ * Features:
+ * - One column per field (kind, epoch day, title ID, amount), in chunks
+ *   of 65536 events: 13 bytes per event, no object per event, so scans
+ *   over hundreds of millions of loans run as tight array loops
+ * - Titles, authors and publication years held once in a small
+ *   dimension table; queries look them up by title ID, so a title
+ *   described after its loans were recorded still groups correctly
+ * - Fed incrementally from a LendingLedger (only events not loaded yet),
+ *   or directly with append()
+ * - A separate copy: queries never touch BookService or LendingService
+ *
+ * Loans (checkouts), fines and payments are kept; returns are not
+ * needed by the reports and are skipped. Appends are serialized;
+ * queries run on a view of the events present when they start.
+ *
+ * Usage:
+ *   CirculationStore store = new CirculationStore();
+ *   store.addTitles(bookService.getAllBooks());
+ *   store.load(ledger);                 // again later to catch up
+ *   CirculationAnalytics analytics = new CirculationAnalytics(store);
+ */
+public class CirculationStore {
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK = 1 << CHUNK_BITS;
+
+    /**
+     * What an event records
+     */
+    public enum Kind {
+        LOAN,       // one checkout; amount 0
+        FINE,       // fine charged (paise)
+        PAYMENT     // fine paid (paise); no title
+    }
+
+    static final String UNKNOWN = "(unknown)";
+
+    // Event columns, CHUNK events per array; guarded by this
+    private byte[][] kinds;
+    private int[][] days;
+    private int[][] titles;
+    private int[][] amounts;
+    private int size;
+
+    // Dimensions: title ID -> ISBN, name, author ID, year; author ID 0 is unknown
+    private final Map<String, Integer> titleIds;
+    private String[] isbns;
+    private String[] titleNames;
+    private int[] titleAuthors;
+    private short[] titleYears;
+    private int titleCount;
+    private final Map<String, Integer> authorIds;
+    private String[] authorNames;
+    private int maxYear;
+
+    private long loadedThrough;     // last ledger sequence loaded
+
+    public CirculationStore() {
+        this.kinds = new byte[16][];
+        this.days = new int[16][];
+        this.titles = new int[16][];
+        this.amounts = new int[16][];
+        this.titleIds = new HashMap<>();
+        this.isbns = new String[1024];
+        this.titleNames = new String[1024];
+        this.titleAuthors = new int[1024];
+        this.titleYears = new short[1024];
+        this.authorIds = new HashMap<>();
+        this.authorNames = new String[256];
+        this.authorNames[0] = UNKNOWN;
+        this.authorIds.put(UNKNOWN, 0);
+    }
+
+    // ===== DIMENSIONS =====
+
+    /**
+     * Describe a title (again, to correct it); loans already recorded
+     * for its ISBN pick the description up
+     */
+    public synchronized void addTitle(String isbn, String title, String author, int year) {
+        int id = titleId(isbn);
+        titleNames[id] = title;
+        titleAuthors[id] = author == null ? 0 : authorId(author);
+        titleYears[id] = (short) Math.max(0, Math.min(year, Short.MAX_VALUE));
+        maxYear = Math.max(maxYear, titleYears[id]);
+    }
+
+    /**
+     * Describe every book of a catalog (copied; the books are not kept)
+     */
+    public void addTitles(Iterable<Book> books) {
+        for (Book book : books) {
+            addTitle(book.getIsbn(), book.getTitle(), book.getAuthor(), book.getYear());
+        }
+    }
+
+    // Caller holds this
+    private int titleId(String isbn) {
+        Integer id = titleIds.get(isbn);
+        if (id != null) {
+            return id;
+        }
+        int next = titleCount++;
+        if (next == isbns.length) {
+            int grown = next * 2;
+            isbns = Arrays.copyOf(isbns, grown);
+            titleNames = Arrays.copyOf(titleNames, grown);
+            titleAuthors = Arrays.copyOf(titleAuthors, grown);
+            titleYears = Arrays.copyOf(titleYears, grown);
+        }
+        isbns[next] = isbn;
+        titleIds.put(isbn, next);
+        return next;
+    }
+
+    // Caller holds this
+    private int authorId(String author) {
+        Integer id = authorIds.get(author);
+        if (id != null) {
+            return id;
+        }
+        int next = authorIds.size();
+        if (next == authorNames.length) {
+            authorNames = Arrays.copyOf(authorNames, next * 2);
+        }
+        authorNames[next] = author;
+        authorIds.put(author, next);
+        return next;
+    }
+
+    // ===== EVENTS =====
+
+    /**
+     * Record one event
+     *
+     * @param isbn   the title (null for payments)
+     * @param amount paise for fines and payments (at most Integer.MAX_VALUE)
+     */
+    public synchronized void append(Kind kind, String isbn, LocalDate date, long amount) {
+        if (kind != Kind.PAYMENT && isbn == null) {
+            throw new IllegalArgumentException(kind + " needs an ISBN");
+        }
+        if (amount < 0 || amount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Amount out of range: " + amount);
+        }
+        int chunk = size >>> CHUNK_BITS;
+        int offset = size & (CHUNK - 1);
+        if (offset == 0) {
+            if (chunk == kinds.length) {
+                int grown = chunk * 2;
+                kinds = Arrays.copyOf(kinds, grown);
+                days = Arrays.copyOf(days, grown);
+                titles = Arrays.copyOf(titles, grown);
+                amounts = Arrays.copyOf(amounts, grown);
+            }
+            kinds[chunk] = new byte[CHUNK];
+            days[chunk] = new int[CHUNK];
+            titles[chunk] = new int[CHUNK];
+            amounts[chunk] = new int[CHUNK];
+        }
+        kinds[chunk][offset] = (byte) kind.ordinal();
+        days[chunk][offset] = (int) date.toEpochDay();
+        titles[chunk][offset] = isbn == null ? -1 : titleId(isbn);
+        amounts[chunk][offset] = (int) amount;
+        size++;
+    }
+
+    /**
+     * Append the ledger's events not loaded yet
+     *
+     * @return number of events read from the ledger
+     */
+    public synchronized long load(LendingLedger ledger) {
+        long[] read = {0};
+        ledger.stream(loadedThrough).forEach(event -> {
+            read[0]++;
+            loadedThrough = event.getSequence();
+            switch (event.getType()) {
+                case CHECKOUT:
+                    append(Kind.LOAN, event.getIsbn(), event.getDate(), 0);
+                    break;
+                case FINE:
+                    append(Kind.FINE, event.getIsbn(), event.getDate(), event.getAmount());
+                    break;
+                case PAYMENT:
+                    append(Kind.PAYMENT, null, event.getDate(), event.getAmount());
+                    break;
+                default:
+                    break;
+            }
+        });
+        return read[0];
+    }
+
+    // ===== GETTERS =====
+    public synchronized int getEventCount() {
+        return size;
+    }
+
+    public synchronized int getTitleCount() {
+        return titleCount;
+    }
+
+    /**
+     * Get the last ledger sequence number loaded
+     */
+    public synchronized long getLoadedThrough() {
+        return loadedThrough;
+    }
+
+    /**
+     * Capture the events and dimensions present now (no copying: chunks
+     * and dimension entries below the captured counts are not rewritten,
+     * except by addTitle corrections)
+     */
+    synchronized View view() {
+        return new View(size, kinds, days, titles, amounts, titleCount, isbns, titleNames, titleAuthors,
+                titleYears, authorIds.size(), authorNames, maxYear);
+    }
+
+    /**
+     * Columns and dimensions as of one moment, read without the lock
+     */
+    static final class View {
+        final int count;
+        final byte[][] kinds;
+        final int[][] days;
+        final int[][] titles;
+        final int[][] amounts;
+        final int titleCount;
+        final String[] isbns;
+        final String[] titleNames;
+        final int[] titleAuthors;
+        final short[] titleYears;
+        final int authorCount;
+        final String[] authorNames;
+        final int maxYear;
+
+        View(int count, byte[][] kinds, int[][] days, int[][] titles, int[][] amounts, int titleCount,
+             String[] isbns, String[] titleNames, int[] titleAuthors, short[] titleYears, int authorCount,
+             String[] authorNames, int maxYear) {
+            this.count = count;
+            this.kinds = kinds;
+            this.days = days;
+            this.titles = titles;
+            this.amounts = amounts;
+            this.titleCount = titleCount;
+            this.isbns = isbns;
+            this.titleNames = titleNames;
+            this.titleAuthors = titleAuthors;
+            this.titleYears = titleYears;
+            this.authorCount = authorCount;
+            this.authorNames = authorNames;
+            this.maxYear = maxYear;
+        }
+    }
+}
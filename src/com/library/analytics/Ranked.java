@@ -0,0 +1,38 @@
+package com.library.analytics;
+
+/**
+ * Ranked Class - One row of a top-K result
+ *
+ * Features:
+ * - Key (ISBN or author), display label (title or author) and value
+ *   (loans counted, or paise)
+ */
+public final class Ranked {
+    private final String key;
+    private final String label;
+    private final long value;
+
+    public Ranked(String key, String label, long value) {
+        this.key = key;
+        this.label = label;
+        this.value = value;
+    }
+
+    // ===== GETTERS =====
+    public String getKey() {
+        return key;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return label + " (" + key + "): " + value;
+    }
+}
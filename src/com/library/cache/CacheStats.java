@@ -0,0 +1,65 @@
+package com.library.cache;
+
+/**
+ * CacheStats Class - Point-in-time counts of a LookupCache
+ *
+ * Every lookup is exactly one hit or one miss; a read-through miss also
+ * counts one load. Evictions count entries dropped to stay within the
+ * size bound (invalidations are not evictions).
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long loads;
+    private final long evictions;
+    private final int size;
+    private final int maximumSize;
+
+    public CacheStats(long hits, long misses, long loads, long evictions, int size, int maximumSize) {
+        this.hits = hits;
+        this.misses = misses;
+        this.loads = loads;
+        this.evictions = evictions;
+        this.size = size;
+        this.maximumSize = maximumSize;
+    }
+
+    // ===== GETTERS =====
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getLoads() {
+        return loads;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Get fraction of lookups served from the cache (0.0 to 1.0)
+     */
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d (%.1f%% hit rate) loads=%d evictions=%d size=%d/%d",
+                hits, misses, getHitRate() * 100, loads, evictions, size, maximumSize);
+    }
+}
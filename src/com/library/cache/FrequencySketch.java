@@ -0,0 +1,79 @@
+package com.library.cache;
+
+/**
+ * FrequencySketch Class - Approximate access counts for TinyLFU admission
+ *
+ * A count-min sketch of 4-bit counters, 16 to a long: each key bumps
+ * one counter in each of four rows and its estimate is the smallest of
+ * the four. Once the number of increments reaches ten times the cache
+ * size every counter is halved, so old popularity fades and the sketch
+ * follows a shifting workload. Takes 8 bytes per cached entry whatever
+ * the number of distinct keys seen.
+ *
+ * Not thread-safe; LookupCache calls it under its policy lock.
+ */
+class FrequencySketch {
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int size = Integer.highestOneBit(Math.max(1, maximumSize - 1)) << 1;
+        this.table = new long[Math.max(size, 8)];
+        this.tableMask = table.length - 1;
+        this.sampleSize = Math.max(10 * maximumSize, 10);
+    }
+
+    /**
+     * Estimated number of recent accesses of a key (0 to 15)
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int min = 15;
+        for (int row = 0; row < 4; row++) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            int index = (int) (h >>> 32) & tableMask;
+            int shift = (((int) h & 3) << 2) + (row << 4);   // one of 4 nibbles in this row's quarter of the long
+            min = Math.min(min, (int) ((table[index] >>> shift) & 0xF));
+        }
+        return min;
+    }
+
+    /**
+     * Count one access of a key
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < 4; row++) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            int index = (int) (h >>> 32) & tableMask;
+            int shift = (((int) h & 3) << 2) + (row << 4);
+            long mask = 0xFL << shift;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,276 @@
+package com.library.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * LookupCache Class - Size-bounded read-through cache with W-TinyLFU eviction
+ *
+ * Features:
+ * - Holds at most maximumSize entries
+ * - Window TinyLFU policy: new entries land in a small LRU window (1%);
+ *   entries leaving it must beat the main region's LRU victim on
+ *   estimated access frequency (FrequencySketch) to get in. One-off
+ *   lookups and scans therefore cannot flush the hot set, while a key
+ *   that becomes popular is admitted after a few hits
+ * - Main region is a segmented LRU: probation (20%) and protected (80%);
+ *   a second hit promotes an entry to protected
+ * - Read-through get(key, loader); invalidate(key) when the source changes
+ * - Hit, miss, load and eviction counts (CacheStats)
+ *
+ * Hits read a ConcurrentHashMap without locking. Policy bookkeeping runs
+ * under one lock that a hit only tries to take: under contention the
+ * reordering of that hit is skipped, which costs a little accuracy and
+ * never correctness. A load that races with invalidate() is not cached.
+ *
+ * Usage:
+ *   LookupCache<String, Book> cache = new LookupCache<>(10_000);
+ *   bookService.setCache(cache);
+ *   System.out.println(cache.stats());
+ */
+public class LookupCache<K, V> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final int maximumSize;
+    private final int windowMax;
+    private final int protectedMax;
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final ReentrantLock policy;
+    private final FrequencySketch sketch;
+    private final Node<K, V>[] queues;          // sentinel of each LRU list (head.next = least recent)
+    private final int[] queueSizes;
+    private volatile long invalidations;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder loads;
+    private final LongAdder evictions;
+
+    @SuppressWarnings("unchecked")
+    public LookupCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.windowMax = Math.max(1, maximumSize / 100);
+        this.protectedMax = (maximumSize - windowMax) * 4 / 5;
+        this.data = new ConcurrentHashMap<>();
+        this.policy = new ReentrantLock();
+        this.sketch = new FrequencySketch(maximumSize);
+        this.queues = (Node<K, V>[]) new Node<?, ?>[3];
+        for (int q = 0; q < queues.length; q++) {
+            queues[q] = new Node<>(null, null);
+            queues[q].prev = queues[q];
+            queues[q].next = queues[q];
+        }
+        this.queueSizes = new int[3];
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.loads = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    /**
+     * Get a cached value, or null (does not load)
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            recordMiss(key);
+            return null;
+        }
+        hits.increment();
+        recordHit(node);
+        return node.value;
+    }
+
+    /**
+     * Get a cached value, loading and caching it on a miss
+     *
+     * @param loader computes the value from the source (may return null,
+     *               which is returned but not cached)
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            hits.increment();
+            recordHit(node);
+            return node.value;
+        }
+        misses.increment();
+        long seen = invalidations;
+        V value = loader.apply(key);
+        loads.increment();
+        if (value != null) {
+            admit(key, value, seen);
+        } else {
+            recordMiss(key);
+        }
+        return value;
+    }
+
+    /**
+     * Drop a key whose source value was added, changed or removed
+     */
+    public void invalidate(K key) {
+        policy.lock();
+        try {
+            invalidations++;
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            policy.unlock();
+        }
+    }
+
+    /**
+     * Drop every entry
+     */
+    public void invalidateAll() {
+        policy.lock();
+        try {
+            invalidations++;
+            data.clear();
+            for (int q = 0; q < queues.length; q++) {
+                queues[q].prev = queues[q];
+                queues[q].next = queues[q];
+                queueSizes[q] = 0;
+            }
+        } finally {
+            policy.unlock();
+        }
+    }
+
+    // ===== GETTERS =====
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Get counts since the cache was created
+     */
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), loads.sum(), evictions.sum(), data.size(), maximumSize);
+    }
+
+    // ===== POLICY =====
+
+    private void recordHit(Node<K, V> node) {
+        if (!policy.tryLock()) {
+            return;                             // busy: skip this reordering
+        }
+        try {
+            sketch.increment(node.key);
+            if (node.queue < 0) {
+                return;                         // removed meanwhile
+            }
+            if (node.queue == PROBATION) {
+                unlink(node);
+                link(node, PROTECTED);
+                while (queueSizes[PROTECTED] > protectedMax) {
+                    Node<K, V> demoted = queues[PROTECTED].next;
+                    unlink(demoted);
+                    link(demoted, PROBATION);
+                }
+            } else {
+                int queue = node.queue;
+                unlink(node);
+                link(node, queue);
+            }
+        } finally {
+            policy.unlock();
+        }
+    }
+
+    private void recordMiss(K key) {
+        if (policy.tryLock()) {
+            try {
+                sketch.increment(key);
+            } finally {
+                policy.unlock();
+            }
+        }
+    }
+
+    private void admit(K key, V value, long seen) {
+        policy.lock();
+        try {
+            sketch.increment(key);
+            if (invalidations != seen || data.containsKey(key)) {
+                return;                         // source changed while loading, or another thread cached it
+            }
+            Node<K, V> node = new Node<>(key, value);
+            data.put(key, node);
+            link(node, WINDOW);
+            if (queueSizes[WINDOW] > windowMax) {
+                Node<K, V> candidate = queues[WINDOW].next;
+                unlink(candidate);
+                link(candidate, PROBATION);
+                if (data.size() > maximumSize) {
+                    evictOne(candidate);
+                }
+            }
+        } finally {
+            policy.unlock();
+        }
+    }
+
+    // Candidate just left the window; it stays only if more popular than
+    // the main region's least recently used probation entry
+    private void evictOne(Node<K, V> candidate) {
+        Node<K, V> victim = queues[PROBATION].next;
+        if (victim == candidate) {
+            victim = queues[PROTECTED].next;    // probation holds only the candidate
+        }
+        Node<K, V> loser = victim != queues[PROTECTED] && sketch.frequency(candidate.key) > sketch.frequency(victim.key)
+                ? victim : candidate;
+        data.remove(loser.key);
+        unlink(loser);
+        evictions.increment();
+    }
+
+    private void link(Node<K, V> node, int queue) {
+        Node<K, V> tail = queues[queue].prev;
+        node.prev = tail;
+        node.next = queues[queue];
+        tail.next = node;
+        queues[queue].prev = node;
+        node.queue = queue;
+        queueSizes[queue]++;
+    }
+
+    private void unlink(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        queueSizes[node.queue]--;
+        node.queue = -1;
+    }
+
+    /**
+     * One cached entry; links and queue are guarded by the policy lock
+     */
+    private static class Node<K, V> {
+        final K key;
+        final V value;
+        Node<K, V> prev;
+        Node<K, V> next;
+        int queue = -1;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
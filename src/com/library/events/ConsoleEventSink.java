@@ -0,0 +1,85 @@
+package com.library.events;
+
+import com.library.models.Money;
+import java.time.LocalDate;
+
+/**
+ * ConsoleEventSink Class - Prints events as the familiar ✓ / ✗ / ⚠ lines
+ * 
+ * Default sink of the services, so interactive use looks as before.
+ * Prints synchronously; use a RingBufferEventSink under load.
+ */
+public class ConsoleEventSink implements EventSink {
+
+    @Override
+    public void emit(EventType type, String patronId, String isbn, String title, String name, long amount, LocalDate date) {
+        System.out.println(format(type, title, name, amount, date));
+    }
+
+    /**
+     * Console text of one event (may span several lines)
+     */
+    public static String format(EventType type, String title, String name, long amount, LocalDate date) {
+        switch (type) {
+            case BOOK_ADDED:
+                return "✓ Book added: " + title;
+            case BOOK_REJECTED:
+                return "✗ Book already exists or invalid";
+            case BOOK_REMOVED:
+                return "✓ Book removed";
+            case BOOK_REMOVE_FAILED:
+                return "✗ Book not found";
+            case BOOK_LOOKUP_FAILED:
+                return "✗ Book not found: " + title;
+            case PATRON_REGISTERED:
+                return "✓ Patron registered: " + name;
+            case PATRON_REJECTED:
+                return "✗ Patron already exists or invalid";
+            case PATRON_REMOVED:
+                return "✓ Patron removed";
+            case PATRON_REMOVE_FAILED:
+                return "✗ Patron not found";
+            case PATRON_SUSPENDED:
+                return "✓ Patron suspended: " + name;
+            case PATRON_ACTIVATED:
+                return "✓ Patron activated: " + name;
+            case PAYMENT_RECEIVED:
+                return "✓ Payment received: Rs. " + Money.format(amount) + " from " + name;
+            case PAYMENT_REJECTED:
+                return "✗ Payment not applied";
+            case CHECKED_OUT:
+                return "✓ Book checked out: " + title + "\n   Patron: " + name + "\n   Due Date: " + date;
+            case CHECKOUT_UNAVAILABLE:
+                return "✗ Book not available: " + title;
+            case CHECKOUT_SUSPENDED:
+                return "✗ Patron account is suspended";
+            case RETURNED:
+                String returned = "✓ Book returned: " + title + "\n   By: " + name;
+                return amount > 0 ? "⚠ Fine added: Rs. " + Money.format(amount) + "\n" + returned : returned;
+            case RETURN_NOT_BORROWED:
+                return "✗ Patron has not borrowed this book";
+            case HOLD_PLACED:
+                return "✓ Hold placed: " + title + "\n   Patron: " + name;
+            case HOLD_REJECTED:
+                return "✗ Hold not placed: " + title;
+            case HOLD_READY:
+                return "✓ Hold ready for pickup: " + title + "\n   Patron: " + name + "\n   Collect by: " + date;
+            case HOLD_CANCELLED:
+                return "✓ Hold cancelled: " + title;
+            case HOLD_EXPIRED:
+                return "⚠ Hold expired: " + title + "\n   Patron: " + name;
+            case BRANCH_ADDED:
+                return "✓ Branch added: " + name;
+            case BRANCH_REJECTED:
+                return "✗ Branch already exists or invalid";
+            case COPIES_TRANSFERRED:
+                return "✓ Transferred " + amount + (amount == 1 ? " copy: " : " copies: ") + title + "\n   Route: " + name;
+            case TRANSFER_REJECTED:
+                return "✗ Transfer not possible: " + title + "\n   Route: " + name;
+            case CHECKPOINT_FAILED:
+                return "✗ Checkpoint failed: " + name;
+            default:
+                return type.toString();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.library.events;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Event Class - One reusable slot of the event ring buffer
+ * 
+ * Producers fill the fields and then publish the slot's sequence
+ * number; the writer reads the fields only after seeing that sequence,
+ * so the volatile write/read orders the plain field accesses.
+ */
+public class Event {
+    private EventType type;
+    private long timeMillis;
+    private String patronId;
+    private String isbn;
+    private String title;
+    private String name;
+    private long amount;
+    private LocalDate date;
+    private volatile long published = -1;
+
+    void set(EventType type, long timeMillis, String patronId, String isbn, String title,
+             String name, long amount, LocalDate date) {
+        this.type = type;
+        this.timeMillis = timeMillis;
+        this.patronId = patronId;
+        this.isbn = isbn;
+        this.title = title;
+        this.name = name;
+        this.amount = amount;
+        this.date = date;
+    }
+
+    void publish(long sequence) {
+        this.published = sequence;
+    }
+
+    boolean isPublished(long sequence) {
+        return published == sequence;
+    }
+
+    /**
+     * Drop references so the slot does not keep strings alive
+     */
+    void clear() {
+        this.patronId = null;
+        this.isbn = null;
+        this.title = null;
+        this.name = null;
+        this.date = null;
+    }
+
+    // ===== GETTERS =====
+    public EventType getType() {
+        return type;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public String getPatronId() {
+        return patronId;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Append this event as one JSON object (no trailing newline)
+     */
+    public void appendJson(StringBuilder out) {
+        appendJson(out, Instant.ofEpochMilli(timeMillis).toString());
+    }
+
+    /**
+     * Append this event as one JSON object, with the time already formatted
+     */
+    void appendJson(StringBuilder out, String time) {
+        out.append("{\"time\":\"").append(time).append('"');
+        out.append(",\"type\":\"").append(type).append('"');
+        field(out, "patronId", patronId);
+        field(out, "isbn", isbn);
+        field(out, "title", title);
+        field(out, "name", name);
+        if (amount != 0) {
+            out.append(",\"amount\":").append(amount);
+        }
+        if (date != null) {
+            out.append(",\"date\":\"").append(date).append('"');
+        }
+        out.append('}');
+    }
+
+    private static void field(StringBuilder out, String key, String value) {
+        if (value == null) {
+            return;
+        }
+        out.append(",\"").append(key).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,31 @@
+package com.library.events;
+
+import java.time.LocalDate;
+
+/**
+ * EventSink Interface - Destination for service-layer events
+ * 
+ * Services report what they did through emit() instead of printing.
+ * Events are passed as plain fields so an implementation can copy them
+ * into preallocated storage without creating an object per event.
+ * Fields that do not apply to an event type are null (or 0).
+ * 
+ * Implementations must be thread-safe; services call emit() after
+ * releasing their locks.
+ */
+@FunctionalInterface
+public interface EventSink {
+
+    /**
+     * Sink that discards every event
+     */
+    EventSink NONE = (type, patronId, isbn, title, name, amount, date) -> { };
+
+    /**
+     * Report one event
+     * 
+     * @param amount paise (payment or fine), 0 if not applicable
+     * @param date   due date for checkouts, return date for returns
+     */
+    void emit(EventType type, String patronId, String isbn, String title, String name, long amount, LocalDate date);
+}
@@ -0,0 +1,46 @@
+package com.library.events;
+
+/**
+ * EventType Enum - What happened in the service layer
+ * 
+ * Fields carried (see EventSink.emit):
+ * - BOOK_*:     isbn, title
+ * - PATRON_*:   patronId, name
+ * - PAYMENT_*:  patronId, name, amount
+ * - CHECKED_OUT / CHECKOUT_*: patronId, isbn, title, name, date (due)
+ * - RETURNED / RETURN_*:      patronId, isbn, title, name, amount (fine), date
+ * - HOLD_*:     patronId, isbn, title, name, date (placed, or pickup deadline when ready)
+ * - BRANCH_*:   name
+ * - *TRANSFER*: isbn, title, name ("FROM -> TO" branch IDs), amount (copies)
+ * - CHECKPOINT_FAILED: name (the error)
+ */
+public enum EventType {
+    BOOK_ADDED,
+    BOOK_REJECTED,          // duplicate ISBN or invalid book
+    BOOK_REMOVED,
+    BOOK_REMOVE_FAILED,     // unknown ISBN
+    BOOK_LOOKUP_FAILED,     // title search without a match
+    PATRON_REGISTERED,
+    PATRON_REJECTED,        // duplicate ID or invalid patron
+    PATRON_REMOVED,
+    PATRON_REMOVE_FAILED,   // unknown ID
+    PATRON_SUSPENDED,
+    PATRON_ACTIVATED,
+    PAYMENT_RECEIVED,
+    PAYMENT_REJECTED,
+    CHECKED_OUT,
+    CHECKOUT_UNAVAILABLE,   // no copy left
+    CHECKOUT_SUSPENDED,     // patron may not borrow
+    RETURNED,
+    RETURN_NOT_BORROWED,
+    HOLD_PLACED,
+    HOLD_REJECTED,          // copy on the shelf, duplicate hold or suspended patron
+    HOLD_READY,             // returned copy set aside for the patron
+    HOLD_CANCELLED,
+    HOLD_EXPIRED,           // not collected by the pickup deadline
+    BRANCH_ADDED,
+    BRANCH_REJECTED,        // duplicate or missing branch ID
+    COPIES_TRANSFERRED,
+    TRANSFER_REJECTED,      // unknown branch or title, or too few copies on the shelf
+    CHECKPOINT_FAILED       // periodic checkpoint could not be written; the next one retries
+}
@@ -0,0 +1,220 @@
+package com.library.events;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * RingBufferEventSink Class - Asynchronous event log written as JSON lines
+ *
+ * Features:
+ * - Fixed ring of preallocated Event slots; emit() copies fields into a
+ *   slot, so the calling thread allocates nothing and never does I/O
+ * - Lock-free multi-producer claim (one atomic increment per event)
+ * - Single background writer drains published slots in batches and
+ *   appends them to the file in large writes
+ * - When the ring is full, producers back off (spin, yield, park) until
+ *   the writer frees a slot (counted in getFullWaits()); size the ring
+ *   so this only happens when the disk cannot keep up
+ *
+ * Usage:
+ *   RingBufferEventSink sink = new RingBufferEventSink(Paths.get("events.log"), 1 << 16);
+ *   lendingService.setEventSink(sink);
+ *   ...
+ *   sink.close();
+ */
+public class RingBufferEventSink implements EventSink, AutoCloseable {
+    private static final int MAX_BATCH = 1024;
+    private static final int WRITE_THRESHOLD = 1 << 16;     // chars buffered before a write
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final Event[] slots;
+    private final int mask;
+    private final AtomicLong claimed;         // next sequence to hand to a producer
+    private volatile long consumed;           // slots before this may be reused
+    private volatile long written;            // events before this are in the file
+    private final LongAdder fullWaits;
+    private final FileChannel channel;
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    /**
+     * Open (or append to) an event log
+     *
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public RingBufferEventSink(Path file, int capacity) throws IOException {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Event[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Event();
+        }
+        this.mask = size - 1;
+        this.claimed = new AtomicLong();
+        this.fullWaits = new LongAdder();
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.writer = new Thread(this::drain, "library-events");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue one event; returns as soon as it is in the ring
+     */
+    @Override
+    public void emit(EventType type, String patronId, String isbn, String title, String name, long amount, LocalDate date) {
+        if (closed) {
+            throw new IllegalStateException("Event sink is closed");
+        }
+        long seq = claimed.getAndIncrement();
+        if (seq - consumed >= slots.length) {
+            awaitSlot(seq);
+        }
+        Event slot = slots[(int) seq & mask];
+        slot.set(type, System.currentTimeMillis(), patronId, isbn, title, name, amount, date);
+        slot.publish(seq);
+    }
+
+    // Ring is full: spin briefly, then yield and park so the writer gets the CPU
+    private void awaitSlot(long seq) {
+        fullWaits.increment();
+        for (int spins = 0; seq - consumed >= slots.length; spins++) {
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else if (spins < 200) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS / 100);
+            }
+        }
+    }
+
+    /**
+     * Wait until every event emitted before this call is in the file
+     */
+    public void flush() {
+        long target = claimed.get();
+        while (written < target && writer.isAlive()) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS / 10);
+        }
+    }
+
+    /**
+     * Get number of events handed to the sink
+     */
+    public long getEmittedCount() {
+        return claimed.get();
+    }
+
+    /**
+     * Get number of events written to the file
+     */
+    public long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Get number of times a producer found the ring full
+     */
+    public long getFullWaits() {
+        return fullWaits.sum();
+    }
+
+    /**
+     * Write out everything queued so far, stop the writer and close the file
+     *
+     * Events emitted while close() runs may be lost.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // ===== WRITER =====
+
+    private void drain() {
+        StringBuilder text = new StringBuilder(WRITE_THRESHOLD + 1024);
+        long lastMillis = Long.MIN_VALUE;
+        String time = null;
+        long next = 0;
+        while (true) {
+            int batch = 0;
+            Event slot = slots[(int) next & mask];
+            while (batch < MAX_BATCH && slot.isPublished(next)) {
+                if (slot.getTimeMillis() != lastMillis) {
+                    lastMillis = slot.getTimeMillis();
+                    time = Instant.ofEpochMilli(lastMillis).toString();
+                }
+                slot.appendJson(text, time);
+                text.append('\n');
+                slot.clear();
+                next++;
+                batch++;
+                slot = slots[(int) next & mask];
+            }
+            if (batch > 0) {
+                consumed = next;          // fields are copied out; producers may reuse
+                if (text.length() >= WRITE_THRESHOLD || !slot.isPublished(next)) {
+                    write(text);
+                    written = next;
+                }
+                continue;
+            }
+            if (text.length() > 0) {
+                write(text);
+                written = next;
+            }
+            if (closed && next == claimed.get()) {
+                break;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void write(StringBuilder text) {
+        if (failure == null) {
+            try {
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(text));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+        text.setLength(0);
+    }
+
+    // Keep draining after a failure so producers never wait on a dead writer
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.library.io;
+
+import com.library.models.Book;
+import com.library.models.Loan;
+import com.library.models.Patron;
+import com.library.services.BookService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * CatalogExporter Class - Streaming CSV/JSON export of books, patrons and loans
+ *
+ * Features:
+ * - Walks the services' streams one record at a time and writes each
+ *   row straight into a TableWriter, so memory stays constant however
+ *   large the catalog is (no getAllBooks() copy, no document tree)
+ * - Book CSV starts with the importer's six columns, so an export can
+ *   be imported again
+ * - Amounts are written in paise, as exact integers
+ *
+ * Usage:
+ *   CatalogExporter exporter = new CatalogExporter(bookService, patronService, lendingService);
+ *   long rows = exporter.exportBooks(Paths.get("books.csv"), ExportFormat.CSV);
+ */
+public class CatalogExporter {
+    private static final String[] BOOK_COLUMNS = {
+            "isbn", "title", "author", "publisher", "year", "copies", "available", "status"};
+    private static final String[] PATRON_COLUMNS = {
+            "patronId", "name", "email", "phone", "status", "finePaise", "borrowed", "history"};
+    private static final String[] LOAN_COLUMNS = {
+            "patronId", "isbn", "checkoutDate", "dueDate", "finedThrough"};
+
+    private final BookService bookService;
+    private final PatronService patronService;
+    private final LendingService lendingService;
+
+    public CatalogExporter(BookService bookService, PatronService patronService, LendingService lendingService) {
+        this.bookService = bookService;
+        this.patronService = patronService;
+        this.lendingService = lendingService;
+    }
+
+    /**
+     * Write every book to the channel
+     *
+     * @return number of books written
+     */
+    public long exportBooks(WritableByteChannel channel, ExportFormat format) throws IOException {
+        TableWriter table = TableWriter.open(channel, format, BOOK_COLUMNS);
+        for (Iterator<Book> it = bookService.streamBooks().iterator(); it.hasNext(); ) {
+            Book book = it.next();
+            table.field(book.getIsbn()).field(book.getTitle()).field(book.getAuthor())
+                    .field(book.getPublisher()).field(book.getYear()).field(book.getTotalCopies())
+                    .field(book.getAvailableCopies()).field(book.getStatus().name());
+            table.endRow();
+        }
+        table.finish();
+        return table.getRowCount();
+    }
+
+    /**
+     * Write every patron to the channel
+     *
+     * @return number of patrons written
+     */
+    public long exportPatrons(WritableByteChannel channel, ExportFormat format) throws IOException {
+        TableWriter table = TableWriter.open(channel, format, PATRON_COLUMNS);
+        for (Iterator<Patron> it = patronService.streamPatrons().iterator(); it.hasNext(); ) {
+            Patron patron = it.next();
+            table.field(patron.getPatronId()).field(patron.getName()).field(patron.getEmail())
+                    .field(patron.getPhone()).field(patron.getStatus().name()).field(patron.getFineAmount())
+                    .field(patron.getBorrowedCount()).field(patron.getHistorySize());
+            table.endRow();
+        }
+        table.finish();
+        return table.getRowCount();
+    }
+
+    /**
+     * Write every active loan to the channel
+     *
+     * @return number of loans written
+     */
+    public long exportLoans(WritableByteChannel channel, ExportFormat format) throws IOException {
+        TableWriter table = TableWriter.open(channel, format, LOAN_COLUMNS);
+        for (Iterator<Loan> it = lendingService.streamActiveLoans().iterator(); it.hasNext(); ) {
+            Loan loan = it.next();
+            table.field(loan.getPatronId()).field(loan.getIsbn()).field(loan.getCheckoutDate().toString())
+                    .field(loan.getDueDate().toString()).field(loan.getFinedThrough().toString());
+            table.endRow();
+        }
+        table.finish();
+        return table.getRowCount();
+    }
+
+    /**
+     * Write every book to a file (created or replaced)
+     */
+    public long exportBooks(Path file, ExportFormat format) throws IOException {
+        try (FileChannel channel = create(file)) {
+            return exportBooks(channel, format);
+        }
+    }
+
+    /**
+     * Write every patron to a file (created or replaced)
+     */
+    public long exportPatrons(Path file, ExportFormat format) throws IOException {
+        try (FileChannel channel = create(file)) {
+            return exportPatrons(channel, format);
+        }
+    }
+
+    /**
+     * Write every active loan to a file (created or replaced)
+     */
+    public long exportLoans(Path file, ExportFormat format) throws IOException {
+        try (FileChannel channel = create(file)) {
+            return exportLoans(channel, format);
+        }
+    }
+
+    private static FileChannel create(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
@@ -0,0 +1,26 @@
+package com.library.io;
+
+/**
+ * CatalogFormat Enum - File formats the catalog importer reads
+ * 
+ * - CSV:    one book per line: isbn,title,author,publisher,year,copies
+ *           (RFC 4180 quoting; optional header line; UTF-8)
+ * - MARC21: ISO 2709 binary records, one per record terminator (UTF-8)
+ */
+public enum CatalogFormat {
+    CSV((byte) '\n'),
+    MARC21((byte) 0x1D);
+
+    private final byte recordTerminator;
+
+    CatalogFormat(byte recordTerminator) {
+        this.recordTerminator = recordTerminator;
+    }
+
+    /**
+     * Byte that ends every record, so a file can be split anywhere on it
+     */
+    public byte getRecordTerminator() {
+        return recordTerminator;
+    }
+}
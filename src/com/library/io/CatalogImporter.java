@@ -0,0 +1,308 @@
+package com.library.io;
+
+import com.library.models.Book;
+import com.library.services.BookService;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * CatalogImporter Class - Streaming bulk import of CSV or MARC 21 dumps
+ *
+ * Features:
+ * - Reads the file through a FileChannel in fixed windows (8 MB by
+ *   default); a record cut off at the end of a window is carried into
+ *   the next, so memory stays at two windows plus their parsed books
+ *   however large the file is
+ * - Each window is split at record boundaries and parsed in parallel on
+ *   a fork-join pool, straight from the bytes
+ * - Pipelined: while one window is being parsed, the next is read, and
+ *   the books of the previous one are merged into the catalog
+ * - Merges in batches through BookService.addBooks(); duplicate ISBNs
+ *   (already in the catalog or repeated in the file) are caught by the
+ *   catalog's ISBN hash index and counted, not added
+ * - Malformed records are counted and skipped
+ * - Progress reported after every window
+ *
+ * Parsing scales with cores; merging is sequential because the catalog
+ * and its text indexes are single-writer, so on big machines the merge
+ * bounds throughput.
+ *
+ * Usage:
+ *   CatalogImporter importer = new CatalogImporter(bookService);
+ *   importer.setProgressListener(stats -> System.out.println(stats));
+ *   ImportStats result = importer.importFile(Paths.get("catalog.csv"), CatalogFormat.CSV);
+ */
+public class CatalogImporter {
+    private static final int DEFAULT_WINDOW_BYTES = 8 << 20;
+    private static final int DEFAULT_BATCH_SIZE = 10_000;
+    private static final int SLICE_BYTES = 256 << 10;     // parsed by one task without splitting
+
+    private final BookService bookService;
+    private ForkJoinPool pool;
+    private int windowBytes;
+    private int batchSize;
+    private int defaultCopies;
+    private Consumer<ImportStats> progressListener;
+
+    public CatalogImporter(BookService bookService) {
+        this.bookService = bookService;
+        this.pool = ForkJoinPool.commonPool();
+        this.windowBytes = DEFAULT_WINDOW_BYTES;
+        this.batchSize = DEFAULT_BATCH_SIZE;
+        this.defaultCopies = 1;
+    }
+
+    /**
+     * Parse on the given pool (the common pool by default)
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Bytes read per window; also the largest record that can be imported
+     */
+    public void setWindowBytes(int windowBytes) {
+        this.windowBytes = windowBytes;
+    }
+
+    /**
+     * Books merged into the catalog per addBooks() call
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Copies given to each book from a format without a copy count (MARC 21)
+     */
+    public void setDefaultCopies(int defaultCopies) {
+        this.defaultCopies = defaultCopies;
+    }
+
+    /**
+     * Receive running totals after every window (null for none)
+     */
+    public void setProgressListener(Consumer<ImportStats> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Import every record of a file into the catalog
+     *
+     * @return final totals
+     * @throws IOException if the file cannot be read or holds a record
+     *                     larger than the window
+     */
+    public ImportStats importFile(Path file, CatalogFormat format) throws IOException {
+        RecordParser parser = format == CatalogFormat.CSV ? new CsvRecordParser() : new MarcRecordParser(defaultCopies);
+        byte terminator = format.getRecordTerminator();
+        Totals totals = new Totals(System.nanoTime());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            totals.size = channel.size();
+            Window current = new Window(windowBytes);
+            Window spare = new Window(windowBytes);
+            current.fill(channel, null, terminator);
+            int first = format == CatalogFormat.CSV ? skipHeader(current, terminator) : 0;
+            ForkJoinTask<Parsed> parsing = pool.submit(new ParseTask(parser, current.buf, first, current.end, terminator));
+            while (parsing != null) {
+                Window next = null;
+                ForkJoinTask<Parsed> nextParsing = null;
+                if (!current.eof) {
+                    next = spare;
+                    next.fill(channel, current, terminator);
+                    nextParsing = pool.submit(new ParseTask(parser, next.buf, 0, next.end, terminator));
+                }
+                merge(parsing.join(), totals);
+                totals.bytesRead += current.end;
+                if (progressListener != null) {
+                    progressListener.accept(totals.snapshot());
+                }
+                spare = current;
+                current = next;
+                parsing = nextParsing;
+            }
+        }
+        return totals.snapshot();
+    }
+
+    private void merge(Parsed parsed, Totals totals) {
+        List<Book> books = parsed.books;
+        long added = 0;
+        for (int from = 0; from < books.size(); from += batchSize) {
+            added += bookService.addBooks(books.subList(from, Math.min(from + batchSize, books.size())));
+        }
+        totals.records += parsed.records;
+        totals.added += added;
+        totals.duplicates += books.size() - added;
+        totals.rejected += parsed.rejected;
+    }
+
+    private static int skipHeader(Window window, byte terminator) {
+        int lineEnd = 0;
+        while (lineEnd < window.end && window.buf[lineEnd] != terminator) {
+            lineEnd++;
+        }
+        return CsvRecordParser.isHeader(window.buf, 0, lineEnd) ? Math.min(lineEnd + 1, window.end) : 0;
+    }
+
+    /**
+     * One buffer of the file; records end at end, the partial record
+     * after it is carried into the next window
+     */
+    private static class Window {
+        final byte[] buf;
+        int filled;
+        int end;
+        boolean eof;
+
+        Window(int size) {
+            this.buf = new byte[size];
+        }
+
+        void fill(FileChannel channel, Window previous, byte terminator) throws IOException {
+            filled = 0;
+            eof = false;
+            if (previous != null) {
+                filled = previous.filled - previous.end;
+                System.arraycopy(previous.buf, previous.end, buf, 0, filled);
+            }
+            ByteBuffer target = ByteBuffer.wrap(buf, filled, buf.length - filled);
+            while (target.hasRemaining() && !eof) {
+                eof = channel.read(target) < 0;
+            }
+            filled = target.position();
+            if (eof) {
+                end = filled;
+                return;
+            }
+            end = filled;
+            while (end > 0 && buf[end - 1] != terminator) {
+                end--;
+            }
+            if (end == 0) {
+                throw new IOException("Record larger than the import window (" + buf.length + " bytes)");
+            }
+        }
+    }
+
+    /**
+     * Books parsed from one range, in file order, with counts
+     */
+    private static class Parsed {
+        final List<Book> books = new ArrayList<>();
+        long records;
+        long rejected;
+
+        Parsed append(Parsed later) {
+            books.addAll(later.books);
+            records += later.records;
+            rejected += later.rejected;
+            return this;
+        }
+    }
+
+    /**
+     * Parse buf[from, to): split in halves at record boundaries until a
+     * range is small enough, then parse it sequentially
+     */
+    private static class ParseTask extends RecursiveTask<Parsed> {
+        private static final long serialVersionUID = 1L;
+
+        private final RecordParser parser;
+        private final byte[] buf;
+        private final int from;
+        private final int to;
+        private final byte terminator;
+
+        ParseTask(RecordParser parser, byte[] buf, int from, int to, byte terminator) {
+            this.parser = parser;
+            this.buf = buf;
+            this.from = from;
+            this.to = to;
+            this.terminator = terminator;
+        }
+
+        @Override
+        protected Parsed compute() {
+            if (to - from > SLICE_BYTES) {
+                int mid = from + (to - from) / 2;
+                while (mid < to && buf[mid - 1] != terminator) {
+                    mid++;
+                }
+                if (mid < to) {
+                    ParseTask left = new ParseTask(parser, buf, from, mid, terminator);
+                    left.fork();
+                    Parsed right = new ParseTask(parser, buf, mid, to, terminator).compute();
+                    return left.join().append(right);
+                }
+            }
+            Parsed parsed = new Parsed();
+            int start = from;
+            while (start < to) {
+                int end = start;
+                while (end < to && buf[end] != terminator) {
+                    end++;
+                }
+                if (!blank(start, end)) {
+                    parsed.records++;
+                    Book book = parseRecord(start, end);
+                    if (book != null) {
+                        parsed.books.add(book);
+                    } else {
+                        parsed.rejected++;
+                    }
+                }
+                start = end + 1;
+            }
+            return parsed;
+        }
+
+        private Book parseRecord(int start, int end) {
+            try {
+                return parser.parse(buf, start, end);
+            } catch (RuntimeException e) {
+                return null;                    // damaged record; counted as rejected
+            }
+        }
+
+        private boolean blank(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (buf[i] != '\r' && buf[i] != '\n' && buf[i] != ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Running totals, owned by the importing thread
+     */
+    private static class Totals {
+        final long startNanos;
+        long size;
+        long bytesRead;
+        long records;
+        long added;
+        long duplicates;
+        long rejected;
+
+        Totals(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        ImportStats snapshot() {
+            return new ImportStats(bytesRead, size, records, added, duplicates, rejected, System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.library.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ChannelTextOutput Class - Buffered UTF-8 text output to a byte channel
+ * 
+ * Text is staged in a fixed StringBuilder and encoded into one reusable
+ * direct buffer, so output of any length needs a constant amount of
+ * memory and goes to the channel in large writes.
+ */
+class ChannelTextOutput {
+    private static final int STAGE_CHARS = 32 << 10;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final StringBuilder stage;
+    private final ByteBuffer bytes;
+
+    ChannelTextOutput(WritableByteChannel channel) {
+        this.channel = channel;
+        this.encoder = StandardCharsets.UTF_8.newEncoder();
+        this.stage = new StringBuilder(STAGE_CHARS + 1024);
+        this.bytes = ByteBuffer.allocateDirect(STAGE_CHARS * 3);
+    }
+
+    /**
+     * Text being built; call drainIfFull() after appending a record
+     */
+    StringBuilder text() {
+        return stage;
+    }
+
+    void drainIfFull() throws IOException {
+        if (stage.length() >= STAGE_CHARS) {
+            drain();
+        }
+    }
+
+    /**
+     * Encode and write everything staged so far
+     */
+    void drain() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(stage);
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, false);
+            write();
+            if (result.isUnderflow()) {
+                break;
+            }
+        }
+        stage.setLength(0);
+    }
+
+    private void write() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,104 @@
+package com.library.io;
+
+import com.library.models.Book;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CsvRecordParser Class - isbn,title,author,publisher,year,copies
+ * 
+ * Fields may be quoted ("Smith, J." or "The ""Best"" Book"); quoted
+ * fields cannot span lines. Columns after the sixth are ignored, so a
+ * CatalogExporter book file imports as is. Works on the raw bytes and decodes each
+ * field straight to a String, with no per-line String or split().
+ */
+class CsvRecordParser implements RecordParser {
+    private static final int FIELDS = 6;
+
+    @Override
+    public Book parse(byte[] buf, int from, int to) {
+        if (to > from && buf[to - 1] == '\r') {
+            to--;
+        }
+        String[] text = new String[4];
+        int year = -1;
+        int copies = -1;
+        int i = from;
+        for (int field = 0; field < FIELDS; field++) {
+            if (i > to) {
+                return null;                    // too few fields
+            }
+            int start = i;
+            int end;
+            String value = null;
+            if (i < to && buf[i] == '"') {
+                value = quoted(buf, i, to);
+                if (value == null) {
+                    return null;
+                }
+                i = skipQuoted(buf, i, to);
+                if (i < to && buf[i] != ',') {
+                    return null;
+                }
+                end = i;
+            } else {
+                while (i < to && buf[i] != ',') {
+                    i++;
+                }
+                end = i;
+            }
+            if (field < 4) {
+                text[field] = value != null ? value : new String(buf, start, end - start, StandardCharsets.UTF_8).trim();
+            } else if (field == 4) {
+                year = RecordParser.parseInt(buf, start, end);
+            } else {
+                copies = RecordParser.parseInt(buf, start, end);
+            }
+            i++;                                // past the comma
+        }
+        if (text[0].isEmpty() || text[1].isEmpty() || year < 0 || copies < 0) {
+            return null;                        // bad values
+        }
+        return new Book(text[0], text[1], text[2], text[3], year, copies);
+    }
+
+    /**
+     * True for a header line such as "isbn,title,..."
+     */
+    static boolean isHeader(byte[] buf, int from, int to) {
+        return to - from >= 5 && (buf[from] | 0x20) == 'i' && (buf[from + 1] | 0x20) == 's'
+                && (buf[from + 2] | 0x20) == 'b' && (buf[from + 3] | 0x20) == 'n' && buf[from + 4] == ',';
+    }
+
+    // Index just past the closing quote of the field opening at start
+    private static int skipQuoted(byte[] buf, int start, int to) {
+        int i = start + 1;
+        while (i < to) {
+            if (buf[i] == '"') {
+                if (i + 1 < to && buf[i + 1] == '"') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return to + 1;
+    }
+
+    // Unescaped text of the quoted field opening at start, or null if unterminated
+    private static String quoted(byte[] buf, int start, int to) {
+        int close = skipQuoted(buf, start, to);
+        if (close > to) {
+            return null;
+        }
+        byte[] out = new byte[close - start - 2];
+        int n = 0;
+        for (int i = start + 1; i < close - 1; i++) {
+            out[n++] = buf[i];
+            if (buf[i] == '"') {
+                i++;                            // "" -> "
+            }
+        }
+        return new String(out, 0, n, StandardCharsets.UTF_8);
+    }
+}
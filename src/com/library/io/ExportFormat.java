@@ -0,0 +1,12 @@
+package com.library.io;
+
+/**
+ * ExportFormat Enum - File formats the exporters write
+ * 
+ * - CSV:  header line, then one line per record (RFC 4180 quoting)
+ * - JSON: one array of objects, one object per line
+ */
+public enum ExportFormat {
+    CSV,
+    JSON
+}
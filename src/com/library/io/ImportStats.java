@@ -0,0 +1,78 @@
+package com.library.io;
+
+/**
+ * ImportStats Class - Progress (or final result) of a catalog import
+ *
+ * Every record read ends up in exactly one of added, duplicates
+ * (ISBN already in the catalog or earlier in the file) or rejected
+ * (malformed).
+ */
+public class ImportStats {
+    private final long bytesRead;
+    private final long totalBytes;
+    private final long records;
+    private final long added;
+    private final long duplicates;
+    private final long rejected;
+    private final long elapsedNanos;
+
+    public ImportStats(long bytesRead, long totalBytes, long records, long added, long duplicates,
+                       long rejected, long elapsedNanos) {
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.records = records;
+        this.added = added;
+        this.duplicates = duplicates;
+        this.rejected = rejected;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // ===== GETTERS =====
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getAdded() {
+        return added;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Get fraction of the file processed (0.0 to 1.0)
+     */
+    public double getFractionDone() {
+        return totalBytes == 0 ? 1.0 : (double) bytesRead / totalBytes;
+    }
+
+    /**
+     * Get records processed per second so far
+     */
+    public double getRecordsPerSecond() {
+        return elapsedNanos == 0 ? 0 : records * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f%% records=%d added=%d duplicates=%d rejected=%d (%.0f records/s)",
+                getFractionDone() * 100, records, added, duplicates, rejected, getRecordsPerSecond());
+    }
+}
@@ -0,0 +1,156 @@
+package com.library.io;
+
+import com.library.models.Book;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MarcRecordParser Class - MARC 21 bibliographic records (ISO 2709)
+ *
+ * Fields read:
+ * - 020 $a  ISBN (qualifiers such as "(pbk.)" dropped)
+ * - 245 $a $b  title
+ * - 100 $a (or 110 $a)  author
+ * - 264 / 260 $b  publisher, $c  year (first four-digit run)
+ *
+ * Trailing ISBD punctuation (" /", " :", ",", ".") is trimmed. MARC
+ * records carry no copy count, so every book gets the importer's
+ * default. Records are decoded as UTF-8.
+ */
+class MarcRecordParser implements RecordParser {
+    private static final int LEADER = 24;
+    private static final int ENTRY = 12;
+    private static final byte FIELD_TERMINATOR = 0x1E;
+    private static final byte SUBFIELD = 0x1F;
+
+    private final int copies;
+
+    MarcRecordParser(int copies) {
+        this.copies = copies;
+    }
+
+    @Override
+    public Book parse(byte[] buf, int from, int to) {
+        while (from < to && (buf[from] == '\n' || buf[from] == '\r')) {
+            from++;                             // line breaks some dumps put between records
+        }
+        if (to - from < LEADER + 1) {
+            return null;
+        }
+        int base = RecordParser.parseInt(buf, from + 12, from + 17);
+        if (base < LEADER + 1 || from + base > to) {
+            return null;
+        }
+        String isbn = null;
+        String title = null;
+        String author = null;
+        String publisher = null;
+        int year = -1;
+        int directoryEnd = from + base - 1;    // field terminator after the directory
+        for (int entry = from + LEADER; entry + ENTRY <= directoryEnd; entry += ENTRY) {
+            int tag = RecordParser.parseInt(buf, entry, entry + 3);
+            int length = RecordParser.parseInt(buf, entry + 3, entry + 7);
+            int start = RecordParser.parseInt(buf, entry + 7, entry + 12);
+            if (tag < 0 || length < 0 || start < 0) {
+                return null;
+            }
+            int fieldFrom = from + base + start;
+            int fieldTo = Math.min(fieldFrom + length, to);
+            if (fieldTo > fieldFrom && buf[fieldTo - 1] == FIELD_TERMINATOR) {
+                fieldTo--;
+            }
+            switch (tag) {
+                case 20:
+                    if (isbn == null) {
+                        isbn = isbn(subfield(buf, fieldFrom, fieldTo, 'a'));
+                    }
+                    break;
+                case 245:
+                    title = join(subfield(buf, fieldFrom, fieldTo, 'a'), subfield(buf, fieldFrom, fieldTo, 'b'));
+                    break;
+                case 100:
+                case 110:
+                    if (author == null) {
+                        author = subfield(buf, fieldFrom, fieldTo, 'a');
+                    }
+                    break;
+                case 260:
+                case 264:
+                    if (publisher == null) {
+                        publisher = subfield(buf, fieldFrom, fieldTo, 'b');
+                    }
+                    if (year < 0) {
+                        year = year(subfield(buf, fieldFrom, fieldTo, 'c'));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (isbn == null || isbn.isEmpty() || title == null || title.isEmpty()) {
+            return null;
+        }
+        return new Book(isbn, title, author == null ? "" : author, publisher == null ? "" : publisher,
+                Math.max(year, 0), copies);
+    }
+
+    /**
+     * Text of the first $code subfield of a data field, trimmed, or null
+     */
+    private static String subfield(byte[] buf, int from, int to, char code) {
+        for (int i = from; i < to - 1; i++) {
+            if (buf[i] == SUBFIELD && buf[i + 1] == code) {
+                int start = i + 2;
+                int end = start;
+                while (end < to && buf[end] != SUBFIELD) {
+                    end++;
+                }
+                return trimPunctuation(new String(buf, start, end - start, StandardCharsets.UTF_8));
+            }
+        }
+        return null;
+    }
+
+    private static String trimPunctuation(String text) {
+        int end = text.length();
+        while (end > 0 && " /:;,.=".indexOf(text.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        int start = 0;
+        while (start < end && text.charAt(start) == ' ') {
+            start++;
+        }
+        return text.substring(start, end);
+    }
+
+    private static String isbn(String text) {
+        if (text == null) {
+            return null;
+        }
+        int space = text.indexOf(' ');
+        return space < 0 ? text : text.substring(0, space);
+    }
+
+    private static String join(String a, String b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || b.isEmpty() ? a : a + ": " + b;
+    }
+
+    private static int year(String text) {
+        if (text == null) {
+            return -1;
+        }
+        int run = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isDigit(text.charAt(i))) {
+                if (++run == 4) {
+                    return Integer.parseInt(text.substring(i - 3, i + 1));
+                }
+            } else {
+                run = 0;
+            }
+        }
+        return -1;
+    }
+}
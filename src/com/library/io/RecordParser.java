@@ -0,0 +1,38 @@
+package com.library.io;
+
+import com.library.models.Book;
+
+/**
+ * RecordParser Interface - Turns the bytes of one record into a Book
+ * 
+ * Implementations are stateless, so slices of a file can be parsed on
+ * many threads at once.
+ */
+interface RecordParser {
+    /**
+     * Parse buf[from, to), which excludes the record terminator
+     * 
+     * @return the book, or null if the record is malformed
+     */
+    Book parse(byte[] buf, int from, int to);
+
+    /**
+     * Parse a decimal number from buf[from, to)
+     * 
+     * @return the value, or -1 if the range is empty or not all digits
+     */
+    static int parseInt(byte[] buf, int from, int to) {
+        if (from >= to || to - from > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
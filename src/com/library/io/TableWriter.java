@@ -0,0 +1,230 @@
+package com.library.io;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * TableWriter Class - Writes rows of named columns as CSV or JSON
+ *
+ * Features:
+ * - Rows go straight to a byte channel through a fixed buffer, so
+ *   exporting millions of records needs no more memory than one
+ * - Typed fields: numbers are written without boxing
+ * - CSV quoting and JSON string escaping handled here, once
+ *
+ * Usage:
+ *   TableWriter table = TableWriter.open(channel, ExportFormat.CSV, "isbn", "title");
+ *   table.field(book.getIsbn()).field(book.getTitle()).endRow();
+ *   table.finish();
+ */
+public abstract class TableWriter {
+    protected final ChannelTextOutput out;
+    protected final String[] columns;
+    protected int column;
+    private long rows;
+
+    TableWriter(WritableByteChannel channel, String[] columns) {
+        this.out = new ChannelTextOutput(channel);
+        this.columns = columns;
+    }
+
+    /**
+     * Start a table on the channel (the caller keeps ownership of it)
+     */
+    public static TableWriter open(WritableByteChannel channel, ExportFormat format, String... columns) {
+        TableWriter table = format == ExportFormat.CSV ? new Csv(channel, columns) : new Json(channel, columns);
+        table.begin();
+        return table;
+    }
+
+    /**
+     * Write the next column of the current row (null for no value)
+     */
+    public abstract TableWriter field(String value);
+
+    /**
+     * Write the next column of the current row as a number
+     */
+    public abstract TableWriter field(long value);
+
+    /**
+     * Finish the current row
+     */
+    public void endRow() throws IOException {
+        if (column != columns.length) {
+            throw new IllegalStateException("Row has " + column + " of " + columns.length + " columns");
+        }
+        closeRow();
+        column = 0;
+        rows++;
+        out.drainIfFull();
+    }
+
+    /**
+     * Write the table's end and flush everything to the channel
+     */
+    public void finish() throws IOException {
+        end();
+        out.drain();
+    }
+
+    /**
+     * Get number of rows written
+     */
+    public long getRowCount() {
+        return rows;
+    }
+
+    abstract void begin();
+
+    abstract void closeRow();
+
+    abstract void end();
+
+    // ===== FORMATS =====
+
+    private static class Csv extends TableWriter {
+        Csv(WritableByteChannel channel, String[] columns) {
+            super(channel, columns);
+        }
+
+        @Override
+        void begin() {
+            for (String name : columns) {
+                field(name);
+            }
+            closeRow();
+            column = 0;
+        }
+
+        @Override
+        public TableWriter field(String value) {
+            StringBuilder text = separator();
+            if (value != null) {
+                if (needsQuotes(value)) {
+                    text.append('"');
+                    for (int i = 0; i < value.length(); i++) {
+                        char c = value.charAt(i);
+                        text.append(c);
+                        if (c == '"') {
+                            text.append('"');
+                        }
+                    }
+                    text.append('"');
+                } else {
+                    text.append(value);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public TableWriter field(long value) {
+            separator().append(value);
+            return this;
+        }
+
+        @Override
+        void closeRow() {
+            out.text().append('\n');
+        }
+
+        @Override
+        void end() {
+        }
+
+        private StringBuilder separator() {
+            StringBuilder text = out.text();
+            if (column++ > 0) {
+                text.append(',');
+            }
+            return text;
+        }
+
+        private static boolean needsQuotes(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            return !value.isEmpty() && (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ');
+        }
+    }
+
+    private static class Json extends TableWriter {
+        Json(WritableByteChannel channel, String[] columns) {
+            super(channel, columns);
+        }
+
+        @Override
+        void begin() {
+            out.text().append('[');
+        }
+
+        @Override
+        public TableWriter field(String value) {
+            StringBuilder text = name();
+            if (value == null) {
+                text.append("null");
+            } else {
+                text.append('"');
+                for (int i = 0; i < value.length(); i++) {
+                    char c = value.charAt(i);
+                    switch (c) {
+                        case '"':
+                            text.append("\\\"");
+                            break;
+                        case '\\':
+                            text.append("\\\\");
+                            break;
+                        case '\n':
+                            text.append("\\n");
+                            break;
+                        case '\r':
+                            text.append("\\r");
+                            break;
+                        case '\t':
+                            text.append("\\t");
+                            break;
+                        default:
+                            if (c < 0x20) {
+                                text.append(String.format("\\u%04x", (int) c));
+                            } else {
+                                text.append(c);
+                            }
+                    }
+                }
+                text.append('"');
+            }
+            return this;
+        }
+
+        @Override
+        public TableWriter field(long value) {
+            name().append(value);
+            return this;
+        }
+
+        @Override
+        void closeRow() {
+            out.text().append('}');
+        }
+
+        @Override
+        void end() {
+            out.text().append(getRowCount() == 0 ? "]\n" : "\n]\n");
+        }
+
+        private StringBuilder name() {
+            StringBuilder text = out.text();
+            if (column == 0) {
+                text.append(getRowCount() == 0 ? "\n{" : ",\n{");
+            } else {
+                text.append(',');
+            }
+            text.append('"').append(columns[column++]).append("\":");
+            return text;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.library.ledger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CopiesOnLoan Class - Copies of each title out on loan, from the ledger
+ *
+ * Features:
+ * - CHECKOUT adds one, RETURN takes one away
+ * - Availability of a title = its total copies - copies on loan
+ *   (holds waiting for pickup are not lending events and not counted)
+ *
+ * Partitioned by ISBN.
+ */
+public class CopiesOnLoan implements LedgerProjection {
+    private final Map<String, Integer> onLoan = new ConcurrentHashMap<>();
+
+    @Override
+    public Key getKey() {
+        return Key.ISBN;
+    }
+
+    @Override
+    public void apply(LedgerEvent event) {
+        if (event.getType() == LedgerEvent.Type.CHECKOUT) {
+            onLoan.merge(event.getIsbn(), 1, Integer::sum);
+        } else if (event.getType() == LedgerEvent.Type.RETURN) {
+            // Drop titles that reach zero so the map only holds titles out on loan
+            onLoan.merge(event.getIsbn(), -1, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    @Override
+    public void clear() {
+        onLoan.clear();
+    }
+
+    // ===== GETTERS =====
+    public int getOnLoan(String isbn) {
+        return onLoan.getOrDefault(isbn, 0);
+    }
+
+    /**
+     * Get copies left on the shelf for a title with the given total
+     */
+    public int getAvailableCopies(String isbn, int totalCopies) {
+        return totalCopies - getOnLoan(isbn);
+    }
+
+    /**
+     * Get number of copies on loan across all titles
+     */
+    public long getTotalOnLoan() {
+        return onLoan.values().stream().mapToLong(Integer::longValue).sum();
+    }
+}
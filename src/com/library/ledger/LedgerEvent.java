@@ -0,0 +1,76 @@
+package com.library.ledger;
+
+import com.library.models.Money;
+import java.time.LocalDate;
+
+/**
+ * LedgerEvent Class - One immutable entry of the lending ledger
+ *
+ * Features:
+ * - Sequence number assigned by the ledger (1, 2, 3, ... in log order)
+ * - Patron always set; ISBN set for everything but payments
+ * - Amount in paise for fines and payments, 0 otherwise
+ */
+public final class LedgerEvent {
+
+    /**
+     * Event types and the fields each one carries
+     */
+    public enum Type {
+        CHECKOUT,   // patronId, isbn, date
+        RETURN,     // patronId, isbn, date
+        FINE,       // patronId, isbn (the late loan), date, amount
+        PAYMENT     // patronId, date, amount
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final String patronId;
+    private final String isbn;
+    private final LocalDate date;
+    private final long amount;
+
+    public LedgerEvent(long sequence, Type type, String patronId, String isbn, LocalDate date, long amount) {
+        this.sequence = sequence;
+        this.type = type;
+        this.patronId = patronId;
+        this.isbn = isbn;
+        this.date = date;
+        this.amount = amount;
+    }
+
+    // ===== GETTERS =====
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getPatronId() {
+        return patronId;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Get the amount in minor units (paise)
+     */
+    public long getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + date + " " + type + " " + patronId
+                + (isbn != null ? " " + isbn : "")
+                + (amount != 0 ? " " + Money.format(amount) : "");
+    }
+}
@@ -0,0 +1,37 @@
+package com.library.ledger;
+
+/**
+ * LedgerProjection Interface - State derived from the lending ledger
+ *
+ * A projection declares the key it is partitioned by. During a
+ * parallel replay, all events of one key are applied by one thread in
+ * log order, while other keys are applied by other threads at the same
+ * time, so implementations must be safe for concurrent calls on
+ * different keys. Projections partitioned by ISBN only see events that
+ * carry one.
+ */
+public interface LedgerProjection {
+
+    /**
+     * What a projection's state is keyed by
+     */
+    enum Key {
+        PATRON,
+        ISBN
+    }
+
+    /**
+     * Get the key events are partitioned by for this projection
+     */
+    Key getKey();
+
+    /**
+     * Fold one event into the state
+     */
+    void apply(LedgerEvent event);
+
+    /**
+     * Drop all state before a rebuild
+     */
+    void clear();
+}
@@ -0,0 +1,964 @@
+package com.library.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * LendingLedger Class - Append-only log of checkouts, returns, fines and payments
+ *
+ * Features:
+ * - Every money movement kept as its own event, so a balance can be
+ *   explained line by line instead of read off a single counter
+ * - Events held in memory in compact columns (about 21 bytes each, patron
+ *   IDs and ISBNs interned) with a per-patron index
+ * - Appends take no ledger-wide lock: sequence numbers come from an
+ *   atomic counter and events are staged in a lock-free queue, which
+ *   whichever appender gets there first moves into the columns in
+ *   sequence order
+ * - Optional copy on disk: CRC-checked records in ledger-NNNN.log
+ *   segments, written by a background thread behind the appends and
+ *   forced by flush() and close(); open() decodes the segments in
+ *   parallel and cuts off a torn tail
+ * - Projections (balances, open loans, copies on loan) rebuilt by a
+ *   parallel replay partitioned by patron or ISBN, or kept current as
+ *   events are appended
+ *
+ * Events are never changed or removed; a correction is a new event.
+ * Segments are named ledger-NNNN.log after the first sequence number
+ * they hold and roll over at 64 MB.
+ *
+ * Record layout: [int length][int crc32][long seq][byte type][int epochDay][long amount][u16+UTF-8 patronId][u16+UTF-8 isbn]
+ *
+ * Usage:
+ *   LendingLedger ledger = LendingLedger.open(Paths.get("data/ledger"));
+ *   lendingService.setLedger(ledger);
+ *   patronService.setLedger(ledger);
+ *   PatronBalances balances = new PatronBalances();
+ *   ledger.attach(balances);
+ */
+public class LendingLedger implements AutoCloseable {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int HEADER_BYTES = 8;
+    private static final int MIN_BODY = 8 + 1 + 4 + 8 + 2 + 2;
+    private static final int MAX_BODY = MIN_BODY + 2 * 0xFFFF;
+    private static final long SEGMENT_BYTES = 64L << 20;
+    private static final int MAX_PENDING = 16 << 20;
+    private static final int LINGER_BYTES = 1 << 16;
+    private static final long LINGER_NANOS = 1_000_000;
+    private static final String PREFIX = "ledger-";
+    private static final String SUFFIX = ".log";
+    private static final LedgerEvent.Type[] TYPES = LedgerEvent.Type.values();
+    private static final LedgerProjection[] NONE = new LedgerProjection[0];
+
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    // Last sequence number handed out; CLOSED bit set once closing
+    private final AtomicLong sequence;
+    // Appended events not yet in the columns, in any order
+    private final ConcurrentLinkedQueue<Staged> staged;
+    private final ReentrantLock publishing;
+
+    // Columns, CHUNK events per array; guarded by publishing
+    private byte[][] types;
+    private int[][] days;
+    private long[][] amounts;
+    private int[][] patrons;
+    private int[][] books;
+    // Events in the columns; written under publishing, read without it
+    private volatile int size;
+
+    private final Names patronIds;
+    private final Names isbns;
+    private int[][] byPatron;
+    private int[] byPatronCount;
+    private LedgerProjection[] followers;
+    // Staged events that arrived ahead of a lower sequence number
+    private final PriorityQueue<Staged> early;
+
+    // Disk side (null directory: memory only); guarded by this
+    private final Path directory;
+    private final Object channelLock;
+    private final Thread writer;
+    private FileChannel channel;
+    private long segmentBytes;
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private final CRC32 crc;
+    private long encodedThrough;
+    private long queuedThrough;
+    private long writtenThrough;
+    private volatile IOException failure;
+    private int flushing;
+    private boolean closed;
+
+    private LendingLedger(Path directory) {
+        this.directory = directory;
+        this.sequence = new AtomicLong();
+        this.staged = new ConcurrentLinkedQueue<>();
+        this.publishing = new ReentrantLock();
+        this.early = new PriorityQueue<>((a, b) -> Long.compare(a.sequence, b.sequence));
+        this.types = new byte[16][];
+        this.days = new int[16][];
+        this.amounts = new long[16][];
+        this.patrons = new int[16][];
+        this.books = new int[16][];
+        this.patronIds = new Names();
+        this.isbns = new Names();
+        this.byPatron = new int[1024][];
+        this.byPatronCount = new int[1024];
+        this.followers = NONE;
+        this.channelLock = new Object();
+        this.crc = new CRC32();
+        if (directory != null) {
+            this.pending = ByteBuffer.allocate(1 << 16);
+            this.spare = ByteBuffer.allocate(1 << 16);
+            this.writer = new Thread(this::writeLoop, "ledger-writer");
+            this.writer.setDaemon(true);
+        } else {
+            this.writer = null;
+        }
+    }
+
+    /**
+     * Create a ledger kept in memory only
+     */
+    public static LendingLedger inMemory() {
+        return new LendingLedger(null);
+    }
+
+    /**
+     * Open (or create) a ledger in the given directory
+     *
+     * Segments are decoded in parallel and then stitched together in
+     * sequence order; a torn record at the tail of the newest segment is
+     * truncated away.
+     *
+     * @throws IOException if a segment is unreadable, damaged before its
+     *         end, or does not continue the sequence of the one before
+     */
+    public static LendingLedger open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = segments(directory);
+        List<Segment> decoded;
+        try {
+            decoded = files.parallelStream().map(LendingLedger::decodeUnchecked).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        LendingLedger ledger = new LendingLedger(directory);
+        long expected = 1;
+        for (int i = 0; i < decoded.size(); i++) {
+            Segment segment = decoded.get(i);
+            if (segment.first != expected) {
+                throw new IOException("Ledger segment " + segment.file.getFileName() + " does not follow sequence "
+                        + (expected - 1));
+            }
+            if (segment.validEnd != segment.length && i < decoded.size() - 1) {
+                throw new IOException("Ledger segment " + segment.file.getFileName() + " is damaged at byte "
+                        + segment.validEnd);
+            }
+            ledger.load(segment);
+            expected += segment.count;
+        }
+
+        Path active = files.isEmpty() ? segmentPath(directory, 1) : files.get(files.size() - 1);
+        long validEnd = decoded.isEmpty() ? 0 : decoded.get(decoded.size() - 1).validEnd;
+        FileChannel channel = FileChannel.open(active, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.truncate(validEnd);
+        channel.position(validEnd);
+        ledger.channel = channel;
+        ledger.segmentBytes = validEnd;
+        ledger.sequence.set(ledger.size);
+        ledger.encodedThrough = ledger.size;
+        ledger.queuedThrough = ledger.size;
+        ledger.writtenThrough = ledger.size;
+        ledger.writer.start();
+        return ledger;
+    }
+
+    // ===== APPEND =====
+
+    /**
+     * Append an event and apply it to attached projections
+     *
+     * Callers that need one patron's events in order append them under
+     * that patron's lock. The event is in the log when this returns and
+     * reaches the disk shortly after; call flush() to wait for it.
+     * Projections are applied by the appending thread with no ledger
+     * lock held, so events of one key reach them in log order only when
+     * their appends are ordered by the caller.
+     *
+     * @param isbn   the title concerned, or null (payments)
+     * @param amount paise, positive for fines and payments, 0 otherwise
+     * @return the sequence number assigned to the event
+     */
+    public long append(LedgerEvent.Type type, String patronId, String isbn, LocalDate date, long amount) {
+        if (type == null || patronId == null || date == null) {
+            throw new IllegalArgumentException("Ledger event needs a type, patron and date");
+        }
+        boolean money = type == LedgerEvent.Type.FINE || type == LedgerEvent.Type.PAYMENT;
+        if (money ? amount <= 0 : amount != 0) {
+            throw new IllegalArgumentException("Invalid amount " + amount + " for " + type);
+        }
+        if (isbn == null && type != LedgerEvent.Type.PAYMENT) {
+            throw new IllegalArgumentException(type + " event needs an ISBN");
+        }
+        byte[] patronBytes = Names.encode(patronId);
+        byte[] isbnBytes = isbn == null ? null : Names.encode(isbn);
+        if (directory != null) {
+            awaitWriter();
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Ledger write failed: " + directory, failure);
+        }
+
+        Staged event = new Staged(nextSequence(), type, patronId, patronBytes, isbn, isbnBytes, date, amount);
+        staged.add(event);
+        awaitPublished(event.sequence);
+        LedgerProjection[] projections = event.followers;
+        if (projections.length > 0) {
+            LedgerEvent published = new LedgerEvent(event.sequence, type, patronId, isbn, date, amount);
+            for (LedgerProjection projection : projections) {
+                projection.apply(published);
+            }
+        }
+        return event.sequence;
+    }
+
+    private long nextSequence() {
+        while (true) {
+            long last = sequence.get();
+            if (last < 0) {
+                throw new IllegalStateException("Ledger is closed: " + directory);
+            }
+            if (sequence.compareAndSet(last, last + 1)) {
+                return last + 1;
+            }
+        }
+    }
+
+    // Publish staged events until the given one is in the columns
+    private void awaitPublished(long target) {
+        while (size < target) {
+            if (publishing.tryLock()) {
+                try {
+                    publish();
+                } finally {
+                    publishing.unlock();
+                }
+            } else {
+                // Another appender is publishing, most likely this event too
+                Thread.yield();
+            }
+        }
+    }
+
+    // Wait while the writer is far behind, before taking a sequence number
+    private synchronized void awaitWriter() {
+        while (pending.position() >= MAX_PENDING && failure == null && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Caller holds publishing: move staged events into the columns in
+     * sequence order, stopping at the first sequence number whose event
+     * is not staged yet
+     *
+     * Events are queued for the writer before size covers them, so
+     * close() and flush() never see an event the writer will not get.
+     */
+    private void publish() {
+        Staged next;
+        while ((next = staged.poll()) != null) {
+            early.add(next);
+        }
+        List<Staged> batch = new ArrayList<>();
+        while (!early.isEmpty() && early.peek().sequence == size + 1L + batch.size()) {
+            batch.add(early.poll());
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (directory != null) {
+            synchronized (this) {
+                for (Staged event : batch) {
+                    queue(event);
+                }
+                encodedThrough = batch.get(batch.size() - 1).sequence;
+            }
+        }
+        for (Staged event : batch) {
+            int patron = patronIds.intern(event.patronId);
+            int book = event.isbn == null ? -1 : isbns.intern(event.isbn);
+            event.followers = followers;
+            store(event.type.ordinal(), (int) event.date.toEpochDay(), event.amount, patron, book);
+        }
+    }
+
+    // Caller holds publishing: add one event to the columns and the patron index
+    private long store(int type, int epochDay, long amount, int patron, int book) {
+        int chunk = size >>> CHUNK_BITS;
+        int offset = size & (CHUNK - 1);
+        if (offset == 0) {
+            if (chunk == types.length) {
+                int grown = chunk * 2;
+                types = Arrays.copyOf(types, grown);
+                days = Arrays.copyOf(days, grown);
+                amounts = Arrays.copyOf(amounts, grown);
+                patrons = Arrays.copyOf(patrons, grown);
+                books = Arrays.copyOf(books, grown);
+            }
+            types[chunk] = new byte[CHUNK];
+            days[chunk] = new int[CHUNK];
+            amounts[chunk] = new long[CHUNK];
+            patrons[chunk] = new int[CHUNK];
+            books[chunk] = new int[CHUNK];
+        }
+        types[chunk][offset] = (byte) type;
+        days[chunk][offset] = epochDay;
+        amounts[chunk][offset] = amount;
+        patrons[chunk][offset] = patron;
+        books[chunk][offset] = book;
+
+        if (patron == byPatron.length) {
+            byPatron = Arrays.copyOf(byPatron, patron * 2);
+            byPatronCount = Arrays.copyOf(byPatronCount, patron * 2);
+        }
+        int[] positions = byPatron[patron];
+        int count = byPatronCount[patron];
+        if (positions == null) {
+            positions = byPatron[patron] = new int[4];
+        } else if (count == positions.length) {
+            positions = byPatron[patron] = Arrays.copyOf(positions, count * 2);
+        }
+        positions[count] = size;
+        byPatronCount[patron] = count + 1;
+        return ++size;
+    }
+
+    // ===== PROJECTIONS =====
+
+    /**
+     * Clear the projections and replay the whole ledger into them
+     *
+     * Events are split into one partition per core by patron (or ISBN,
+     * per projection) in one pass over the log, and the partitions
+     * replayed in parallel, each in log order. Events appended meanwhile are not included; use
+     * attach() to keep a projection current.
+     */
+    public void rebuild(LedgerProjection... projections) {
+        replay(view(), projections);
+    }
+
+    /**
+     * Rebuild the projections, then apply every later append to them
+     *
+     * Events are not published while the rebuild runs, so nothing is
+     * missed or applied twice: each event carries the projections
+     * attached when it was published.
+     */
+    public void attach(LedgerProjection... projections) {
+        publishing.lock();
+        try {
+            publish();
+            replay(view(), projections);
+            LedgerProjection[] grown = Arrays.copyOf(followers, followers.length + projections.length);
+            System.arraycopy(projections, 0, grown, followers.length, projections.length);
+            followers = grown;
+        } finally {
+            publishing.unlock();
+        }
+    }
+
+    /**
+     * Stop applying appends to a projection
+     */
+    public void detach(LedgerProjection projection) {
+        publishing.lock();
+        try {
+            followers = Arrays.stream(followers).filter(p -> p != projection).toArray(LedgerProjection[]::new);
+        } finally {
+            publishing.unlock();
+        }
+    }
+
+    private static void replay(View view, LedgerProjection[] projections) {
+        for (LedgerProjection projection : projections) {
+            projection.clear();
+        }
+        LedgerProjection[] byPatron = Arrays.stream(projections)
+                .filter(p -> p.getKey() == LedgerProjection.Key.PATRON).toArray(LedgerProjection[]::new);
+        LedgerProjection[] byIsbn = Arrays.stream(projections)
+                .filter(p -> p.getKey() == LedgerProjection.Key.ISBN).toArray(LedgerProjection[]::new);
+        int parts = Math.max(1, Runtime.getRuntime().availableProcessors());
+        int[][] patronParts = byPatron.length > 0 ? partition(view, view.patrons, parts) : null;
+        int[][] isbnParts = byIsbn.length > 0 ? partition(view, view.books, parts) : null;
+
+        IntStream.range(0, parts).parallel().forEach(part -> {
+            if (patronParts != null) {
+                replay(view, patronParts[part], byPatron);
+            }
+            if (isbnParts != null) {
+                replay(view, isbnParts[part], byIsbn);
+            }
+        });
+    }
+
+    /**
+     * Split event positions into partitions by key, each in log order
+     * (events without a key are left out)
+     *
+     * Dictionary IDs are handed out in order, so "id % parts" spreads keys evenly.
+     */
+    private static int[][] partition(View view, int[][] keys, int parts) {
+        int[] sizes = new int[parts];
+        for (int i = 0; i < view.count; i++) {
+            int key = keys[i >>> CHUNK_BITS][i & (CHUNK - 1)];
+            if (key >= 0) {
+                sizes[key % parts]++;
+            }
+        }
+        int[][] positions = new int[parts][];
+        for (int part = 0; part < parts; part++) {
+            positions[part] = new int[sizes[part]];
+        }
+        int[] filled = new int[parts];
+        for (int i = 0; i < view.count; i++) {
+            int key = keys[i >>> CHUNK_BITS][i & (CHUNK - 1)];
+            if (key >= 0) {
+                int part = key % parts;
+                positions[part][filled[part]++] = i;
+            }
+        }
+        return positions;
+    }
+
+    private static void replay(View view, int[] positions, LedgerProjection[] projections) {
+        for (int position : positions) {
+            LedgerEvent event = view.event(position);
+            for (LedgerProjection projection : projections) {
+                projection.apply(event);
+            }
+        }
+    }
+
+    // ===== READS =====
+
+    /**
+     * Get one patron's events in log order
+     */
+    public List<LedgerEvent> getPatronEvents(String patronId) {
+        int[] positions;
+        View view;
+        publishing.lock();
+        try {
+            int patron = patronIds.find(patronId);
+            if (patron < 0) {
+                return Collections.emptyList();
+            }
+            positions = Arrays.copyOf(byPatron[patron], byPatronCount[patron]);
+            view = currentView();
+        } finally {
+            publishing.unlock();
+        }
+        List<LedgerEvent> events = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            events.add(view.event(position));
+        }
+        return events;
+    }
+
+    /**
+     * Stream every event appended so far, in log order (may be made parallel)
+     */
+    public Stream<LedgerEvent> stream() {
+        return stream(0);
+    }
+
+    /**
+     * Stream the events after the given sequence number, in log order
+     */
+    public Stream<LedgerEvent> stream(long afterSequence) {
+        View view = view();
+        int from = (int) Math.min(Math.max(afterSequence, 0), view.count);
+        return IntStream.range(from, view.count).mapToObj(view::event);
+    }
+
+    /**
+     * Get number of events (also the last sequence number)
+     */
+    public long getEventCount() {
+        return size;
+    }
+
+    /**
+     * Get the directory the ledger is stored in (null if in memory)
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private View view() {
+        publishing.lock();
+        try {
+            return currentView();
+        } finally {
+            publishing.unlock();
+        }
+    }
+
+    // Caller holds publishing: chunks and names below size never change again
+    private View currentView() {
+        return new View(size, types, days, amounts, patrons, books, patronIds.names, isbns.names);
+    }
+
+    // ===== DISK =====
+
+    /**
+     * Wait until every event appended so far is written and forced to disk
+     */
+    public void flush() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        long target = size;
+        synchronized (this) {
+            flushing++;
+            notifyAll();
+            try {
+                while (writtenThrough < target && failure == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for ledger writes", e);
+                    }
+                }
+            } finally {
+                flushing--;
+            }
+            if (failure != null) {
+                throw new IOException("Ledger write failed: " + directory, failure);
+            }
+        }
+        synchronized (channelLock) {
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        long last = sequence.getAndUpdate(s -> s | CLOSED);
+        if (last < 0) {
+            return;
+        }
+        // Appenders that took a sequence number before closing still publish
+        awaitPublished(last);
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        if (directory == null) {
+            return;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (channelLock) {
+            channel.force(true);
+            channel.close();
+        }
+        if (failure != null) {
+            throw new IOException("Ledger write failed: " + directory, failure);
+        }
+    }
+
+    // Caller holds this: encode one record for the writer
+    private void queue(Staged event) {
+        byte[] patronBytes = event.patronBytes;
+        byte[] isbnBytes = event.isbnBytes == null ? new byte[0] : event.isbnBytes;
+        int body = MIN_BODY + patronBytes.length + isbnBytes.length;
+        if (pending.remaining() < HEADER_BYTES + body) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + HEADER_BYTES + body));
+            pending.flip();
+            pending = grown.put(pending);
+        }
+        int start = pending.position();
+        pending.position(start + HEADER_BYTES);
+        pending.putLong(event.sequence).put((byte) event.type.ordinal()).putInt((int) event.date.toEpochDay())
+                .putLong(event.amount)
+                .putShort((short) patronBytes.length).put(patronBytes)
+                .putShort((short) isbnBytes.length).put(isbnBytes);
+        crc.reset();
+        crc.update(pending.array(), start + HEADER_BYTES, body);
+        pending.putInt(start, body).putInt(start + 4, (int) crc.getValue());
+        if (start == 0) {
+            // The writer only sleeps on an empty buffer
+            notifyAll();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long first;
+            long last;
+            synchronized (this) {
+                while (pending.position() == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                // Gather up to a millisecond of appends into one write, unless someone is waiting
+                long deadline = System.nanoTime() + LINGER_NANOS;
+                long left;
+                while (pending.position() < LINGER_BYTES && flushing == 0 && !closed
+                        && (left = deadline - System.nanoTime()) > 0) {
+                    try {
+                        wait(left / 1_000_000, (int) (left % 1_000_000));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                batch = pending;
+                pending = spare != null ? spare : ByteBuffer.allocate(1 << 16);
+                spare = null;
+                first = queuedThrough + 1;
+                last = encodedThrough;
+                queuedThrough = last;
+            }
+
+            IOException error = null;
+            batch.flip();
+            try {
+                synchronized (channelLock) {
+                    if (segmentBytes >= SEGMENT_BYTES) {
+                        channel.force(true);
+                        channel.close();
+                        channel = FileChannel.open(segmentPath(directory, first), StandardOpenOption.CREATE,
+                                StandardOpenOption.READ, StandardOpenOption.WRITE);
+                        segmentBytes = 0;
+                    }
+                    segmentBytes += batch.remaining();
+                    while (batch.hasRemaining()) {
+                        channel.write(batch);
+                    }
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+            batch.clear();
+
+            synchronized (this) {
+                if (batch.capacity() <= MAX_PENDING) {
+                    spare = batch;
+                }
+                if (error != null && failure == null) {
+                    failure = error;
+                }
+                writtenThrough = last;
+                notifyAll();
+            }
+        }
+    }
+
+    // ===== SEGMENTS =====
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static Path segmentPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%019d%s", PREFIX, firstSequence, SUFFIX));
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static Segment decodeUnchecked(Path file) {
+        try {
+            return decode(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decode one segment with its own patron/ISBN dictionaries (so
+     * segments can be decoded on separate threads), stopping at the
+     * first damaged or out-of-sequence record
+     */
+    private static Segment decode(Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        Segment segment = new Segment(file, firstSequence(file), data.length);
+        ByteBuffer in = ByteBuffer.wrap(data);
+        CRC32 crc = new CRC32();
+        int offset = 0;
+        while (data.length - offset >= HEADER_BYTES) {
+            int length = in.getInt(offset);
+            int expectedCrc = in.getInt(offset + 4);
+            int bodyStart = offset + HEADER_BYTES;
+            if (length < MIN_BODY || length > MAX_BODY || length > data.length - bodyStart) {
+                break;
+            }
+            crc.reset();
+            crc.update(data, bodyStart, length);
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+
+            in.position(bodyStart);
+            long sequence = in.getLong();
+            int type = in.get();
+            int epochDay = in.getInt();
+            long amount = in.getLong();
+            String patronId = readString(in, data);
+            String isbn = readString(in, data);
+            if (sequence != segment.first + segment.count || type < 0 || type >= TYPES.length
+                    || in.position() != bodyStart + length) {
+                break;
+            }
+            segment.add(type, epochDay, amount, patronId, isbn.isEmpty() ? null : isbn);
+            offset = bodyStart + length;
+        }
+        segment.validEnd = offset;
+        return segment;
+    }
+
+    private static String readString(ByteBuffer in, byte[] data) {
+        int length = in.getShort() & 0xFFFF;
+        int start = in.position();
+        if (length > data.length - start) {
+            in.position(data.length);
+            return "";
+        }
+        in.position(start + length);
+        return new String(data, start, length, StandardCharsets.UTF_8);
+    }
+
+    // Single-threaded (open): add a decoded segment, mapping its dictionaries onto ours
+    private void load(Segment segment) {
+        int[] patronMap = new int[segment.patronNames.size()];
+        for (int i = 0; i < patronMap.length; i++) {
+            patronMap[i] = patronIds.intern(segment.patronNames.get(i));
+        }
+        int[] isbnMap = new int[segment.isbnNames.size()];
+        for (int i = 0; i < isbnMap.length; i++) {
+            isbnMap[i] = isbns.intern(segment.isbnNames.get(i));
+        }
+        for (int i = 0; i < segment.count; i++) {
+            int book = segment.books[i];
+            store(segment.types[i], segment.days[i], segment.amounts[i], patronMap[segment.patrons[i]],
+                    book < 0 ? -1 : isbnMap[book]);
+        }
+    }
+
+    // ===== HELPERS =====
+
+    /**
+     * Interned strings: ID -> name, name -> ID
+     */
+    private static class Names {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private String[] names = new String[1024];
+
+        /**
+         * Get a key's UTF-8 bytes, checking it fits a record
+         */
+        static byte[] encode(String name) {
+            byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+            if (encoded.length > 0xFFFF || name.isEmpty()) {
+                throw new IllegalArgumentException("Ledger key must be 1 to 65535 bytes: " + name);
+            }
+            return encoded;
+        }
+
+        int intern(String name) {
+            Integer id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            int next = ids.size();
+            if (next == names.length) {
+                names = Arrays.copyOf(names, next * 2);
+            }
+            names[next] = name;
+            ids.put(name, next);
+            return next;
+        }
+
+        int find(String name) {
+            Integer id = ids.get(name);
+            return id == null ? -1 : id;
+        }
+    }
+
+    /**
+     * One appended event on its way into the columns
+     */
+    private static class Staged {
+        final long sequence;
+        final LedgerEvent.Type type;
+        final String patronId;
+        final byte[] patronBytes;
+        final String isbn;
+        final byte[] isbnBytes;
+        final LocalDate date;
+        final long amount;
+        // Projections attached when published, set before size covers the event
+        LedgerProjection[] followers;
+
+        Staged(long sequence, LedgerEvent.Type type, String patronId, byte[] patronBytes, String isbn,
+               byte[] isbnBytes, LocalDate date, long amount) {
+            this.sequence = sequence;
+            this.type = type;
+            this.patronId = patronId;
+            this.patronBytes = patronBytes;
+            this.isbn = isbn;
+            this.isbnBytes = isbnBytes;
+            this.date = date;
+            this.amount = amount;
+        }
+    }
+
+    /**
+     * The first count events, readable without the ledger's lock
+     */
+    private static class View {
+        final int count;
+        final byte[][] types;
+        final int[][] days;
+        final long[][] amounts;
+        final int[][] patrons;
+        final int[][] books;
+        final String[] patronNames;
+        final String[] isbnNames;
+
+        View(int count, byte[][] types, int[][] days, long[][] amounts, int[][] patrons, int[][] books,
+             String[] patronNames, String[] isbnNames) {
+            this.count = count;
+            this.types = types;
+            this.days = days;
+            this.amounts = amounts;
+            this.patrons = patrons;
+            this.books = books;
+            this.patronNames = patronNames;
+            this.isbnNames = isbnNames;
+        }
+
+        LedgerEvent event(int position) {
+            int chunk = position >>> CHUNK_BITS;
+            int offset = position & (CHUNK - 1);
+            int book = books[chunk][offset];
+            return new LedgerEvent(position + 1L, TYPES[types[chunk][offset]],
+                    patronNames[patrons[chunk][offset]], book < 0 ? null : isbnNames[book],
+                    LocalDate.ofEpochDay(days[chunk][offset]), amounts[chunk][offset]);
+        }
+    }
+
+    /**
+     * One decoded segment file, with segment-local dictionary IDs
+     */
+    private static class Segment {
+        final Path file;
+        final long first;
+        final long length;
+        final List<String> patronNames = new ArrayList<>();
+        final List<String> isbnNames = new ArrayList<>();
+        private final Map<String, Integer> patronIds = new HashMap<>();
+        private final Map<String, Integer> isbnIds = new HashMap<>();
+        byte[] types;
+        int[] days;
+        long[] amounts;
+        int[] patrons;
+        int[] books;
+        int count;
+        long validEnd;
+
+        Segment(Path file, long first, long length) {
+            this.file = file;
+            this.first = first;
+            int estimate = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, length / 40));
+            this.types = new byte[estimate];
+            this.days = new int[estimate];
+            this.amounts = new long[estimate];
+            this.patrons = new int[estimate];
+            this.books = new int[estimate];
+            this.length = length;
+        }
+
+        void add(int type, int epochDay, long amount, String patronId, String isbn) {
+            if (count == types.length) {
+                int grown = count * 2;
+                types = Arrays.copyOf(types, grown);
+                days = Arrays.copyOf(days, grown);
+                amounts = Arrays.copyOf(amounts, grown);
+                patrons = Arrays.copyOf(patrons, grown);
+                books = Arrays.copyOf(books, grown);
+            }
+            types[count] = (byte) type;
+            days[count] = epochDay;
+            amounts[count] = amount;
+            patrons[count] = local(patronId, patronIds, patronNames);
+            books[count] = isbn == null ? -1 : local(isbn, isbnIds, isbnNames);
+            count++;
+        }
+
+        private static int local(String name, Map<String, Integer> ids, List<String> names) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.library.ledger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OpenLoans Class - Loans not yet returned, per patron, from the ledger
+ *
+ * Features:
+ * - A CHECKOUT opens a loan; a RETURN of the same ISBN closes the
+ *   oldest open one (a patron may hold several copies of a title)
+ * - Each open loan is its CHECKOUT event, so its date is at hand
+ *
+ * Partitioned by patron.
+ */
+public class OpenLoans implements LedgerProjection {
+    private final Map<String, List<LedgerEvent>> loans = new ConcurrentHashMap<>();
+
+    @Override
+    public Key getKey() {
+        return Key.PATRON;
+    }
+
+    @Override
+    public void apply(LedgerEvent event) {
+        if (event.getType() == LedgerEvent.Type.CHECKOUT) {
+            List<LedgerEvent> open = loans.computeIfAbsent(event.getPatronId(), id -> new ArrayList<>());
+            synchronized (open) {
+                open.add(event);
+            }
+        } else if (event.getType() == LedgerEvent.Type.RETURN) {
+            List<LedgerEvent> open = loans.get(event.getPatronId());
+            if (open != null) {
+                synchronized (open) {
+                    for (int i = 0; i < open.size(); i++) {
+                        if (open.get(i).getIsbn().equals(event.getIsbn())) {
+                            open.remove(i);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        loans.clear();
+    }
+
+    // ===== GETTERS =====
+
+    /**
+     * Get a patron's open loans as their CHECKOUT events, oldest first
+     */
+    public List<LedgerEvent> getOpenLoans(String patronId) {
+        List<LedgerEvent> open = loans.get(patronId);
+        if (open == null) {
+            return Collections.emptyList();
+        }
+        synchronized (open) {
+            return new ArrayList<>(open);
+        }
+    }
+
+    public int getOpenLoanCount(String patronId) {
+        List<LedgerEvent> open = loans.get(patronId);
+        if (open == null) {
+            return 0;
+        }
+        synchronized (open) {
+            return open.size();
+        }
+    }
+
+    /**
+     * Get number of open loans across all patrons
+     */
+    public long getTotalOpenLoans() {
+        long total = 0;
+        for (List<LedgerEvent> open : loans.values()) {
+            synchronized (open) {
+                total += open.size();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,106 @@
+package com.library.ledger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PatronBalances Class - Fines charged and paid per patron, from the ledger
+ *
+ * Features:
+ * - Balance = fines charged - payments received, so every rupee owed
+ *   traces back to FINE and PAYMENT events
+ * - Total outstanding across all patrons
+ *
+ * Partitioned by patron.
+ */
+public class PatronBalances implements LedgerProjection {
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+    @Override
+    public Key getKey() {
+        return Key.PATRON;
+    }
+
+    @Override
+    public void apply(LedgerEvent event) {
+        if (event.getType() == LedgerEvent.Type.FINE) {
+            account(event.getPatronId()).charge(event.getAmount());
+        } else if (event.getType() == LedgerEvent.Type.PAYMENT) {
+            account(event.getPatronId()).pay(event.getAmount());
+        }
+    }
+
+    @Override
+    public void clear() {
+        accounts.clear();
+    }
+
+    private Account account(String patronId) {
+        return accounts.computeIfAbsent(patronId, id -> new Account());
+    }
+
+    // ===== GETTERS =====
+
+    /**
+     * Get what a patron still owes (paise)
+     */
+    public long getBalance(String patronId) {
+        Account account = accounts.get(patronId);
+        return account == null ? 0 : account.balance();
+    }
+
+    /**
+     * Get every fine ever charged to a patron (paise)
+     */
+    public long getCharged(String patronId) {
+        Account account = accounts.get(patronId);
+        return account == null ? 0 : account.charged();
+    }
+
+    /**
+     * Get every payment ever received from a patron (paise)
+     */
+    public long getPaid(String patronId) {
+        Account account = accounts.get(patronId);
+        return account == null ? 0 : account.paid();
+    }
+
+    /**
+     * Get the sum of all balances (paise)
+     */
+    public long getTotalOutstanding() {
+        return accounts.values().stream().mapToLong(Account::balance).sum();
+    }
+
+    /**
+     * Get number of patrons with a non-zero balance
+     */
+    public long getPatronsOwingCount() {
+        return accounts.values().stream().filter(account -> account.balance() != 0).count();
+    }
+
+    private static class Account {
+        private long charged;
+        private long paid;
+
+        synchronized void charge(long amount) {
+            charged += amount;
+        }
+
+        synchronized void pay(long amount) {
+            paid += amount;
+        }
+
+        synchronized long balance() {
+            return charged - paid;
+        }
+
+        synchronized long charged() {
+            return charged;
+        }
+
+        synchronized long paid() {
+            return paid;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.library.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram Class - Concurrent log-linear histogram of nanoseconds
+ * 
+ * Features:
+ * - HdrHistogram-style buckets: exact below 64 ns, then 32 linear
+ *   sub-buckets per power of two (about 3% relative error) up to 2^63
+ * - record() is one array increment plus one adder, with no locks and
+ *   no allocation
+ * - Snapshots give count, mean, max and any percentile
+ * 
+ * Bucket index for value v >= 64 with highest set bit m:
+ *   64 + (m - 6) * 32 + ((v >> (m - 5)) - 32)
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;        // exact buckets
+    private static final int HALF = SUB_COUNT / 2;             // sub-buckets per power of two
+    private static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * HALF;
+
+    private final AtomicLongArray counts;
+    private final LongAdder total;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.total = new LongAdder();
+    }
+
+    /**
+     * Record one latency (negative values count as 0)
+     */
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.getAndIncrement(index(v));
+        total.add(v);
+    }
+
+    /**
+     * Copy the current counts
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, total.sum());
+    }
+
+    static int index(long v) {
+        if (v < SUB_COUNT) {
+            return (int) v;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(v);
+        int shift = magnitude - SUB_BITS + 1;
+        return SUB_COUNT + (magnitude - SUB_BITS) * HALF + (int) ((v >>> shift) - HALF);
+    }
+
+    /**
+     * Largest value that falls into the bucket
+     */
+    static long highestEquivalent(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int k = index - SUB_COUNT;
+        int magnitude = k / HALF + SUB_BITS;
+        int shift = magnitude - SUB_BITS + 1;
+        long lower = (long) (k % HALF + HALF) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * Snapshot Class - Immutable copy of a histogram
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+
+        Snapshot(long[] counts, long count, long sum) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Upper bound of the highest recorded bucket
+         */
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return highestEquivalent(i);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Value at or below which the given percentage (0-100) of samples fall
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestEquivalent(i);
+                }
+            }
+            return getMax();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.library.metrics;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * MetricsReporter Class - Periodic dump of ServiceMetrics
+ * 
+ * Features:
+ * - Text table or one JSON object per report
+ * - Text reports add throughput (calls/s) since the previous report
+ * - Runs on a single daemon thread; output goes to any String consumer
+ * 
+ * Usage:
+ *   MetricsReporter reporter = new MetricsReporter(metrics, System.out::println, false);
+ *   reporter.start(10, TimeUnit.SECONDS);
+ *   ...
+ *   reporter.close();
+ */
+public class MetricsReporter implements AutoCloseable {
+    private final ServiceMetrics metrics;
+    private final Consumer<String> out;
+    private final boolean json;
+    private ScheduledExecutorService scheduler;
+    private MetricsSnapshot previous;
+
+    public MetricsReporter(ServiceMetrics metrics, Consumer<String> out, boolean json) {
+        this.metrics = metrics;
+        this.out = out;
+        this.json = json;
+    }
+
+    /**
+     * Report every interval until closed
+     */
+    public synchronized void start(long interval, TimeUnit unit) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "library-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::report, interval, interval, unit);
+    }
+
+    /**
+     * Write one report now
+     */
+    public synchronized void report() {
+        MetricsSnapshot current = metrics.snapshot();
+        out.accept(json ? current.toJson() : render(current));
+        previous = current;
+    }
+
+    private String render(MetricsSnapshot current) {
+        StringBuilder text = new StringBuilder(current.toText());
+        if (previous != null) {
+            double seconds = Math.max(1, current.getTimeMillis() - previous.getTimeMillis()) / 1000.0;
+            text.append("Throughput since last report:");
+            for (MetricsSnapshot.OperationStats s : current.getOperations()) {
+                MetricsSnapshot.OperationStats before = previous.get(s.getOperation());
+                long calls = s.getCount() - (before == null ? 0 : before.getCount());
+                text.append(String.format(" %s=%.0f/s", s.getOperation(), calls / seconds));
+            }
+            text.append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Stop reporting (no final report)
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
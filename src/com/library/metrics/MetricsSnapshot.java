@@ -0,0 +1,162 @@
+package com.library.metrics;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MetricsSnapshot Class - Point-in-time copy of ServiceMetrics
+ * 
+ * Features:
+ * - Per-operation call count, outcome counts and latency percentiles
+ * - Text table and JSON renderings
+ * 
+ * Latencies are in nanoseconds; counts are totals since the metrics
+ * were created. Calls are counted exactly; latencies come from the
+ * sampled calls only.
+ */
+public class MetricsSnapshot {
+    private final long timeMillis;
+    private final List<OperationStats> operations;
+
+    public MetricsSnapshot(long timeMillis, List<OperationStats> operations) {
+        this.timeMillis = timeMillis;
+        this.operations = Collections.unmodifiableList(operations);
+    }
+
+    // ===== GETTERS =====
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public List<OperationStats> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Get the statistics of one operation, or null if it was never called
+     */
+    public OperationStats get(Operation operation) {
+        for (OperationStats stats : operations) {
+            if (stats.getOperation() == operation) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Render as a fixed-width table, one operation per line
+     */
+    public String toText() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-22s %10s %9s %9s %9s %9s %10s  %s%n",
+                "Operation", "Calls", "Mean ns", "p50", "p99", "p99.9", "Max", "Outcomes"));
+        for (OperationStats s : operations) {
+            out.append(String.format("%-22s %10d %9.0f %9d %9d %9d %10d  %s%n",
+                    s.getOperation(), s.getCount(), s.getMean(), s.getPercentile(50),
+                    s.getPercentile(99), s.getPercentile(99.9), s.getMax(), s.getOutcomes()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Render as one JSON object
+     */
+    public String toJson() {
+        StringBuilder out = new StringBuilder();
+        out.append("{\"time\":\"").append(Instant.ofEpochMilli(timeMillis)).append("\",\"operations\":{");
+        for (int i = 0; i < operations.size(); i++) {
+            OperationStats s = operations.get(i);
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append('"').append(s.getOperation()).append("\":{")
+                    .append("\"count\":").append(s.getCount())
+                    .append(",\"meanNanos\":").append(Math.round(s.getMean()))
+                    .append(",\"p50\":").append(s.getPercentile(50))
+                    .append(",\"p90\":").append(s.getPercentile(90))
+                    .append(",\"p99\":").append(s.getPercentile(99))
+                    .append(",\"p999\":").append(s.getPercentile(99.9))
+                    .append(",\"max\":").append(s.getMax())
+                    .append(",\"outcomes\":{");
+            boolean first = true;
+            for (Map.Entry<Outcome, Long> e : s.getOutcomes().entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                out.append('"').append(e.getKey()).append("\":").append(e.getValue());
+                first = false;
+            }
+            out.append("}}");
+        }
+        out.append("}}");
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+
+    /**
+     * OperationStats Class - Statistics of one operation
+     */
+    public static class OperationStats {
+        private final Operation operation;
+        private final LatencyHistogram.Snapshot latency;
+        private final Map<Outcome, Long> outcomes;
+
+        public OperationStats(Operation operation, LatencyHistogram.Snapshot latency, Map<Outcome, Long> outcomes) {
+            this.operation = operation;
+            this.latency = latency;
+            this.outcomes = Collections.unmodifiableMap(outcomes);
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public long getCount() {
+            long total = 0;
+            for (long n : outcomes.values()) {
+                total += n;
+            }
+            return total;
+        }
+
+        /**
+         * Get number of calls whose latency was recorded
+         */
+        public long getTimedCount() {
+            return latency.getCount();
+        }
+
+        /**
+         * Get number of calls that ended with the given outcome
+         */
+        public long getCount(Outcome outcome) {
+            return outcomes.getOrDefault(outcome, 0L);
+        }
+
+        public Map<Outcome, Long> getOutcomes() {
+            return outcomes;
+        }
+
+        public double getMean() {
+            return latency.getMean();
+        }
+
+        /**
+         * Latency (ns) at the given percentile, 0-100
+         */
+        public long getPercentile(double percentile) {
+            return latency.getValueAtPercentile(percentile);
+        }
+
+        public long getMax() {
+            return latency.getMax();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.library.metrics;
+
+/**
+ * Operation Enum - Service calls that are timed and counted
+ */
+public enum Operation {
+    ADD_BOOK,
+    ADD_BOOK_BATCH,
+    REMOVE_BOOK,
+    SEARCH_BY_ISBN,
+    SEARCH_BY_TITLE,
+    SEARCH_BY_AUTHOR,
+    SEARCH_FULL_TEXT,
+    SUGGEST_TITLE,
+    REGISTER_PATRON,
+    REMOVE_PATRON,
+    FIND_PATRON,
+    SEARCH_PATRON_BY_NAME,
+    SUGGEST_PATRON,
+    PAY_FINE,
+    CHECKOUT,
+    RETURN,
+    CHECKOUT_BATCH,
+    RETURN_BATCH,
+    OVERDUE_SWEEP,
+    PLACE_HOLD,
+    CANCEL_HOLD,
+    HOLD_EXPIRY_SWEEP,
+    BRANCH_CHECKOUT,
+    BRANCH_RETURN,
+    BRANCH_AVAILABILITY,
+    BRANCH_SEARCH,
+    TRANSFER
+}
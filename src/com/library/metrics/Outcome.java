@@ -0,0 +1,22 @@
+package com.library.metrics;
+
+/**
+ * Outcome Enum - How a timed service call ended
+ * 
+ * - OK:               did what was asked (lookups: found something)
+ * - NOT_FOUND:        lookup without a match, or unknown book/patron
+ * - REJECTED:         duplicate or invalid input
+ * - NOT_AVAILABLE:    checkout with no copy left
+ * - PATRON_SUSPENDED: checkout by a suspended patron
+ * - NOT_BORROWED:     return of a book the patron does not have
+ * - PARTIAL:          batch in which some items failed
+ */
+public enum Outcome {
+    OK,
+    NOT_FOUND,
+    REJECTED,
+    NOT_AVAILABLE,
+    PATRON_SUSPENDED,
+    NOT_BORROWED,
+    PARTIAL
+}
@@ -0,0 +1,138 @@
+package com.library.models;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BatchResult Model Class - Per-item report of a batch checkout or return
+ * 
+ * Features:
+ * - One Item per request, in request order
+ * - Outcome, due date (checkouts) and fine charged (returns) per item
+ * - Success and per-outcome counts
+ */
+public class BatchResult {
+    private final List<Item> items;
+    private final boolean atomic;
+
+    public BatchResult(List<Item> items, boolean atomic) {
+        this.items = Collections.unmodifiableList(items);
+        this.atomic = atomic;
+    }
+
+    // ===== GETTERS =====
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * True if the batch was all-or-nothing
+     */
+    public boolean isAtomic() {
+        return atomic;
+    }
+
+    public int getSuccessCount() {
+        int count = 0;
+        for (Item item : items) {
+            if (item.getOutcome().isSuccess()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean isAllSucceeded() {
+        return getSuccessCount() == items.size();
+    }
+
+    /**
+     * Get number of items per outcome
+     */
+    public Map<LendingOutcome, Integer> getOutcomeCounts() {
+        Map<LendingOutcome, Integer> counts = new EnumMap<>(LendingOutcome.class);
+        for (Item item : items) {
+            counts.merge(item.getOutcome(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Sum of fines charged by the returns in this batch (paise)
+     */
+    public long getTotalFine() {
+        long total = 0;
+        for (Item item : items) {
+            total += item.getFine();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "items=" + items.size() +
+                ", succeeded=" + getSuccessCount() +
+                ", outcomes=" + getOutcomeCounts() +
+                '}';
+    }
+
+    /**
+     * Item Class - Outcome of one request
+     */
+    public static class Item {
+        private final String patronId;
+        private final String isbn;
+        private final LendingOutcome outcome;
+        private final LocalDate dueDate;
+        private final long fine;
+
+        public Item(String patronId, String isbn, LendingOutcome outcome, LocalDate dueDate, long fine) {
+            this.patronId = patronId;
+            this.isbn = isbn;
+            this.outcome = outcome;
+            this.dueDate = dueDate;
+            this.fine = fine;
+        }
+
+        public String getPatronId() {
+            return patronId;
+        }
+
+        public String getIsbn() {
+            return isbn;
+        }
+
+        public LendingOutcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * Due date of the new loan, or null unless CHECKED_OUT
+         */
+        public LocalDate getDueDate() {
+            return dueDate;
+        }
+
+        /**
+         * Fine charged on return (paise), 0 unless RETURNED late
+         */
+        public long getFine() {
+            return fine;
+        }
+
+        @Override
+        public String toString() {
+            return "Item{" +
+                    "patron='" + patronId + '\'' +
+                    ", isbn='" + isbn + '\'' +
+                    ", outcome=" + outcome +
+                    (dueDate != null ? ", due=" + dueDate : "") +
+                    (fine > 0 ? ", fine=" + Money.format(fine) : "") +
+                    '}';
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.library.models;
 
+import com.library.snapshot.VersionClock;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Book Model Class - Represents a book in the library
  * 
@@ -7,6 +11,24 @@ package com.library.models;
  * - Book details (ISBN, title, author, etc.)
  * - Availability tracking
  * - Status management (AVAILABLE, BORROWED, RESERVED)
+ * - Held copies: returned copies set aside for a patron's hold; they
+ *   are neither available nor on loan until collected or released
+ * - Copy-level inventory: which physical copies are on the shelf, on
+ *   loan or held (see CopyInventory); checkouts take a numbered copy
+ *   and returns put that copy back
+ * 
+ * Thread safety: copies change state under this book's monitor, so
+ * each ISBN has its own lock, and the monitor keeps each change atomic
+ * with its snapshot version and observer call. The inventory is plain
+ * bits guarded by that monitor; the counts change with it and are
+ * cached in volatile fields, so reads of count and status are
+ * lock-free. copiesMatch() checks the cached counts against the
+ * states' population counts.
+ * Copy count changes are reported to the owning service's observer.
+ * 
+ * Versions: with a VersionClock attached, each change is stamped with
+ * the writer's epoch, and the state it replaces is kept while an open
+ * snapshot may still read it; copyAt() reads the book as of a snapshot.
  */
 public class Book {
     private String isbn;
@@ -14,9 +36,15 @@ public class Book {
     private String author;
     private String publisher;
     private int year;
-    private String status;        // AVAILABLE, BORROWED, RESERVED
+    private volatile BookStatus status;
     private int totalCopies;
-    private int availableCopies;
+    private volatile int availableCopies;
+    private volatile int heldCopies;
+    private final CopyInventory inventory;
+    private BookObserver observer;
+    private VersionClock clock;
+    private volatile long version;          // epoch of the last change
+    private volatile State prior;           // replaced states open snapshots may read, newest first
 
     // Constructor
     public Book(String isbn, String title, String author, String publisher, int year, int totalCopies) {
@@ -27,7 +55,8 @@ public class Book {
         this.year = year;
         this.totalCopies = totalCopies;
         this.availableCopies = totalCopies;
-        this.status = "AVAILABLE";
+        this.inventory = new CopyInventory(totalCopies);
+        this.status = BookStatus.AVAILABLE;
     }
 
     // ===== GETTERS =====
@@ -51,7 +80,7 @@ public class Book {
         return year;
     }
 
-    public String getStatus() {
+    public BookStatus getStatus() {
         return status;
     }
 
@@ -63,31 +92,312 @@ public class Book {
         return availableCopies;
     }
 
+    /**
+     * Get number of copies set aside for holds
+     */
+    public int getHeldCopies() {
+        return heldCopies;
+    }
+
+    public int getCopiesOnLoan() {
+        return totalCopies - availableCopies - heldCopies;
+    }
+
+    /**
+     * Get where one copy is (0 to getTotalCopies() - 1)
+     */
+    public synchronized CopyState getCopyState(int copy) {
+        return inventory.getState(copy);
+    }
+
+    /**
+     * Check the copy counts against the population counts of the copies'
+     * states (false means they have drifted apart)
+     */
+    public synchronized boolean copiesMatch() {
+        return inventory.getAvailable() == availableCopies && inventory.getHeld() == heldCopies;
+    }
+
+    /**
+     * Get a detached copy of this book as of a snapshot version
+     * 
+     * Reads without locking; the version must belong to an open snapshot.
+     */
+    public Book copyAt(long at) {
+        Book copy = new Book(isbn, title, author, publisher, year, totalCopies);
+        long v = version;
+        if (v <= at) {
+            int available = availableCopies;
+            int held = heldCopies;
+            BookStatus s = status;
+            if (version == v) {
+                return copy.restore(available, held, s);    // unchanged while being read
+            }
+        }
+        for (State s = prior; s != null; s = s.older) {
+            if (s.version <= at) {
+                return copy.restore(s.availableCopies, s.heldCopies, s.status);
+            }
+        }
+        throw new IllegalStateException("No state of " + isbn + " at version " + at + " (snapshot closed?)");
+    }
+
+    private Book restore(int available, int held, BookStatus status) {
+        this.availableCopies = available;
+        this.heldCopies = held;
+        this.status = status;
+        this.inventory.reset(available, held);
+        return this;
+    }
+
     // ===== SETTERS & METHODS =====
-    public void setStatus(String status) {
+    public synchronized void setStatus(BookStatus status) {
+        VersionClock c = beginChange();
         this.status = status;
+        endChange(c);
     }
 
-    public void setAvailableCopies(int count) {
+    /**
+     * Set the number of copies on the shelf, shelving lent copies or
+     * taking shelf copies off loan to match (used by recovery)
+     * 
+     * @throws IllegalArgumentException if count is negative or more than
+     *         the copies not held
+     */
+    public synchronized void setAvailableCopies(int count) {
+        if (count < 0 || count > totalCopies - heldCopies) {
+            throw new IllegalArgumentException("Available copies of " + isbn + " must be 0 to "
+                    + (totalCopies - heldCopies) + ": " + count);
+        }
+        VersionClock c = beginChange();
+        int delta = count - availableCopies;
+        for (int i = 0; i < delta; i++) {
+            inventory.releaseAny();
+        }
+        for (int i = 0; i > delta; i--) {
+            inventory.claim();
+        }
         this.availableCopies = count;
+        copiesChanged(delta);
+        endChange(c);
     }
 
-    public void borrowBook() {
-        if (availableCopies > 0) {
-            availableCopies--;
-            if (availableCopies == 0) {
-                status = "BORROWED";
+    /**
+     * Move copies on or off the shelf without bounds checks (used by
+     * recovery, where records from different patrons may be logged in a
+     * different order than they happened); the count may go out of range
+     * until every record is applied, then call syncInventory()
+     */
+    public synchronized void adjustAvailableCopies(int delta) {
+        VersionClock c = beginChange();
+        this.availableCopies += delta;
+        copiesChanged(delta);
+        endChange(c);
+    }
+
+    /**
+     * Rebuild the copy inventory from the copy counts and this book's
+     * active loans (used by recovery, after adjustAvailableCopies())
+     * 
+     * Each loan's own copy goes on loan; a loan that did not record its
+     * copy (older journals and snapshots) is given one. Copies the
+     * counts put on loan beyond the loans stay on loan, unnumbered, for
+     * findCopyDrift() to report.
+     * 
+     * @throws IllegalStateException if the copies on the shelf are out
+     *         of range
+     */
+    public synchronized void syncInventory(List<Loan> loans) {
+        if (availableCopies < 0 || availableCopies > totalCopies - heldCopies) {
+            throw new IllegalStateException("Available copies of " + isbn + " must be 0 to "
+                    + (totalCopies - heldCopies) + ": " + availableCopies);
+        }
+        inventory.reset(totalCopies, 0);
+        List<Loan> unnumbered = new ArrayList<>();
+        for (Loan loan : loans) {
+            int copy = loan.getCopy();
+            if (copy < 0 || copy >= totalCopies || !inventory.claim(copy)) {
+                unnumbered.add(loan);
             }
         }
+        for (Loan loan : unnumbered) {
+            loan.assignCopy(inventory.claim());
+        }
+        int onLoan = totalCopies - availableCopies - heldCopies;
+        while (inventory.getOnLoan() < onLoan && inventory.claim() >= 0) {
+            // lent copies without a loan
+        }
+        for (int i = 0; i < heldCopies; i++) {
+            inventory.hold();
+        }
+    }
+
+    /**
+     * Attach the observer for copy count changes (null to detach)
+     */
+    public synchronized void setObserver(BookObserver observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * Attach the clock that versions this book's changes (null to detach)
+     */
+    public synchronized void setVersionClock(VersionClock clock) {
+        this.clock = clock;
+        this.prior = null;
+    }
+
+    public void borrowBook() {
+        tryBorrow();
+    }
+
+    /**
+     * Take one copy if any is left
+     * 
+     * @return true if a copy was taken, false if none were available
+     */
+    public boolean tryBorrow() {
+        return checkoutCopy() >= 0;
+    }
+
+    /**
+     * Take one copy off the shelf if any is left
+     * 
+     * @return the copy number, or -1 if none were available
+     */
+    public synchronized int checkoutCopy() {
+        if (availableCopies <= 0) {
+            return -1;
+        }
+        int copy = inventory.claim();
+        if (copy < 0) {
+            return -1;
+        }
+        VersionClock c = beginChange();
+        availableCopies--;
+        if (availableCopies == 0) {
+            status = heldCopies > 0 ? BookStatus.RESERVED : BookStatus.BORROWED;
+        }
+        copiesChanged(-1);
+        endChange(c);
+        return copy;
     }
 
     public void returnBook() {
-        if (availableCopies < totalCopies) {
+        returnCopy(-1);
+    }
+
+    /**
+     * Put a lent copy back on the shelf
+     * 
+     * @param copy the copy number the loan took, or -1 if not known
+     *        (any lent copy is shelved)
+     * @return false if that copy (or, for -1, any copy) was not on loan
+     */
+    public synchronized boolean returnCopy(int copy) {
+        if (availableCopies + heldCopies >= totalCopies) {
+            return false;
+        }
+        if (copy < 0 ? inventory.releaseAny() < 0 : !inventory.release(copy)) {
+            return false;
+        }
+        VersionClock c = beginChange();
+        availableCopies++;
+        if (availableCopies > 0) {
+            status = BookStatus.AVAILABLE;
+        }
+        copiesChanged(1);
+        endChange(c);
+        return true;
+    }
+
+    /**
+     * Set an available copy aside for a hold
+     * 
+     * @return false if no copy was available
+     */
+    public synchronized boolean holdCopy() {
+        if (availableCopies <= 0 || inventory.hold() < 0) {
+            return false;
+        }
+        VersionClock c = beginChange();
+        availableCopies--;
+        heldCopies++;
+        if (availableCopies == 0) {
+            status = BookStatus.RESERVED;
+        }
+        copiesChanged(-1);
+        endChange(c);
+        return true;
+    }
+
+    /**
+     * Hand a held copy to the patron it was held for
+     * 
+     * @return the copy number, or -1 if no copy was held
+     */
+    public synchronized int collectHeldCopy() {
+        if (heldCopies <= 0) {
+            return -1;
+        }
+        int copy = inventory.collect();
+        if (copy < 0) {
+            return -1;
+        }
+        VersionClock c = beginChange();
+        heldCopies--;
+        if (availableCopies == 0 && heldCopies == 0) {
+            status = BookStatus.BORROWED;
+        }
+        endChange(c);
+        return copy;
+    }
+
+    /**
+     * Put a held copy back on the shelf (hold cancelled or expired)
+     */
+    public synchronized void releaseHeldCopy() {
+        if (heldCopies > 0 && inventory.unhold() >= 0) {
+            VersionClock c = beginChange();
+            heldCopies--;
             availableCopies++;
-            if (availableCopies > 0) {
-                status = "AVAILABLE";
+            status = BookStatus.AVAILABLE;
+            copiesChanged(1);
+            endChange(c);
+        }
+    }
+
+    // Caller holds this book's monitor: join the writer's epoch and, on
+    // the first change in it, keep the state being replaced if an open
+    // snapshot may still read it
+    private VersionClock beginChange() {
+        VersionClock c = clock;
+        if (c != null) {
+            long epoch = c.enterNow();      // never wait holding this monitor
+            if (version != epoch) {
+                long oldest = c.getOldestOpen();
+                State older = oldest == Long.MAX_VALUE ? null : State.trim(prior, oldest);
+                prior = c.isVisible(version)
+                        ? new State(version, availableCopies, heldCopies, status, older) : older;
+                version = epoch;
+            } else if (prior != null && c.getOldestOpen() == Long.MAX_VALUE) {
+                prior = null;               // every snapshot that needed it is closed
             }
         }
+        return c;
+    }
+
+    private static void endChange(VersionClock c) {
+        if (c != null) {
+            c.exit();
+        }
+    }
+
+    // Caller holds this book's monitor
+    private void copiesChanged(int delta) {
+        if (observer != null && delta != 0) {
+            observer.copiesChanged(this, delta);
+        }
     }
 
     @Override
@@ -97,7 +407,38 @@ public class Book {
                 ", title='" + title + '\'' +
                 ", author='" + author + '\'' +
                 ", available=" + availableCopies + "/" + totalCopies +
+                (heldCopies > 0 ? ", held=" + heldCopies : "") +
                 ", status='" + status + '\'' +
                 '}';
     }
+
+    /**
+     * A replaced state kept for open snapshots
+     */
+    private static final class State {
+        final long version;
+        final int availableCopies;
+        final int heldCopies;
+        final BookStatus status;
+        volatile State older;
+
+        State(long version, int availableCopies, int heldCopies, BookStatus status, State older) {
+            this.version = version;
+            this.availableCopies = availableCopies;
+            this.heldCopies = heldCopies;
+            this.status = status;
+            this.older = older;
+        }
+
+        // Drop states older than the one the oldest open snapshot reads
+        static State trim(State head, long oldest) {
+            for (State s = head; s != null; s = s.older) {
+                if (s.version <= oldest) {
+                    s.older = null;
+                    break;
+                }
+            }
+            return head;
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package com.library.models;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BookIds Class - Process-wide interning of ISBNs to small ints
+ *
+ * Patron loan and history storage keeps book IDs instead of String
+ * references, so each ISBN string is held once no matter how many
+ * patrons have borrowed it. IDs are dense (0, 1, 2, ...) and never
+ * reused; they are not stable across restarts, so anything written to
+ * disk stores the ISBN.
+ */
+public final class BookIds {
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] isbns = new String[1024];
+    private static int next;
+
+    private BookIds() {
+    }
+
+    /**
+     * Get the ID for an ISBN, assigning one on first use
+     */
+    public static int intern(String isbn) {
+        Integer id = IDS.get(isbn);
+        if (id != null) {
+            return id;
+        }
+        synchronized (BookIds.class) {
+            id = IDS.get(isbn);
+            if (id == null) {
+                id = next++;
+                if (id == isbns.length) {
+                    isbns = Arrays.copyOf(isbns, id * 2);
+                }
+                isbns[id] = isbn;
+                IDS.put(isbn, id);     // publishes the array write to lock-free readers
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Get the ID for an ISBN, or -1 if it was never interned
+     */
+    public static int find(String isbn) {
+        Integer id = isbn == null ? null : IDS.get(isbn);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Get number of IDs handed out (IDs run from 0 to count - 1)
+     */
+    public static synchronized int count() {
+        return next;
+    }
+
+    /**
+     * Get the ISBN for an ID returned by intern()
+     */
+    public static String isbn(int id) {
+        return isbns[id];
+    }
+}
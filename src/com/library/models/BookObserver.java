@@ -0,0 +1,16 @@
+package com.library.models;
+
+/**
+ * BookObserver Interface - Notified when a book's available copies change
+ * 
+ * Called while the book's monitor is held, so calls for one book arrive
+ * in the order the changes happened. Implementations must be quick and
+ * must not lock other books or patrons.
+ */
+public interface BookObserver {
+
+    /**
+     * Available copies of the book changed by delta
+     */
+    void copiesChanged(Book book, int delta);
+}
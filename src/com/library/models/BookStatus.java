@@ -0,0 +1,14 @@
+package com.library.models;
+
+/**
+ * BookStatus Enum - Lending state of a title
+ * 
+ * - AVAILABLE: at least one copy can be checked out
+ * - BORROWED:  every copy is out
+ * - RESERVED:  held for a patron
+ */
+public enum BookStatus {
+    AVAILABLE,
+    BORROWED,
+    RESERVED
+}
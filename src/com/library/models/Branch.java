@@ -0,0 +1,96 @@
+package com.library.models;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Branch Model Class - One branch, and one shard of BranchService
+ *
+ * Features:
+ * - Own ISBN-to-holding map: a branch's checkouts, returns and lookups
+ *   touch nothing shared with other branches
+ * - Totals computed by scanning the branch's own holdings, so the desk
+ *   path keeps no shared counters
+ */
+public class Branch {
+    private final String branchId;
+    private final String name;
+    private final ConcurrentHashMap<String, Holding> holdings;
+
+    public Branch(String branchId, String name) {
+        this.branchId = branchId;
+        this.name = name;
+        this.holdings = new ConcurrentHashMap<>();
+    }
+
+    // ===== GETTERS =====
+    public String getBranchId() {
+        return branchId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get this branch's holding of a title, or null if it has none
+     */
+    public Holding getHolding(String isbn) {
+        return holdings.get(isbn);
+    }
+
+    /**
+     * Get every holding (live, read-only view)
+     */
+    public Collection<Holding> getHoldings() {
+        return Collections.unmodifiableCollection(holdings.values());
+    }
+
+    /**
+     * Get number of titles held (including titles with every copy
+     * transferred away)
+     */
+    public int getTitleCount() {
+        return holdings.size();
+    }
+
+    public long getTotalCopies() {
+        long total = 0;
+        for (Holding holding : holdings.values()) {
+            total += holding.getCopies();
+        }
+        return total;
+    }
+
+    public long getAvailableCopies() {
+        long total = 0;
+        for (Holding holding : holdings.values()) {
+            total += holding.getAvailable();
+        }
+        return total;
+    }
+
+    /**
+     * Get this branch's holding of a title, creating an empty one
+     */
+    public Holding holdingFor(Book book) {
+        return holdings.computeIfAbsent(book.getIsbn(), isbn -> new Holding(book, branchId));
+    }
+
+    /**
+     * Copy of this branch with a copy of each holding (used for checkpoints)
+     */
+    public Branch copy() {
+        Branch copy = new Branch(branchId, name);
+        for (Holding holding : holdings.values()) {
+            copy.holdings.put(holding.getIsbn(), holding.copy());
+        }
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return branchId + " - " + name + " (" + getTitleCount() + " titles)";
+    }
+}
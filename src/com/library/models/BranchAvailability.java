@@ -0,0 +1,75 @@
+package com.library.models;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BranchAvailability Model Class - Where the copies of one title are
+ *
+ * Merged result of a fan-out over every branch: one holding per branch
+ * that has the title, in branch ID order, with system-wide totals.
+ * Counts are read without locking, so under heavy lending they are a
+ * close picture of the moment of the query.
+ */
+public class BranchAvailability {
+    private final Book book;
+    private final List<Holding> holdings;
+    private final int copies;
+    private final int available;
+
+    public BranchAvailability(Book book, List<Holding> holdings) {
+        this.book = book;
+        this.holdings = Collections.unmodifiableList(holdings);
+        int c = 0;
+        int a = 0;
+        for (Holding holding : holdings) {
+            c += holding.getCopies();
+            a += holding.getAvailable();
+        }
+        this.copies = c;
+        this.available = a;
+    }
+
+    // ===== GETTERS =====
+    public Book getBook() {
+        return book;
+    }
+
+    /**
+     * Get the holdings of every branch that has the title
+     */
+    public List<Holding> getHoldings() {
+        return holdings;
+    }
+
+    public int getTotalCopies() {
+        return copies;
+    }
+
+    public int getTotalAvailable() {
+        return available;
+    }
+
+    /**
+     * Get the first branch (by ID) with a copy on the shelf, or null
+     */
+    public String getFirstAvailableBranch() {
+        for (Holding holding : holdings) {
+            if (holding.getAvailable() > 0) {
+                return holding.getBranchId();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append(book.getTitle()).append(": ").append(available).append('/').append(copies).append(" available");
+        for (Holding holding : holdings) {
+            out.append("\n   ").append(holding.getBranchId()).append(": ")
+                    .append(holding.getAvailable()).append('/').append(holding.getCopies());
+        }
+        return out.toString();
+    }
+}
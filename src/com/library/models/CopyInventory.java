@@ -0,0 +1,281 @@
+package com.library.models;
+
+import java.util.Objects;
+
+/**
+ * CopyInventory Class - The state of every physical copy of one title
+ *
+ * Features:
+ * - Two bits per copy (on shelf, held; neither set means on loan), 32
+ *   copies to a long; titles of up to 32 copies keep them in one inline
+ *   word and allocate nothing else
+ * - Plain bit operations: the owning Book changes copies under its
+ *   monitor, together with its cached counts and versions, so the
+ *   inventory takes no lock or compare-and-set of its own
+ * - Counts are population counts of the words
+ * - For larger titles, a summary bit per word marks the words that may
+ *   still have a shelf copy, so claim() reads two words whether the
+ *   title has 40 copies or 2000
+ *
+ * Copy numbers run from 0 to getCopies() - 1; a copy's barcode is its
+ * title's ISBN plus its number.
+ *
+ * Not thread-safe: callers hold the owning Book's monitor.
+ */
+public final class CopyInventory {
+    private static final int PER_WORD = 32;
+    private static final long SHELF = 0x5555555555555555L;     // low bit of each copy's pair
+    private static final long ON_SHELF = 1;
+    private static final long HELD = 2;
+    private static final long ON_LOAN = 0;
+
+    private final int copies;
+    private final int words;
+    private long first;                 // copies 0-31
+    private final long[] rest;          // copies 32 and up (null for small titles)
+    private final long[] summary;       // bit w: word w may have a shelf copy (null for small titles)
+
+    /**
+     * Create an inventory with every copy on the shelf
+     */
+    public CopyInventory(int copies) {
+        if (copies < 0) {
+            throw new IllegalArgumentException("Negative copy count: " + copies);
+        }
+        this.copies = copies;
+        this.words = Math.max(1, (copies + PER_WORD - 1) / PER_WORD);
+        this.rest = words > 1 ? new long[words - 1] : null;
+        this.summary = words > 1 ? new long[(words + 63) / 64] : null;
+        reset(copies, 0);
+    }
+
+    // ===== GETTERS =====
+    public int getCopies() {
+        return copies;
+    }
+
+    /**
+     * Count copies on the shelf
+     */
+    public int getAvailable() {
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(word(w) & SHELF);
+        }
+        return count;
+    }
+
+    /**
+     * Count copies set aside for holds
+     */
+    public int getHeld() {
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(word(w) & ~SHELF);
+        }
+        return count;
+    }
+
+    /**
+     * Count copies on loan
+     */
+    public int getOnLoan() {
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(matching(word(w), ON_LOAN) & valid(w));
+        }
+        return count;
+    }
+
+    public CopyState getState(int copy) {
+        Objects.checkIndex(copy, copies);
+        long pair = (word(copy / PER_WORD) >>> shift(copy)) & 3;
+        return pair == ON_SHELF ? CopyState.ON_SHELF : pair == HELD ? CopyState.HELD : CopyState.ON_LOAN;
+    }
+
+    // ===== METHODS =====
+
+    /**
+     * Take a copy off the shelf for a loan
+     *
+     * @return the copy number, or -1 if none was on the shelf
+     */
+    public int claim() {
+        return take(ON_LOAN);
+    }
+
+    /**
+     * Take the given copy off the shelf for a loan (used by recovery,
+     * when the log says which copy a loan took)
+     *
+     * @return false if the copy was not on the shelf
+     */
+    public boolean claim(int copy) {
+        return move(copy, ON_SHELF, ON_LOAN);
+    }
+
+    /**
+     * Put a lent copy back on the shelf
+     *
+     * @return false if the copy was not on loan
+     */
+    public boolean release(int copy) {
+        return move(copy, ON_LOAN, ON_SHELF);
+    }
+
+    /**
+     * Put some lent copy back on the shelf (when the loan did not record
+     * which copy it took)
+     *
+     * @return the copy number, or -1 if no copy was on loan
+     */
+    public int releaseAny() {
+        return moveAny(ON_LOAN, ON_SHELF);
+    }
+
+    /**
+     * Set a shelf copy aside for a hold
+     *
+     * @return the copy number, or -1 if none was on the shelf
+     */
+    public int hold() {
+        return take(HELD);
+    }
+
+    /**
+     * Lend a held copy to the patron it was held for
+     *
+     * @return the copy number, or -1 if no copy was held
+     */
+    public int collect() {
+        return moveAny(HELD, ON_LOAN);
+    }
+
+    /**
+     * Put a held copy back on the shelf
+     *
+     * @return the copy number, or -1 if no copy was held
+     */
+    public int unhold() {
+        return moveAny(HELD, ON_SHELF);
+    }
+
+    /**
+     * Set the first copies on the shelf, the next ones held and the rest
+     * on loan
+     */
+    void reset(int available, int held) {
+        if (available < 0 || held < 0 || available + held > copies) {
+            throw new IllegalArgumentException(available + " available and " + held + " held of " + copies);
+        }
+        for (int w = 0; w < words; w++) {
+            long value = 0;
+            for (int c = w * PER_WORD; c < Math.min(copies, (w + 1) * PER_WORD); c++) {
+                long pair = c < available ? ON_SHELF : c < available + held ? HELD : ON_LOAN;
+                value |= pair << shift(c);
+            }
+            set(w, value);
+            if (summary != null) {
+                summary[w >>> 6] = (value & SHELF) != 0 ? summary[w >>> 6] | 1L << w : summary[w >>> 6] & ~(1L << w);
+            }
+        }
+    }
+
+    // Shelf copy -> target state, starting from a word the summary says
+    // may have one
+    private int take(long target) {
+        if (summary == null) {
+            return takeFrom(0, target);
+        }
+        for (int s = 0; s < summary.length; s++) {
+            while (summary[s] != 0) {
+                int w = (s << 6) + Long.numberOfTrailingZeros(summary[s]);
+                int copy = takeFrom(w, target);
+                if (copy >= 0) {
+                    return copy;
+                }
+                summary[s] &= ~(1L << w);       // word has no shelf copy left
+            }
+        }
+        return -1;
+    }
+
+    private int takeFrom(int w, long target) {
+        long v = word(w);
+        if ((v & SHELF) == 0) {
+            return -1;
+        }
+        long bit = Long.lowestOneBit(v & SHELF);
+        set(w, (v & ~bit) | (target == HELD ? bit << 1 : 0));
+        return w * PER_WORD + Long.numberOfTrailingZeros(bit) / 2;
+    }
+
+    private boolean move(int copy, long from, long to) {
+        Objects.checkIndex(copy, copies);
+        int w = copy / PER_WORD;
+        int shift = shift(copy);
+        long v = word(w);
+        if (((v >>> shift) & 3) != from) {
+            return false;
+        }
+        set(w, (v & ~(3L << shift)) | to << shift);
+        if (to == ON_SHELF) {
+            mark(w);
+        }
+        return true;
+    }
+
+    // Some copy in state from -> to: a scan over the words, for returns
+    // and holds that do not know their copy
+    private int moveAny(long from, long to) {
+        for (int w = 0; w < words; w++) {
+            long v = word(w);
+            long candidates = matching(v, from) & valid(w);
+            if (candidates != 0) {
+                int shift = Long.numberOfTrailingZeros(candidates);
+                set(w, (v & ~(3L << shift)) | to << shift);
+                if (to == ON_SHELF) {
+                    mark(w);
+                }
+                return w * PER_WORD + shift / 2;
+            }
+        }
+        return -1;
+    }
+
+    // Low bit of every pair in the given state
+    private static long matching(long v, long state) {
+        long low = v & SHELF;
+        long high = (v >>> 1) & SHELF;
+        return (state == ON_SHELF ? low : ~low & SHELF) & (state == HELD ? high : ~high & SHELF);
+    }
+
+    // Low bit of every pair that is a real copy
+    private long valid(int w) {
+        int n = Math.min(PER_WORD, copies - w * PER_WORD);
+        return n == PER_WORD ? SHELF : SHELF & ((1L << (2 * n)) - 1);
+    }
+
+    private static int shift(int copy) {
+        return (copy % PER_WORD) * 2;
+    }
+
+    // A copy reached the shelf in word w
+    private void mark(int w) {
+        if (summary != null) {
+            summary[w >>> 6] |= 1L << w;
+        }
+    }
+
+    private long word(int w) {
+        return w == 0 ? first : rest[w - 1];
+    }
+
+    private void set(int w, long value) {
+        if (w == 0) {
+            first = value;
+        } else {
+            rest[w - 1] = value;
+        }
+    }
+}
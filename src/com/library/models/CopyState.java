@@ -0,0 +1,14 @@
+package com.library.models;
+
+/**
+ * CopyState Enum - Where one physical copy of a title is
+ * 
+ * - ON_SHELF: can be checked out
+ * - ON_LOAN:  lent to a patron
+ * - HELD:     set aside for a patron's hold, waiting for pickup
+ */
+public enum CopyState {
+    ON_SHELF,
+    ON_LOAN,
+    HELD
+}
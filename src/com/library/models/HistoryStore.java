@@ -0,0 +1,23 @@
+package com.library.models;
+
+import java.io.IOException;
+
+/**
+ * HistoryStore Interface - Where sealed borrowing-history blocks are paged out
+ *
+ * A block is written once and read back any number of times; the
+ * handle returned by write() is all the patron keeps in memory.
+ */
+public interface HistoryStore {
+    /**
+     * Store an encoded block
+     *
+     * @return handle to pass to read()
+     */
+    long write(byte[] block) throws IOException;
+
+    /**
+     * Read back a block stored by write()
+     */
+    byte[] read(long handle) throws IOException;
+}
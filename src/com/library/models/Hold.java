@@ -0,0 +1,105 @@
+package com.library.models;
+
+import java.time.LocalDate;
+
+/**
+ * Hold Model Class - One patron waiting for one title
+ *
+ * Features:
+ * - Placed date fixes the patron's place in the title's queue
+ * - Ready date and pickup deadline once a returned copy is set aside
+ * - Status (WAITING, READY, COLLECTED, CANCELLED, EXPIRED)
+ *
+ * Status changes are made under the book's monitor, together with the
+ * matching change to the book's held copies; reads are lock-free.
+ */
+public class Hold {
+    private final Book book;
+    private final Patron patron;
+    private final LocalDate placedDate;
+    private volatile HoldStatus status;
+    private volatile LocalDate readyDate;
+    private volatile LocalDate pickupDeadline;
+
+    // Constructor
+    public Hold(Book book, Patron patron, LocalDate placedDate) {
+        this.book = book;
+        this.patron = patron;
+        this.placedDate = placedDate;
+        this.status = HoldStatus.WAITING;
+    }
+
+    // ===== GETTERS =====
+    public Book getBook() {
+        return book;
+    }
+
+    public Patron getPatron() {
+        return patron;
+    }
+
+    public String getIsbn() {
+        return book.getIsbn();
+    }
+
+    public String getPatronId() {
+        return patron.getPatronId();
+    }
+
+    public LocalDate getPlacedDate() {
+        return placedDate;
+    }
+
+    public HoldStatus getStatus() {
+        return status;
+    }
+
+    public LocalDate getReadyDate() {
+        return readyDate;
+    }
+
+    /**
+     * Last day the held copy can be collected (null while waiting)
+     */
+    public LocalDate getPickupDeadline() {
+        return pickupDeadline;
+    }
+
+    /**
+     * Still waiting or ready (not yet collected, cancelled or expired)
+     */
+    public boolean isOpen() {
+        HoldStatus s = status;
+        return s == HoldStatus.WAITING || s == HoldStatus.READY;
+    }
+
+    // ===== SETTERS & METHODS =====
+    public void markReady(LocalDate readyDate, LocalDate pickupDeadline) {
+        this.readyDate = readyDate;
+        this.pickupDeadline = pickupDeadline;
+        this.status = HoldStatus.READY;
+    }
+
+    public void markCollected() {
+        this.status = HoldStatus.COLLECTED;
+    }
+
+    public void markCancelled() {
+        this.status = HoldStatus.CANCELLED;
+    }
+
+    public void markExpired() {
+        this.status = HoldStatus.EXPIRED;
+    }
+
+    @Override
+    public String toString() {
+        return "Hold{" +
+                "isbn='" + getIsbn() + '\'' +
+                ", patron='" + getPatronId() + '\'' +
+                ", placed=" + placedDate +
+                ", status=" + status +
+                (pickupDeadline != null ? ", pickupBy=" + pickupDeadline : "") +
+                '}';
+    }
+}
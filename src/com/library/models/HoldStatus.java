@@ -0,0 +1,18 @@
+package com.library.models;
+
+/**
+ * HoldStatus Enum - Where a hold is in its life
+ * 
+ * - WAITING:   queued for the next returned copy
+ * - READY:     a copy is set aside until the pickup deadline
+ * - COLLECTED: the patron checked the held copy out
+ * - CANCELLED: withdrawn by the patron
+ * - EXPIRED:   not collected in time; the copy went to the next in line
+ */
+public enum HoldStatus {
+    WAITING,
+    READY,
+    COLLECTED,
+    CANCELLED,
+    EXPIRED
+}
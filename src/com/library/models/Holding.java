@@ -0,0 +1,116 @@
+package com.library.models;
+
+/**
+ * Holding Model Class - The copies of one title kept at one branch
+ *
+ * The copies are a share of the Book's copies, not extra ones: the
+ * Book's counts stay the system-wide figures, and a holding records
+ * where its copies are shelved and how many of them are out on loan.
+ *
+ * Counts change under the holding's own monitor and are published
+ * through volatile fields, so availability can be read without locking.
+ * A holding is only ever locked by its own branch's desks, plus both
+ * ends of an inter-branch transfer.
+ */
+public class Holding {
+    private final Book book;
+    private final String branchId;
+    private volatile int copies;
+    private volatile int available;
+
+    public Holding(Book book, String branchId) {
+        this.book = book;
+        this.branchId = branchId;
+    }
+
+    // ===== GETTERS =====
+    public Book getBook() {
+        return book;
+    }
+
+    public String getIsbn() {
+        return book.getIsbn();
+    }
+
+    public String getBranchId() {
+        return branchId;
+    }
+
+    public int getCopies() {
+        return copies;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public int getOnLoan() {
+        return copies - available;
+    }
+
+    // ===== METHODS =====
+
+    /**
+     * Shelve more of the title's copies here
+     */
+    public synchronized void addCopies(int count) {
+        copies += count;
+        available += count;
+    }
+
+    /**
+     * Take a copy off the shelf for a loan
+     */
+    public synchronized boolean checkout() {
+        if (available <= 0) {
+            return false;
+        }
+        available--;
+        return true;
+    }
+
+    /**
+     * Put a lent copy back on the shelf
+     */
+    public synchronized boolean checkin() {
+        if (available >= copies) {
+            return false;
+        }
+        available++;
+        return true;
+    }
+
+    /**
+     * Set the counts without checks (used by recovery)
+     */
+    public synchronized void restore(int copies, int available) {
+        this.copies = copies;
+        this.available = available;
+    }
+
+    /**
+     * Copy of this holding's counts (used for checkpoints)
+     */
+    public synchronized Holding copy() {
+        Holding copy = new Holding(book, branchId);
+        copy.copies = copies;
+        copy.available = available;
+        return copy;
+    }
+
+    /**
+     * Move shelved copies to another branch's holding (caller holds
+     * both monitors)
+     */
+    public void moveTo(Holding target, int count) {
+        copies -= count;
+        available -= count;
+        target.copies += count;
+        target.available += count;
+    }
+
+    @Override
+    public String toString() {
+        return branchId + ": " + book.getTitle() + " (" + available + "/" + copies + " available)";
+    }
+}
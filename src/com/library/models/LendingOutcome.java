@@ -0,0 +1,29 @@
+package com.library.models;
+
+/**
+ * LendingOutcome Enum - Result of one checkout or return
+ * 
+ * - CHECKED_OUT:      copy lent to the patron
+ * - RETURNED:         copy given back (any fine is in the result)
+ * - NOT_AVAILABLE:    no copy left
+ * - PATRON_SUSPENDED: patron may not borrow
+ * - PATRON_NOT_FOUND: unknown patron ID
+ * - BOOK_NOT_FOUND:   unknown ISBN
+ * - NOT_BORROWED:     patron has no active loan of the book
+ * - ROLLED_BACK:      would have succeeded, but another item of an
+ *                     atomic batch failed
+ */
+public enum LendingOutcome {
+    CHECKED_OUT,
+    RETURNED,
+    NOT_AVAILABLE,
+    PATRON_SUSPENDED,
+    PATRON_NOT_FOUND,
+    BOOK_NOT_FOUND,
+    NOT_BORROWED,
+    ROLLED_BACK;
+
+    public boolean isSuccess() {
+        return this == CHECKED_OUT || this == RETURNED;
+    }
+}
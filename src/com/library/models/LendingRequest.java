@@ -0,0 +1,31 @@
+package com.library.models;
+
+/**
+ * LendingRequest Model Class - One (patron, book) pair of a batch
+ */
+public class LendingRequest {
+    private final String patronId;
+    private final String isbn;
+
+    public LendingRequest(String patronId, String isbn) {
+        this.patronId = patronId;
+        this.isbn = isbn;
+    }
+
+    // ===== GETTERS =====
+    public String getPatronId() {
+        return patronId;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    @Override
+    public String toString() {
+        return "LendingRequest{" +
+                "patron='" + patronId + '\'' +
+                ", isbn='" + isbn + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,129 @@
+package com.library.models;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Loan Model Class - One checkout of one copy by one patron
+ * 
+ * Features:
+ * - Checkout and due dates fixed at checkout time
+ * - The copy lent (its number in the book's CopyInventory)
+ * - Fine tracking: the date up to which overdue days have been charged
+ * - Overdue notice flag and return date
+ * 
+ * Mutable fields are guarded by the patron's monitor, like the
+ * patron's own loan list.
+ */
+public class Loan {
+    private final Book book;
+    private final Patron patron;
+    private final LocalDate checkoutDate;
+    private final LocalDate dueDate;
+    private int copy;                   // -1 if not known
+    private LocalDate finedThrough;
+    private LocalDate returnDate;
+    private boolean noticeSent;
+
+    // Constructor
+    public Loan(Book book, Patron patron, LocalDate checkoutDate, LocalDate dueDate) {
+        this(book, patron, checkoutDate, dueDate, -1);
+    }
+
+    public Loan(Book book, Patron patron, LocalDate checkoutDate, LocalDate dueDate, int copy) {
+        this.book = book;
+        this.patron = patron;
+        this.checkoutDate = checkoutDate;
+        this.dueDate = dueDate;
+        this.copy = copy;
+        this.finedThrough = dueDate;
+    }
+
+    // ===== GETTERS =====
+    public Book getBook() {
+        return book;
+    }
+
+    public Patron getPatron() {
+        return patron;
+    }
+
+    public String getIsbn() {
+        return book.getIsbn();
+    }
+
+    public String getPatronId() {
+        return patron.getPatronId();
+    }
+
+    public LocalDate getCheckoutDate() {
+        return checkoutDate;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    /**
+     * Get the number of the copy lent (-1 if not known, e.g. a loan
+     * recovered from an older journal, until the inventory is synced)
+     */
+    public int getCopy() {
+        return copy;
+    }
+
+    /**
+     * Overdue days up to and including this date have been fined
+     */
+    public LocalDate getFinedThrough() {
+        return finedThrough;
+    }
+
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+
+    public boolean isNoticeSent() {
+        return noticeSent;
+    }
+
+    public boolean isActive() {
+        return returnDate == null;
+    }
+
+    /**
+     * Days past the due date on the given date (0 if not overdue)
+     */
+    public long daysOverdue(LocalDate date) {
+        return date.isAfter(dueDate) ? ChronoUnit.DAYS.between(dueDate, date) : 0;
+    }
+
+    // ===== SETTERS & METHODS =====
+    public void setFinedThrough(LocalDate date) {
+        this.finedThrough = date;
+    }
+
+    public void markNoticeSent() {
+        this.noticeSent = true;
+    }
+
+    public void markReturned(LocalDate date) {
+        this.returnDate = date;
+    }
+
+    // Recovery: the copy the inventory gave a loan that did not record one
+    void assignCopy(int copy) {
+        this.copy = copy;
+    }
+
+    @Override
+    public String toString() {
+        return "Loan{" +
+                "isbn='" + getIsbn() + '\'' +
+                ", patron='" + getPatronId() + '\'' +
+                ", checkout=" + checkoutDate +
+                ", due=" + dueDate +
+                (returnDate != null ? ", returned=" + returnDate : "") +
+                '}';
+    }
+}
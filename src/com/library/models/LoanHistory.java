@@ -0,0 +1,296 @@
+package com.library.models;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * LoanHistory Class - Append-only borrowing history in compact blocks
+ *
+ * Features:
+ * - Entries are interned book IDs, delta + zigzag + varint encoded, so
+ *   a typical entry takes one to three bytes instead of a String reference
+ * - Fixed-size blocks of BLOCK_ENTRIES; full blocks are sealed and never
+ *   change again
+ * - Sealed blocks can be paged out to a HistoryStore and are read back
+ *   on demand, so a long-tenured patron's history need not stay in memory
+ * - Views capture the current length and never copy; they decode as
+ *   they iterate
+ *
+ * Not thread-safe: mutators and view() run under the owning patron's
+ * monitor. A view may then be read from any thread.
+ */
+final class LoanHistory {
+    static final int BLOCK_ENTRIES = 256;
+
+    private Block[] blocks = new Block[4];
+    private int blockCount;
+    private byte[] tail = new byte[16];     // open block; replaced, not reused, when sealed
+    private int tailBytes;
+    private int tailCount;
+    private int previous;                   // last ID in the open block
+
+    /**
+     * A sealed block: in memory (data) or paged out (store + handle)
+     */
+    private static final class Block {
+        private volatile byte[] data;
+        private HistoryStore store;         // written before data is cleared
+        private long handle;
+
+        Block(byte[] data) {
+            this.data = data;
+        }
+
+        byte[] bytes() {
+            byte[] bytes = data;
+            if (bytes != null) {
+                return bytes;
+            }
+            try {
+                return store.read(handle);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read paged-out history", e);
+            }
+        }
+    }
+
+    void add(int id) {
+        if (tailCount == BLOCK_ENTRIES) {
+            seal();
+        }
+        if (tailBytes + 5 > tail.length) {
+            tail = Arrays.copyOf(tail, tail.length * 2);
+        }
+        int delta = id - previous;
+        int zigzag = (delta << 1) ^ (delta >> 31);
+        while ((zigzag & ~0x7F) != 0) {
+            tail[tailBytes++] = (byte) (zigzag | 0x80);
+            zigzag >>>= 7;
+        }
+        tail[tailBytes++] = (byte) zigzag;
+        tailCount++;
+        previous = id;
+    }
+
+    int size() {
+        return blockCount * BLOCK_ENTRIES + tailCount;
+    }
+
+    /**
+     * Page every sealed in-memory block out to the store
+     *
+     * @return number of blocks written
+     */
+    int pageOut(HistoryStore store) throws IOException {
+        int written = 0;
+        for (int i = 0; i < blockCount; i++) {
+            Block block = blocks[i];
+            byte[] data = block.data;
+            if (data != null) {
+                block.handle = store.write(data);
+                block.store = store;
+                block.data = null;
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Get number of sealed blocks still held in memory
+     */
+    int residentBlocks() {
+        int resident = 0;
+        for (int i = 0; i < blockCount; i++) {
+            if (blocks[i].data != null) {
+                resident++;
+            }
+        }
+        return resident;
+    }
+
+    /**
+     * Copy sharing the sealed blocks (used for checkpoints)
+     */
+    LoanHistory copy() {
+        LoanHistory copy = new LoanHistory();
+        copy.blocks = Arrays.copyOf(blocks, Math.max(4, blockCount));
+        copy.blockCount = blockCount;
+        copy.tail = Arrays.copyOf(tail, tail.length);
+        copy.tailBytes = tailBytes;
+        copy.tailCount = tailCount;
+        copy.previous = previous;
+        return copy;
+    }
+
+    /**
+     * Write the blocks as encoded, each sealed one as [int length][bytes]
+     * and then the open block's count and bytes (used for snapshots)
+     *
+     * Paged-out blocks are read back byte for byte, not decoded, and
+     * stay paged out.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            byte[] bytes = blocks[i].bytes();
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(tailCount);
+        out.writeInt(tailBytes);
+        out.write(tail, 0, tailBytes);
+    }
+
+    /**
+     * Read blocks written by write()
+     *
+     * @param ids the current book ID of each ID in the blocks, or null
+     *            when they are the current IDs already; sealed blocks are
+     *            then kept as read, without decoding
+     */
+    static LoanHistory read(DataInput in, int[] ids) throws IOException {
+        LoanHistory history = new LoanHistory();
+        int sealed = in.readInt();
+        history.blocks = new Block[Math.max(4, sealed)];
+        for (int i = 0; i < sealed; i++) {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            history.blocks[i] = new Block(ids == null ? bytes : remap(bytes, ids));
+        }
+        history.blockCount = sealed;
+        int openCount = in.readInt();
+        byte[] open = new byte[in.readInt()];
+        in.readFully(open);
+        Cursor cursor = new Cursor(open);
+        for (int i = 0; i < openCount; i++) {
+            int id = cursor.next();
+            history.add(ids == null ? id : ids[id]);
+        }
+        return history;
+    }
+
+    // Re-encode one sealed block with each ID replaced by ids[ID]
+    private static byte[] remap(byte[] block, int[] ids) {
+        Cursor cursor = new Cursor(block);
+        byte[] out = new byte[BLOCK_ENTRIES * 5];
+        int length = 0;
+        int previous = 0;
+        for (int i = 0; i < BLOCK_ENTRIES; i++) {
+            int id = ids[cursor.next()];
+            int delta = id - previous;
+            int zigzag = (delta << 1) ^ (delta >> 31);
+            while ((zigzag & ~0x7F) != 0) {
+                out[length++] = (byte) (zigzag | 0x80);
+                zigzag >>>= 7;
+            }
+            out[length++] = (byte) zigzag;
+            previous = id;
+        }
+        return Arrays.copyOf(out, length);
+    }
+
+    /**
+     * Read-only ISBN list of the history as it is right now
+     */
+    List<String> view() {
+        Block[] sealed = blocks;
+        int sealedCount = blockCount;
+        byte[] open = tail;
+        int openCount = tailCount;
+        int size = size();
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                int block = index / BLOCK_ENTRIES;
+                Cursor cursor = new Cursor(block < sealedCount ? sealed[block].bytes() : open);
+                for (int i = index % BLOCK_ENTRIES; i > 0; i--) {
+                    cursor.next();
+                }
+                return BookIds.isbn(cursor.next());
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    private int block = -1;
+                    private int left;
+                    private Cursor cursor;
+
+                    @Override
+                    public boolean hasNext() {
+                        return left > 0 || block + 1 < sealedCount || (block + 1 == sealedCount && openCount > 0);
+                    }
+
+                    @Override
+                    public String next() {
+                        if (left == 0) {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            block++;
+                            left = block < sealedCount ? BLOCK_ENTRIES : openCount;
+                            cursor = new Cursor(block < sealedCount ? sealed[block].bytes() : open);
+                        }
+                        left--;
+                        return BookIds.isbn(cursor.next());
+                    }
+                };
+            }
+        };
+    }
+
+    // ===== INTERNALS =====
+
+    private void seal() {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+        }
+        blocks[blockCount++] = new Block(Arrays.copyOf(tail, tailBytes));
+        tail = new byte[tail.length];
+        tailBytes = 0;
+        tailCount = 0;
+        previous = 0;
+    }
+
+    /**
+     * Decodes IDs from one block in order
+     */
+    private static final class Cursor {
+        private final byte[] bytes;
+        private int position;
+        private int previous;
+
+        Cursor(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int next() {
+            int zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                zigzag |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            return previous;
+        }
+    }
+}
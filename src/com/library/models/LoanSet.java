@@ -0,0 +1,152 @@
+package com.library.models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * LoanSet Class - A patron's current loans as interned book IDs
+ *
+ * Features:
+ * - Multiset (a patron may hold two copies of one title), kept in
+ *   checkout order
+ * - O(1) membership through an open-addressing count table
+ * - Copy-on-write ID array, so views never copy and never see a
+ *   half-applied change
+ *
+ * Not thread-safe: mutators run under the owning patron's monitor.
+ */
+final class LoanSet {
+    private static final int[] NONE = new int[0];
+    private static final int MIN_TABLE = 8;
+
+    private volatile int[] ids = NONE; // replaced, never written in place
+    private int[] keys;                // open addressing, -1 = empty
+    private int[] counts;
+    private int used;
+
+    LoanSet() {
+        this.keys = emptyTable(MIN_TABLE);
+        this.counts = new int[MIN_TABLE];
+    }
+
+    void add(int id) {
+        int[] grown = Arrays.copyOf(ids, ids.length + 1);
+        grown[ids.length] = id;
+        ids = grown;
+        if ((used + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int slot = slot(id);
+        if (keys[slot] == -1) {
+            keys[slot] = id;
+            used++;
+        }
+        counts[slot]++;
+    }
+
+    /**
+     * Remove one occurrence (the earliest)
+     *
+     * @return false if the ID is not held
+     */
+    boolean remove(int id) {
+        int slot = slot(id);
+        if (keys[slot] == -1) {
+            return false;
+        }
+        if (--counts[slot] == 0) {
+            delete(slot);
+        }
+        int at = 0;
+        while (ids[at] != id) {
+            at++;
+        }
+        int[] shrunk = new int[ids.length - 1];
+        System.arraycopy(ids, 0, shrunk, 0, at);
+        System.arraycopy(ids, at + 1, shrunk, at, shrunk.length - at);
+        ids = shrunk;
+        return true;
+    }
+
+    /**
+     * IDs held right now, in checkout order (never modified; do not write)
+     */
+    int[] ids() {
+        return ids;
+    }
+
+    boolean contains(int id) {
+        return id >= 0 && keys[slot(id)] != -1;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * Read-only ISBN list of the loans held right now
+     */
+    List<String> view() {
+        int[] held = ids;
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return BookIds.isbn(held[index]);
+            }
+
+            @Override
+            public int size() {
+                return held.length;
+            }
+        };
+    }
+
+    // ===== HASH TABLE =====
+
+    private int slot(int id) {
+        int mask = keys.length - 1;
+        int i = (id * 0x9E3779B9) >>> 16 & mask;
+        while (keys[i] != -1 && keys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int i = (slot + 1) & mask; keys[i] != -1; i = (i + 1) & mask) {
+            int home = (keys[i] * 0x9E3779B9) >>> 16 & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                counts[hole] = counts[i];
+                hole = i;
+            }
+        }
+        keys[hole] = -1;
+        counts[hole] = 0;
+        used--;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = emptyTable(capacity);
+        counts = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != -1) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int[] emptyTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        return table;
+    }
+}
@@ -0,0 +1,30 @@
+package com.library.models;
+
+/**
+ * Money Class - Fixed-point helpers for amounts in minor units
+ * 
+ * All fines and payments are held as long paise (1 Rs. = 100 paise),
+ * so totals are exact and never drift the way double sums do.
+ */
+public final class Money {
+    public static final long MINOR_PER_MAJOR = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Convert whole rupees to minor units
+     */
+    public static long ofMajor(long rupees) {
+        return Math.multiplyExact(rupees, MINOR_PER_MAJOR);
+    }
+
+    /**
+     * Format minor units as "530.00"
+     */
+    public static String format(long minor) {
+        long abs = Math.abs(minor);
+        long fraction = abs % MINOR_PER_MAJOR;
+        return (minor < 0 ? "-" : "") + (abs / MINOR_PER_MAJOR) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
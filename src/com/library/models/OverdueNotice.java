@@ -0,0 +1,71 @@
+package com.library.models;
+
+import java.time.LocalDate;
+
+/**
+ * OverdueNotice Model Class - Notice produced by the overdue sweep
+ * 
+ * Features:
+ * - Which patron and which book
+ * - Due date and days overdue on the sweep date
+ * - Fine charged by this sweep (paise)
+ */
+public class OverdueNotice {
+    private final String patronId;
+    private final String patronName;
+    private final String isbn;
+    private final String title;
+    private final LocalDate dueDate;
+    private final long daysOverdue;
+    private final long fineCharged;
+
+    public OverdueNotice(Loan loan, LocalDate sweepDate, long fineCharged) {
+        this.patronId = loan.getPatronId();
+        this.patronName = loan.getPatron().getName();
+        this.isbn = loan.getIsbn();
+        this.title = loan.getBook().getTitle();
+        this.dueDate = loan.getDueDate();
+        this.daysOverdue = loan.daysOverdue(sweepDate);
+        this.fineCharged = fineCharged;
+    }
+
+    // ===== GETTERS =====
+    public String getPatronId() {
+        return patronId;
+    }
+
+    public String getPatronName() {
+        return patronName;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public long getDaysOverdue() {
+        return daysOverdue;
+    }
+
+    public long getFineCharged() {
+        return fineCharged;
+    }
+
+    @Override
+    public String toString() {
+        return "OverdueNotice{" +
+                "patron='" + patronName + '\'' +
+                ", title='" + title + '\'' +
+                ", due=" + dueDate +
+                ", daysOverdue=" + daysOverdue +
+                ", fine=" + Money.format(fineCharged) +
+                '}';
+    }
+}
@@ -1,26 +1,47 @@
 package com.library.models;
 
-import java.util.ArrayList;
+import com.library.snapshot.VersionClock;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 /**
  * Patron Model Class - Represents a library member
  * 
  * Features:
- * - Member details (ID, name, email, phone)
- * - Borrowing history tracking
- * - Fine management
+ * - Member details (ID, name, email, phone), fixed at registration so
+ *   a patron published to a lock-free reader is seen whole
+ * - Borrowing history tracking, stored compactly (interned book IDs,
+ *   delta-encoded blocks that can be paged out to disk)
+ * - O(1) check for whether a book is currently borrowed
+ * - Fine management (fixed-point minor units, see Money)
  * - Account status (ACTIVE, SUSPENDED)
+ * 
+ * Thread safety: mutators and list copies run under this patron's
+ * monitor; fine and status reads are lock-free. Fine, status and loan
+ * count changes are reported to the owning service's observer. The
+ * borrowed and history lists are read-only views taken under the
+ * monitor; they do not copy and do not change as the patron keeps
+ * borrowing.
+ * 
+ * Versions: with a VersionClock attached, fine, status and borrowed
+ * books are versioned like Book's copy counts, so copyAt() can read the
+ * patron as of an open snapshot. Borrowing history is not versioned.
  */
 public class Patron {
-    private String patronId;
-    private String name;
-    private String email;
-    private String phone;
-    private List<String> borrowedBooks;
-    private List<String> borrowingHistory;
-    private double fineAmount;
-    private String status;  // ACTIVE, SUSPENDED
+    private final String patronId;
+    private final String name;
+    private final String email;
+    private final String phone;
+    private final LoanSet borrowedBooks;
+    private LoanHistory borrowingHistory;
+    private volatile long fineAmount;     // paise
+    private volatile PatronStatus status;
+    private PatronObserver observer;
+    private VersionClock clock;
+    private volatile long version;          // epoch of the last change
+    private volatile State prior;           // replaced states open snapshots may read, newest first
 
     // Constructor
     public Patron(String patronId, String name, String email, String phone) {
@@ -28,10 +49,10 @@ public class Patron {
         this.name = name;
         this.email = email;
         this.phone = phone;
-        this.borrowedBooks = new ArrayList<>();
-        this.borrowingHistory = new ArrayList<>();
-        this.fineAmount = 0.0;
-        this.status = "ACTIVE";
+        this.borrowedBooks = new LoanSet();
+        this.borrowingHistory = new LoanHistory();
+        this.fineAmount = 0;
+        this.status = PatronStatus.ACTIVE;
     }
 
     // ===== GETTERS =====
@@ -51,66 +72,280 @@ public class Patron {
         return phone;
     }
 
-    public List<String> getBorrowedBooks() {
-        return new ArrayList<>(borrowedBooks);
+    /**
+     * Get ISBNs currently borrowed, in checkout order (read-only view)
+     */
+    public synchronized List<String> getBorrowedBooks() {
+        return borrowedBooks.view();
+    }
+
+    public synchronized int getBorrowedCount() {
+        return borrowedBooks.size();
     }
 
-    public List<String> getBorrowingHistory() {
-        return new ArrayList<>(borrowingHistory);
+    /**
+     * Get every ISBN ever borrowed, oldest first (read-only view;
+     * paged-out blocks are read back as the view is iterated)
+     */
+    public synchronized List<String> getBorrowingHistory() {
+        return borrowingHistory.view();
     }
 
-    public double getFineAmount() {
+    public synchronized int getHistorySize() {
+        return borrowingHistory.size();
+    }
+
+    /**
+     * Get number of full history blocks still held in memory
+     */
+    public synchronized int getResidentHistoryBlocks() {
+        return borrowingHistory.residentBlocks();
+    }
+
+    /**
+     * Get outstanding fine in minor units (paise)
+     */
+    public long getFineAmount() {
         return fineAmount;
     }
 
-    public String getStatus() {
+    public PatronStatus getStatus() {
         return status;
     }
 
+    /**
+     * Get a detached copy of this patron (details, fine, status and
+     * borrowed books; no history) as of a snapshot version
+     * 
+     * Reads without locking; the version must belong to an open snapshot.
+     */
+    public Patron copyAt(long at) {
+        Patron copy = new Patron(patronId, name, email, phone);
+        long v = version;
+        if (v <= at) {
+            long fine = fineAmount;
+            PatronStatus s = status;
+            int[] borrowed = borrowedBooks.ids();
+            if (version == v) {
+                return copy.restore(fine, s, borrowed);
+            }
+        }
+        for (State s = prior; s != null; s = s.older) {
+            if (s.version <= at) {
+                return copy.restore(s.fineAmount, s.status, s.borrowed);
+            }
+        }
+        throw new IllegalStateException("No state of " + patronId + " at version " + at + " (snapshot closed?)");
+    }
+
+    private Patron restore(long fine, PatronStatus status, int[] borrowed) {
+        this.fineAmount = fine;
+        this.status = status;
+        for (int id : borrowed) {
+            this.borrowedBooks.add(id);
+        }
+        return this;
+    }
+
     // ===== SETTERS & METHODS =====
-    public void setEmail(String email) {
-        this.email = email;
+    public synchronized void addBorrowedBook(String bookIsbn) {
+        VersionClock c = beginChange();
+        this.borrowedBooks.add(BookIds.intern(bookIsbn));
+        endChange(c);
+        if (observer != null) {
+            observer.loansChanged(this, borrowedBooks.size() - 1, borrowedBooks.size());
+        }
     }
 
-    public void setPhone(String phone) {
-        this.phone = phone;
+    /**
+     * Remove one loan of the given book
+     * 
+     * @return true if the patron had borrowed it
+     */
+    public synchronized boolean removeBorrowedBook(String bookIsbn) {
+        int id = BookIds.find(bookIsbn);
+        if (id < 0 || !this.borrowedBooks.contains(id)) {
+            return false;
+        }
+        VersionClock c = beginChange();
+        this.borrowedBooks.remove(id);
+        endChange(c);
+        if (observer != null) {
+            observer.loansChanged(this, borrowedBooks.size() + 1, borrowedBooks.size());
+        }
+        return true;
+    }
+
+    public synchronized boolean hasBorrowed(String bookIsbn) {
+        return this.borrowedBooks.contains(BookIds.find(bookIsbn));
     }
 
-    public void addBorrowedBook(String bookIsbn) {
-        this.borrowedBooks.add(bookIsbn);
+    public synchronized void addToHistory(String bookIsbn) {
+        this.borrowingHistory.add(BookIds.intern(bookIsbn));
     }
 
-    public void removeBorrowedBook(String bookIsbn) {
-        this.borrowedBooks.remove(bookIsbn);
+    /**
+     * Write full history blocks still in memory to the store and drop
+     * them from the heap
+     * 
+     * @return number of blocks written
+     */
+    public synchronized int pageOutHistory(HistoryStore store) throws IOException {
+        return borrowingHistory.pageOut(store);
     }
 
-    public void addToHistory(String bookIsbn) {
-        this.borrowingHistory.add(bookIsbn);
+    /**
+     * Replace this patron's history with a copy of another's, sharing
+     * its full blocks (used for checkpoints)
+     */
+    public void copyHistoryFrom(Patron source) {
+        LoanHistory copy;
+        synchronized (source) {
+            copy = source.borrowingHistory.copy();
+        }
+        synchronized (this) {
+            this.borrowingHistory = copy;
+        }
     }
 
-    public void addFine(double amount) {
+    /**
+     * Write the borrowing history as its encoded blocks (used by
+     * snapshots); blocks paged out stay paged out
+     */
+    public void writeHistory(DataOutput out) throws IOException {
+        LoanHistory copy;
+        synchronized (this) {
+            copy = borrowingHistory.copy();
+        }
+        copy.write(out);
+    }
+
+    /**
+     * Replace the borrowing history with blocks written by
+     * writeHistory() (used by recovery)
+     *
+     * @param ids the current BookIds ID of each ID in the blocks, or
+     *            null when they are the same
+     */
+    public void readHistory(DataInput in, int[] ids) throws IOException {
+        LoanHistory history = LoanHistory.read(in, ids);
+        synchronized (this) {
+            this.borrowingHistory = history;
+        }
+    }
+
+    public synchronized void addFine(long amount) {
+        VersionClock c = beginChange();
+        long before = fineAmount;
         this.fineAmount += amount;
+        if (observer != null && amount != 0) {
+            observer.fineChanged(this, before, fineAmount);
+        }
+        endChange(c);
     }
 
-    public void payFine(double amount) {
-        if (amount <= fineAmount) {
-            this.fineAmount -= amount;
+    /**
+     * Pay off part or all of the outstanding fine (paise)
+     *
+     * @throws IllegalArgumentException if the amount is not positive or
+     *         more than is owed
+     */
+    public synchronized void payFine(long amount) {
+        if (amount <= 0 || amount > fineAmount) {
+            throw new IllegalArgumentException("Payment of " + Money.format(amount) + " for " + patronId
+                    + " does not fit outstanding fine " + Money.format(fineAmount));
         }
+        addFine(-amount);
     }
 
-    public void setStatus(String status) {
+    public synchronized void setStatus(PatronStatus status) {
+        VersionClock c = beginChange();
+        PatronStatus before = this.status;
         this.status = status;
+        endChange(c);
+        if (observer != null && before != status) {
+            observer.statusChanged(this, before, status);
+        }
+    }
+
+    /**
+     * Attach the observer for fine, status and loan count changes (null to detach)
+     */
+    public synchronized void setObserver(PatronObserver observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * Attach the clock that versions this patron's changes (null to detach)
+     */
+    public synchronized void setVersionClock(VersionClock clock) {
+        this.clock = clock;
+        this.prior = null;
+    }
+
+    // Caller holds this patron's monitor (see Book.beginChange)
+    private VersionClock beginChange() {
+        VersionClock c = clock;
+        if (c != null) {
+            long epoch = c.enter();         // a change in flight never needs this monitor
+            if (version != epoch) {
+                long oldest = c.getOldestOpen();
+                State older = oldest == Long.MAX_VALUE ? null : State.trim(prior, oldest);
+                prior = c.isVisible(version)
+                        ? new State(version, fineAmount, status, borrowedBooks.ids(), older) : older;
+                version = epoch;
+            } else if (prior != null && c.getOldestOpen() == Long.MAX_VALUE) {
+                prior = null;               // every snapshot that needed it is closed
+            }
+        }
+        return c;
+    }
+
+    private static void endChange(VersionClock c) {
+        if (c != null) {
+            c.exit();
+        }
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return "Patron{" +
                 "id='" + patronId + '\'' +
                 ", name='" + name + '\'' +
                 ", email='" + email + '\'' +
                 ", borrowed=" + borrowedBooks.size() +
-                ", fine=" + fineAmount +
+                ", fine=" + Money.format(fineAmount) +
                 ", status='" + status + '\'' +
                 '}';
     }
+
+    /**
+     * A replaced state kept for open snapshots
+     */
+    private static final class State {
+        final long version;
+        final long fineAmount;
+        final PatronStatus status;
+        final int[] borrowed;
+        volatile State older;
+
+        State(long version, long fineAmount, PatronStatus status, int[] borrowed, State older) {
+            this.version = version;
+            this.fineAmount = fineAmount;
+            this.status = status;
+            this.borrowed = borrowed;
+            this.older = older;
+        }
+
+        // Drop states older than the one the oldest open snapshot reads
+        static State trim(State head, long oldest) {
+            for (State s = head; s != null; s = s.older) {
+                if (s.version <= oldest) {
+                    s.older = null;
+                    break;
+                }
+            }
+            return head;
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package com.library.models;
+
+/**
+ * PatronObserver Interface - Notified when a patron's status, fine or loans change
+ * 
+ * Called while the patron's monitor is held, so calls for one patron
+ * arrive in the order the changes happened. Implementations must be
+ * quick and must not lock other patrons or books.
+ */
+public interface PatronObserver {
+
+    /**
+     * Account status changed from before to after
+     */
+    void statusChanged(Patron patron, PatronStatus before, PatronStatus after);
+
+    /**
+     * Outstanding fine (paise) changed from before to after
+     */
+    void fineChanged(Patron patron, long before, long after);
+
+    /**
+     * Number of books on loan changed from before to after
+     */
+    default void loansChanged(Patron patron, int before, int after) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.library.models;
+
+/**
+ * PatronStatus Enum - Account state of a library member
+ * 
+ * - ACTIVE:    may borrow books
+ * - SUSPENDED: borrowing blocked (e.g. outstanding fines)
+ */
+public enum PatronStatus {
+    ACTIVE,
+    SUSPENDED
+}
@@ -0,0 +1,84 @@
+package com.library.persistence;
+
+import com.library.models.HistoryStore;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * HistoryFile Class - Page file for patrons' sealed borrowing-history blocks
+ *
+ * Features:
+ * - Append-only; a block's handle is its file offset
+ * - Positional reads, so any number of threads can read back at once
+ * - Scratch space only: snapshots copy the blocks themselves, so the
+ *   file is emptied on open and never needs recovery
+ *
+ * Block layout: [int length][bytes]
+ *
+ * Usage:
+ *   try (HistoryFile pages = HistoryFile.open(Paths.get("data/history.pages"))) {
+ *       patronService.pageOutHistory(pages);
+ *       ...
+ *   }
+ */
+public class HistoryFile implements HistoryStore, AutoCloseable {
+    private final FileChannel channel;
+    private long end;
+
+    private HistoryFile(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Create (or empty) a page file
+     */
+    public static HistoryFile open(Path file) throws IOException {
+        return new HistoryFile(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    @Override
+    public synchronized long write(byte[] block) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + block.length);
+        buffer.putInt(block.length).put(block).flip();
+        long offset = end;
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+        end += buffer.limit();
+        return offset;
+    }
+
+    @Override
+    public byte[] read(long handle) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        readFully(length, handle);
+        ByteBuffer block = ByteBuffer.allocate(length.flip().getInt());
+        readFully(block, handle + Integer.BYTES);
+        return block.array();
+    }
+
+    /**
+     * Get bytes written so far
+     */
+    public synchronized long size() {
+        return end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("History block cut short at " + position);
+            }
+        }
+    }
+}
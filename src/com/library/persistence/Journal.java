@@ -0,0 +1,436 @@
+package com.library.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Journal Class - Append-only write-ahead log on FileChannel segments
+ *
+ * Features:
+ * - Length-prefixed, CRC-checked binary records
+ * - Group commit: one background writer drains every pending record,
+ *   writes them in a single gathered write and forces the channel once
+ * - Replay from any sequence number; a torn tail is detected and cut off
+ * - Segment roll + delete so snapshots can retire old records
+ * - Change gate so a snapshot sees every change either fully applied and
+ *   logged, or not at all
+ * - A failed write is latched: nothing more is written after it (so a
+ *   torn record stays the tail) and every later append fails
+ *
+ * Segments are named journal-NNNN.log after the first sequence number
+ * they may contain.
+ *
+ * Record layout: [int length][int crc32][long seq][byte type][byte argc][UTF args...]
+ */
+public class Journal implements AutoCloseable {
+    private static final int HEADER_BYTES = 8;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean forceOnCommit;
+    private final ArrayDeque<Pending> queue;
+    private final Thread writer;
+    private final ReentrantReadWriteLock gate;
+    private FileChannel channel;
+    private long lastSequence;
+    private IOException failure;
+    private boolean closed;
+
+    private Journal(Path directory, FileChannel channel, boolean forceOnCommit, long lastSequence) {
+        this.directory = directory;
+        this.channel = channel;
+        this.forceOnCommit = forceOnCommit;
+        this.lastSequence = lastSequence;
+        this.queue = new ArrayDeque<>();
+        this.gate = new ReentrantReadWriteLock();
+        this.writer = new Thread(this::writeLoop, "journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Open (or create) a journal in the given directory
+     *
+     * Existing segments are scanned to find the last sequence number and
+     * any torn record at the tail of the newest segment is truncated away.
+     *
+     * @param forceOnCommit force data to the device before acknowledging
+     *                      an append (durable against power loss)
+     */
+    public static Journal open(Path directory, boolean forceOnCommit) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = segments(directory);
+        long[] last = {0};
+        for (int i = 0; i < segments.size() - 1; i++) {
+            try (FileChannel reader = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                scan(reader, r -> last[0] = r.getSequence());
+            }
+        }
+
+        Path active = segments.isEmpty() ? segmentPath(directory, 1) : segments.get(segments.size() - 1);
+        FileChannel channel = FileChannel.open(active, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long validEnd = scan(channel, r -> last[0] = r.getSequence());
+        channel.truncate(validEnd);
+        channel.position(validEnd);
+        return new Journal(directory, channel, forceOnCommit, last[0]);
+    }
+
+    /**
+     * Append a record and wait until it is written (and forced, if enabled)
+     *
+     * @return the sequence number assigned to the record
+     */
+    public long append(JournalRecord record) {
+        try {
+            return appendAsync(record).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Queue a record for the next group commit
+     *
+     * The sequence number is assigned here, so callers that need their
+     * records in a particular order should queue them under their own lock
+     * and wait on the future after releasing it.
+     *
+     * @throws UncheckedIOException if an earlier write failed
+     */
+    public CompletableFuture<Long> appendAsync(JournalRecord record) {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        synchronized (queue) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed: " + directory);
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Journal write failed: " + directory, failure);
+            }
+            queue.add(new Pending(record.withSequence(++lastSequence), done));
+            queue.notifyAll();
+        }
+        return done;
+    }
+
+    /**
+     * Enter a change: hold this around "mutate state, then append" so a
+     * snapshot cannot observe the mutation without its record
+     *
+     * Changes run concurrently with each other; only snapshots exclude them.
+     */
+    public void beginChange() {
+        gate.readLock().lock();
+    }
+
+    public void endChange() {
+        gate.readLock().unlock();
+    }
+
+    /**
+     * Run an action while no change is in progress
+     *
+     * @return the last sequence number covered by the action's view of state
+     */
+    public long runExclusive(Runnable action) {
+        gate.writeLock().lock();
+        try {
+            action.run();
+            return getLastSequence();
+        } finally {
+            gate.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replay every record with a sequence number greater than afterSequence
+     *
+     * Records appended concurrently with a replay may or may not be seen.
+     */
+    public void replay(long afterSequence, Consumer<JournalRecord> consumer) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            // Skip segments that end before the requested sequence
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                continue;
+            }
+            try (FileChannel reader = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                scan(reader, r -> {
+                    if (r.getSequence() > afterSequence) {
+                        consumer.accept(r);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Start a new segment; later records go to the new file
+     */
+    public void roll() throws IOException {
+        synchronized (queue) {
+            awaitDrained();
+            if (failure != null) {
+                throw new IOException("Journal write failed: " + directory, failure);
+            }
+            channel.force(true);
+            channel.close();
+            channel = FileChannel.open(segmentPath(directory, lastSequence + 1), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+
+    /**
+     * Delete segments that only hold records up to the given sequence
+     * (after a snapshot has captured them)
+     */
+    public void deleteThrough(long sequence) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSequence(segments.get(i + 1)) <= sequence + 1) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+    }
+
+    /**
+     * Get the sequence number of the last appended record
+     */
+    public long getLastSequence() {
+        synchronized (queue) {
+            return lastSequence;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (failure == null) {
+                channel.force(true);
+            }
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw new IOException("Journal write failed: " + directory, failure);
+        }
+    }
+
+    // ===== WRITER =====
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (true) {
+            FileChannel out;
+            IOException failed;
+            synchronized (queue) {
+                while (queue.isEmpty() && !closed) {
+                    try {
+                        queue.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (queue.isEmpty()) {
+                    return;
+                }
+                batch.addAll(queue);
+                out = channel;
+                failed = failure;
+            }
+
+            // After a failure, fail what was queued before appends saw it
+            try {
+                if (failed != null) {
+                    throw failed;
+                }
+                ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+                long remaining = 0;
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = encode(batch.get(i).record);
+                    remaining += buffers[i].remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= out.write(buffers);
+                }
+                if (forceOnCommit) {
+                    out.force(false);
+                }
+            } catch (IOException e) {
+                failed = e;
+            }
+
+            synchronized (queue) {
+                for (int i = 0; i < batch.size(); i++) {
+                    queue.poll();
+                }
+                if (failed != null && failure == null) {
+                    failure = failed;
+                }
+                queue.notifyAll();
+            }
+            for (Pending p : batch) {
+                if (failed == null) {
+                    p.done.complete(p.record.getSequence());
+                } else {
+                    p.done.completeExceptionally(new UncheckedIOException("Journal write failed: " + directory, failed));
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    // Caller holds the queue monitor
+    private void awaitDrained() throws IOException {
+        while (!queue.isEmpty()) {
+            try {
+                queue.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for journal writes", e);
+            }
+        }
+    }
+
+    // ===== SEGMENTS =====
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static Path segmentPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%019d%s", PREFIX, firstSequence, SUFFIX));
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    // ===== ENCODING =====
+
+    private static ByteBuffer encode(JournalRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(record.getSequence());
+        out.writeByte(record.getType().ordinal());
+        String[] args = record.args();
+        out.writeByte(args.length);
+        for (String arg : args) {
+            out.writeUTF(arg == null ? "" : arg);
+        }
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + body.length);
+        buffer.putInt(body.length).putInt((int) crc.getValue()).put(body).flip();
+        return buffer;
+    }
+
+    /**
+     * Read records from the start of the channel
+     *
+     * @return the byte offset just past the last intact record
+     */
+    private static long scan(FileChannel channel, Consumer<JournalRecord> consumer) throws IOException {
+        channel.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel), 1 << 16));
+        JournalRecord.Type[] types = JournalRecord.Type.values();
+        long offset = 0;
+        while (true) {
+            byte[] body;
+            int expectedCrc;
+            try {
+                int length = in.readInt();
+                expectedCrc = in.readInt();
+                if (length < 10 || length > (1 << 24)) {
+                    break;
+                }
+                body = new byte[length];
+                in.readFully(body);
+            } catch (EOFException e) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+
+            DataInputStream rec = new DataInputStream(new ByteArrayInputStream(body));
+            long seq = rec.readLong();
+            int type = rec.readByte();
+            String[] args = new String[rec.readByte()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = rec.readUTF();
+            }
+            if (type < 0 || type >= types.length) {
+                break;
+            }
+            consumer.accept(new JournalRecord(seq, types[type], args));
+            offset += HEADER_BYTES + body.length;
+        }
+        return offset;
+    }
+
+    private static class Pending {
+        final JournalRecord record;
+        final CompletableFuture<Long> done;
+
+        Pending(JournalRecord record, CompletableFuture<Long> done) {
+            this.record = record;
+            this.done = done;
+        }
+    }
+}
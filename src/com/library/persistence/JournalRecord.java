@@ -0,0 +1,153 @@
+package com.library.persistence;
+
+import com.library.models.Book;
+import com.library.models.Patron;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * JournalRecord Class - One state change in the write-ahead journal
+ * 
+ * Features:
+ * - Typed record (checkout, return, fine, register, remove, ...)
+ * - Positional string arguments, interpreted per type
+ * - Sequence number assigned by the journal on append
+ */
+public class JournalRecord {
+
+    /**
+     * Record types and the arguments each one carries
+     */
+    public enum Type {
+        ADD_BOOK,        // isbn, title, author, publisher, year, totalCopies
+        REMOVE_BOOK,     // isbn
+        REGISTER_PATRON, // patronId, name, email, phone
+        REMOVE_PATRON,   // patronId
+        SUSPEND_PATRON,  // patronId
+        ACTIVATE_PATRON, // patronId
+        CHECKOUT,        // patronId, isbn, date, copy (absent in older journals)
+        RETURN,          // patronId, isbn, date, copy (absent in older journals)
+        FINE,            // patronId, amount (paise)
+        PAYMENT,         // patronId, amount (paise)
+        OVERDUE,         // patronId, isbn, sweep date, amount (paise)
+        ADD_BRANCH,      // branchId, name
+        SHELVE_COPIES,   // branchId, isbn, count
+        TRANSFER_COPIES, // isbn, fromBranchId, toBranchId, count
+        BRANCH_CHECKOUT, // branchId, isbn (the loan itself is a CHECKOUT)
+        BRANCH_RETURN    // branchId, isbn (the return itself is a RETURN)
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final String[] args;
+
+    public JournalRecord(long sequence, Type type, String... args) {
+        this.sequence = sequence;
+        this.type = type;
+        this.args = args;
+    }
+
+    // ===== FACTORIES =====
+    public static JournalRecord addBook(Book book) {
+        return new JournalRecord(0, Type.ADD_BOOK, book.getIsbn(), book.getTitle(), book.getAuthor(),
+                book.getPublisher(), String.valueOf(book.getYear()), String.valueOf(book.getTotalCopies()));
+    }
+
+    public static JournalRecord removeBook(String isbn) {
+        return new JournalRecord(0, Type.REMOVE_BOOK, isbn);
+    }
+
+    public static JournalRecord registerPatron(Patron patron) {
+        return new JournalRecord(0, Type.REGISTER_PATRON, patron.getPatronId(), patron.getName(),
+                patron.getEmail(), patron.getPhone());
+    }
+
+    public static JournalRecord removePatron(String patronId) {
+        return new JournalRecord(0, Type.REMOVE_PATRON, patronId);
+    }
+
+    public static JournalRecord suspendPatron(String patronId) {
+        return new JournalRecord(0, Type.SUSPEND_PATRON, patronId);
+    }
+
+    public static JournalRecord activatePatron(String patronId) {
+        return new JournalRecord(0, Type.ACTIVATE_PATRON, patronId);
+    }
+
+    public static JournalRecord checkout(String patronId, String isbn, LocalDate date, int copy) {
+        return new JournalRecord(0, Type.CHECKOUT, patronId, isbn, date.toString(), Integer.toString(copy));
+    }
+
+    public static JournalRecord returned(String patronId, String isbn, LocalDate date, int copy) {
+        return new JournalRecord(0, Type.RETURN, patronId, isbn, date.toString(), Integer.toString(copy));
+    }
+
+    public static JournalRecord fine(String patronId, long amount) {
+        return new JournalRecord(0, Type.FINE, patronId, Long.toString(amount));
+    }
+
+    public static JournalRecord payment(String patronId, long amount) {
+        return new JournalRecord(0, Type.PAYMENT, patronId, Long.toString(amount));
+    }
+
+    public static JournalRecord overdue(String patronId, String isbn, LocalDate date, long amount) {
+        return new JournalRecord(0, Type.OVERDUE, patronId, isbn, date.toString(), Long.toString(amount));
+    }
+
+    public static JournalRecord addBranch(String branchId, String name) {
+        return new JournalRecord(0, Type.ADD_BRANCH, branchId, name);
+    }
+
+    public static JournalRecord shelveCopies(String branchId, String isbn, int count) {
+        return new JournalRecord(0, Type.SHELVE_COPIES, branchId, isbn, Integer.toString(count));
+    }
+
+    public static JournalRecord transferCopies(String isbn, String fromBranchId, String toBranchId, int count) {
+        return new JournalRecord(0, Type.TRANSFER_COPIES, isbn, fromBranchId, toBranchId, Integer.toString(count));
+    }
+
+    public static JournalRecord branchCheckout(String branchId, String isbn) {
+        return new JournalRecord(0, Type.BRANCH_CHECKOUT, branchId, isbn);
+    }
+
+    public static JournalRecord branchReturn(String branchId, String isbn) {
+        return new JournalRecord(0, Type.BRANCH_RETURN, branchId, isbn);
+    }
+
+    // ===== GETTERS =====
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getArg(int index) {
+        return args[index];
+    }
+
+    public int getArgCount() {
+        return args.length;
+    }
+
+    /**
+     * Copy of this record carrying the given sequence number
+     */
+    JournalRecord withSequence(long seq) {
+        return new JournalRecord(seq, type, args);
+    }
+
+    String[] args() {
+        return args;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalRecord{" +
+                "seq=" + sequence +
+                ", type=" + type +
+                ", args=" + Arrays.toString(args) +
+                '}';
+    }
+}
@@ -0,0 +1,349 @@
+package com.library.persistence;
+
+import com.library.events.ConsoleEventSink;
+import com.library.events.EventSink;
+import com.library.events.EventType;
+import com.library.models.Book;
+import com.library.models.BookStatus;
+import com.library.models.Branch;
+import com.library.models.Loan;
+import com.library.models.Patron;
+import com.library.models.PatronStatus;
+import com.library.services.BookService;
+import com.library.services.BranchService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * LibraryStore Class - Durable storage for books, patrons and loans
+ *
+ * Features:
+ * - Recovery on open: load the latest snapshot, then replay the journal
+ * - Attaches the journal to the services so every change is logged
+ * - Checkpoints: snapshot current state and retire covered journal segments
+ * - Optional periodic checkpoints on a background thread; a failed one
+ *   is reported and kept for callers, and the next one retries
+ * - Works over a mapped catalog: snapshots hold only the books changed
+ *   in memory and the mapped records removed, never the whole mapping
+ * - Optionally keeps a BranchService's branches and holdings as well
+ *
+ * Usage:
+ *   bookService.attachCatalog(MappedCatalog.open(catalogFile));   // optional, before open()
+ *   LibraryStore store = LibraryStore.open(dir, bookService, patronService, lendingService);
+ *   ... use the services as usual ...
+ *   store.close();
+ */
+public class LibraryStore implements AutoCloseable {
+    private static final String SNAPSHOT_FILE = "library.snapshot";
+    private static final String JOURNAL_DIR = "journal";
+
+    private final Path directory;
+    private final BookService bookService;
+    private final PatronService patronService;
+    private final LendingService lendingService;
+    private final BranchService branchService;      // null: no branches
+    private final Journal journal;
+    private ScheduledExecutorService scheduler;
+    private volatile EventSink events;
+    private volatile Exception checkpointFailure;
+
+    private LibraryStore(Path directory, BookService bookService, PatronService patronService,
+                         LendingService lendingService, BranchService branchService, Journal journal) {
+        this.directory = directory;
+        this.bookService = bookService;
+        this.patronService = patronService;
+        this.lendingService = lendingService;
+        this.branchService = branchService;
+        this.journal = journal;
+        this.events = new ConsoleEventSink();
+    }
+
+    /**
+     * Recover state into the (empty) services and start journaling
+     */
+    public static LibraryStore open(Path directory, BookService bookService, PatronService patronService,
+                                    LendingService lendingService) throws IOException {
+        return open(directory, bookService, patronService, lendingService, null);
+    }
+
+    /**
+     * Recover state into the (empty) services, branches included, and
+     * start journaling
+     */
+    public static LibraryStore open(Path directory, BookService bookService, PatronService patronService,
+                                    LendingService lendingService, BranchService branchService) throws IOException {
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        long covered = 0;
+        if (Files.exists(snapshot)) {
+            covered = SnapshotStore.read(snapshot, bookService, patronService, lendingService, branchService);
+        }
+
+        Journal journal = Journal.open(directory.resolve(JOURNAL_DIR), true);
+        LibraryStore store = new LibraryStore(directory, bookService, patronService, lendingService, branchService,
+                journal);
+        journal.replay(covered, store::apply);
+        Map<Book, List<Loan>> loansByBook = new IdentityHashMap<>();
+        for (Loan loan : lendingService.getAllActiveLoans()) {
+            loansByBook.computeIfAbsent(loan.getBook(), b -> new ArrayList<>()).add(loan);
+        }
+        for (Book book : bookService.getResidentBooks()) {
+            book.syncInventory(loansByBook.getOrDefault(book, Collections.emptyList()));
+            if (book.getStatus() != BookStatus.RESERVED) {
+                book.setStatus(book.getAvailableCopies() > 0 ? BookStatus.AVAILABLE : BookStatus.BORROWED);
+            }
+        }
+
+        bookService.setJournal(journal);
+        patronService.setJournal(journal);
+        lendingService.setJournal(journal);
+        if (branchService != null) {
+            branchService.setJournal(journal);
+        }
+        return store;
+    }
+
+    /**
+     * Write a snapshot of the current state and drop the journal segments
+     * it covers
+     *
+     * Changes are held off only while the state is copied, not while the
+     * snapshot is written.
+     */
+    public void checkpoint() throws IOException {
+        List<Book> books = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<Patron> patrons = new ArrayList<>();
+        List<Loan> loans = new ArrayList<>();
+        List<Branch> branches = new ArrayList<>();
+        IOException[] rollFailure = new IOException[1];
+        long covered = journal.runExclusive(() -> {
+            for (Book b : bookService.getResidentBooks()) {
+                books.add(copyOf(b));
+            }
+            removed.addAll(bookService.getRemovedCatalogIsbns());
+            for (Patron p : patronService.getAllPatrons()) {
+                patrons.add(copyOf(p));
+            }
+            for (Loan l : lendingService.getAllActiveLoans()) {
+                loans.add(copyOf(l));
+            }
+            if (branchService != null) {
+                for (Branch b : branchService.getBranches()) {
+                    branches.add(b.copy());
+                }
+            }
+            try {
+                journal.roll();
+            } catch (IOException e) {
+                rollFailure[0] = e;
+            }
+        });
+        if (rollFailure[0] != null) {
+            throw rollFailure[0];
+        }
+
+        SnapshotStore.write(directory.resolve(SNAPSHOT_FILE), covered, books, removed, patrons, loans, branches);
+        journal.deleteThrough(covered);
+    }
+
+    /**
+     * Report failed periodic checkpoints to the given sink (console by default)
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Checkpoint every interval on a background thread
+     *
+     * A checkpoint that fails is reported as CHECKPOINT_FAILED and kept
+     * for getCheckpointFailure(); the schedule carries on, and the
+     * journal keeps every change until a later checkpoint succeeds.
+     */
+    public synchronized void startCheckpoints(long interval, TimeUnit unit) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "library-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+                checkpointFailure = null;
+            } catch (IOException | RuntimeException e) {
+                // Thrown out of here, it would cancel every later run
+                checkpointFailure = e;
+                events.emit(EventType.CHECKPOINT_FAILED, null, null, null, String.valueOf(e), 0, null);
+            }
+        }, interval, interval, unit);
+    }
+
+    /**
+     * Get why the last periodic checkpoint failed, or null if it succeeded
+     */
+    public Exception getCheckpointFailure() {
+        return checkpointFailure;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Stop journaling, take a final checkpoint and close the journal
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+        }
+        checkpoint();
+        bookService.setJournal(null);
+        patronService.setJournal(null);
+        lendingService.setJournal(null);
+        if (branchService != null) {
+            branchService.setJournal(null);
+        }
+        journal.close();
+    }
+
+    // ===== RECOVERY =====
+
+    /**
+     * Apply one journal record directly to the models
+     *
+     * Copy counts and fines are adjusted without the usual bounds checks:
+     * records from different patrons may be logged in a different order
+     * than they happened, but their sum is always right. Copy inventories
+     * are rebuilt from the counts once every record is applied.
+     */
+    private void apply(JournalRecord r) {
+        switch (r.getType()) {
+            case ADD_BOOK:
+                bookService.loadBook(new Book(r.getArg(0), r.getArg(1), r.getArg(2), r.getArg(3),
+                        Integer.parseInt(r.getArg(4)), Integer.parseInt(r.getArg(5))));
+                break;
+            case REMOVE_BOOK:
+                bookService.unloadBook(r.getArg(0));
+                break;
+            case REGISTER_PATRON:
+                patronService.loadPatron(new Patron(r.getArg(0), r.getArg(1), r.getArg(2), r.getArg(3)));
+                break;
+            case REMOVE_PATRON:
+                patronService.unloadPatron(r.getArg(0));
+                break;
+            case SUSPEND_PATRON:
+                withPatron(r, p -> p.setStatus(PatronStatus.SUSPENDED));
+                break;
+            case ACTIVATE_PATRON:
+                withPatron(r, p -> p.setStatus(PatronStatus.ACTIVE));
+                break;
+            case CHECKOUT:
+                withPatron(r, p -> lendingService.restoreCheckout(bookService.searchByIsbn(r.getArg(1)), p,
+                        r.getArg(1), LocalDate.parse(r.getArg(2)), copyOf(r)));
+                break;
+            case RETURN:
+                withPatron(r, p -> lendingService.restoreReturn(bookService.searchByIsbn(r.getArg(1)), p,
+                        r.getArg(1), LocalDate.parse(r.getArg(2)), copyOf(r)));
+                break;
+            case OVERDUE:
+                withPatron(r, p -> lendingService.restoreOverdue(p, r.getArg(1),
+                        LocalDate.parse(r.getArg(2)), Long.parseLong(r.getArg(3))));
+                break;
+            case FINE:
+                withPatron(r, p -> p.addFine(Long.parseLong(r.getArg(1))));
+                break;
+            case PAYMENT:
+                withPatron(r, p -> p.addFine(-Long.parseLong(r.getArg(1))));
+                break;
+            case ADD_BRANCH:
+                if (branchService != null) {
+                    branchService.loadBranch(r.getArg(0), r.getArg(1));
+                }
+                break;
+            case SHELVE_COPIES:
+                withHolding(r.getArg(0), r.getArg(1), Integer.parseInt(r.getArg(2)), Integer.parseInt(r.getArg(2)));
+                break;
+            case TRANSFER_COPIES:
+                int count = Integer.parseInt(r.getArg(3));
+                withHolding(r.getArg(1), r.getArg(0), -count, -count);
+                withHolding(r.getArg(2), r.getArg(0), count, count);
+                break;
+            case BRANCH_CHECKOUT:
+                withHolding(r.getArg(0), r.getArg(1), 0, -1);
+                break;
+            case BRANCH_RETURN:
+                withHolding(r.getArg(0), r.getArg(1), 0, 1);
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record: " + r);
+        }
+    }
+
+    // Copy number of a checkout or return record (-1 in older journals)
+    private static int copyOf(JournalRecord r) {
+        return r.getArgCount() > 3 ? Integer.parseInt(r.getArg(3)) : -1;
+    }
+
+    private void withHolding(String branchId, String isbn, int copies, int available) {
+        if (branchService != null) {
+            branchService.restoreCopies(branchId, bookService.searchByIsbn(isbn), copies, available);
+        }
+    }
+
+    private void withPatron(JournalRecord r, Consumer<Patron> action) {
+        Patron patron = patronService.findPatron(r.getArg(0));
+        if (patron != null) {
+            action.accept(patron);
+        }
+    }
+
+    // Holds are not persisted, so copies held for them go back on the shelf
+    private static Book copyOf(Book b) {
+        Book copy = new Book(b.getIsbn(), b.getTitle(), b.getAuthor(), b.getPublisher(), b.getYear(), b.getTotalCopies());
+        synchronized (b) {
+            copy.setAvailableCopies(b.getAvailableCopies() + b.getHeldCopies());
+            copy.setStatus(b.getHeldCopies() > 0 ? BookStatus.AVAILABLE : b.getStatus());
+        }
+        return copy;
+    }
+
+    private static Loan copyOf(Loan l) {
+        Loan copy = new Loan(l.getBook(), l.getPatron(), l.getCheckoutDate(), l.getDueDate(), l.getCopy());
+        copy.setFinedThrough(l.getFinedThrough());
+        if (l.isNoticeSent()) {
+            copy.markNoticeSent();
+        }
+        return copy;
+    }
+
+    private static Patron copyOf(Patron p) {
+        Patron copy = new Patron(p.getPatronId(), p.getName(), p.getEmail(), p.getPhone());
+        copy.setStatus(p.getStatus());
+        copy.addFine(p.getFineAmount());
+        for (String isbn : p.getBorrowedBooks()) {
+            copy.addBorrowedBook(isbn);
+        }
+        copy.copyHistoryFrom(p);
+        return copy;
+    }
+}
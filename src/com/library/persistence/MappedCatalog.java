@@ -0,0 +1,349 @@
+package com.library.persistence;
+
+import com.library.models.Book;
+import com.library.models.BookStatus;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * MappedCatalog Class - Read-optimized binary catalog opened with mmap
+ *
+ * Features:
+ * - Fixed-width 32-byte records sorted by ISBN (binary search lookup)
+ * - Shared string pool; repeated authors/publishers are stored once
+ * - Opened through a MappedByteBuffer: nothing is parsed at startup and
+ *   pages are loaded lazily by the OS
+ * - Flyweight BookView reads fields straight from the mapped bytes, and
+ *   matches title/author text in place for catalog scans
+ *
+ * Layout:
+ *   header  [int magic][int version][int count][int recordSize][long poolOffset]
+ *   records [int isbn][int title][int author][int publisher]
+ *           [int year][int totalCopies][int availableCopies][int status]
+ *   pool    [ushort length][utf-8 bytes]...
+ * String fields hold offsets into the pool.
+ *
+ * The file is limited to 2 GB (one mapping).
+ */
+public class MappedCatalog {
+    private static final int MAGIC = 0x4C49424D;   // "LIBM"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int RECORD_SIZE = 32;
+    private static final BookStatus[] STATUSES = BookStatus.values();
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int poolOffset;
+
+    private MappedCatalog(Path path, ByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(12) != RECORD_SIZE) {
+            throw new IOException("Not a mapped catalog: " + path);
+        }
+        this.count = buffer.getInt(8);
+        this.poolOffset = (int) buffer.getLong(16);
+    }
+
+    /**
+     * Map a catalog file read-only
+     */
+    public static MappedCatalog open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Catalog file larger than 2 GB: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedCatalog(path, mapped);
+        }
+    }
+
+    /**
+     * Write books into a catalog file (temp file + atomic rename)
+     */
+    public static void write(Path path, Collection<Book> books) throws IOException {
+        List<Book> sorted = new ArrayList<>(books);
+        sorted.sort((a, b) -> compareBytes(utf8(a.getIsbn()), utf8(b.getIsbn())));
+
+        // Build the string pool first so records can point into it
+        Map<String, Integer> offsets = new HashMap<>();
+        ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        int[][] refs = new int[sorted.size()][4];
+        for (int i = 0; i < sorted.size(); i++) {
+            Book b = sorted.get(i);
+            refs[i][0] = intern(b.getIsbn(), offsets, pool);
+            refs[i][1] = intern(b.getTitle(), offsets, pool);
+            refs[i][2] = intern(b.getAuthor(), offsets, pool);
+            refs[i][3] = intern(b.getPublisher(), offsets, pool);
+        }
+        long poolOffset = HEADER_SIZE + (long) RECORD_SIZE * sorted.size();
+        if (poolOffset + pool.size() > Integer.MAX_VALUE) {
+            throw new IOException("Catalog would exceed 2 GB");
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sorted.size());
+            out.writeInt(RECORD_SIZE);
+            out.writeLong(poolOffset);
+            for (int i = 0; i < sorted.size(); i++) {
+                Book b = sorted.get(i);
+                out.writeInt(refs[i][0]);
+                out.writeInt(refs[i][1]);
+                out.writeInt(refs[i][2]);
+                out.writeInt(refs[i][3]);
+                out.writeInt(b.getYear());
+                out.writeInt(b.getTotalCopies());
+                out.writeInt(b.getAvailableCopies());
+                out.writeInt(b.getStatus().ordinal());
+            }
+            pool.writeTo(out);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ===== LOOKUP =====
+
+    /**
+     * Get number of books in the catalog
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Find a record by ISBN (binary search over the sorted records)
+     *
+     * @return the record index, or -1 if absent
+     */
+    public int indexOf(String isbn) {
+        if (isbn == null) {
+            return -1;
+        }
+        byte[] key = utf8(isbn);
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparePooled(field(mid, 0), key);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Create a flyweight view; move it between records with moveTo()
+     */
+    public BookView view() {
+        return new BookView();
+    }
+
+    /**
+     * Copy a record into a regular heap Book
+     */
+    public Book toBook(int index) {
+        BookView v = view().moveTo(index);
+        Book book = new Book(v.getIsbn(), v.getTitle(), v.getAuthor(), v.getPublisher(), v.getYear(), v.getTotalCopies());
+        book.setAvailableCopies(v.getAvailableCopies());
+        book.setStatus(v.getStatus());
+        return book;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * BookView Class - Allocation-free cursor over one mapped record
+     *
+     * Numeric getters read straight from the mapping; string getters
+     * decode from the pool on each call.
+     */
+    public class BookView {
+        private int index;
+
+        public BookView moveTo(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Catalog record " + index + " of " + count);
+            }
+            this.index = index;
+            return this;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getIsbn() {
+            return string(field(index, 0));
+        }
+
+        public String getTitle() {
+            return string(field(index, 1));
+        }
+
+        public String getAuthor() {
+            return string(field(index, 2));
+        }
+
+        public String getPublisher() {
+            return string(field(index, 3));
+        }
+
+        public int getYear() {
+            return field(index, 4);
+        }
+
+        public int getTotalCopies() {
+            return field(index, 5);
+        }
+
+        public int getAvailableCopies() {
+            return field(index, 6);
+        }
+
+        public BookStatus getStatus() {
+            return STATUSES[field(index, 7)];
+        }
+
+        /**
+         * Check whether the title contains a lowercase query, ignoring
+         * case, without decoding it (unless it has non-ASCII text)
+         */
+        public boolean titleContains(String lowercaseQuery) {
+            return contains(field(index, 1), lowercaseQuery);
+        }
+
+        /**
+         * Check whether the author contains a lowercase query, ignoring case
+         */
+        public boolean authorContains(String lowercaseQuery) {
+            return contains(field(index, 2), lowercaseQuery);
+        }
+    }
+
+    // ===== HELPERS =====
+
+    private int field(int index, int field) {
+        return buffer.getInt(HEADER_SIZE + index * RECORD_SIZE + field * 4);
+    }
+
+    private String string(int offset) {
+        int at = poolOffset + offset;
+        int length = buffer.getShort(at) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(at + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Case-insensitive substring match on pooled ASCII bytes; anything
+    // else is decoded and lowercased the way NGramIndex.normalize() does
+    private boolean contains(int offset, String query) {
+        int at = poolOffset + offset + 2;
+        int length = buffer.getShort(at - 2) & 0xFFFF;
+        int n = query.length();
+        boolean ascii = true;
+        for (int i = 0; i < n && ascii; i++) {
+            ascii = query.charAt(i) < 0x80;
+        }
+        for (int i = 0; i < length && ascii; i++) {
+            ascii = buffer.get(at + i) >= 0;
+        }
+        if (!ascii) {
+            return string(offset).toLowerCase(Locale.ROOT).contains(query);
+        }
+        for (int start = 0; start + n <= length; start++) {
+            int i = 0;
+            while (i < n && lower(buffer.get(at + start + i)) == query.charAt(i)) {
+                i++;
+            }
+            if (i == n) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+
+    private int comparePooled(int offset, byte[] key) {
+        int at = poolOffset + offset;
+        int length = buffer.getShort(at) & 0xFFFF;
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = (buffer.get(at + 2 + i) & 0xFF) - (key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static int intern(String value, Map<String, Integer> offsets, ByteArrayOutputStream pool) throws IOException {
+        String v = value == null ? "" : value;
+        Integer existing = offsets.get(v);
+        if (existing != null) {
+            return existing;
+        }
+        byte[] bytes = utf8(v);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long for catalog pool: " + v.substring(0, 32) + "...");
+        }
+        int offset = pool.size();
+        pool.write(bytes.length >>> 8);
+        pool.write(bytes.length);
+        pool.write(bytes);
+        offsets.put(v, offset);
+        return offset;
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,325 @@
+package com.library.persistence;
+
+import com.library.models.Book;
+import com.library.models.BookIds;
+import com.library.models.BookStatus;
+import com.library.models.Branch;
+import com.library.models.Holding;
+import com.library.models.Loan;
+import com.library.models.Patron;
+import com.library.models.PatronStatus;
+import com.library.services.BookService;
+import com.library.services.BranchService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * SnapshotStore Class - Compact point-in-time image of books, patrons and loans
+ *
+ * Features:
+ * - Single sequential binary file, streamed through a buffered FileChannel
+ * - Records the last journal sequence number it covers
+ * - Whole-file CRC32; written to a temp file and atomically renamed
+ * - Checksum verified over the whole file before any of it is loaded
+ *
+ * Over a mapped catalog, books are the ones held in memory and removed
+ * lists the mapped records taken out of the catalog.
+ *
+ * Layout: magic, version, lastSequence, books..., removed..., bookIds..., patrons..., loans..., branches..., crc32
+ * Borrowing history is kept as its encoded blocks, with the ISBN of
+ * each BookIds ID they use listed once in bookIds; blocks paged out are
+ * copied without being decoded. Each loan carries the number of the
+ * copy it took. Each branch lists its holdings' copy counts. Version 6
+ * files, without branches, version 5 files, also with history as ISBN
+ * lists, version 4 files, also without copy numbers, and version 3
+ * files, also without removed, are still read.
+ */
+public class SnapshotStore {
+    private static final int MAGIC = 0x4C49424C;   // "LIBL"
+    private static final int VERSION = 7;
+    private static final int VERSION_WITHOUT_BRANCHES = 6;
+    private static final int VERSION_WITHOUT_BLOCKS = 5;
+    private static final int VERSION_WITHOUT_COPIES = 4;
+    private static final int VERSION_WITHOUT_REMOVED = 3;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private SnapshotStore() {
+    }
+
+    /**
+     * Write a snapshot of the given books, patrons and active loans
+     *
+     * The objects must not change while this runs; pass copies when the
+     * services are live.
+     */
+    public static void write(Path file, long lastSequence, List<Book> books, List<Patron> patrons,
+                             List<Loan> loans) throws IOException {
+        write(file, lastSequence, books, Collections.emptyList(), patrons, loans);
+    }
+
+    /**
+     * Write a snapshot of the given books, removed mapped ISBNs, patrons
+     * and active loans
+     */
+    public static void write(Path file, long lastSequence, List<Book> books, List<String> removed,
+                             List<Patron> patrons, List<Loan> loans) throws IOException {
+        write(file, lastSequence, books, removed, patrons, loans, Collections.emptyList());
+    }
+
+    /**
+     * Write a snapshot of the given books, removed mapped ISBNs, patrons,
+     * active loans and branches
+     */
+    public static void write(Path file, long lastSequence, List<Book> books, List<String> removed,
+                             List<Patron> patrons, List<Loan> loans, List<Branch> branches) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastSequence);
+
+            out.writeInt(books.size());
+            for (Book b : books) {
+                out.writeUTF(b.getIsbn());
+                out.writeUTF(b.getTitle());
+                out.writeUTF(b.getAuthor());
+                out.writeUTF(b.getPublisher());
+                out.writeInt(b.getYear());
+                out.writeInt(b.getTotalCopies());
+                out.writeInt(b.getAvailableCopies());
+                out.writeByte(b.getStatus().ordinal());
+            }
+            writeList(out, removed);
+
+            // Every ID the history blocks below can hold was handed out by now
+            int ids = BookIds.count();
+            out.writeInt(ids);
+            for (int i = 0; i < ids; i++) {
+                out.writeUTF(BookIds.isbn(i));
+            }
+
+            out.writeInt(patrons.size());
+            for (Patron p : patrons) {
+                out.writeUTF(p.getPatronId());
+                out.writeUTF(p.getName());
+                out.writeUTF(p.getEmail());
+                out.writeUTF(p.getPhone());
+                out.writeByte(p.getStatus().ordinal());
+                out.writeLong(p.getFineAmount());
+                writeList(out, p.getBorrowedBooks());
+                p.writeHistory(out);
+            }
+
+            out.writeInt(loans.size());
+            for (Loan l : loans) {
+                out.writeUTF(l.getPatronId());
+                out.writeUTF(l.getIsbn());
+                out.writeLong(l.getCheckoutDate().toEpochDay());
+                out.writeLong(l.getDueDate().toEpochDay());
+                out.writeLong(l.getFinedThrough().toEpochDay());
+                out.writeBoolean(l.isNoticeSent());
+                out.writeInt(l.getCopy());
+            }
+
+            out.writeInt(branches.size());
+            for (Branch b : branches) {
+                out.writeUTF(b.getBranchId());
+                out.writeUTF(b.getName());
+                out.writeInt(b.getTitleCount());
+                for (Holding h : b.getHoldings()) {
+                    out.writeUTF(h.getIsbn());
+                    out.writeInt(h.getCopies());
+                    out.writeInt(h.getAvailable());
+                }
+            }
+
+            out.flush();
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load a snapshot into the services without journaling
+     *
+     * The file's checksum is verified first, so a damaged snapshot
+     * leaves the services untouched.
+     *
+     * @return the last journal sequence number the snapshot covers
+     */
+    public static long read(Path file, BookService bookService, PatronService patronService,
+                            LendingService lendingService) throws IOException {
+        return read(file, bookService, patronService, lendingService, null);
+    }
+
+    /**
+     * Load a snapshot into the services, branches included (null to skip them)
+     *
+     * @return the last journal sequence number the snapshot covers
+     */
+    public static long read(Path file, BookService bookService, PatronService patronService,
+                            LendingService lendingService, BranchService branchService) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            verify(file, channel);
+            channel.position(0);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version < VERSION_WITHOUT_REMOVED || version > VERSION) {
+                throw new IOException("Not a library snapshot: " + file);
+            }
+            long lastSequence = in.readLong();
+
+            int bookCount = in.readInt();
+            for (int i = 0; i < bookCount; i++) {
+                Book book = new Book(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+                        in.readInt(), in.readInt());
+                book.setAvailableCopies(in.readInt());
+                book.setStatus(BookStatus.values()[in.readByte()]);
+                bookService.restoreBook(book);
+            }
+            if (version != VERSION_WITHOUT_REMOVED) {
+                int removed = in.readInt();
+                for (int i = 0; i < removed; i++) {
+                    bookService.unloadBook(in.readUTF());
+                }
+            }
+
+            int[] ids = version > VERSION_WITHOUT_BLOCKS ? readIds(in) : null;
+
+            int patronCount = in.readInt();
+            for (int i = 0; i < patronCount; i++) {
+                Patron patron = new Patron(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+                patron.setStatus(PatronStatus.values()[in.readByte()]);
+                patron.addFine(in.readLong());
+                int borrowed = in.readInt();
+                for (int j = 0; j < borrowed; j++) {
+                    patron.addBorrowedBook(in.readUTF());
+                }
+                if (version > VERSION_WITHOUT_BLOCKS) {
+                    patron.readHistory(in, ids);
+                } else {
+                    int history = in.readInt();
+                    for (int j = 0; j < history; j++) {
+                        patron.addToHistory(in.readUTF());
+                    }
+                }
+                patronService.loadPatron(patron);
+            }
+
+            int loanCount = in.readInt();
+            for (int i = 0; i < loanCount; i++) {
+                Patron patron = patronService.findPatron(in.readUTF());
+                Book book = bookService.searchByIsbn(in.readUTF());
+                LocalDate checkout = LocalDate.ofEpochDay(in.readLong());
+                LocalDate due = LocalDate.ofEpochDay(in.readLong());
+                LocalDate finedThrough = LocalDate.ofEpochDay(in.readLong());
+                boolean noticeSent = in.readBoolean();
+                int copy = version > VERSION_WITHOUT_COPIES ? in.readInt() : -1;
+                if (patron != null && book != null) {
+                    Loan loan = new Loan(book, patron, checkout, due, copy);
+                    loan.setFinedThrough(finedThrough);
+                    if (noticeSent) {
+                        loan.markNoticeSent();
+                    }
+                    lendingService.loadLoan(loan);
+                }
+            }
+
+            int branchCount = version > VERSION_WITHOUT_BRANCHES ? in.readInt() : 0;
+            for (int i = 0; i < branchCount; i++) {
+                String branchId = in.readUTF();
+                String name = in.readUTF();
+                if (branchService != null) {
+                    branchService.loadBranch(branchId, name);
+                }
+                int holdings = in.readInt();
+                for (int j = 0; j < holdings; j++) {
+                    String isbn = in.readUTF();
+                    int copies = in.readInt();
+                    int available = in.readInt();
+                    if (branchService != null) {
+                        branchService.restoreCopies(branchId, bookService.searchByIsbn(isbn), copies, available);
+                    }
+                }
+            }
+            return lastSequence;
+        }
+    }
+
+    // Whole-file pass: CRC32 of everything before the trailing checksum
+    private static void verify(Path file, FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < 4) {
+            throw new IOException("Not a library snapshot: " + file);
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long remaining = size - 4;
+        channel.position(0);
+        while (remaining > 0) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+            int n = channel.read(buffer);
+            if (n < 0) {
+                throw new IOException("Snapshot truncated: " + file);
+            }
+            buffer.flip();
+            crc.update(buffer);
+            remaining -= n;
+        }
+        buffer.clear().limit(4);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Snapshot truncated: " + file);
+            }
+        }
+        if (buffer.flip().getInt() != (int) crc.getValue()) {
+            throw new IOException("Snapshot checksum mismatch: " + file);
+        }
+    }
+
+    /**
+     * Map the snapshot's BookIds onto this process's, or null if they
+     * are the same IDs (history blocks are then used as read)
+     */
+    private static int[] readIds(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        int[] ids = new int[count];
+        boolean same = true;
+        for (int i = 0; i < count; i++) {
+            ids[i] = BookIds.intern(in.readUTF());
+            same &= ids[i] == i;
+        }
+        return same ? null : ids;
+    }
+
+    private static void writeList(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String v : values) {
+            out.writeUTF(v);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.library.reports;
+
+import com.library.models.Money;
+import com.library.models.Patron;
+
+/**
+ * FineReport Class - Outstanding fines across all patrons
+ *
+ * Patrons are bucketed by amount owed (up to Rs. 50, 200, 1000, and
+ * more) so the report stays the same size however many patrons owe.
+ */
+public class FineReport {
+    private static final long[] BUCKET_LIMITS = {Money.ofMajor(50), Money.ofMajor(200), Money.ofMajor(1000)};
+
+    private long patrons;
+    private long total;
+    private long max;
+    private final long[] buckets = new long[BUCKET_LIMITS.length + 1];
+
+    FineReport() {
+    }
+
+    void add(Patron patron) {
+        long fine = patron.getFineAmount();
+        if (fine <= 0) {
+            return;
+        }
+        patrons++;
+        total += fine;
+        max = Math.max(max, fine);
+        int bucket = 0;
+        while (bucket < BUCKET_LIMITS.length && fine > BUCKET_LIMITS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket]++;
+    }
+
+    void merge(FineReport other) {
+        patrons += other.patrons;
+        total += other.total;
+        max = Math.max(max, other.max);
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] += other.buckets[i];
+        }
+    }
+
+    // ===== GETTERS =====
+    public long getPatrons() {
+        return patrons;
+    }
+
+    /**
+     * Get total owed (in paise)
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Get largest single balance (in paise)
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Get number of patrons owing more than the previous limit and at
+     * most this one (bucket 0 to 2), or more than Rs. 1000 (bucket 3)
+     */
+    public long getBucketCount(int bucket) {
+        return buckets[bucket];
+    }
+
+    public int getBucketCount() {
+        return buckets.length;
+    }
+
+    /**
+     * Render as a short text block
+     */
+    public String toText() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Patrons owing: %d, total Rs. %s, largest Rs. %s%n",
+                patrons, Money.format(total), Money.format(max)));
+        long lower = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            String range = i < BUCKET_LIMITS.length
+                    ? "Rs. " + Money.format(lower) + " - " + Money.format(BUCKET_LIMITS[i])
+                    : "over Rs. " + Money.format(lower);
+            out.append(String.format("  %-26s %d%n", range, buckets[i]));
+            if (i < BUCKET_LIMITS.length) {
+                lower = BUCKET_LIMITS[i];
+            }
+        }
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+}
@@ -0,0 +1,91 @@
+package com.library.reports;
+
+import com.library.models.Book;
+import com.library.models.BookStatus;
+
+/**
+ * InventoryReport Class - Copy counts across the whole catalog
+ *
+ * Built by ReportGenerator one book at a time; parallel runs build
+ * partial reports and merge them, so only one report per worker is
+ * ever held, whatever the catalog size.
+ */
+public class InventoryReport {
+    private long titles;
+    private long copies;
+    private long available;
+    private long held;
+    private final long[] byStatus = new long[BookStatus.values().length];
+
+    InventoryReport() {
+    }
+
+    void add(Book book) {
+        int total = book.getTotalCopies();
+        int free = book.getAvailableCopies();
+        titles++;
+        copies += total;
+        available += free;
+        held += book.getHeldCopies();
+        byStatus[book.getStatus().ordinal()]++;
+    }
+
+    void merge(InventoryReport other) {
+        titles += other.titles;
+        copies += other.copies;
+        available += other.available;
+        held += other.held;
+        for (int i = 0; i < byStatus.length; i++) {
+            byStatus[i] += other.byStatus[i];
+        }
+    }
+
+    // ===== GETTERS =====
+    public long getTitles() {
+        return titles;
+    }
+
+    public long getCopies() {
+        return copies;
+    }
+
+    public long getAvailable() {
+        return available;
+    }
+
+    public long getHeld() {
+        return held;
+    }
+
+    /**
+     * Get copies neither on the shelf nor held for pickup
+     */
+    public long getOnLoan() {
+        return copies - available - held;
+    }
+
+    /**
+     * Get number of titles in the given status
+     */
+    public long getTitleCount(BookStatus status) {
+        return byStatus[status.ordinal()];
+    }
+
+    /**
+     * Render as a short text block
+     */
+    public String toText() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Titles: %d, copies: %d (available %d, held %d, on loan %d)%n",
+                titles, copies, available, held, getOnLoan()));
+        for (BookStatus status : BookStatus.values()) {
+            out.append(String.format("  %-10s %d%n", status, byStatus[status.ordinal()]));
+        }
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+}
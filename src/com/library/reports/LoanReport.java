@@ -0,0 +1,95 @@
+package com.library.reports;
+
+import com.library.models.Loan;
+import com.library.models.Money;
+import java.time.LocalDate;
+
+/**
+ * LoanReport Class - Active and overdue loans as of one day
+ *
+ * Accrued fines are the overdue days not yet charged to the patron
+ * (since the loan's last overdue sweep), at the lending fine rate; they
+ * are what the patrons would owe on top of their fines if every
+ * overdue book came back that day.
+ */
+public class LoanReport {
+    private final LocalDate asOf;
+    private final long finePerDay;
+    private long active;
+    private long overdue;
+    private long daysOverdue;
+    private long maxDaysOverdue;
+    private long accruedFines;
+
+    LoanReport(LocalDate asOf, long finePerDay) {
+        this.asOf = asOf;
+        this.finePerDay = finePerDay;
+    }
+
+    void add(Loan loan) {
+        active++;
+        long days = loan.daysOverdue(asOf);
+        if (days > 0) {
+            overdue++;
+            daysOverdue += days;
+            maxDaysOverdue = Math.max(maxDaysOverdue, days);
+            LocalDate finedThrough = loan.getFinedThrough();
+            if (asOf.isAfter(finedThrough)) {
+                accruedFines += (asOf.toEpochDay() - finedThrough.toEpochDay()) * finePerDay;
+            }
+        }
+    }
+
+    void merge(LoanReport other) {
+        active += other.active;
+        overdue += other.overdue;
+        daysOverdue += other.daysOverdue;
+        maxDaysOverdue = Math.max(maxDaysOverdue, other.maxDaysOverdue);
+        accruedFines += other.accruedFines;
+    }
+
+    // ===== GETTERS =====
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public long getActive() {
+        return active;
+    }
+
+    public long getOverdue() {
+        return overdue;
+    }
+
+    public long getMaxDaysOverdue() {
+        return maxDaysOverdue;
+    }
+
+    /**
+     * Get mean days past due over the overdue loans
+     */
+    public double getMeanDaysOverdue() {
+        return overdue == 0 ? 0 : (double) daysOverdue / overdue;
+    }
+
+    /**
+     * Get fines (in paise) accrued but not yet charged
+     */
+    public long getAccruedFines() {
+        return accruedFines;
+    }
+
+    /**
+     * Render as a short text block
+     */
+    public String toText() {
+        return String.format("Loans as of %s: %d active, %d overdue (mean %.1f days, max %d)%n"
+                        + "  Accrued, not yet charged: Rs. %s%n",
+                asOf, active, overdue, getMeanDaysOverdue(), maxDaysOverdue, Money.format(accruedFines));
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+}
@@ -0,0 +1,631 @@
+package com.library.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * AutocompleteIndex Class - Prefix and typo-tolerant suggestions over short texts
+ *
+ * Features:
+ * - Words are normalized once, when a value is added (lowercase, accents
+ *   stripped), so "José" is found by "jose"
+ * - Compact trie over the distinct words, stored in primitive arrays
+ *   (about 18 bytes per node), with a posting list of value ids per word
+ * - Prefix completion: every word typed but the last must match a word
+ *   of the value, the last may be the start of one ("harry pot")
+ * - Typo tolerance: when exact matches run short, the last word is
+ *   matched as a prefix within 1 edit (3-5 letters) or 2 edits (6 or
+ *   more, first letter kept) by walking the trie with a Levenshtein
+ *   automaton, and earlier words are matched the same way; swapped
+ *   letters count as one edit
+ * - Exact matches come first, then typo matches by fewest edits
+ * - Incremental add/remove; removed values are dropped from the
+ *   postings in one pass once they outnumber the live ones
+ *
+ * A query starts from its most selective word and verifies each
+ * candidate against the others, so its cost follows the number of
+ * suggestions asked for rather than the number of values indexed. A
+ * typo search starts from the word with the fewest near matches, stops
+ * after the edit distance that filled the page, and never examines more
+ * than a fixed number of candidates.
+ */
+public class AutocompleteIndex<V> {
+    private static final int MAX_WORD = 48;                 // longer words are cut (bounds trie depth)
+    private static final int MAX_FUZZY_CANDIDATES = 20_000;
+    private static final int COMPACT_MIN_DEAD = 1024;
+
+    // Trie: node 0 is the root; children are kept in label order
+    private char[] label;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] term;                  // word ending at the node, or -1
+    private int[] reach;                 // live postings in the node's subtree
+    private int nodeCount;
+
+    // Words and their postings
+    private String[] termText;
+    private int[][] postings;
+    private int[] postingSize;
+    private int termCount;
+
+    // Values
+    private Object[] values;             // null once removed
+    private int[][] valueTerms;
+    private int nextValue;
+    private int deadValues;
+    private final Map<V, Integer> ids;
+
+    public AutocompleteIndex() {
+        this.label = new char[64];
+        this.firstChild = new int[64];
+        this.nextSibling = new int[64];
+        this.term = new int[64];
+        this.reach = new int[64];
+        this.termText = new String[16];
+        this.postings = new int[16][];
+        this.postingSize = new int[16];
+        this.values = new Object[16];
+        this.valueTerms = new int[16][];
+        this.ids = new HashMap<>();
+        newNode('\0');
+    }
+
+    /**
+     * Normalize text the same way for indexing and querying
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) >= 0x80) {
+                return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * Index a value under the words of the given text
+     */
+    public void add(V value, String text) {
+        if (ids.containsKey(value)) {
+            return;
+        }
+        List<String> words = words(normalize(text));
+        int id = nextValue++;
+        if (id == values.length) {
+            values = Arrays.copyOf(values, id * 2);
+            valueTerms = Arrays.copyOf(valueTerms, id * 2);
+        }
+        int[] terms = new int[words.size()];
+        for (int i = 0; i < terms.length; i++) {
+            int t = insertWord(words.get(i));
+            if (postings[t] == null) {
+                postings[t] = new int[2];
+            } else if (postingSize[t] == postings[t].length) {
+                postings[t] = Arrays.copyOf(postings[t], postingSize[t] * 2);
+            }
+            postings[t][postingSize[t]++] = id;
+            terms[i] = t;
+        }
+        values[id] = value;
+        valueTerms[id] = terms;
+        ids.put(value, id);
+    }
+
+    /**
+     * Remove a value from the index
+     */
+    public void remove(V value) {
+        Integer id = ids.remove(value);
+        if (id == null) {
+            return;
+        }
+        for (int t : valueTerms[id]) {
+            String word = termText[t];
+            int node = 0;
+            reach[0]--;
+            for (int i = 0; i < word.length(); i++) {
+                node = child(node, word.charAt(i));
+                reach[node]--;
+            }
+        }
+        values[id] = null;
+        valueTerms[id] = null;
+        deadValues++;
+        if (deadValues >= COMPACT_MIN_DEAD && deadValues > ids.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Suggest values for what has been typed so far, best first
+     */
+    public List<V> suggest(String query, int limit) {
+        List<String> tokens = words(normalize(query));
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<V> result = new ArrayList<>(Math.min(limit, 64));
+        Set<Integer> seen = new HashSet<>();
+        exact(tokens, limit, result, seen);
+        if (result.size() < limit && maxEdits(tokens) > 0) {
+            fuzzy(tokens, limit, result, seen);
+        }
+        return result;
+    }
+
+    /**
+     * Get number of indexed values
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    // ===== EXACT MATCHES =====
+
+    private void exact(List<String> tokens, int limit, List<V> result, Set<Integer> seen) {
+        int last = tokens.size() - 1;
+        int[] whole = new int[last];
+        int driver = -1;
+        int driverSize = Integer.MAX_VALUE;
+        for (int i = 0; i < last; i++) {
+            int node = find(tokens.get(i));
+            whole[i] = node < 0 ? -1 : term[node];
+            if (whole[i] < 0) {
+                return;
+            }
+            if (postingSize[whole[i]] < driverSize) {
+                driver = i;
+                driverSize = postingSize[whole[i]];
+            }
+        }
+        String prefix = tokens.get(last);
+        int prefixNode = find(prefix);
+        if (prefixNode < 0) {
+            return;
+        }
+        IntPredicate take = id -> {
+            if (!hasAll(valueTerms[id], whole) || !hasPrefix(valueTerms[id], prefix) || !seen.add(id)) {
+                return true;
+            }
+            result.add(value(id));
+            return result.size() < limit;
+        };
+        if (driver >= 0 && driverSize < reach[prefixNode]) {
+            eachValue(whole[driver], take);
+        } else {
+            eachValueUnder(prefixNode, take);
+        }
+    }
+
+    // ===== TYPO MATCHES =====
+
+    private void fuzzy(List<String> tokens, int limit, List<V> result, Set<Integer> seen) {
+        int last = tokens.size() - 1;
+
+        // Start from the word whose near matches hold the fewest values
+        int driver = -1;
+        long driverSize = Long.MAX_VALUE;
+        List<int[]> driverNear = null;
+        int[] closest = new int[tokens.size()];          // fewest edits any match of each word needs
+        for (int i = 0; i <= last; i++) {
+            String token = tokens.get(i);
+            List<int[]> near = near(token, Math.min(1, maxEdits(token.length())), i == last);
+            long size = 0;
+            closest[i] = 2;
+            for (int[] match : near) {
+                size += i == last ? reach[match[0]] : postingSize[term[match[0]]];
+                closest[i] = Math.min(closest[i], match[1]);
+            }
+            if (size == 0 && maxEdits(token.length()) <= 1) {
+                return;                                  // this word matches nothing
+            }
+            if (size < driverSize) {
+                driver = i;
+                driverSize = size;
+                driverNear = near;
+            }
+        }
+        int floor = 0;                                   // least the other words can add to a score
+        for (int i = 0; i <= last; i++) {
+            floor += i == driver ? 0 : closest[i];
+        }
+        String token = tokens.get(driver);
+        boolean prefix = driver == last;
+        int edits = maxEdits(token.length());
+
+        List<List<V>> byScore = new ArrayList<>();
+        for (int s = maxEdits(tokens); s >= 0; s--) {
+            byScore.add(new ArrayList<>());
+        }
+        int[] examined = new int[1];
+        int[] found = {result.size()};
+        for (int d = 0; d <= edits && found[0] < limit && examined[0] < MAX_FUZZY_CANDIDATES; d++) {
+            // Matches d edits from the driving word; the walk widens to
+            // two edits only if one did not fill the page, as it costs more
+            List<int[]> near = d <= 1 ? driverNear : near(token, d, prefix);
+            int tier = d;
+            int skip = driver;
+            int[] settled = {result.size()};             // nothing found later can rank above these
+            for (int s = 0; s <= d + floor && s < byScore.size(); s++) {
+                settled[0] += byScore.get(s).size();
+            }
+            int least = floor;
+            IntPredicate take = id -> {
+                if (!seen.add(id)) {
+                    return true;
+                }
+                int score = score(valueTerms[id], tokens, skip);
+                if (score >= 0) {
+                    byScore.get(score + tier).add(value(id));
+                    found[0]++;
+                    if (score <= least) {
+                        settled[0]++;
+                    }
+                }
+                return settled[0] < limit && ++examined[0] < MAX_FUZZY_CANDIDATES;
+            };
+            for (int[] match : near) {
+                if (match[1] == d) {
+                    boolean more = prefix ? eachValueUnder(match[0], take) : eachValue(term[match[0]], take);
+                    if (!more) {
+                        break;
+                    }
+                }
+            }
+        }
+        for (List<V> tier : byScore) {
+            for (V v : tier) {
+                if (result.size() == limit) {
+                    return;
+                }
+                result.add(v);
+            }
+        }
+    }
+
+    /**
+     * Trie nodes within the given edits of a word, as {node, edits}: words
+     * for a whole word, subtrees for a prefix
+     */
+    private List<int[]> near(String word, int edits, boolean prefix) {
+        List<int[]> near = new ArrayList<>();
+        int exact = find(word);
+        if (exact >= 0 && (prefix || term[exact] >= 0)) {
+            near.add(new int[] {exact, 0});
+        }
+        if (edits > 0) {
+            char[] q = word.toCharArray();
+            int[][] rows = new int[MAX_WORD + 1][q.length + 1];     // one automaton row per trie depth
+            for (int j = 0; j <= q.length; j++) {
+                rows[0][j] = j;
+            }
+            for (int c = firstChild[0]; c >= 0; c = nextSibling[c]) {
+                // Two edits only past a correct first letter: typos rarely hit
+                // it, and it keeps the widest walk to one branch of the trie
+                if (edits < 2 || label[c] == q[0]) {
+                    walk(c, 1, '\0', q, edits, prefix, rows, edits + 1, near);
+                }
+            }
+        }
+        return near;
+    }
+
+    /**
+     * One trie step of the Levenshtein automaton (optimal string alignment,
+     * so a swap of neighbouring letters is one edit). For a prefix it
+     * records the nodes where the path first comes within, or closer than
+     * before, the budget; for a whole word, every word within it.
+     */
+    private void walk(int node, int depth, char aboveLabel, char[] q, int edits, boolean prefix,
+                      int[][] rows, int best, List<int[]> near) {
+        char ch = label[node];
+        int m = q.length;
+        int[] row = rows[depth];
+        int[] above = rows[depth - 1];
+        int[] aboveAbove = depth > 1 ? rows[depth - 2] : null;
+        row[0] = depth;
+        int min = row[0];
+        for (int j = 1; j <= m; j++) {
+            int v = Math.min(Math.min(above[j] + 1, row[j - 1] + 1), above[j - 1] + (q[j - 1] == ch ? 0 : 1));
+            if (aboveAbove != null && j > 1 && q[j - 2] == ch && q[j - 1] == aboveLabel) {
+                v = Math.min(v, aboveAbove[j - 2] + 1);
+            }
+            row[j] = v;
+            min = Math.min(min, v);
+        }
+        if (prefix) {
+            if (row[m] < best) {
+                best = row[m];
+                if (best > 0) {                          // the exact prefix is already in the list
+                    near.add(new int[] {node, best});
+                }
+            }
+            if (best <= 1) {
+                return;                                  // nothing deeper can come closer
+            }
+        } else if (term[node] >= 0 && row[m] > 0 && row[m] <= edits) {
+            near.add(new int[] {node, row[m]});
+        }
+        if (min <= edits) {
+            for (int c = firstChild[node]; c >= 0; c = nextSibling[c]) {
+                walk(c, depth + 1, ch, q, edits, prefix, rows, best, near);
+            }
+        }
+    }
+
+    /**
+     * Total edits between the other words typed and the value's closest
+     * words (the last one as a prefix), or -1 if one of them is too far off
+     */
+    private int score(int[] terms, List<String> tokens, int skip) {
+        int last = tokens.size() - 1;
+        int total = 0;
+        for (int i = 0; i <= last; i++) {
+            if (i == skip) {
+                continue;
+            }
+            String token = tokens.get(i);
+            int budget = maxEdits(token.length());
+            int best = budget + 1;
+            for (int t : terms) {
+                String word = termText[t];
+                int allowed = word.charAt(0) == token.charAt(0) ? budget : Math.min(budget, 1);
+                int d = distance(token, word, allowed, i == last);
+                if (d <= allowed && d < best) {
+                    best = d;
+                    if (best == 0) {
+                        break;
+                    }
+                }
+            }
+            if (best > budget) {
+                return -1;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /**
+     * Optimal string alignment distance from the query to the word (or
+     * to the word's closest prefix), or max + 1 once it exceeds max
+     */
+    static int distance(String query, String word, int max, boolean prefix) {
+        if (prefix ? word.startsWith(query) : word.equals(query)) {
+            return 0;
+        }
+        if (!prefix && Math.abs(query.length() - word.length()) > max) {
+            return max + 1;
+        }
+        int m = query.length();
+        int[] prev2 = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] row = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+        int best = prefix ? m : max + 1;
+        for (int i = 1; i <= word.length(); i++) {
+            char ch = word.charAt(i - 1);
+            row[0] = i;
+            int min = i;
+            for (int j = 1; j <= m; j++) {
+                int v = Math.min(Math.min(prev[j] + 1, row[j - 1] + 1), prev[j - 1] + (query.charAt(j - 1) == ch ? 0 : 1));
+                if (i > 1 && j > 1 && query.charAt(j - 2) == ch && query.charAt(j - 1) == word.charAt(i - 2)) {
+                    v = Math.min(v, prev2[j - 2] + 1);
+                }
+                row[j] = v;
+                min = Math.min(min, v);
+            }
+            if (prefix) {
+                best = Math.min(best, row[m]);
+            }
+            if (min > max) {
+                return Math.min(best, max + 1);
+            }
+            int[] recycled = prev2;
+            prev2 = prev;
+            prev = row;
+            row = recycled;
+        }
+        return Math.min(prefix ? best : prev[m], max + 1);
+    }
+
+    private static int maxEdits(int length) {
+        return length < 3 ? 0 : length < 6 ? 1 : 2;
+    }
+
+    private static int maxEdits(List<String> tokens) {
+        int total = 0;
+        for (String token : tokens) {
+            total += maxEdits(token.length());
+        }
+        return total;
+    }
+
+    // ===== INTERNALS =====
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                String word = text.substring(start, Math.min(i, start + MAX_WORD));
+                if (!words.contains(word)) {
+                    words.add(word);
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int id) {
+        return (V) values[id];
+    }
+
+    private static boolean hasAll(int[] terms, int[] wanted) {
+        for (int w : wanted) {
+            boolean found = false;
+            for (int t : terms) {
+                if (t == w) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasPrefix(int[] terms, String prefix) {
+        for (int t : terms) {
+            if (termText[t].startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Feed the live values of one word to the predicate until it returns false
+     */
+    private boolean eachValue(int t, IntPredicate action) {
+        int[] posting = postings[t];
+        for (int i = 0; i < postingSize[t]; i++) {
+            int id = posting[i];
+            if (values[id] != null && !action.test(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Feed the live values of every word under a node, in word order,
+     * to the predicate until it returns false
+     */
+    private boolean eachValueUnder(int node, IntPredicate action) {
+        if (reach[node] == 0) {
+            return true;
+        }
+        if (term[node] >= 0 && !eachValue(term[node], action)) {
+            return false;
+        }
+        for (int c = firstChild[node]; c >= 0; c = nextSibling[c]) {
+            if (!eachValueUnder(c, action)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int find(String word) {
+        int node = 0;
+        for (int i = 0; i < word.length() && node >= 0; i++) {
+            node = child(node, word.charAt(i));
+        }
+        return node;
+    }
+
+    private int child(int node, char ch) {
+        int c = firstChild[node];
+        while (c >= 0 && label[c] < ch) {
+            c = nextSibling[c];
+        }
+        return c >= 0 && label[c] == ch ? c : -1;
+    }
+
+    /**
+     * Find or create the word's trie path and term, counting one more
+     * posting on every node along it
+     */
+    private int insertWord(String word) {
+        int node = 0;
+        reach[0]++;
+        for (int i = 0; i < word.length(); i++) {
+            char ch = word.charAt(i);
+            int prev = -1;
+            int c = firstChild[node];
+            while (c >= 0 && label[c] < ch) {
+                prev = c;
+                c = nextSibling[c];
+            }
+            if (c < 0 || label[c] != ch) {
+                int created = newNode(ch);
+                nextSibling[created] = c;
+                if (prev < 0) {
+                    firstChild[node] = created;
+                } else {
+                    nextSibling[prev] = created;
+                }
+                c = created;
+            }
+            node = c;
+            reach[node]++;
+        }
+        if (term[node] < 0) {
+            int t = termCount++;
+            if (t == termText.length) {
+                termText = Arrays.copyOf(termText, t * 2);
+                postings = Arrays.copyOf(postings, t * 2);
+                postingSize = Arrays.copyOf(postingSize, t * 2);
+            }
+            termText[t] = word;
+            term[node] = t;
+        }
+        return term[node];
+    }
+
+    private int newNode(char ch) {
+        int node = nodeCount++;
+        if (node == label.length) {
+            int size = node * 2;
+            label = Arrays.copyOf(label, size);
+            firstChild = Arrays.copyOf(firstChild, size);
+            nextSibling = Arrays.copyOf(nextSibling, size);
+            term = Arrays.copyOf(term, size);
+            reach = Arrays.copyOf(reach, size);
+        }
+        label[node] = ch;
+        firstChild[node] = -1;
+        nextSibling[node] = -1;
+        term[node] = -1;
+        reach[node] = 0;
+        return node;
+    }
+
+    // Drop removed values from every posting list
+    private void compact() {
+        for (int t = 0; t < termCount; t++) {
+            int[] posting = postings[t];
+            int kept = 0;
+            for (int i = 0; i < postingSize[t]; i++) {
+                if (values[posting[i]] != null) {
+                    posting[kept++] = posting[i];
+                }
+            }
+            postingSize[t] = kept;
+        }
+        deadValues = 0;
+    }
+}
@@ -0,0 +1,445 @@
+package com.library.search;
+
+import com.library.models.Book;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * InvertedIndex Class - Ranked full-text search over title, author and publisher
+ *
+ * Features:
+ * - Text is tokenized and normalized once, when a book is added
+ * - Primitive posting lists (doc id + precomputed term weight)
+ * - Field boosts: title > author > publisher
+ * - BM25-style scoring with top-K selection on a bounded heap
+ * - Max-score pruning: each posting list keeps its highest weight, and
+ *   books that cannot reach the heap are skipped without being scored
+ * - Cursor-based pagination (no offset re-scans of earlier pages)
+ * - Incremental add/remove with lazy posting compaction
+ *
+ * Scores use the current document frequencies, so a page fetched after the
+ * catalog changed may shift slightly relative to the previous one. When
+ * pruning skipped books that match only rare-scoring terms, the page's
+ * total is a lower bound (see {@link SearchPage#isTotalExact()}).
+ */
+public class InvertedIndex {
+    private static final float TITLE_BOOST = 3.0f;
+    private static final float AUTHOR_BOOST = 2.0f;
+    private static final float PUBLISHER_BOOST = 1.0f;
+    private static final float K1 = 1.2f;
+
+    private final Map<String, PostingList> postings;
+    private final Map<String, Integer> docIds;
+    private Book[] docs;
+    private String[][] docTerms;
+    private int nextDoc;
+    private int liveDocs;
+
+    public InvertedIndex() {
+        this.postings = new HashMap<>();
+        this.docIds = new HashMap<>();
+        this.docs = new Book[16];
+        this.docTerms = new String[16][];
+    }
+
+    /**
+     * Add a book to the index
+     */
+    public void add(Book book) {
+        if (book == null || docIds.containsKey(book.getIsbn())) {
+            return;
+        }
+        Map<String, Float> weights = new LinkedHashMap<>();
+        accumulate(weights, book.getTitle(), TITLE_BOOST);
+        accumulate(weights, book.getAuthor(), AUTHOR_BOOST);
+        accumulate(weights, book.getPublisher(), PUBLISHER_BOOST);
+
+        int doc = nextDoc++;
+        if (doc == docs.length) {
+            docs = Arrays.copyOf(docs, doc * 2);
+            docTerms = Arrays.copyOf(docTerms, doc * 2);
+        }
+
+        String[] terms = new String[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> e : weights.entrySet()) {
+            float tf = e.getValue();
+            float weight = tf * (K1 + 1) / (tf + K1);
+            postings.computeIfAbsent(e.getKey(), t -> new PostingList()).append(doc, weight);
+            terms[i++] = e.getKey();
+        }
+        docs[doc] = book;
+        docTerms[doc] = terms;
+        docIds.put(book.getIsbn(), doc);
+        liveDocs++;
+    }
+
+    /**
+     * Remove a book from the index by ISBN
+     */
+    public void remove(String isbn) {
+        Integer doc = isbn == null ? null : docIds.remove(isbn);
+        if (doc == null) {
+            return;
+        }
+        String[] terms = docTerms[doc];
+        docs[doc] = null;
+        docTerms[doc] = null;
+        liveDocs--;
+
+        for (String term : terms) {
+            PostingList posting = postings.get(term);
+            posting.live--;
+            if (posting.live == 0) {
+                postings.remove(term);
+            } else if (posting.live * 2 < posting.size) {
+                posting.compact(docs);
+            }
+        }
+    }
+
+    /**
+     * Search the index and return one page of ranked results
+     *
+     * @param query  free text; every token is matched, more matches rank higher
+     * @param limit  page size
+     * @param cursor value of {@link SearchPage#getNextCursor()} from the
+     *               previous page, or null for the first page
+     */
+    public SearchPage search(String query, int limit, String cursor) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        float afterScore = Float.POSITIVE_INFINITY;
+        int afterDoc = -1;
+        if (cursor != null) {
+            int dot = cursor.indexOf('.');
+            try {
+                afterScore = Float.intBitsToFloat(Integer.parseUnsignedInt(cursor.substring(0, dot), 16));
+                afterDoc = Integer.parseInt(cursor.substring(dot + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid search cursor: " + cursor);
+            }
+        }
+
+        List<PostingList> matched = new ArrayList<>();
+        List<Float> matchedIdfs = new ArrayList<>();
+        for (String term : tokenize(query)) {
+            PostingList posting = postings.get(term);
+            if (posting != null) {
+                matched.add(posting);
+                matchedIdfs.add((float) Math.log(1 + (liveDocs - posting.live + 0.5) / (posting.live + 0.5)));
+            }
+        }
+        if (matched.isEmpty()) {
+            return new SearchPage(new ArrayList<>(), null, 0);
+        }
+
+        // Terms in ascending order of their best possible contribution;
+        // bound[i] is the most terms 0..i-1 can add to a score
+        int n = matched.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(matchedIdfs.get(a) * matched.get(a).maxWeight,
+                matchedIdfs.get(b) * matched.get(b).maxWeight));
+        PostingList[] lists = new PostingList[n];
+        float[] idfs = new float[n];
+        float[] bound = new float[n + 1];
+        for (int i = 0; i < n; i++) {
+            lists[i] = matched.get(order[i]);
+            idfs[i] = matchedIdfs.get(order[i]);
+            bound[i + 1] = bound[i] + idfs[i] * lists[i].maxWeight;
+        }
+
+        // Document-at-a-time merge with max-score pruning: postings are
+        // sorted by doc id. Once the heap is full, terms whose combined
+        // bound cannot beat its worst entry stop producing candidates
+        // (non-essential) and are only probed for the candidates of the
+        // other terms, while the bound still leaves a chance.
+        int[] pos = new int[n];
+        float[] part = new float[n];
+        TopK top = new TopK(limit + 1);
+        int essential = 0;
+        int totalHits = 0;
+        while (essential < n) {
+            int doc = Integer.MAX_VALUE;
+            for (int i = essential; i < n; i++) {
+                PostingList p = lists[i];
+                while (pos[i] < p.size && docs[p.docs[pos[i]]] == null) {
+                    pos[i]++;
+                }
+                if (pos[i] < p.size && p.docs[pos[i]] < doc) {
+                    doc = p.docs[pos[i]];
+                }
+            }
+            if (doc == Integer.MAX_VALUE) {
+                break;
+            }
+            totalHits++;
+            float known = 0;
+            for (int i = essential; i < n; i++) {
+                PostingList p = lists[i];
+                part[i] = 0;
+                if (pos[i] < p.size && p.docs[pos[i]] == doc) {
+                    part[i] = idfs[i] * p.weights[pos[i]];
+                    known += part[i];
+                    pos[i]++;
+                }
+            }
+            boolean pruned = false;
+            for (int i = essential - 1; i >= 0; i--) {
+                if (top.isFull() && below(known + bound[i + 1], top.worstScore())) {
+                    pruned = true;
+                    break;
+                }
+                PostingList p = lists[i];
+                pos[i] = p.seek(pos[i], doc);
+                part[i] = 0;
+                if (pos[i] < p.size && p.docs[pos[i]] == doc) {
+                    part[i] = idfs[i] * p.weights[pos[i]];
+                    known += part[i];
+                }
+            }
+            if (pruned) {
+                continue;
+            }
+            // Sum in term order, so no score can exceed its bound
+            float score = 0;
+            for (int i = 0; i < n; i++) {
+                score += part[i];
+            }
+            if (score < afterScore || (score == afterScore && doc > afterDoc)) {
+                top.offer(score, doc);
+                if (top.isFull()) {
+                    while (essential < n && below(bound[essential + 1], top.worstScore())) {
+                        essential++;
+                    }
+                }
+            }
+        }
+
+        int count = top.drainSorted();
+        int pageSize = Math.min(limit, count);
+        List<Book> page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(docs[top.docs[i]]);
+        }
+        String next = null;
+        if (count > limit) {
+            next = Integer.toHexString(Float.floatToIntBits(top.scores[limit - 1])) + "." + top.docs[limit - 1];
+        }
+        return new SearchPage(page, next, totalHits, essential == 0);
+    }
+
+    /**
+     * Get number of indexed books
+     */
+    public int size() {
+        return liveDocs;
+    }
+
+    // true if a score of at most bound certainly ranks below a heap entry
+    // scoring worst (later docs lose ties); the margin covers float
+    // rounding when partial sums are added in a different order
+    private static boolean below(float bound, float worst) {
+        return bound * 1.0001f < worst;
+    }
+
+    /**
+     * Split text into lowercase letter/digit tokens
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            } else if (sb.length() > 0) {
+                tokens.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+        if (sb.length() > 0) {
+            tokens.add(sb.toString());
+        }
+        return tokens;
+    }
+
+    private static void accumulate(Map<String, Float> weights, String text, float boost) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            } else if (sb.length() > 0) {
+                weights.merge(sb.toString(), boost, Float::sum);
+                sb.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Append-only posting list; removed docs are skipped and compacted lazily
+     */
+    private static class PostingList {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size;
+        int live;
+        float maxWeight;                // bound for every weight in the list
+
+        void append(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+            live++;
+            maxWeight = Math.max(maxWeight, weight);
+        }
+
+        /**
+         * First position at or after from whose doc id is at least doc
+         * (galloping, then binary search)
+         */
+        int seek(int from, int doc) {
+            int step = 1;
+            int hi = from;
+            while (hi < size && docs[hi] < doc) {
+                from = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            hi = Math.min(hi, size);
+            while (from < hi) {
+                int mid = (from + hi) >>> 1;
+                if (docs[mid] < doc) {
+                    from = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return from;
+        }
+
+        void compact(Book[] liveDocs) {
+            int w = 0;
+            maxWeight = 0;
+            for (int r = 0; r < size; r++) {
+                if (liveDocs[docs[r]] != null) {
+                    docs[w] = docs[r];
+                    weights[w] = weights[r];
+                    maxWeight = Math.max(maxWeight, weights[r]);
+                    w++;
+                }
+            }
+            size = w;
+        }
+    }
+
+    /**
+     * Bounded heap keeping the best (highest score, then lowest doc id) entries
+     */
+    private static class TopK {
+        final float[] scores;
+        final int[] docs;
+        int size;
+
+        TopK(int capacity) {
+            this.scores = new float[capacity];
+            this.docs = new int[capacity];
+        }
+
+        boolean isFull() {
+            return size == scores.length;
+        }
+
+        float worstScore() {
+            return scores[0];
+        }
+
+        void offer(float score, int doc) {
+            if (size < scores.length) {
+                scores[size] = score;
+                docs[size] = doc;
+                siftUp(size++);
+            } else if (worse(scores[0], docs[0], score, doc)) {
+                scores[0] = score;
+                docs[0] = doc;
+                siftDown(0, size);
+            }
+        }
+
+        /**
+         * Sort the heap contents best-first in place and return the count
+         */
+        int drainSorted() {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            return size;
+        }
+
+        // true if (s1, d1) ranks below (s2, d2)
+        private static boolean worse(float s1, int d1, float s2, int d2) {
+            return s1 < s2 || (s1 == s2 && d1 > d2);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!worse(scores[i], docs[i], scores[parent], docs[parent])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i, int end) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= end) {
+                    break;
+                }
+                int child = left;
+                int right = left + 1;
+                if (right < end && worse(scores[right], docs[right], scores[left], docs[left])) {
+                    child = right;
+                }
+                if (!worse(scores[child], docs[child], scores[i], docs[i])) {
+                    break;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            float s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+            int d = docs[a];
+            docs[a] = docs[b];
+            docs[b] = d;
+        }
+    }
+}
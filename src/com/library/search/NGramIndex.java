@@ -0,0 +1,142 @@
+package com.library.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * NGramIndex Class - Substring index over normalized text
+ *
+ * Features:
+ * - Text is lowercased once when a value is added
+ * - Trigram posting sets for case-insensitive "contains" queries
+ * - Results come back in insertion order, like a linear scan would
+ * - Incremental add/remove
+ *
+ * A query only walks the smallest posting set among its trigrams and
+ * verifies each candidate, so its cost follows the number of candidates
+ * rather than the size of the catalog.
+ */
+public class NGramIndex<V> {
+    private static final int GRAM = 3;
+
+    private final Map<V, String> texts;
+    private final Map<String, Set<V>> postings;
+
+    public NGramIndex() {
+        this.texts = new LinkedHashMap<>();
+        this.postings = new HashMap<>();
+    }
+
+    /**
+     * Normalize text the same way for indexing and querying
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Index a value under the given text
+     */
+    public void add(V value, String text) {
+        String normalized = normalize(text);
+        if (texts.put(value, normalized) != null) {
+            return;
+        }
+        for (String gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, g -> new LinkedHashSet<>()).add(value);
+        }
+    }
+
+    /**
+     * Remove a value from the index
+     */
+    public void remove(V value) {
+        String normalized = texts.remove(value);
+        if (normalized == null) {
+            return;
+        }
+        for (String gram : grams(normalized)) {
+            Set<V> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(value);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find values whose text contains the query (case-insensitive)
+     */
+    public List<V> search(String query, int limit) {
+        String q = normalize(query);
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<V> result = new ArrayList<>();
+
+        // Queries shorter than a gram cannot use the postings
+        if (q.length() < GRAM) {
+            for (Map.Entry<V, String> e : texts.entrySet()) {
+                if (e.getValue().contains(q)) {
+                    result.add(e.getKey());
+                    if (result.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return result;
+        }
+
+        Set<V> smallest = null;
+        for (String gram : grams(q)) {
+            Set<V> posting = postings.get(gram);
+            if (posting == null) {
+                return result;
+            }
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        for (V candidate : smallest) {
+            if (texts.get(candidate).contains(q)) {
+                result.add(candidate);
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the first value whose text contains the query
+     */
+    public V first(String query) {
+        List<V> result = search(query, 1);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Get number of indexed values
+     */
+    public int size() {
+        return texts.size();
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
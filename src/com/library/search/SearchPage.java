@@ -0,0 +1,68 @@
+package com.library.search;
+
+import com.library.models.Book;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SearchPage Class - One page of ranked search results
+ *
+ * Features:
+ * - Books in rank order (best match first)
+ * - Opaque cursor for fetching the next page
+ * - Total number of matching books (a lower bound when the search
+ *   skipped books that could not make the page)
+ */
+public class SearchPage {
+    private final List<Book> books;
+    private final String nextCursor;
+    private final int totalHits;
+    private final boolean totalExact;
+
+    public SearchPage(List<Book> books, String nextCursor, int totalHits) {
+        this(books, nextCursor, totalHits, true);
+    }
+
+    public SearchPage(List<Book> books, String nextCursor, int totalHits, boolean totalExact) {
+        this.books = Collections.unmodifiableList(books);
+        this.nextCursor = nextCursor;
+        this.totalHits = totalHits;
+        this.totalExact = totalExact;
+    }
+
+    // ===== GETTERS =====
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    /**
+     * Cursor for the next page, or null when this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    /**
+     * False if getTotalHits() is only a lower bound
+     */
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchPage{" +
+                "results=" + books.size() +
+                ", totalHits=" + totalHits + (totalExact ? "" : "+") +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,119 @@
+package com.library.server;
+
+import com.library.models.Book;
+import com.library.models.Loan;
+import com.library.models.Patron;
+import java.util.List;
+
+/**
+ * JsonText Class - JSON rendering of the objects the server returns
+ *
+ * Appends straight into a StringBuilder: responses are small and built
+ * once, so a document model or reflection-based mapper would only add
+ * garbage per request.
+ */
+final class JsonText {
+
+    private JsonText() {
+    }
+
+    /**
+     * Append a JSON string literal (or null)
+     */
+    static StringBuilder string(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Append "name": for the next member of an object
+     */
+    static StringBuilder name(StringBuilder out, String name) {
+        char last = out.length() == 0 ? 0 : out.charAt(out.length() - 1);
+        if (last != '{' && last != '[' && last != 0) {
+            out.append(',');
+        }
+        return out.append('"').append(name).append("\":");
+    }
+
+    static StringBuilder book(StringBuilder out, Book book) {
+        out.append('{');
+        string(name(out, "isbn"), book.getIsbn());
+        string(name(out, "title"), book.getTitle());
+        string(name(out, "author"), book.getAuthor());
+        string(name(out, "publisher"), book.getPublisher());
+        name(out, "year").append(book.getYear());
+        name(out, "copies").append(book.getTotalCopies());
+        name(out, "available").append(book.getAvailableCopies());
+        string(name(out, "status"), book.getStatus().name());
+        return out.append('}');
+    }
+
+    static StringBuilder patron(StringBuilder out, Patron patron) {
+        return patronFields(out.append('{'), patron).append('}');
+    }
+
+    /**
+     * Append a patron with its active loans
+     */
+    static StringBuilder patron(StringBuilder out, Patron patron, List<Loan> loans) {
+        patronFields(out.append('{'), patron);
+        name(out, "loans").append('[');
+        for (int i = 0; i < loans.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            loan(out, loans.get(i));
+        }
+        return out.append("]}");
+    }
+
+    private static StringBuilder patronFields(StringBuilder out, Patron patron) {
+        string(name(out, "patronId"), patron.getPatronId());
+        string(name(out, "name"), patron.getName());
+        string(name(out, "email"), patron.getEmail());
+        string(name(out, "phone"), patron.getPhone());
+        string(name(out, "status"), patron.getStatus().name());
+        name(out, "finePaise").append(patron.getFineAmount());
+        name(out, "borrowed").append(patron.getBorrowedCount());
+        return name(out, "history").append(patron.getHistorySize());
+    }
+
+    static StringBuilder loan(StringBuilder out, Loan loan) {
+        out.append('{');
+        string(name(out, "isbn"), loan.getIsbn());
+        string(name(out, "title"), loan.getBook().getTitle());
+        string(name(out, "checkoutDate"), loan.getCheckoutDate().toString());
+        string(name(out, "dueDate"), loan.getDueDate().toString());
+        return out.append('}');
+    }
+}
@@ -0,0 +1,431 @@
+package com.library.server;
+
+import com.library.events.EventSink;
+import com.library.metrics.ServiceMetrics;
+import com.library.models.Book;
+import com.library.models.LendingOutcome;
+import com.library.models.Loan;
+import com.library.models.Patron;
+import com.library.persistence.LibraryStore;
+import com.library.search.SearchPage;
+import com.library.services.BookService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LibraryServer Class - HTTP/JSON API over the lending services
+ *
+ * Endpoints:
+ * - GET  /books/{isbn}                       one book
+ * - GET  /books?q=text&limit=20&cursor=c     ranked full-text search
+ * - GET  /patrons/{id}                       patron with active loans
+ * - POST /checkout?patronId=P001&isbn=X      lend (date=yyyy-mm-dd optional)
+ * - POST /return?patronId=P001&isbn=X        return (date optional)
+ * - GET  /stats                              catalog and patron totals,
+ *                                            plus metrics when attached
+ *
+ * Errors come back as {"error": "..."} with 400 (bad parameters),
+ * 404 (unknown book, patron or path), 405 (wrong method) or 409 (the
+ * request was valid but refused, e.g. no copy on the shelf). An
+ * unexpected failure is a 500 with a generic message; its detail is
+ * logged to stderr.
+ *
+ * Built on the JDK's com.sun.net.httpserver: one selector thread holds
+ * every connection, so idle keep-alive connections cost no thread.
+ * Each request runs on its own virtual thread when the JDK has them
+ * (21+), so handlers may block on journal commits without starving the
+ * server; on older JDKs requests run on a fixed pool of platform
+ * threads instead.
+ *
+ * Usage:
+ *   LibraryServer server = new LibraryServer(bookService, patronService, lendingService);
+ *   server.start(8080);
+ *   ...
+ *   server.close();
+ */
+public class LibraryServer implements AutoCloseable {
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final int BACKLOG = 4096;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final BookService bookService;
+    private final PatronService patronService;
+    private final LendingService lendingService;
+    private ServiceMetrics metrics;
+    private Clock clock;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public LibraryServer(BookService bookService, PatronService patronService, LendingService lendingService) {
+        this.bookService = bookService;
+        this.patronService = patronService;
+        this.lendingService = lendingService;
+        this.clock = Clock.systemDefaultZone();
+    }
+
+    /**
+     * Include a snapshot of these metrics in /stats (null for none)
+     */
+    public void setMetrics(ServiceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Date source for checkouts and returns that give no date
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Start listening on the given port (0 picks a free one)
+     */
+    public synchronized void start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        // The JDK server reads these once, when the first server is created.
+        // It closes keep-alive connections beyond maxIdleConnections idle
+        // ones (200 by default), which would make desks reconnect; and it
+        // writes headers and body separately, so without nodelay Nagle's
+        // algorithm meets the client's delayed ACK and a response can
+        // stall for 40 ms
+        defaultProperty("sun.net.httpserver.maxIdleConnections", "1000000");
+        defaultProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Get the port the server listens on
+     */
+    public synchronized int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop accepting requests and finish the ones in flight
+     */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    // ===== ROUTING =====
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());   // drain so the connection can be reused
+            String path = exchange.getRequestURI().getRawPath();
+            String method = exchange.getRequestMethod();
+            Map<String, String> params = query(exchange.getRequestURI().getRawQuery());
+            Response response;
+            if (path.startsWith("/books/") && path.length() > 7) {
+                response = "GET".equals(method) ? getBook(decode(path.substring(7))) : notAllowed();
+            } else if (path.equals("/books")) {
+                response = "GET".equals(method) ? searchBooks(params) : notAllowed();
+            } else if (path.startsWith("/patrons/") && path.length() > 9) {
+                response = "GET".equals(method) ? getPatron(decode(path.substring(9))) : notAllowed();
+            } else if (path.equals("/checkout")) {
+                response = "POST".equals(method) ? checkout(params) : notAllowed();
+            } else if (path.equals("/return")) {
+                response = "POST".equals(method) ? returnBook(params) : notAllowed();
+            } else if (path.equals("/stats")) {
+                response = "GET".equals(method) ? stats() : notAllowed();
+            } else {
+                response = error(404, "No such endpoint: " + path);
+            }
+            send(exchange, response);
+        } catch (BadRequest e) {
+            send(exchange, error(400, e.getMessage()));
+        } catch (RuntimeException e) {
+            // The detail stays in the server's log, not in the response
+            System.err.println("✗ " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + " failed: " + e);
+            e.printStackTrace();
+            send(exchange, error(500, "Internal server error"));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // ===== ENDPOINTS =====
+
+    private Response getBook(String isbn) {
+        Book book = bookService.searchByIsbn(isbn);
+        if (book == null) {
+            return error(404, "Book not found: " + isbn);
+        }
+        return ok(JsonText.book(new StringBuilder(256), book));
+    }
+
+    private Response searchBooks(Map<String, String> params) {
+        String query = required(params, "q");
+        int limit = DEFAULT_SEARCH_LIMIT;
+        if (params.containsKey("limit")) {
+            try {
+                limit = Math.min(Math.max(1, Integer.parseInt(params.get("limit"))), MAX_SEARCH_LIMIT);
+            } catch (NumberFormatException e) {
+                throw new BadRequest("limit must be a number");
+            }
+        }
+        SearchPage page = bookService.search(query, limit, params.get("cursor"));
+        StringBuilder out = new StringBuilder(256 * page.getBooks().size() + 64);
+        out.append('{');
+        JsonText.name(out, "total").append(page.getTotalHits());
+        JsonText.name(out, "totalExact").append(page.isTotalExact());
+        JsonText.string(JsonText.name(out, "next"), page.getNextCursor());
+        JsonText.name(out, "books").append('[');
+        for (Book book : page.getBooks()) {
+            if (out.charAt(out.length() - 1) != '[') {
+                out.append(',');
+            }
+            JsonText.book(out, book);
+        }
+        return ok(out.append("]}"));
+    }
+
+    private Response getPatron(String patronId) {
+        Patron patron = patronService.findPatron(patronId);
+        if (patron == null) {
+            return error(404, "Patron not found: " + patronId);
+        }
+        return ok(JsonText.patron(new StringBuilder(512), patron, lendingService.getActiveLoans(patronId)));
+    }
+
+    private Response checkout(Map<String, String> params) {
+        Patron patron = patronService.findPatron(required(params, "patronId"));
+        Book book = bookService.searchByIsbn(required(params, "isbn"));
+        if (patron == null || book == null) {
+            return error(404, patron == null ? "Patron not found" : "Book not found");
+        }
+        LocalDate date = date(params);
+        LendingOutcome outcome = lendingService.checkout(book, patron, date);
+        if (outcome == LendingOutcome.CHECKED_OUT) {
+            Loan loan = lendingService.findLoan(patron.getPatronId(), book.getIsbn());
+            StringBuilder out = new StringBuilder(128).append('{');
+            JsonText.string(JsonText.name(out, "status"), "CHECKED_OUT");
+            JsonText.string(JsonText.name(out, "dueDate"), loan == null ? null : loan.getDueDate().toString());
+            return ok(out.append('}'));
+        }
+        return status(409, outcome.name());
+    }
+
+    private Response returnBook(Map<String, String> params) {
+        Patron patron = patronService.findPatron(required(params, "patronId"));
+        Book book = bookService.searchByIsbn(required(params, "isbn"));
+        if (patron == null || book == null) {
+            return error(404, patron == null ? "Patron not found" : "Book not found");
+        }
+        // Another desk may return the same loan first
+        if (!lendingService.returnBook(book, patron, date(params))) {
+            return status(409, "NOT_BORROWED");
+        }
+        StringBuilder out = new StringBuilder(128).append('{');
+        JsonText.string(JsonText.name(out, "status"), "RETURNED");
+        JsonText.name(out, "fineOutstandingPaise").append(patron.getFineAmount());
+        return ok(out.append('}'));
+    }
+
+    private Response stats() {
+        StringBuilder out = new StringBuilder(1024).append('{');
+        JsonText.name(out, "books").append(bookService.getTotalBooks());
+        JsonText.name(out, "availableCopies").append(bookService.getTotalAvailableCopies());
+        JsonText.name(out, "patrons").append(patronService.getTotalPatrons());
+        JsonText.name(out, "activePatrons").append(patronService.getActivePatronsCount());
+        JsonText.name(out, "patronsWithFines").append(patronService.getPatronsWithFinesCount());
+        ServiceMetrics m = metrics;
+        if (m != null) {
+            JsonText.name(out, "metrics").append(m.snapshot().toJson());
+        }
+        return ok(out.append('}'));
+    }
+
+    // ===== HELPERS =====
+
+    private LocalDate date(Map<String, String> params) {
+        String text = params.get("date");
+        if (text == null) {
+            return LocalDate.now(clock);
+        }
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new BadRequest("date must be yyyy-mm-dd");
+        }
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new BadRequest("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+            } else if (!pair.isEmpty()) {
+                params.put(decode(pair), "");
+            }
+        }
+        return params;
+    }
+
+    private static String decode(String text) {
+        try {
+            return URLDecoder.decode(text, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequest("Malformed URL encoding");
+        }
+    }
+
+    private static Response ok(StringBuilder json) {
+        return new Response(200, json.toString());
+    }
+
+    private static Response status(int code, String status) {
+        StringBuilder out = new StringBuilder(64).append('{');
+        JsonText.string(JsonText.name(out, "status"), status);
+        return new Response(code, out.append('}').toString());
+    }
+
+    private static Response error(int code, String message) {
+        StringBuilder out = new StringBuilder(64).append('{');
+        JsonText.string(JsonText.name(out, "error"), message);
+        return new Response(code, out.append('}').toString());
+    }
+
+    private static Response notAllowed() {
+        return error(405, "Method not allowed");
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(response.code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void defaultProperty(String name, String value) {
+        if (System.getProperty(name) == null) {
+            System.setProperty(name, value);
+        }
+    }
+
+    /**
+     * Virtual thread per request where the JDK has them (21+), looked up
+     * reflectively so the code still compiles and runs on 17
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Handlers are short and mostly CPU-bound; a few threads per
+            // core leave room for ones waiting on a journal commit
+            AtomicInteger count = new AtomicInteger();
+            int threads = Math.max(4, 4 * Runtime.getRuntime().availableProcessors());
+            return Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "library-http-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private static class Response {
+        final int code;
+        final String body;
+
+        Response(int code, String body) {
+            this.code = code;
+            this.body = body;
+        }
+    }
+
+    private static class BadRequest extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BadRequest(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Run a server over a persistent library directory
+     *
+     * Usage: java com.library.server.LibraryServer [port] [data directory]
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        BookService bookService = new BookService();
+        PatronService patronService = new PatronService();
+        LendingService lendingService = new LendingService(bookService, patronService);
+        bookService.setEventSink(EventSink.NONE);
+        patronService.setEventSink(EventSink.NONE);
+        lendingService.setEventSink(EventSink.NONE);
+        LibraryStore store = LibraryStore.open(Paths.get(args.length > 1 ? args[1] : "data"),
+                bookService, patronService, lendingService);
+        store.startCheckpoints(10, TimeUnit.MINUTES);
+
+        LibraryServer server = new LibraryServer(bookService, patronService, lendingService);
+        ServiceMetrics metrics = new ServiceMetrics(16);
+        bookService.setMetrics(metrics);
+        patronService.setMetrics(metrics);
+        lendingService.setMetrics(metrics);
+        server.setMetrics(metrics);
+        server.start(port);
+        System.out.println("✓ Library server listening on http://localhost:" + server.getPort()
+                + " (" + bookService.getTotalBooks() + " books, " + patronService.getTotalPatrons() + " patrons)");
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("✗ Could not close the store: " + e.getMessage());
+            }
+            stopped.countDown();
+        }));
+        stopped.await();
+    }
+}
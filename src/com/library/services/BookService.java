@@ -1,36 +1,313 @@
 package com.library.services;
 
+import com.library.cache.LookupCache;
+import com.library.events.ConsoleEventSink;
+import com.library.events.EventSink;
+import com.library.events.EventType;
+import com.library.metrics.Operation;
+import com.library.metrics.Outcome;
+import com.library.metrics.ServiceMetrics;
 import com.library.models.Book;
+import com.library.models.BookObserver;
+import com.library.persistence.Journal;
+import com.library.persistence.JournalRecord;
+import com.library.persistence.MappedCatalog;
+import com.library.search.AutocompleteIndex;
+import com.library.search.InvertedIndex;
+import com.library.search.NGramIndex;
+import com.library.search.SearchPage;
+import com.library.snapshot.VersionClock;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * BookService Class - Handles all book-related operations
  * 
  * Features:
- * - Add/Remove books
+ * - Add/Remove books (one at a time or in bulk batches)
  * - Search by title, ISBN, author
+ * - Title autocomplete as the user types, tolerant of typos
  * - Availability checking
- * - Book listing
+ * - Book listing, as a copy or as a stream over the catalog
+ * 
+ * Indexes:
+ * - ISBN hash index (O(1) lookup and duplicate check)
+ * - Optional bounded LookupCache in front of ISBN lookups, for when the
+ *   catalog sits on slower storage
+ * - Trigram indexes on normalized title and author
+ * - Ranked full-text index over title, author and publisher
+ * - Autocomplete trie over title words
+ * - Running total of available copies, kept current by observing each
+ *   book, so the dashboard statistics are O(1)
+ * 
+ * Mapped catalog (optional):
+ * - A read-only MappedCatalog can sit underneath the in-memory books
+ * - Mapped titles are copied into memory only when first looked up,
+ *   so startup cost and heap use do not depend on catalog size
+ * - Text indexes, full-text search and autocomplete cover in-memory
+ *   books; mapped titles are found by title/author with a scan of the
+ *   mapping
+ * - Since lookups then add to the in-memory books, readers and writers
+ *   of the catalog share a read/write lock while a mapping is attached;
+ *   without one, lookups take no lock, as before
+ * - Listings and snapshots read mapped records in place; only the
+ *   books in memory (the overlay) are copied
  * 
  * Design Pattern: Service Layer
  */
-public class BookService {
-    private List<Book> books;
+public class BookService implements BookObserver {
+    private Map<String, Book> books;
+    private NGramIndex<Book> titleIndex;
+    private NGramIndex<Book> authorIndex;
+    private InvertedIndex searchIndex;
+    private AutocompleteIndex<Book> suggestIndex;
+    private Journal journal;
+    private EventSink events;
+    private ServiceMetrics metrics;
+    private volatile MappedCatalog catalog;
+    private LookupCache<String, Book> cache;
+    private VersionClock clock;
+    private BitSet shadowed;        // mapped records copied into memory or removed
+    private int shadowedCount;
+    private final ReentrantReadWriteLock lock;     // books, shadowed and the indexes
+    private final LongAdder availableCopies;
+    private final Function<String, Book> loader;
+    private final Function<String, Book> residentLoader;    // in-memory books only; never copies mapped records
 
     public BookService() {
-        this.books = new ArrayList<>();
+        this.books = new LinkedHashMap<>();
+        this.titleIndex = new NGramIndex<>();
+        this.authorIndex = new NGramIndex<>();
+        this.searchIndex = new InvertedIndex();
+        this.suggestIndex = new AutocompleteIndex<>();
+        this.availableCopies = new LongAdder();
+        this.lock = new ReentrantReadWriteLock();
+        this.events = new ConsoleEventSink();
+        this.loader = this::lookup;
+        this.residentLoader = this::resident;
+    }
+
+    /**
+     * Record every catalog change in the given journal (null to stop)
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Report what this service does to the given sink (console by default)
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Time and count calls in the given metrics (null to stop)
+     */
+    public void setMetrics(ServiceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Serve ISBN lookups (searchByIsbn, isAvailable) through a bounded
+     * cache (null to stop); entries are dropped whenever a book is added
+     * or removed
+     */
+    public void setCache(LookupCache<String, Book> cache) {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+        this.cache = cache;
+    }
+
+    /**
+     * Version every book's copy counts with the given clock (null to
+     * stop), so snapshots can read them as of a point in time
+     */
+    public void setVersionClock(VersionClock clock) {
+        this.clock = clock;
+        for (Book book : books.values()) {
+            book.setVersionClock(clock);
+        }
+    }
+
+    /**
+     * Serve mapped catalog records underneath the in-memory books
+     */
+    public void attachCatalog(MappedCatalog catalog) {
+        lock.writeLock().lock();
+        try {
+            this.shadowed = new BitSet();
+            this.shadowedCount = 0;
+            this.catalog = catalog;
+            if (cache != null) {
+                cache.invalidateAll();
+            }
+            MappedCatalog.BookView view = catalog.view();
+            for (int i = 0; i < catalog.size(); i++) {
+                availableCopies.add(view.moveTo(i).getAvailableCopies());
+            }
+            for (String isbn : books.keySet()) {
+                shadow(catalog.indexOf(isbn));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
      * Add a new book to the library
      */
     public void addBook(Book book) {
-        if (book != null && searchByIsbn(book.getIsbn()) == null) {
-            books.add(book);
-            System.out.println("✓ Book added: " + book.getTitle());
-        } else {
-            System.out.println("✗ Book already exists or invalid");
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Journal log = journal;
+        boolean added;
+        if (log != null) {
+            log.beginChange();
+        }
+        try {
+            added = loadBook(book);
+            if (added && log != null) {
+                log.append(JournalRecord.addBook(book));
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        String isbn = book == null ? null : book.getIsbn();
+        String title = book == null ? null : book.getTitle();
+        events.emit(added ? EventType.BOOK_ADDED : EventType.BOOK_REJECTED, null, isbn, title, null, 0, null);
+        if (m != null) {
+            m.record(Operation.ADD_BOOK, added ? Outcome.OK : Outcome.REJECTED, start);
+        }
+    }
+
+    /**
+     * Add many books at once (bulk import); books whose ISBN is already
+     * present are skipped
+     * 
+     * Journal records are queued per book and waited on once. No event
+     * is emitted per book.
+     * 
+     * @return number of books added
+     */
+    public int addBooks(List<Book> batch) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Journal log = journal;
+        CompletableFuture<Long> logged = null;
+        int added = 0;
+        if (log != null) {
+            log.beginChange();
+        }
+        try {
+            for (Book book : batch) {
+                if (loadBook(book)) {
+                    added++;
+                    if (log != null) {
+                        logged = log.appendAsync(JournalRecord.addBook(book));
+                    }
+                }
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        if (logged != null) {
+            logged.join();
+        }
+        if (m != null) {
+            m.record(Operation.ADD_BOOK_BATCH, added == batch.size() ? Outcome.OK
+                    : added == 0 ? Outcome.REJECTED : Outcome.PARTIAL, start);
+        }
+        return added;
+    }
+
+    /**
+     * Put a book into the catalog and its indexes without journaling or
+     * console output (used by recovery)
+     * 
+     * @return false if the book is null or its ISBN is already present
+     */
+    public boolean loadBook(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (book == null || books.containsKey(book.getIsbn()) || isMapped(book.getIsbn())) {
+                return false;
+            }
+            put(book);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Put a recovered book into the catalog in place of its mapped
+     * record, if it has one (used by recovery, when the snapshot holds
+     * the book as it was changed in memory)
+     * 
+     * @return false if the book is null or its ISBN is already in memory
+     */
+    public boolean restoreBook(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (book == null || books.containsKey(book.getIsbn())) {
+                return false;
+            }
+            put(book);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Take a book out of the catalog and its indexes without journaling or
+     * console output (used by recovery)
+     * 
+     * @return the removed book, or null if it was not present
+     */
+    public Book unloadBook(String isbn) {
+        lock.writeLock().lock();
+        try {
+            Book book = isbn == null ? null : books.remove(isbn);
+            if (book != null) {
+                synchronized (book) {
+                    book.setObserver(null);
+                    availableCopies.add(-book.getAvailableCopies());
+                }
+                titleIndex.remove(book);
+                authorIndex.remove(book);
+                searchIndex.remove(isbn);
+                suggestIndex.remove(book);
+            } else if (catalog != null) {
+                int index = catalog.indexOf(isbn);
+                if (index >= 0 && !shadowed.get(index)) {
+                    book = catalog.toBook(index);
+                    shadow(index);
+                }
+            }
+            if (book != null && cache != null) {
+                cache.invalidate(isbn);
+            }
+            return book;
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
@@ -38,52 +315,283 @@ public class BookService {
      * Search book by title (case-insensitive)
      */
     public Book searchByTitle(String title) {
-        for (Book book : books) {
-            if (book.getTitle().toLowerCase().contains(title.toLowerCase())) {
-                return book;
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Book book;
+        if (catalog == null) {
+            book = titleIndex.first(title);
+        } else {
+            lock.readLock().lock();
+            try {
+                book = titleIndex.first(title);
+            } finally {
+                lock.readLock().unlock();
             }
+            if (book == null) {
+                List<Book> mapped = scanCatalog(title, true, 1);
+                book = mapped.isEmpty() ? null : mapped.get(0);
+            }
+        }
+        if (book == null) {
+            events.emit(EventType.BOOK_LOOKUP_FAILED, null, null, title, null, 0, null);
+        }
+        if (m != null) {
+            m.record(Operation.SEARCH_BY_TITLE, book != null ? Outcome.OK : Outcome.NOT_FOUND, start);
         }
-        System.out.println("✗ Book not found: " + title);
-        return null;
+        return book;
     }
 
     /**
      * Search book by ISBN
      */
     public Book searchByIsbn(String isbn) {
-        for (Book book : books) {
-            if (book.getIsbn().equals(isbn)) {
+        ServiceMetrics m = metrics;
+        if (m == null) {
+            return cachedLookup(isbn);
+        }
+        long start = m.start();
+        Book book = cachedLookup(isbn);
+        m.record(Operation.SEARCH_BY_ISBN, book != null ? Outcome.OK : Outcome.NOT_FOUND, start);
+        return book;
+    }
+
+    private Book cachedLookup(String isbn) {
+        LookupCache<String, Book> c = cache;
+        return c == null || isbn == null ? lookup(isbn) : c.get(isbn, loader);
+    }
+
+    private Book lookup(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        if (catalog == null) {
+            return books.get(isbn);
+        }
+        int index;
+        lock.readLock().lock();
+        try {
+            Book book = books.get(isbn);
+            index = book == null ? catalog.indexOf(isbn) : -1;
+            if (book != null || index < 0 || shadowed.get(index)) {
                 return book;
             }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // First lookup of a mapped record; another thread may copy it first
+        lock.writeLock().lock();
+        try {
+            return shadowed.get(index) ? books.get(isbn) : materialize(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // In-memory books only; never copies mapped records
+    private Book resident(String isbn) {
+        if (catalog == null) {
+            return books.get(isbn);
+        }
+        lock.readLock().lock();
+        try {
+            return books.get(isbn);
+        } finally {
+            lock.readLock().unlock();
         }
-        return null;
     }
 
     /**
      * Search book by author
      */
     public List<Book> searchByAuthor(String author) {
-        List<Book> result = new ArrayList<>();
-        for (Book book : books) {
-            if (book.getAuthor().toLowerCase().contains(author.toLowerCase())) {
-                result.add(book);
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        List<Book> result;
+        if (catalog == null) {
+            result = authorIndex.search(author, Integer.MAX_VALUE);
+        } else {
+            lock.readLock().lock();
+            try {
+                result = authorIndex.search(author, Integer.MAX_VALUE);
+            } finally {
+                lock.readLock().unlock();
             }
+            result.addAll(scanCatalog(author, false, Integer.MAX_VALUE));
+        }
+        if (m != null) {
+            m.record(Operation.SEARCH_BY_AUTHOR, result.isEmpty() ? Outcome.NOT_FOUND : Outcome.OK, start);
+        }
+        return result;
+    }
+
+    /**
+     * Full-text search over title, author and publisher, best match first
+     * 
+     * Pass null as the cursor for the first page, then the page's
+     * next cursor to continue.
+     */
+    public SearchPage search(String query, int limit, String cursor) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        SearchPage page;
+        if (catalog == null) {
+            page = searchIndex.search(query, limit, cursor);
+        } else {
+            lock.readLock().lock();
+            try {
+                page = searchIndex.search(query, limit, cursor);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        if (m != null) {
+            m.record(Operation.SEARCH_FULL_TEXT, page.getBooks().isEmpty() ? Outcome.NOT_FOUND : Outcome.OK, start);
+        }
+        return page;
+    }
+
+    /**
+     * Suggest titles for a partly typed or misspelled query, exact
+     * prefix matches first ("harry pot", "hary potter")
+     */
+    public List<Book> suggestTitles(String query, int limit) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        List<Book> result;
+        if (catalog == null) {
+            result = suggestIndex.suggest(query, limit);
+        } else {
+            lock.readLock().lock();
+            try {
+                result = suggestIndex.suggest(query, limit);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        if (m != null) {
+            m.record(Operation.SUGGEST_TITLE, result.isEmpty() ? Outcome.NOT_FOUND : Outcome.OK, start);
         }
         return result;
     }
 
     /**
      * Get all books in the library
+     * 
+     * Mapped records not yet in memory come back as detached copies, as
+     * from streamBooks(); use getResidentBooks() for the books that can
+     * change.
      */
     public List<Book> getAllBooks() {
-        return new ArrayList<>(books);
+        if (catalog == null) {
+            return new ArrayList<>(books.values());
+        }
+        List<Book> all = new ArrayList<>(getTotalBooks());
+        captureBooks().get().forEach(all::add);
+        return all;
+    }
+
+    /**
+     * Get the books held in memory: every book when no mapped catalog is
+     * attached, otherwise the ones added, looked up or lent since (the
+     * overlay on the mapping)
+     */
+    public List<Book> getResidentBooks() {
+        if (catalog == null) {
+            return new ArrayList<>(books.values());
+        }
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(books.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the ISBNs of mapped catalog records that were removed (so a
+     * snapshot of the overlay can remove them again)
+     */
+    public List<String> getRemovedCatalogIsbns() {
+        List<String> removed = new ArrayList<>();
+        if (catalog == null) {
+            return removed;
+        }
+        lock.readLock().lock();
+        try {
+            MappedCatalog.BookView view = catalog.view();
+            for (int i = shadowed.nextSetBit(0); i >= 0; i = shadowed.nextSetBit(i + 1)) {
+                String isbn = view.moveTo(i).getIsbn();
+                if (!books.containsKey(isbn)) {
+                    removed.add(isbn);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return removed;
+    }
+
+    /**
+     * Stream every book without copying the catalog
+     * 
+     * Mapped records not yet in memory are decoded one at a time as the
+     * stream reaches them and are not kept, so a pass over the whole
+     * catalog runs in constant memory; they come back as detached copies
+     * (look them up by ISBN to lend or change them). Like getAllBooks(),
+     * run it while books are not being added or removed.
+     */
+    public Stream<Book> streamBooks() {
+        if (catalog == null) {
+            return books.values().stream();
+        }
+        // Lookups may copy records into memory while the stream runs
+        return captureBooks().get();
+    }
+
+    /**
+     * Capture which books a snapshot holds: the in-memory books now in
+     * the catalog, and the mapped records not yet copied into memory
+     * (which never change, so they are decoded only when the snapshot
+     * is read). Copies references only; like getAllBooks(), do not run
+     * it while books are being added or removed.
+     */
+    public Supplier<Stream<Book>> captureBooks() {
+        if (catalog == null) {
+            Book[] loaded = books.values().toArray(new Book[0]);
+            return () -> Arrays.stream(loaded);
+        }
+        Book[] loaded;
+        BitSet inMemory;
+        lock.readLock().lock();
+        try {
+            loaded = books.values().toArray(new Book[0]);
+            inMemory = (BitSet) shadowed.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+        MappedCatalog mapped = catalog;
+        return () -> Stream.concat(Arrays.stream(loaded), IntStream.range(0, mapped.size())
+                .filter(i -> !inMemory.get(i))
+                .mapToObj(mapped::toBook));
     }
 
     /**
      * Check if book is available
      */
     public boolean isAvailable(String isbn) {
-        Book book = searchByIsbn(isbn);
+        LookupCache<String, Book> c = cache;
+        Book book = isbn == null ? null : c != null ? c.get(isbn, residentLoader) : resident(isbn);
+        if (book == null && catalog != null) {
+            // Read the mapped record in place rather than copying it in
+            lock.readLock().lock();
+            try {
+                int index = catalog.indexOf(isbn);
+                return index >= 0 && !shadowed.get(index)
+                        && catalog.view().moveTo(index).getAvailableCopies() > 0;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
         return book != null && book.getAvailableCopies() > 0;
     }
 
@@ -91,10 +599,26 @@ public class BookService {
      * Remove book from library
      */
     public void removeBook(String isbn) {
-        if (books.removeIf(b -> b.getIsbn().equals(isbn))) {
-            System.out.println("✓ Book removed");
-        } else {
-            System.out.println("✗ Book not found");
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Journal log = journal;
+        boolean removed;
+        if (log != null) {
+            log.beginChange();
+        }
+        try {
+            removed = unloadBook(isbn) != null;
+            if (removed && log != null) {
+                log.append(JournalRecord.removeBook(isbn));
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        events.emit(removed ? EventType.BOOK_REMOVED : EventType.BOOK_REMOVE_FAILED, null, isbn, null, null, 0, null);
+        if (m != null) {
+            m.record(Operation.REMOVE_BOOK, removed ? Outcome.OK : Outcome.NOT_FOUND, start);
         }
     }
 
@@ -102,17 +626,117 @@ public class BookService {
      * Get total number of books in library
      */
     public int getTotalBooks() {
-        return books.size();
+        int mapped = catalog == null ? 0 : catalog.size() - shadowedCount;
+        return books.size() + mapped;
     }
 
     /**
      * Get count of available copies across all books
      */
     public int getTotalAvailableCopies() {
-        int total = 0;
-        for (Book book : books) {
-            total += book.getAvailableCopies();
+        return (int) availableCopies.sum();
+    }
+
+    /**
+     * Keep the available copies total current (called under the book's lock)
+     */
+    @Override
+    public void copiesChanged(Book book, int delta) {
+        availableCopies.add(delta);
+    }
+
+    // ===== INTERNALS =====
+
+    // Caller holds the write lock
+    private void put(Book book) {
+        index(book);
+        if (catalog != null) {
+            shadow(catalog.indexOf(book.getIsbn()));
+        }
+        if (cache != null) {
+            cache.invalidate(book.getIsbn());
+        }
+    }
+
+    // A mapped record not yet copied into memory or removed
+    private boolean isMapped(String isbn) {
+        if (catalog == null) {
+            return false;
         }
-        return total;
+        int index = catalog.indexOf(isbn);
+        return index >= 0 && !shadowed.get(index);
+    }
+
+    private void index(Book book) {
+        books.put(book.getIsbn(), book);
+        synchronized (book) {
+            book.setObserver(this);
+            book.setVersionClock(clock);
+            availableCopies.add(book.getAvailableCopies());
+        }
+        titleIndex.add(book, book.getTitle());
+        authorIndex.add(book, book.getAuthor());
+        searchIndex.add(book);
+        suggestIndex.add(book, book.getTitle());
+    }
+
+    /**
+     * Copy a mapped record into memory so it can be lent and updated
+     * (caller holds the write lock)
+     */
+    private Book materialize(int index) {
+        Book book = catalog.toBook(index);
+        index(book);
+        shadow(index);
+        return book;
+    }
+
+    // The record's copies now live in an in-memory book (or are gone)
+    private void shadow(int index) {
+        if (index >= 0 && !shadowed.get(index)) {
+            shadowed.set(index);
+            shadowedCount++;
+            availableCopies.add(-catalog.view().moveTo(index).getAvailableCopies());
+        }
+    }
+
+    /**
+     * Scan mapped records not yet in memory for a title or author match,
+     * comparing the mapped text in place, then copy the matches into memory
+     */
+    private List<Book> scanCatalog(String query, boolean byTitle, int limit) {
+        String q = NGramIndex.normalize(query);
+        List<Integer> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            MappedCatalog.BookView view = catalog.view();
+            for (int i = shadowed.nextClearBit(0); i < catalog.size() && matches.size() < limit;
+                 i = shadowed.nextClearBit(i + 1)) {
+                view.moveTo(i);
+                if (byTitle ? view.titleContains(q) : view.authorContains(q)) {
+                    matches.add(i);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (matches.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Book> result = new ArrayList<>(matches.size());
+        lock.writeLock().lock();
+        try {
+            MappedCatalog.BookView view = catalog.view();
+            for (int index : matches) {
+                // Copied in (or removed) by another thread since the scan
+                Book book = shadowed.get(index) ? books.get(view.moveTo(index).getIsbn()) : materialize(index);
+                if (book != null) {
+                    result.add(book);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return result;
     }
 }
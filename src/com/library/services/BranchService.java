@@ -0,0 +1,470 @@
+package com.library.services;
+
+import com.library.events.ConsoleEventSink;
+import com.library.events.EventSink;
+import com.library.events.EventType;
+import com.library.metrics.Operation;
+import com.library.metrics.Outcome;
+import com.library.metrics.ServiceMetrics;
+import com.library.models.Book;
+import com.library.models.Branch;
+import com.library.models.BranchAvailability;
+import com.library.models.Holding;
+import com.library.models.Patron;
+import com.library.persistence.Journal;
+import com.library.persistence.JournalRecord;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * BranchService Class - Branch-aware holdings, sharded by branch
+ *
+ * Features:
+ * - Each branch is a shard with its own ISBN-to-holding map; checkouts
+ *   and returns at a desk lock only that branch's holding, so one
+ *   branch's traffic never contends with another's
+ * - Availability checks and searches fan out across the shards and
+ *   merge the per-branch results; a fan-out big enough to pay for it
+ *   (many branches, or many titles) runs on the common fork-join pool
+ * - System-wide copy totals scan every shard in parallel
+ * - Inter-branch transfers lock both holdings in branch ID order, so
+ *   copies move atomically and opposite transfers cannot deadlock
+ * - Desk checkouts and returns are loans made through LendingService,
+ *   so Book's counts, the loans and the holdings move together
+ * - With a Journal attached, branches, shelved copies, transfers and
+ *   desk loans are journaled (and kept in snapshots by LibraryStore)
+ *
+ * Bibliographic data stays in BookService and is shared by all
+ * branches. A holding is a share of the Book's copies: Book's own copy
+ * counts remain the system-wide figures LendingService works with, and
+ * no more copies can be shelved across the branches than the Book has.
+ * Once branches are in use, lend through them so each branch knows
+ * which of its copies are out.
+ *
+ * Design Pattern: Service Layer
+ *
+ * Usage:
+ *   BranchService branches = new BranchService(bookService, lendingService);
+ *   branches.addBranch("CEN", "Central");
+ *   branches.addCopies("CEN", book, 3);
+ *   branches.checkoutBook("CEN", book, patron, today);
+ *   branches.transferCopies(book.getIsbn(), "CEN", "NTH", 1);
+ *   BranchAvailability where = branches.getAvailability(book.getIsbn());
+ */
+public class BranchService {
+    // A holding lookup is one hash probe (tens of ns) and handing work to
+    // the fork-join pool costs microseconds, so a fan-out is only split
+    // across threads when it makes at least this many lookups
+    private static final int PARALLEL_MIN_LOOKUPS = 256;
+
+    private final BookService bookService;
+    private final LendingService lendingService;
+    private final ConcurrentHashMap<String, Branch> branches;
+    private volatile Branch[] shards;           // by branch ID; replaced when a branch is added
+    private Journal journal;
+    private EventSink events;
+    private ServiceMetrics metrics;
+
+    public BranchService(BookService bookService, LendingService lendingService) {
+        this.bookService = bookService;
+        this.lendingService = lendingService;
+        this.branches = new ConcurrentHashMap<>();
+        this.shards = new Branch[0];
+        this.events = new ConsoleEventSink();
+    }
+
+    /**
+     * Record every branch and holding change in the given journal (null to stop)
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Report what this service does to the given sink (console by default)
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Count and time calls into the given metrics (null to stop)
+     */
+    public void setMetrics(ServiceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // ===== BRANCHES =====
+
+    /**
+     * Open a new branch
+     */
+    public boolean addBranch(String branchId, String name) {
+        Journal log = journal;
+        boolean added;
+        if (log != null) {
+            log.beginChange();
+        }
+        try {
+            added = loadBranch(branchId, name);
+            if (added && log != null) {
+                log.append(JournalRecord.addBranch(branchId, name));
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        events.emit(added ? EventType.BRANCH_ADDED : EventType.BRANCH_REJECTED, null, null, null, name, 0, null);
+        return added;
+    }
+
+    /**
+     * Open a branch without journaling or console output (used by recovery)
+     */
+    public boolean loadBranch(String branchId, String name) {
+        if (branchId == null || branchId.isEmpty()) {
+            return false;
+        }
+        synchronized (branches) {
+            if (branches.containsKey(branchId)) {
+                return false;
+            }
+            Branch branch = new Branch(branchId, name);
+            branches.put(branchId, branch);
+            Branch[] next = Arrays.copyOf(shards, shards.length + 1);
+            next[next.length - 1] = branch;
+            Arrays.sort(next, (a, b) -> a.getBranchId().compareTo(b.getBranchId()));
+            shards = next;
+            return true;
+        }
+    }
+
+    /**
+     * Get a branch by ID, or null
+     */
+    public Branch getBranch(String branchId) {
+        return branches.get(branchId);
+    }
+
+    /**
+     * Get every branch, ordered by ID
+     */
+    public List<Branch> getBranches() {
+        return Collections.unmodifiableList(Arrays.asList(shards));
+    }
+
+    public int getBranchCount() {
+        return shards.length;
+    }
+
+    // ===== HOLDINGS =====
+
+    /**
+     * Shelve copies of a title at a branch
+     *
+     * @return false if the branch is unknown, or the branches would then
+     *         hold more copies than the Book has
+     */
+    public boolean addCopies(String branchId, Book book, int count) {
+        Branch branch = branches.get(branchId);
+        if (branch == null || book == null || count <= 0) {
+            return false;
+        }
+        boolean shelved = false;
+        Journal log = journal;
+        CompletableFuture<Long> logged = null;
+        if (log != null) {
+            log.beginChange();
+        }
+        try {
+            // The Book's monitor keeps two branches from shelving the same copy
+            synchronized (book) {
+                if (getShelvedCopies(book.getIsbn()) + count <= book.getTotalCopies()) {
+                    branch.holdingFor(book).addCopies(count);
+                    shelved = true;
+                    if (log != null) {
+                        logged = log.appendAsync(JournalRecord.shelveCopies(branchId, book.getIsbn(), count));
+                    }
+                }
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        if (logged != null) {
+            logged.join();
+        }
+        return shelved;
+    }
+
+    /**
+     * Lend a copy from a branch's shelf: a LendingService checkout that
+     * also takes the copy off this branch's holding
+     *
+     * @return false if the branch has no copy on the shelf, or the
+     *         checkout itself fails (the copy then stays on the shelf)
+     */
+    public boolean checkoutBook(String branchId, Book book, Patron patron, LocalDate checkoutDate) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Holding holding = book == null ? null : holding(branchId, book.getIsbn());
+        boolean lent = false;
+        if (holding != null) {
+            Journal log = journal;
+            if (log != null) {
+                log.beginChange();
+            }
+            try {
+                // Reserve the shelf copy first; no holding lock is held while lending
+                if (holding.checkout()) {
+                    if (lendingService.checkoutBook(book, patron, checkoutDate)) {
+                        lent = true;
+                        if (log != null) {
+                            log.append(JournalRecord.branchCheckout(branchId, book.getIsbn()));
+                        }
+                    } else {
+                        holding.checkin();
+                    }
+                }
+            } finally {
+                if (log != null) {
+                    log.endChange();
+                }
+            }
+        }
+        if (m != null) {
+            m.record(Operation.BRANCH_CHECKOUT, lent ? Outcome.OK
+                    : holding == null ? Outcome.NOT_FOUND : Outcome.NOT_AVAILABLE, start);
+        }
+        return lent;
+    }
+
+    /**
+     * Return a copy to the shelf of the branch it was lent from: a
+     * LendingService return that also puts the copy back in this
+     * branch's holding
+     *
+     * @return false if this branch has no copy of the title out, or the
+     *         patron has no loan of it
+     */
+    public boolean returnBook(String branchId, Book book, Patron patron, LocalDate returnDate) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Holding holding = book == null ? null : holding(branchId, book.getIsbn());
+        boolean returned = false;
+        if (holding != null) {
+            Journal log = journal;
+            if (log != null) {
+                log.beginChange();
+            }
+            try {
+                if (holding.checkin()) {
+                    if (lendingService.returnBook(book, patron, returnDate)) {
+                        returned = true;
+                        if (log != null) {
+                            log.append(JournalRecord.branchReturn(branchId, book.getIsbn()));
+                        }
+                    } else {
+                        holding.checkout();
+                    }
+                }
+            } finally {
+                if (log != null) {
+                    log.endChange();
+                }
+            }
+        }
+        if (m != null) {
+            m.record(Operation.BRANCH_RETURN, returned ? Outcome.OK
+                    : holding == null ? Outcome.NOT_FOUND : Outcome.NOT_BORROWED, start);
+        }
+        return returned;
+    }
+
+    /**
+     * Move shelved copies of a title from one branch to another
+     *
+     * @return false if either branch is unknown, or the source branch has
+     *         fewer than count copies on the shelf
+     */
+    public boolean transferCopies(String isbn, String fromBranchId, String toBranchId, int count) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Branch from = branches.get(fromBranchId);
+        Branch to = branches.get(toBranchId);
+        Holding source = from == null ? null : from.getHolding(isbn);
+        boolean moved = false;
+        if (source != null && to != null && from != to && count > 0) {
+            Holding target = to.holdingFor(source.getBook());
+            Journal log = journal;
+            CompletableFuture<Long> logged = null;
+            if (log != null) {
+                log.beginChange();
+            }
+            try {
+                // Lock in branch ID order so A->B and B->A cannot deadlock
+                boolean sourceFirst = fromBranchId.compareTo(toBranchId) < 0;
+                Holding first = sourceFirst ? source : target;
+                Holding second = sourceFirst ? target : source;
+                synchronized (first) {
+                    synchronized (second) {
+                        if (source.getAvailable() >= count) {
+                            source.moveTo(target, count);
+                            moved = true;
+                            if (log != null) {
+                                logged = log.appendAsync(JournalRecord.transferCopies(isbn, fromBranchId, toBranchId,
+                                        count));
+                            }
+                        }
+                    }
+                }
+            } finally {
+                if (log != null) {
+                    log.endChange();
+                }
+            }
+            if (logged != null) {
+                logged.join();
+            }
+        }
+        String title = source != null ? source.getBook().getTitle() : isbn;
+        events.emit(moved ? EventType.COPIES_TRANSFERRED : EventType.TRANSFER_REJECTED, null, isbn, title,
+                fromBranchId + " -> " + toBranchId, count, null);
+        if (m != null) {
+            m.record(Operation.TRANSFER, moved ? Outcome.OK
+                    : source == null || to == null ? Outcome.NOT_FOUND : Outcome.NOT_AVAILABLE, start);
+        }
+        return moved;
+    }
+
+    // ===== RECOVERY =====
+
+    /**
+     * Change a holding's counts without checks, journaling or console
+     * output (used by recovery)
+     *
+     * Desk records of different patrons may be logged in a different
+     * order than they happened, but their sum is always right.
+     *
+     * @param copies    copies shelved here (+) or moved away (-)
+     * @param available change to the copies on the shelf
+     */
+    public void restoreCopies(String branchId, Book book, int copies, int available) {
+        Branch branch = branches.get(branchId);
+        if (branch != null && book != null) {
+            Holding holding = branch.holdingFor(book);
+            synchronized (holding) {
+                holding.restore(holding.getCopies() + copies, holding.getAvailable() + available);
+            }
+        }
+    }
+
+    // ===== QUERIES =====
+
+    /**
+     * Where the copies of a title are, across every branch
+     *
+     * @return null if no branch holds the title
+     */
+    public BranchAvailability getAvailability(String isbn) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        List<Holding> found = fanOut(shards, 1).map(branch -> branch.getHolding(isbn))
+                .filter(holding -> holding != null)
+                .collect(Collectors.toList());
+        BranchAvailability result = found.isEmpty() ? null : new BranchAvailability(found.get(0).getBook(), found);
+        if (m != null) {
+            m.record(Operation.BRANCH_AVAILABILITY, result != null ? Outcome.OK : Outcome.NOT_FOUND, start);
+        }
+        return result;
+    }
+
+    /**
+     * Full-text search of the catalog, with each hit's availability at
+     * every branch
+     *
+     * Matches come from BookService's ranked search; every branch then
+     * looks up all of them, in parallel for large fan-outs, and the per-branch holdings are
+     * merged back per title, in rank order. Titles no branch holds are
+     * left out.
+     */
+    public List<BranchAvailability> search(String query, int limit) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        List<Book> hits = bookService.search(query, limit, null).getBooks();
+        // One row per branch, one column per hit (null where not held)
+        List<Holding[]> rows = fanOut(shards, hits.size()).map(branch -> {
+            Holding[] row = new Holding[hits.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = branch.getHolding(hits.get(i).getIsbn());
+            }
+            return row;
+        }).collect(Collectors.toList());
+        List<BranchAvailability> results = new ArrayList<>();
+        for (int i = 0; i < hits.size(); i++) {
+            List<Holding> held = new ArrayList<>();
+            for (Holding[] row : rows) {
+                if (row[i] != null) {
+                    held.add(row[i]);
+                }
+            }
+            if (!held.isEmpty()) {
+                results.add(new BranchAvailability(hits.get(i), held));
+            }
+        }
+        if (m != null) {
+            m.record(Operation.BRANCH_SEARCH, results.isEmpty() ? Outcome.NOT_FOUND : Outcome.OK, start);
+        }
+        return results;
+    }
+
+    /**
+     * Get copies of a title shelved across all branches, on loan or not
+     */
+    public int getShelvedCopies(String isbn) {
+        int total = 0;
+        for (Branch branch : shards) {
+            Holding holding = branch.getHolding(isbn);
+            if (holding != null) {
+                total += holding.getCopies();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Get copies held across all branches (scans every shard in parallel)
+     */
+    public long getTotalCopies() {
+        return Arrays.stream(shards).parallel().mapToLong(Branch::getTotalCopies).sum();
+    }
+
+    /**
+     * Get copies on the shelf across all branches (scans every shard in parallel)
+     */
+    public long getAvailableCopies() {
+        return Arrays.stream(shards).parallel().mapToLong(Branch::getAvailableCopies).sum();
+    }
+
+    private static Stream<Branch> fanOut(Branch[] all, int lookupsPerBranch) {
+        Stream<Branch> stream = Arrays.stream(all);
+        boolean split = (long) all.length * lookupsPerBranch >= PARALLEL_MIN_LOOKUPS
+                && ForkJoinPool.getCommonPoolParallelism() > 1;
+        return split ? stream.parallel() : stream;
+    }
+
+    private Holding holding(String branchId, String isbn) {
+        Branch branch = branches.get(branchId);
+        return branch == null ? null : branch.getHolding(isbn);
+    }
+}
@@ -0,0 +1,157 @@
+package com.library.services;
+
+import com.library.models.Hold;
+import com.library.models.HoldStatus;
+import com.library.models.PatronStatus;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * HoldQueues Class - Per-title FIFO hold queues
+ *
+ * Features:
+ * - One lock-free queue per ISBN: placing a hold never blocks, even
+ *   with thousands of patrons queuing for the same title
+ * - Copies are handed out under the book's own monitor, so titles never
+ *   contend with each other and a returned copy goes to exactly one hold
+ * - Cancelled holds are dropped lazily when they reach the head;
+ *   suspended patrons keep their place but are passed over
+ * - Min-heap of ready holds keyed on pickup deadline for the expiry sweep
+ */
+public class HoldQueues {
+    private final ConcurrentHashMap<String, Queue<Hold>> queues;
+    private final ConcurrentHashMap<String, List<Hold>> byPatron;
+    private final PriorityQueue<Hold> pickups;
+
+    public HoldQueues() {
+        this.queues = new ConcurrentHashMap<>();
+        this.byPatron = new ConcurrentHashMap<>();
+        this.pickups = new PriorityQueue<>(Comparator.comparing(Hold::getPickupDeadline));
+    }
+
+    /**
+     * Put a new hold at the back of its title's queue
+     */
+    public void enqueue(Hold hold) {
+        List<Hold> holds = byPatron.computeIfAbsent(hold.getPatronId(), id -> new ArrayList<>());
+        synchronized (holds) {
+            holds.add(hold);
+        }
+        queues.computeIfAbsent(hold.getIsbn(), isbn -> new ConcurrentLinkedQueue<>()).add(hold);
+    }
+
+    /**
+     * Take the first waiting hold whose patron may borrow (caller holds
+     * the book's monitor and marks the hold ready)
+     *
+     * @return the hold, or null if nobody eligible is waiting
+     */
+    public Hold nextEligible(String isbn) {
+        Queue<Hold> queue = queues.get(isbn);
+        if (queue == null) {
+            return null;
+        }
+        for (Iterator<Hold> it = queue.iterator(); it.hasNext(); ) {
+            Hold hold = it.next();
+            if (hold.getStatus() != HoldStatus.WAITING) {
+                it.remove();
+            } else if (hold.getPatron().getStatus() == PatronStatus.ACTIVE) {
+                it.remove();
+                return hold;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Track a ready hold until its pickup deadline
+     */
+    public void schedulePickup(Hold hold) {
+        synchronized (pickups) {
+            pickups.add(hold);
+        }
+    }
+
+    /**
+     * Remove and return every hold still ready after its pickup deadline
+     */
+    public List<Hold> pollExpired(LocalDate today) {
+        List<Hold> expired = new ArrayList<>();
+        synchronized (pickups) {
+            while (!pickups.isEmpty() && pickups.peek().getPickupDeadline().isBefore(today)) {
+                Hold hold = pickups.poll();
+                if (hold.getStatus() == HoldStatus.READY) {
+                    expired.add(hold);
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Find a patron's open (waiting or ready) hold on a title
+     */
+    public Hold find(String patronId, String isbn) {
+        List<Hold> holds = byPatron.get(patronId);
+        if (holds == null) {
+            return null;
+        }
+        synchronized (holds) {
+            for (Hold hold : holds) {
+                if (hold.getIsbn().equals(isbn) && hold.isOpen()) {
+                    return hold;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get a patron's open holds
+     */
+    public List<Hold> getHolds(String patronId) {
+        List<Hold> holds = byPatron.get(patronId);
+        if (holds == null) {
+            return Collections.emptyList();
+        }
+        synchronized (holds) {
+            return new ArrayList<>(holds);
+        }
+    }
+
+    /**
+     * Stop listing a hold under its patron once it is closed
+     */
+    public void forget(Hold hold) {
+        List<Hold> holds = byPatron.get(hold.getPatronId());
+        if (holds != null) {
+            synchronized (holds) {
+                holds.remove(hold);
+            }
+        }
+    }
+
+    /**
+     * Get number of holds waiting on a title (O(queue length))
+     */
+    public int waitingCount(String isbn) {
+        Queue<Hold> queue = queues.get(isbn);
+        int waiting = 0;
+        if (queue != null) {
+            for (Hold hold : queue) {
+                if (hold.getStatus() == HoldStatus.WAITING) {
+                    waiting++;
+                }
+            }
+        }
+        return waiting;
+    }
+}
@@ -1,85 +1,292 @@
 package com.library.services;
 
+import com.library.events.ConsoleEventSink;
+import com.library.events.EventSink;
+import com.library.events.EventType;
+import com.library.metrics.Operation;
+import com.library.metrics.Outcome;
+import com.library.metrics.ServiceMetrics;
+import com.library.models.BatchResult;
 import com.library.models.Book;
+import com.library.models.CopyState;
+import com.library.models.Hold;
+import com.library.models.HoldStatus;
+import com.library.models.LendingOutcome;
+import com.library.models.LendingRequest;
+import com.library.models.Loan;
+import com.library.models.Money;
+import com.library.models.OverdueNotice;
 import com.library.models.Patron;
+import com.library.models.PatronStatus;
+import com.library.persistence.Journal;
+import com.library.persistence.JournalRecord;
+import com.library.ledger.LedgerEvent;
+import com.library.ledger.LendingLedger;
+import com.library.snapshot.VersionClock;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * LendingService Class - Handles lending operations
- * 
+ *
  * Features:
- * - Checkout books
+ * - Checkout books (creates a Loan with its due date)
  * - Return books
- * - Fine calculation
- * - Late fee tracking
- * 
+ * - Fine calculation from the loan's actual due date
+ * - Nightly overdue sweep over a due-date ordered queue
+ * - Batch checkout/return with structured per-item outcomes
+ * - Holds: per-title FIFO queues; a returned copy goes straight to the
+ *   next eligible patron in line and waits for pickup
+ *
  * Rules:
  * - Loan period: 14 days
  * - Fine: Rs. 10 per day (overdue)
+ * - Holds can be placed only when no copy is on the shelf, and are
+ *   kept for 7 days once ready; batch checkouts take shelf copies only
+ * - Holds live in memory and are not journaled: after a restart, held
+ *   copies are back on the shelf and queues start empty
+ *
+ * Concurrency:
+ * - Each checkout/return holds only its patron's monitor, then the
+ *   book's monitor (always in that order), so desks working on
+ *   different patrons and titles never wait on each other
+ * - Copies are taken with Book.checkoutCopy(), which re-checks the count
+ *   under the book's lock, so the last copy cannot be oversold; each
+ *   loan records the copy it took, and its return shelves that copy
+ * - A patron's loans are guarded by the same patron monitor
+ * - A returned copy is offered to the hold queue under the book's
+ *   monitor, in the same critical section that puts it back, so no
+ *   walk-in checkout can take it first
+ * - With a VersionClock attached, each checkout or return (and each
+ *   batch) changes its books and patrons in one write epoch, so a
+ *   snapshot sees the whole change or none of it
+ * - With a LendingLedger attached, each checkout, return and fine is
+ *   appended under the patron's monitor, so the ledger holds every
+ *   patron's events in the order they happened
  */
 public class LendingService {
     private static final int LOAN_PERIOD_DAYS = 14;
-    private static final double FINE_PER_DAY = 10.0;
+    private static final long FINE_PER_DAY = Money.ofMajor(10);   // paise
+    private static final int HOLD_PICKUP_DAYS = 7;
+
+    private final BookService bookService;
+    private final PatronService patronService;
+    private final Map<String, List<Loan>> activeLoans;
+    private final OverdueScheduler overdue;
+    private final HoldQueues holds;
+    private Journal journal;
+    private EventSink events;
+    private ServiceMetrics metrics;
+    private VersionClock clock;
+    private LendingLedger ledger;
+
+    public LendingService() {
+        this(null, null);
+    }
+
+    /**
+     * Create a lending service that can resolve ISBNs and patron IDs
+     * (needed by the batch operations)
+     */
+    public LendingService(BookService bookService, PatronService patronService) {
+        this.bookService = bookService;
+        this.patronService = patronService;
+        this.activeLoans = new ConcurrentHashMap<>();
+        this.overdue = new OverdueScheduler();
+        this.holds = new HoldQueues();
+        this.events = new ConsoleEventSink();
+    }
+
+    /**
+     * Record checkouts, returns and fines in the given journal (null to stop)
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Report checkouts and returns to the given sink (console by default)
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Time and count calls in the given metrics (null to stop)
+     */
+    public void setMetrics(ServiceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Group each lending change into one version of the given clock
+     * (null to stop); use the same clock as the book and patron services
+     */
+    public void setVersionClock(VersionClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Record checkouts, returns and fines as events in the given ledger
+     * (null to stop)
+     */
+    public void setLedger(LendingLedger ledger) {
+        this.ledger = ledger;
+    }
 
     /**
      * Checkout a book for a patron
      */
     public boolean checkoutBook(Book book, Patron patron, LocalDate checkoutDate) {
-        if (book.getAvailableCopies() <= 0) {
-            System.out.println("✗ Book not available: " + book.getTitle());
-            return false;
+        return checkout(book, patron, checkoutDate) == LendingOutcome.CHECKED_OUT;
+    }
+
+    /**
+     * Checkout a book for a patron, saying why it was refused
+     * 
+     * @return CHECKED_OUT, NOT_AVAILABLE or PATRON_SUSPENDED
+     */
+    public LendingOutcome checkout(Book book, Patron patron, LocalDate checkoutDate) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Hold hold = holds.find(patron.getPatronId(), book.getIsbn());
+        if (book.getAvailableCopies() <= 0 && (hold == null || hold.getStatus() != HoldStatus.READY)) {
+            events.emit(EventType.CHECKOUT_UNAVAILABLE, patron.getPatronId(), book.getIsbn(), book.getTitle(),
+                    patron.getName(), 0, null);
+            if (m != null) {
+                m.record(Operation.CHECKOUT, Outcome.NOT_AVAILABLE, start);
+            }
+            return LendingOutcome.NOT_AVAILABLE;
         }
 
-        if (!"ACTIVE".equals(patron.getStatus())) {
-            System.out.println("✗ Patron account is suspended");
-            return false;
+        LendingOutcome outcome;
+        Loan loan = null;
+        int copy;
+        Journal log = journal;
+        CompletableFuture<Long> logged = null;
+        if (log != null) {
+            log.beginChange();
         }
+        try {
+            synchronized (patron) {
+                VersionClock c = beginVersion();
+                try {
+                    if (patron.getStatus() != PatronStatus.ACTIVE) {
+                        outcome = LendingOutcome.PATRON_SUSPENDED;
+                    } else if ((copy = takeCopy(book, hold)) < 0) {
+                        // Another desk took the last copy
+                        outcome = LendingOutcome.NOT_AVAILABLE;
+                    } else {
+                        loan = lend(book, patron, checkoutDate, copy);
+                        outcome = LendingOutcome.CHECKED_OUT;
 
-        // Borrow the book
-        book.borrowBook();
-        patron.addBorrowedBook(book.getIsbn());
-        patron.addToHistory(book.getIsbn());
-        
-        LocalDate dueDate = checkoutDate.plusDays(LOAN_PERIOD_DAYS);
-        System.out.println("✓ Book checked out: " + book.getTitle());
-        System.out.println("   Patron: " + patron.getName());
-        System.out.println("   Due Date: " + dueDate);
-        
-        return true;
+                        // Sequence under the patron's lock so its records replay in order
+                        if (log != null) {
+                            logged = log.appendAsync(JournalRecord.checkout(patron.getPatronId(), book.getIsbn(),
+                                    checkoutDate, copy));
+                        }
+                    }
+                } finally {
+                    endVersion(c);
+                }
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        if (logged != null) {
+            logged.join();
+        }
+
+        EventType type = outcome == LendingOutcome.CHECKED_OUT ? EventType.CHECKED_OUT
+                : outcome == LendingOutcome.PATRON_SUSPENDED ? EventType.CHECKOUT_SUSPENDED
+                : EventType.CHECKOUT_UNAVAILABLE;
+        events.emit(type, patron.getPatronId(), book.getIsbn(), book.getTitle(), patron.getName(), 0,
+                loan == null ? null : loan.getDueDate());
+        if (m != null) {
+            m.record(Operation.CHECKOUT, toMetric(outcome), start);
+        }
+        return outcome;
     }
 
     /**
      * Return a book and calculate fines if overdue
+     * 
+     * @return false if the patron had no loan of the book (never
+     *         borrowed, or returned by another request first)
      */
-    public void returnBook(Book book, Patron patron, LocalDate returnDate) {
-        if (!patron.getBorrowedBooks().contains(book.getIsbn())) {
-            System.out.println("✗ Patron has not borrowed this book");
-            return;
+    public boolean returnBook(Book book, Patron patron, LocalDate returnDate) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        long fine = 0;
+        boolean returned = false;
+        List<Hold> readied = null;
+        Journal log = journal;
+        CompletableFuture<Long> logged = null;
+        if (log != null) {
+            log.beginChange();
         }
+        try {
+            synchronized (patron) {
+                VersionClock c = beginVersion();
+                try {
+                    Loan loan = findLoan(patron.getPatronId(), book.getIsbn());
+                    if (loan != null && patron.hasBorrowed(book.getIsbn())) {
+                        fine = settle(loan, returnDate);
+                        readied = restock(book, loan.getCopy(), returnDate, null);
+                        returned = true;
 
-        // Calculate fine if overdue
-        LocalDate dueDate = LocalDate.now().minusDays(LOAN_PERIOD_DAYS);
-        double fine = calculateFine(returnDate);
-        
-        if (fine > 0) {
-            patron.addFine(fine);
-            System.out.println("⚠ Fine added: Rs. " + fine);
+                        if (log != null) {
+                            logged = log.appendAsync(JournalRecord.returned(patron.getPatronId(), book.getIsbn(), returnDate,
+                                    loan.getCopy()));
+                            if (fine > 0) {
+                                logged = log.appendAsync(JournalRecord.fine(patron.getPatronId(), fine));
+                            }
+                        }
+                    }
+                } finally {
+                    endVersion(c);
+                }
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        if (logged != null) {
+            logged.join();
         }
 
-        // Return the book
-        book.returnBook();
-        patron.removeBorrowedBook(book.getIsbn());
-        System.out.println("✓ Book returned: " + book.getTitle());
-        System.out.println("   By: " + patron.getName());
+        events.emit(returned ? EventType.RETURNED : EventType.RETURN_NOT_BORROWED, patron.getPatronId(),
+                book.getIsbn(), book.getTitle(), patron.getName(), fine, returnDate);
+        announce(readied);
+        if (m != null) {
+            m.record(Operation.RETURN, returned ? Outcome.OK : Outcome.NOT_BORROWED, start);
+        }
+        return returned;
     }
 
     /**
-     * Calculate fine based on return date
+     * Calculate fine (in paise) for returning on returnDate a book due on dueDate
      */
-    public double calculateFine(LocalDate returnDate) {
-        LocalDate dueDate = LocalDate.now().minusDays(LOAN_PERIOD_DAYS);
-        
+    public long calculateFine(LocalDate dueDate, LocalDate returnDate) {
         if (returnDate.isAfter(dueDate)) {
             long daysOverdue = ChronoUnit.DAYS.between(dueDate, returnDate);
             return daysOverdue * FINE_PER_DAY;
@@ -87,6 +294,915 @@ public class LendingService {
         return 0;
     }
 
+    // ===== LOANS =====
+
+    /**
+     * Find a patron's active loan of a book
+     */
+    public Loan findLoan(String patronId, String isbn) {
+        List<Loan> loans = activeLoans.get(patronId);
+        if (loans == null) {
+            return null;
+        }
+        synchronized (loans) {
+            for (Loan loan : loans) {
+                if (loan.getIsbn().equals(isbn)) {
+                    return loan;
+                }
+            }
+        }
+        return null;
+    }
+
+    // The patron's loan of one particular copy
+    private Loan findLoan(String patronId, String isbn, int copy) {
+        List<Loan> loans = activeLoans.get(patronId);
+        if (loans == null) {
+            return null;
+        }
+        synchronized (loans) {
+            for (Loan loan : loans) {
+                if (loan.getCopy() == copy && loan.getIsbn().equals(isbn)) {
+                    return loan;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get a patron's active loans
+     */
+    public List<Loan> getActiveLoans(String patronId) {
+        List<Loan> loans = activeLoans.get(patronId);
+        if (loans == null) {
+            return Collections.emptyList();
+        }
+        synchronized (loans) {
+            return new ArrayList<>(loans);
+        }
+    }
+
+    /**
+     * Get every active loan
+     */
+    public List<Loan> getAllActiveLoans() {
+        List<Loan> result = new ArrayList<>();
+        for (List<Loan> loans : activeLoans.values()) {
+            synchronized (loans) {
+                result.addAll(loans);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stream every active loan; only one patron's loans are copied at a time
+     */
+    public Stream<Loan> streamActiveLoans() {
+        return activeLoans.values().stream().flatMap(loans -> {
+            synchronized (loans) {
+                return new ArrayList<>(loans).stream();
+            }
+        });
+    }
+
+    /**
+     * Find titles whose copies disagree with the loans: counts that no
+     * longer match the copies' states, a different number of copies on
+     * loan than active loans, or a loan whose copy is not on loan or is
+     * shared with another loan, or a loan that does not know its copy
+     * 
+     * Run while lending is quiet; a checkout in progress looks like drift.
+     * 
+     * @return ISBNs with drift
+     */
+    public List<String> findCopyDrift() {
+        if (bookService == null) {
+            throw new IllegalStateException("Copy audit needs a LendingService created with its book service");
+        }
+        Map<Book, int[]> loansPerBook = new IdentityHashMap<>();
+        Map<Book, BitSet> copiesLent = new IdentityHashMap<>();
+        Set<String> drift = new LinkedHashSet<>();
+        streamActiveLoans().forEach(loan -> {
+            Book book = loan.getBook();
+            loansPerBook.computeIfAbsent(book, b -> new int[1])[0]++;
+            int copy = loan.getCopy();
+            BitSet lent = copiesLent.computeIfAbsent(book, b -> new BitSet());
+            if (copy < 0 || copy >= book.getTotalCopies() || book.getCopyState(copy) != CopyState.ON_LOAN
+                    || lent.get(copy)) {
+                drift.add(book.getIsbn());
+            } else {
+                lent.set(copy);
+            }
+        });
+        // Mapped records not in memory have never been lent
+        for (Book book : bookService.getResidentBooks()) {
+            int[] loans = loansPerBook.get(book);
+            if (!book.copiesMatch() || book.getCopiesOnLoan() != (loans == null ? 0 : loans[0])) {
+                drift.add(book.getIsbn());
+            }
+        }
+        return new ArrayList<>(drift);
+    }
+
+    /**
+     * Nightly overdue sweep: fine and notify every loan that fell due
+     * before today and has not been swept yet
+     *
+     * Only expired loans are touched; each one is charged for the days it
+     * is overdue so far, and the rest is charged on return. Notices are
+     * handed to the sink in batches of batchSize.
+     *
+     * @return number of notices issued
+     */
+    public int runOverdueSweep(LocalDate today, int batchSize, Consumer<List<OverdueNotice>> sink) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        int issued = 0;
+        while (true) {
+            List<Loan> expired = overdue.pollExpired(today, batchSize);
+            if (expired.isEmpty()) {
+                if (m != null) {
+                    m.record(Operation.OVERDUE_SWEEP, Outcome.OK, start);
+                }
+                return issued;
+            }
+            List<OverdueNotice> batch = new ArrayList<>(expired.size());
+            for (Loan loan : expired) {
+                OverdueNotice notice = chargeOverdue(loan, today);
+                if (notice != null) {
+                    batch.add(notice);
+                }
+            }
+            if (!batch.isEmpty()) {
+                sink.accept(batch);
+                issued += batch.size();
+            }
+        }
+    }
+
+    private OverdueNotice chargeOverdue(Loan loan, LocalDate today) {
+        Patron patron = loan.getPatron();
+        Journal log = journal;
+        CompletableFuture<Long> logged = null;
+        OverdueNotice notice;
+        if (log != null) {
+            log.beginChange();
+        }
+        try {
+            synchronized (patron) {
+                if (!loan.isActive()) {
+                    return null;
+                }
+                long fine = calculateFine(loan.getFinedThrough(), today);
+                if (fine > 0) {
+                    patron.addFine(fine);
+                    record(LedgerEvent.Type.FINE, loan.getPatronId(), loan.getIsbn(), today, fine);
+                }
+                loan.setFinedThrough(today);
+                loan.markNoticeSent();
+                notice = new OverdueNotice(loan, today, fine);
+                if (log != null) {
+                    logged = log.appendAsync(JournalRecord.overdue(patron.getPatronId(), loan.getIsbn(), today, fine));
+                }
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        if (logged != null) {
+            logged.join();
+        }
+        return notice;
+    }
+
+    // ===== HOLDS =====
+
+    /**
+     * Join the queue for a title that has no copy on the shelf
+     * 
+     * @return the hold, or null if a copy is available, the patron is
+     *         suspended, or already holds or has borrowed the title
+     */
+    public Hold placeHold(Book book, Patron patron, LocalDate placedDate) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Hold hold = null;
+        boolean active;
+        synchronized (patron) {
+            active = patron.getStatus() == PatronStatus.ACTIVE;
+            if (active && book.getAvailableCopies() <= 0 && !patron.hasBorrowed(book.getIsbn())
+                    && holds.find(patron.getPatronId(), book.getIsbn()) == null) {
+                hold = new Hold(book, patron, placedDate);
+                holds.enqueue(hold);
+            }
+        }
+        List<Hold> readied = null;
+        if (hold != null && book.getAvailableCopies() > 0) {
+            // A copy came back while the hold was being queued
+            synchronized (book) {
+                readied = allocate(book, placedDate, null);
+            }
+        }
+        events.emit(hold != null ? EventType.HOLD_PLACED : EventType.HOLD_REJECTED, patron.getPatronId(),
+                book.getIsbn(), book.getTitle(), patron.getName(), 0, placedDate);
+        announce(readied);
+        if (m != null) {
+            m.record(Operation.PLACE_HOLD, hold != null ? Outcome.OK
+                    : active ? Outcome.REJECTED : Outcome.PATRON_SUSPENDED, start);
+        }
+        return hold;
+    }
+
+    /**
+     * Withdraw a patron's open hold on a title; a copy already set aside
+     * goes to the next patron in line
+     * 
+     * @return true if there was an open hold
+     */
+    public boolean cancelHold(Book book, Patron patron, LocalDate date) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        boolean cancelled = false;
+        List<Hold> readied = null;
+        synchronized (patron) {
+            Hold hold = holds.find(patron.getPatronId(), book.getIsbn());
+            if (hold != null) {
+                synchronized (book) {
+                    HoldStatus before = hold.getStatus();
+                    if (hold.isOpen()) {
+                        hold.markCancelled();
+                        cancelled = true;
+                        if (before == HoldStatus.READY) {
+                            book.releaseHeldCopy();
+                            readied = allocate(book, date, null);
+                        }
+                    }
+                }
+                holds.forget(hold);
+            }
+        }
+        if (cancelled) {
+            events.emit(EventType.HOLD_CANCELLED, patron.getPatronId(), book.getIsbn(), book.getTitle(),
+                    patron.getName(), 0, date);
+        }
+        announce(readied);
+        if (m != null) {
+            m.record(Operation.CANCEL_HOLD, cancelled ? Outcome.OK : Outcome.NOT_FOUND, start);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Expire ready holds not collected by their pickup deadline and pass
+     * each copy on to the next patron in line
+     * 
+     * @return the holds that expired
+     */
+    public List<Hold> expireHolds(LocalDate today) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        List<Hold> expired = new ArrayList<>();
+        List<Hold> readied = null;
+        for (Hold hold : holds.pollExpired(today)) {
+            Book book = hold.getBook();
+            synchronized (hold.getPatron()) {
+                synchronized (book) {
+                    if (hold.getStatus() == HoldStatus.READY) {
+                        hold.markExpired();
+                        book.releaseHeldCopy();
+                        readied = allocate(book, today, readied);
+                        expired.add(hold);
+                    }
+                }
+                holds.forget(hold);
+            }
+        }
+        for (Hold hold : expired) {
+            events.emit(EventType.HOLD_EXPIRED, hold.getPatronId(), hold.getIsbn(), hold.getBook().getTitle(),
+                    hold.getPatron().getName(), 0, hold.getPickupDeadline());
+        }
+        announce(readied);
+        if (m != null) {
+            m.record(Operation.HOLD_EXPIRY_SWEEP, Outcome.OK, start);
+        }
+        return expired;
+    }
+
+    /**
+     * Find a patron's open (waiting or ready) hold on a title
+     */
+    public Hold findHold(String patronId, String isbn) {
+        return holds.find(patronId, isbn);
+    }
+
+    /**
+     * Get a patron's open holds
+     */
+    public List<Hold> getHolds(String patronId) {
+        return holds.getHolds(patronId);
+    }
+
+    /**
+     * Get number of patrons waiting for a title
+     */
+    public int getHoldQueueLength(String isbn) {
+        return holds.waitingCount(isbn);
+    }
+
+    /**
+     * Put a returned copy back and hand it straight to the next eligible
+     * hold, in one critical section on the book
+     * 
+     * @param copy the copy the loan took (-1 if not known)
+     * @return readied with any holds made ready added (created if needed)
+     */
+    private List<Hold> restock(Book book, int copy, LocalDate date, List<Hold> readied) {
+        synchronized (book) {
+            book.returnCopy(copy);
+            return allocate(book, date, readied);
+        }
+    }
+
+    // Caller holds the book's monitor: set shelf copies aside for waiting holds
+    private List<Hold> allocate(Book book, LocalDate date, List<Hold> readied) {
+        while (book.getAvailableCopies() > 0) {
+            Hold hold = holds.nextEligible(book.getIsbn());
+            if (hold == null) {
+                break;
+            }
+            book.holdCopy();
+            hold.markReady(date, date.plusDays(HOLD_PICKUP_DAYS));
+            holds.schedulePickup(hold);
+            if (readied == null) {
+                readied = new ArrayList<>(1);
+            }
+            readied.add(hold);
+        }
+        return readied;
+    }
+
+    /**
+     * Take the copy set aside for the patron's ready hold, or else a shelf
+     * copy; a hold still waiting is closed once the patron has a copy
+     * (caller holds the patron's monitor)
+     * 
+     * @return the copy number, or -1 if no copy could be taken
+     */
+    private int takeCopy(Book book, Hold hold) {
+        if (hold == null) {
+            return book.checkoutCopy();
+        }
+        int copy;
+        synchronized (book) {
+            if (hold.getStatus() == HoldStatus.READY) {
+                copy = book.collectHeldCopy();
+                if (copy < 0) {
+                    return -1;
+                }
+                hold.markCollected();
+            } else if ((copy = book.checkoutCopy()) < 0) {
+                return -1;
+            } else if (hold.getStatus() == HoldStatus.WAITING) {
+                hold.markCancelled();
+            }
+        }
+        holds.forget(hold);
+        return copy;
+    }
+
+    private void announce(List<Hold> readied) {
+        if (readied != null) {
+            for (Hold hold : readied) {
+                events.emit(EventType.HOLD_READY, hold.getPatronId(), hold.getIsbn(), hold.getBook().getTitle(),
+                        hold.getPatron().getName(), 0, hold.getPickupDeadline());
+            }
+        }
+    }
+
+    // ===== BATCH =====
+
+    /**
+     * Check out several books for one patron
+     * 
+     * @param atomic true to lend all or nothing, false to lend what can be lent
+     */
+    public BatchResult checkoutBatch(String patronId, List<String> isbns, LocalDate checkoutDate, boolean atomic) {
+        return checkoutBatch(requestsFor(patronId, isbns), checkoutDate, atomic);
+    }
+
+    /**
+     * Check out a list of (patron, book) pairs
+     * 
+     * Books and patrons are resolved once up front, each patron's status
+     * is checked once, and every patron's items are applied under a
+     * single acquisition of its lock. Journal records are queued as the
+     * items are applied and waited on once at the end. No events are
+     * emitted for the items; holds made ready by copies coming back are
+     * still announced. An item the patron has a ready hold on takes the
+     * copy set aside for it, as a single checkout does.
+     * 
+     * @param atomic true to lend all or nothing, false to lend what can be lent
+     */
+    public BatchResult checkoutBatch(List<LendingRequest> requests, LocalDate checkoutDate, boolean atomic) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Batch batch = resolve(requests, true);
+        Journal log = journal;
+        if (log != null) {
+            log.beginChange();
+        }
+        try {
+            if (atomic) {
+                lockAll(batch.sortedPatrons(), 0, clock, () -> {
+                    for (Map.Entry<Patron, List<Integer>> group : batch.groups.entrySet()) {
+                        takeCopies(batch, group.getKey(), group.getValue());
+                    }
+                    if (batch.failed) {
+                        // Taken shelf copies go back; a hold queued while they
+                        // were out is served like after any return
+                        for (int i = 0; i < batch.copies.length; i++) {
+                            if (batch.copies[i] >= 0) {
+                                batch.readied = restock(batch.books[i], batch.copies[i], checkoutDate, batch.readied);
+                            }
+                        }
+                        batch.rollBack();
+                    } else {
+                        for (Map.Entry<Patron, List<Integer>> group : batch.groups.entrySet()) {
+                            lendAll(batch, group.getKey(), group.getValue(), checkoutDate, log);
+                        }
+                    }
+                });
+            } else {
+                for (Map.Entry<Patron, List<Integer>> group : batch.groups.entrySet()) {
+                    Patron patron = group.getKey();
+                    synchronized (patron) {
+                        VersionClock c = beginVersion();
+                        try {
+                            takeCopies(batch, patron, group.getValue());
+                            lendAll(batch, patron, group.getValue(), checkoutDate, log);
+                        } finally {
+                            endVersion(c);
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        BatchResult result = batch.finish(atomic);
+        announce(batch.readied);
+        if (m != null) {
+            m.record(Operation.CHECKOUT_BATCH, toMetric(result), start);
+        }
+        return result;
+    }
+
+    /**
+     * Return several books from one patron
+     * 
+     * @param atomic true to return all or nothing, false to return what can be returned
+     */
+    public BatchResult returnBatch(String patronId, List<String> isbns, LocalDate returnDate, boolean atomic) {
+        return returnBatch(requestsFor(patronId, isbns), returnDate, atomic);
+    }
+
+    /**
+     * Return a list of (patron, book) pairs; see checkoutBatch for how
+     * the batch is applied
+     * 
+     * @param atomic true to return all or nothing, false to return what can be returned
+     */
+    public BatchResult returnBatch(List<LendingRequest> requests, LocalDate returnDate, boolean atomic) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Batch batch = resolve(requests, false);
+        Journal log = journal;
+        if (log != null) {
+            log.beginChange();
+        }
+        try {
+            if (atomic) {
+                lockAll(batch.sortedPatrons(), 0, clock, () -> {
+                    for (Map.Entry<Patron, List<Integer>> group : batch.groups.entrySet()) {
+                        claimLoans(batch, group.getKey(), group.getValue());
+                    }
+                    if (batch.failed) {
+                        batch.rollBack();
+                    } else {
+                        for (Map.Entry<Patron, List<Integer>> group : batch.groups.entrySet()) {
+                            settleAll(batch, group.getValue(), returnDate, log);
+                        }
+                    }
+                });
+            } else {
+                for (Map.Entry<Patron, List<Integer>> group : batch.groups.entrySet()) {
+                    Patron patron = group.getKey();
+                    synchronized (patron) {
+                        VersionClock c = beginVersion();
+                        try {
+                            claimLoans(batch, patron, group.getValue());
+                            settleAll(batch, group.getValue(), returnDate, log);
+                        } finally {
+                            endVersion(c);
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        BatchResult result = batch.finish(atomic);
+        announce(batch.readied);
+        if (m != null) {
+            m.record(Operation.RETURN_BATCH, toMetric(result), start);
+        }
+        return result;
+    }
+
+    private static Outcome toMetric(LendingOutcome outcome) {
+        switch (outcome) {
+            case CHECKED_OUT:
+            case RETURNED:
+                return Outcome.OK;
+            case NOT_AVAILABLE:
+                return Outcome.NOT_AVAILABLE;
+            case PATRON_SUSPENDED:
+                return Outcome.PATRON_SUSPENDED;
+            case NOT_BORROWED:
+                return Outcome.NOT_BORROWED;
+            case PATRON_NOT_FOUND:
+            case BOOK_NOT_FOUND:
+                return Outcome.NOT_FOUND;
+            default:
+                return Outcome.REJECTED;
+        }
+    }
+
+    private static Outcome toMetric(BatchResult result) {
+        if (result.isAllSucceeded()) {
+            return Outcome.OK;
+        }
+        return result.isAtomic() ? Outcome.REJECTED : Outcome.PARTIAL;
+    }
+
+    private static List<LendingRequest> requestsFor(String patronId, List<String> isbns) {
+        List<LendingRequest> requests = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            requests.add(new LendingRequest(patronId, isbn));
+        }
+        return requests;
+    }
+
+    /**
+     * Look up every patron (once per ID) and, for checkouts, every book,
+     * and group the request indexes by patron
+     */
+    private Batch resolve(List<LendingRequest> requests, boolean resolveBooks) {
+        if (bookService == null || patronService == null) {
+            throw new IllegalStateException("Batch lending needs a LendingService created with its book and patron services");
+        }
+        Batch batch = new Batch(requests);
+        Map<String, Patron> patrons = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            LendingRequest r = requests.get(i);
+            Patron patron = patrons.computeIfAbsent(r.getPatronId(), patronService::findPatron);
+            if (patron == null) {
+                batch.fail(i, LendingOutcome.PATRON_NOT_FOUND);
+                continue;
+            }
+            if (resolveBooks) {
+                batch.books[i] = bookService.searchByIsbn(r.getIsbn());
+                if (batch.books[i] == null) {
+                    batch.fail(i, LendingOutcome.BOOK_NOT_FOUND);
+                    continue;
+                }
+            }
+            batch.groups.computeIfAbsent(patron, p -> new ArrayList<>()).add(i);
+        }
+        return batch;
+    }
+
+    // Caller holds the patron's monitor: take one copy per item, or note
+    // the patron's ready hold, whose copy is collected only when lent (so
+    // a rolled-back batch leaves the hold as it was)
+    private void takeCopies(Batch batch, Patron patron, List<Integer> items) {
+        boolean active = patron.getStatus() == PatronStatus.ACTIVE;
+        for (int i : items) {
+            Hold hold = active ? holds.find(patron.getPatronId(), batch.books[i].getIsbn()) : null;
+            if (!active) {
+                batch.fail(i, LendingOutcome.PATRON_SUSPENDED);
+            } else if (hold != null && hold.getStatus() == HoldStatus.READY && !batch.claimed.containsKey(hold)) {
+                batch.holds[i] = hold;
+                batch.claimed.put(hold, Boolean.TRUE);
+            } else if ((batch.copies[i] = batch.books[i].checkoutCopy()) < 0) {
+                batch.fail(i, LendingOutcome.NOT_AVAILABLE);
+            }
+        }
+    }
+
+    // Caller holds the patron's monitor: turn taken copies into loans
+    private void lendAll(Batch batch, Patron patron, List<Integer> items, LocalDate checkoutDate, Journal log) {
+        for (int i : items) {
+            if (batch.holds[i] != null) {
+                // Expiry and cancellation need this patron's monitor, so the hold is still ready
+                batch.copies[i] = takeCopy(batch.books[i], batch.holds[i]);
+                if (batch.copies[i] < 0) {
+                    batch.fail(i, LendingOutcome.NOT_AVAILABLE);
+                }
+            }
+            if (batch.copies[i] >= 0) {
+                Book book = batch.books[i];
+                Loan loan = lend(book, patron, checkoutDate, batch.copies[i]);
+                batch.succeed(i, LendingOutcome.CHECKED_OUT, loan.getDueDate(), 0);
+                if (log != null) {
+                    batch.logged = log.appendAsync(JournalRecord.checkout(patron.getPatronId(), book.getIsbn(), checkoutDate,
+                            batch.copies[i]));
+                }
+            }
+        }
+    }
+
+    // Caller holds the patron's monitor: pick a distinct active loan per item
+    private void claimLoans(Batch batch, Patron patron, List<Integer> items) {
+        List<Loan> loans = getActiveLoans(patron.getPatronId());
+        for (int i : items) {
+            String isbn = batch.requests.get(i).getIsbn();
+            for (Loan loan : loans) {
+                if (loan.getIsbn().equals(isbn) && !batch.claimed.containsKey(loan)) {
+                    batch.loans[i] = loan;
+                    batch.claimed.put(loan, Boolean.TRUE);
+                    break;
+                }
+            }
+            if (batch.loans[i] == null) {
+                batch.fail(i, LendingOutcome.NOT_BORROWED);
+            }
+        }
+    }
+
+    // Caller holds the patron's monitor: close the claimed loans
+    private void settleAll(Batch batch, List<Integer> items, LocalDate returnDate, Journal log) {
+        for (int i : items) {
+            Loan loan = batch.loans[i];
+            if (loan != null) {
+                long fine = settle(loan, returnDate);
+                batch.readied = restock(loan.getBook(), loan.getCopy(), returnDate, batch.readied);
+                batch.succeed(i, LendingOutcome.RETURNED, null, fine);
+                if (log != null) {
+                    batch.logged = log.appendAsync(JournalRecord.returned(loan.getPatronId(), loan.getIsbn(), returnDate,
+                            loan.getCopy()));
+                    if (fine > 0) {
+                        batch.logged = log.appendAsync(JournalRecord.fine(loan.getPatronId(), fine));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Run body holding every patron's monitor, taken in ID order so two
+     * atomic batches cannot deadlock, in one version of the clock
+     */
+    private static void lockAll(List<Patron> patrons, int from, VersionClock clock, Runnable body) {
+        if (from == patrons.size()) {
+            if (clock != null) {
+                clock.enter();
+            }
+            try {
+                body.run();
+            } finally {
+                endVersion(clock);
+            }
+            return;
+        }
+        synchronized (patrons.get(from)) {
+            lockAll(patrons, from + 1, clock, body);
+        }
+    }
+
+    // Caller holds the patron's monitor: start one version for a change
+    // spanning several books and patrons
+    private VersionClock beginVersion() {
+        VersionClock c = clock;
+        if (c != null) {
+            c.enter();
+        }
+        return c;
+    }
+
+    private static void endVersion(VersionClock c) {
+        if (c != null) {
+            c.exit();
+        }
+    }
+
+    /**
+     * Working state of one batch
+     */
+    private static class Batch {
+        final List<LendingRequest> requests;
+        final Map<Patron, List<Integer>> groups = new LinkedHashMap<>();
+        final Book[] books;
+        final int[] copies;         // copy taken per item, -1 if none
+        final Hold[] holds;         // patron's ready hold to collect per item
+        final Loan[] loans;
+        final Map<Object, Boolean> claimed = new IdentityHashMap<>();     // loans and holds taken by an item
+        final LendingOutcome[] outcomes;
+        final LocalDate[] dueDates;
+        final long[] fines;
+        boolean failed;
+        CompletableFuture<Long> logged;
+        List<Hold> readied;
+
+        Batch(List<LendingRequest> requests) {
+            int n = requests.size();
+            this.requests = requests;
+            this.books = new Book[n];
+            this.copies = new int[n];
+            Arrays.fill(copies, -1);
+            this.holds = new Hold[n];
+            this.loans = new Loan[n];
+            this.outcomes = new LendingOutcome[n];
+            this.dueDates = new LocalDate[n];
+            this.fines = new long[n];
+        }
+
+        void fail(int i, LendingOutcome outcome) {
+            outcomes[i] = outcome;
+            failed = true;
+        }
+
+        void succeed(int i, LendingOutcome outcome, LocalDate dueDate, long fine) {
+            outcomes[i] = outcome;
+            dueDates[i] = dueDate;
+            fines[i] = fine;
+        }
+
+        List<Patron> sortedPatrons() {
+            List<Patron> patrons = new ArrayList<>(groups.keySet());
+            patrons.sort(Comparator.comparing(Patron::getPatronId));
+            return patrons;
+        }
+
+        // Mark the untouched items of an atomic batch that had a failure
+        // (taken copies have already been put back)
+        void rollBack() {
+            for (int i = 0; i < outcomes.length; i++) {
+                if (outcomes[i] == null) {
+                    outcomes[i] = LendingOutcome.ROLLED_BACK;
+                }
+            }
+        }
+
+        // Wait for the journal (outside all locks) and build the report
+        BatchResult finish(boolean atomic) {
+            if (logged != null) {
+                logged.join();
+            }
+            List<BatchResult.Item> items = new ArrayList<>(outcomes.length);
+            for (int i = 0; i < outcomes.length; i++) {
+                LendingRequest r = requests.get(i);
+                items.add(new BatchResult.Item(r.getPatronId(), r.getIsbn(), outcomes[i], dueDates[i], fines[i]));
+            }
+            return new BatchResult(items, atomic);
+        }
+    }
+
+    // ===== RECOVERY =====
+
+    /**
+     * Re-apply a logged checkout without checks or console output
+     * (used by recovery; book may be null if it was removed since, and
+     * copy -1 if the record did not say)
+     * 
+     * The loan keeps its copy number; the copy itself is put on loan
+     * when the book's inventory is synced after replay.
+     */
+    public void restoreCheckout(Book book, Patron patron, String isbn, LocalDate checkoutDate, int copy) {
+        synchronized (patron) {
+            if (book != null) {
+                book.adjustAvailableCopies(-1);
+                openLoan(book, patron, checkoutDate, copy);
+            }
+            patron.addBorrowedBook(isbn);
+            patron.addToHistory(isbn);
+        }
+    }
+
+    /**
+     * Re-apply a logged return without checks or console output
+     * (used by recovery; copy -1 closes any loan of the title)
+     */
+    public void restoreReturn(Book book, Patron patron, String isbn, LocalDate returnDate, int copy) {
+        synchronized (patron) {
+            if (book != null) {
+                book.adjustAvailableCopies(1);
+            }
+            patron.removeBorrowedBook(isbn);
+            Loan loan = copy < 0 ? null : findLoan(patron.getPatronId(), isbn, copy);
+            if (loan == null) {
+                loan = findLoan(patron.getPatronId(), isbn);
+            }
+            if (loan != null) {
+                closeLoan(loan, returnDate);
+            }
+        }
+    }
+
+    /**
+     * Re-apply a logged overdue charge (used by recovery)
+     */
+    public void restoreOverdue(Patron patron, String isbn, LocalDate sweepDate, long fine) {
+        synchronized (patron) {
+            patron.addFine(fine);
+            Loan loan = findLoan(patron.getPatronId(), isbn);
+            if (loan != null) {
+                loan.setFinedThrough(sweepDate);
+                loan.markNoticeSent();
+            }
+        }
+    }
+
+    /**
+     * Track an existing loan from a snapshot; book and patron state
+     * already reflect it (used by recovery)
+     */
+    public void loadLoan(Loan loan) {
+        List<Loan> loans = activeLoans.computeIfAbsent(loan.getPatronId(), id -> new ArrayList<>());
+        synchronized (loans) {
+            loans.add(loan);
+        }
+        if (!loan.isNoticeSent()) {
+            overdue.schedule(loan);
+        }
+    }
+
+    // Caller holds the patron's monitor and has taken the given copy of the book
+    private Loan lend(Book book, Patron patron, LocalDate checkoutDate, int copy) {
+        patron.addBorrowedBook(book.getIsbn());
+        patron.addToHistory(book.getIsbn());
+        record(LedgerEvent.Type.CHECKOUT, patron.getPatronId(), book.getIsbn(), checkoutDate, 0);
+        return openLoan(book, patron, checkoutDate, copy);
+    }
+
+    /**
+     * Close a loan and charge overdue days not already fined by a sweep;
+     * the caller puts the copy back with restock() (caller holds the
+     * patron's monitor)
+     * 
+     * @return the fine charged (paise)
+     */
+    private long settle(Loan loan, LocalDate returnDate) {
+        Patron patron = loan.getPatron();
+        patron.removeBorrowedBook(loan.getIsbn());
+        long fine = calculateFine(loan.getFinedThrough(), returnDate);
+        record(LedgerEvent.Type.RETURN, loan.getPatronId(), loan.getIsbn(), returnDate, 0);
+        if (fine > 0) {
+            patron.addFine(fine);
+            record(LedgerEvent.Type.FINE, loan.getPatronId(), loan.getIsbn(), returnDate, fine);
+        }
+        closeLoan(loan, returnDate);
+        return fine;
+    }
+
+    // Caller holds the patron's monitor, so one patron's events stay in order
+    private void record(LedgerEvent.Type type, String patronId, String isbn, LocalDate date, long amount) {
+        LendingLedger l = ledger;
+        if (l != null) {
+            l.append(type, patronId, isbn, date, amount);
+        }
+    }
+
+    // Caller holds the patron's monitor
+    private Loan openLoan(Book book, Patron patron, LocalDate checkoutDate, int copy) {
+        Loan loan = new Loan(book, patron, checkoutDate, checkoutDate.plusDays(LOAN_PERIOD_DAYS), copy);
+        List<Loan> loans = activeLoans.computeIfAbsent(patron.getPatronId(), id -> new ArrayList<>());
+        synchronized (loans) {
+            loans.add(loan);
+        }
+        overdue.schedule(loan);
+        return loan;
+    }
+
+    // Caller holds the patron's monitor
+    private void closeLoan(Loan loan, LocalDate returnDate) {
+        loan.markReturned(returnDate);
+        overdue.release(loan);
+        List<Loan> loans = activeLoans.get(loan.getPatronId());
+        if (loans != null) {
+            synchronized (loans) {
+                loans.remove(loan);
+            }
+        }
+    }
+
     /**
      * Get loan period
      */
@@ -95,9 +1211,16 @@ public class LendingService {
     }
 
     /**
-     * Get fine per day
+     * Get number of days a ready hold is kept for pickup
+     */
+    public int getHoldPickupDays() {
+        return HOLD_PICKUP_DAYS;
+    }
+
+    /**
+     * Get fine per day in paise
      */
-    public double getFinePerDay() {
+    public long getFinePerDay() {
         return FINE_PER_DAY;
     }
 }
@@ -0,0 +1,85 @@
+package com.library.services;
+
+import com.library.models.Loan;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * OverdueScheduler Class - Loans ordered by due date
+ * 
+ * Features:
+ * - Min-heap keyed on due date: the next loan to expire is always on top
+ * - Polling expired loans costs O(k log n) for k expirations; loans that
+ *   are not yet due are never touched
+ * - Returned loans are dropped lazily when they reach the top, and the
+ *   heap is compacted once they make up half of it, so loans that are
+ *   returned on time do not pile up between sweeps
+ * - Loans already polled off the heap are remembered until they are
+ *   returned, so their returns do not count towards compaction
+ */
+public class OverdueScheduler {
+    private static final int MIN_COMPACT_SIZE = 64;
+
+    private final PriorityQueue<Loan> queue;
+    private final Set<Loan> polled;     // active loans polled off the heap
+    private int released;     // returned loans still in the heap
+
+    public OverdueScheduler() {
+        this.queue = new PriorityQueue<>(Comparator.comparing(Loan::getDueDate));
+        this.polled = new HashSet<>();
+    }
+
+    /**
+     * Track a new loan
+     */
+    public synchronized void schedule(Loan loan) {
+        queue.add(loan);
+    }
+
+    /**
+     * Remove and return up to max active loans due before the given date
+     * that have not had a notice yet
+     */
+    public synchronized List<Loan> pollExpired(LocalDate today, int max) {
+        List<Loan> expired = new ArrayList<>();
+        while (expired.size() < max && !queue.isEmpty() && queue.peek().getDueDate().isBefore(today)) {
+            Loan loan = queue.poll();
+            if (!loan.isActive()) {
+                released = Math.max(0, released - 1);
+                continue;
+            }
+            polled.add(loan);
+            if (!loan.isNoticeSent()) {
+                expired.add(loan);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Note that a tracked loan was returned; compacts the heap when
+     * returned loans outnumber active ones (amortized O(1))
+     */
+    public synchronized void release(Loan loan) {
+        if (polled.remove(loan)) {
+            return;
+        }
+        released++;
+        if (queue.size() >= MIN_COMPACT_SIZE && released * 2 > queue.size()) {
+            queue.removeIf(l -> !l.isActive());
+            released = 0;
+        }
+    }
+
+    /**
+     * Get number of tracked loans (including returned ones not yet dropped)
+     */
+    public synchronized int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,456 @@
+package com.library.services;
+
+import com.library.models.Patron;
+import com.library.models.PatronStatus;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * PatronRegistry Class - Patron IDs mapped to dense int handles
+ *
+ * Features:
+ * - Open-addressing hash table (linear probing) of int handles: no
+ *   entry object per patron; each slot packs the ID's hash with its
+ *   handle, so a probe reads one long[] and touches a Patron only when
+ *   the hash matches
+ * - Hot fields (status, outstanding fine, books on loan) kept in
+ *   primitive columns by handle, so a scan over millions of patrons
+ *   reads a few arrays and builds Patron results only for the matches
+ * - Columns are chunked and never move, so growing the registry never
+ *   races with a column update
+ * - Handles of removed patrons are reused; iteration is in handle order
+ *   (registration order until patrons are removed)
+ *
+ * Lookups and scans take no lock. Adding and removing are serialized;
+ * a lookup racing with the add or remove of the same ID may miss it.
+ * Slots, patron references and patron chunks are stored with release
+ * and read with acquire semantics, so a reader that finds a handle also
+ * sees the patron and columns filled in before it was published.
+ * Columns are written by the patron's observer under the patron's
+ * monitor and read without locks, so a scan may see a change a moment
+ * late.
+ */
+public class PatronRegistry {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final long FREE = 0;             // slots hold hash << 32 | handle + 1
+    private static final long REMOVED = 0xFFFFFFFFL;
+    private static final byte UNUSED = -1;          // status of a free handle
+    private static final PatronStatus[] STATUSES = PatronStatus.values();
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle PATRONS = MethodHandles.arrayElementVarHandle(Patron[].class);
+    private static final VarHandle CHUNKS = MethodHandles.arrayElementVarHandle(Patron[][].class);
+
+    private volatile Table table;
+    private int size;
+    private int usedSlots;                          // live + removed
+    private int nextHandle;
+    private int[] freeHandles;
+    private int freeCount;
+
+    public PatronRegistry() {
+        this.table = new Table(new long[64], new Patron[4][], new byte[4][], new long[4][], new int[4][]);
+        this.freeHandles = new int[16];
+    }
+
+    // ===== LOOKUP =====
+
+    /**
+     * Get the patron registered under an ID, or null
+     */
+    public Patron get(String patronId) {
+        Table t = table;
+        int handle = find(t, patronId);
+        return handle < 0 ? null : t.patron(handle);
+    }
+
+    /**
+     * Get the handle of a registered ID, or -1
+     */
+    public int handle(String patronId) {
+        return find(table, patronId);
+    }
+
+    /**
+     * Get the patron behind a handle, or null if the handle is free
+     */
+    public Patron get(int handle) {
+        return table.patron(handle);
+    }
+
+    public boolean contains(String patronId) {
+        return handle(patronId) >= 0;
+    }
+
+    private static int find(Table t, String patronId) {
+        if (patronId == null) {
+            return -1;
+        }
+        int hash = hash(patronId);
+        long[] slots = t.slots;
+        int mask = slots.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            long slot = (long) SLOTS.getAcquire(slots, i);
+            if (slot == FREE) {
+                return -1;
+            }
+            if (slot != REMOVED && (int) (slot >>> 32) == hash) {
+                Patron patron = t.patron(handleOf(slot));
+                if (patron != null && patron.getPatronId().equals(patronId)) {
+                    return handleOf(slot);
+                }
+            }
+        }
+    }
+
+    // Caller holds this: index of the slot holding the handle of the ID, or -1
+    private int slotOf(String patronId) {
+        Table t = table;
+        int hash = hash(patronId);
+        int mask = t.slots.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            long slot = t.slots[i];
+            if (slot == FREE) {
+                return -1;
+            }
+            if (slot != REMOVED && (int) (slot >>> 32) == hash
+                    && t.patron(handleOf(slot)).getPatronId().equals(patronId)) {
+                return i;
+            }
+        }
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int handleOf(long slot) {
+        return (int) slot - 1;
+    }
+
+    // ===== ADD / REMOVE =====
+
+    /**
+     * Register a patron
+     *
+     * @return its handle, or -1 if the ID is already registered
+     */
+    public synchronized int add(Patron patron) {
+        String patronId = patron.getPatronId();
+        if (slotOf(patronId) >= 0) {
+            return -1;
+        }
+        if ((usedSlots + 1) * 4L > table.slots.length * 3L) {
+            // Keep live entries at or below half the slots; drop removed markers
+            int capacity = table.slots.length;
+            while ((size + 1) * 2L > capacity) {
+                capacity *= 2;
+            }
+            rehash(capacity);
+        }
+
+        int handle = freeCount > 0 ? freeHandles[--freeCount] : nextHandle++;
+        Table t = ensureChunk(handle);
+        int hash = hash(patronId);
+        int chunk = handle >>> CHUNK_BITS;
+        int offset = handle & (CHUNK - 1);
+        t.statuses[chunk][offset] = (byte) patron.getStatus().ordinal();
+        t.fines[chunk][offset] = patron.getFineAmount();
+        t.loans[chunk][offset] = patron.getBorrowedCount();
+        PATRONS.setRelease(t.patrons[chunk], offset, patron);
+
+        // Publish the slot last, so a lock-free reader finds a filled handle
+        int mask = t.slots.length - 1;
+        int i = hash & mask;
+        while (t.slots[i] != FREE && t.slots[i] != REMOVED) {
+            i = (i + 1) & mask;
+        }
+        if (t.slots[i] == FREE) {
+            usedSlots++;
+        }
+        SLOTS.setRelease(t.slots, i, (long) hash << 32 | (handle + 1));
+        size++;
+        table = t;
+        return handle;
+    }
+
+    /**
+     * Remove a patron if it is still the one registered under its ID
+     *
+     * @return the handle it held (now free), or -1
+     */
+    public synchronized int remove(Patron patron) {
+        int i = slotOf(patron.getPatronId());
+        Table t = table;
+        if (i < 0 || t.patron(handleOf(t.slots[i])) != patron) {
+            return -1;
+        }
+        int handle = handleOf(t.slots[i]);
+        SLOTS.setRelease(t.slots, i, REMOVED);
+        int chunk = handle >>> CHUNK_BITS;
+        int offset = handle & (CHUNK - 1);
+        PATRONS.setRelease(t.patrons[chunk], offset, null);
+        t.statuses[chunk][offset] = UNUSED;
+        t.fines[chunk][offset] = 0;
+        t.loans[chunk][offset] = 0;
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = handle;
+        size--;
+        table = t;
+        return handle;
+    }
+
+    // Caller holds this: rebuild the slots at the given capacity
+    private void rehash(int capacity) {
+        Table t = table;
+        long[] slots = new long[capacity];
+        int mask = capacity - 1;
+        for (long slot : t.slots) {
+            if (slot != FREE && slot != REMOVED) {
+                int i = (int) (slot >>> 32) & mask;
+                while (slots[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = slot;
+            }
+        }
+        usedSlots = size;
+        table = new Table(slots, t.patrons, t.statuses, t.fines, t.loans);
+    }
+
+    // Caller holds this: make sure the handle's chunk exists
+    private Table ensureChunk(int handle) {
+        Table t = table;
+        int chunk = handle >>> CHUNK_BITS;
+        if (chunk < t.patrons.length && t.patrons[chunk] != null) {
+            return t;
+        }
+        if (chunk >= t.patrons.length) {
+            int grown = Math.max(chunk + 1, t.patrons.length * 2);
+            t = new Table(t.slots, Arrays.copyOf(t.patrons, grown), Arrays.copyOf(t.statuses, grown),
+                    Arrays.copyOf(t.fines, grown), Arrays.copyOf(t.loans, grown));
+        }
+        byte[] statuses = new byte[CHUNK];
+        Arrays.fill(statuses, UNUSED);
+        t.statuses[chunk] = statuses;
+        t.fines[chunk] = new long[CHUNK];
+        t.loans[chunk] = new int[CHUNK];
+        // The patron chunk goes last: a reader that sees it sees the columns too
+        CHUNKS.setRelease(t.patrons, chunk, new Patron[CHUNK]);
+        table = t;
+        return t;
+    }
+
+    // ===== COLUMNS =====
+
+    /**
+     * Record a registered patron's new status (called under its monitor)
+     */
+    public void setStatus(Patron patron, PatronStatus status) {
+        Table t = table;
+        int handle = owned(t, patron);
+        if (handle >= 0) {
+            t.statuses[handle >>> CHUNK_BITS][handle & (CHUNK - 1)] = (byte) status.ordinal();
+        }
+    }
+
+    /**
+     * Record a registered patron's new outstanding fine (called under its monitor)
+     */
+    public void setFine(Patron patron, long fine) {
+        Table t = table;
+        int handle = owned(t, patron);
+        if (handle >= 0) {
+            t.fines[handle >>> CHUNK_BITS][handle & (CHUNK - 1)] = fine;
+        }
+    }
+
+    /**
+     * Record a registered patron's new number of books on loan (called under its monitor)
+     */
+    public void setLoans(Patron patron, int loans) {
+        Table t = table;
+        int handle = owned(t, patron);
+        if (handle >= 0) {
+            t.loans[handle >>> CHUNK_BITS][handle & (CHUNK - 1)] = loans;
+        }
+    }
+
+    private static int owned(Table t, Patron patron) {
+        int handle = find(t, patron.getPatronId());
+        return handle >= 0 && t.patron(handle) == patron ? handle : -1;
+    }
+
+    public PatronStatus getStatus(int handle) {
+        byte status = table.status(handle);
+        return status == UNUSED ? null : STATUSES[status];
+    }
+
+    /**
+     * Get a patron's outstanding fine (paise) by handle
+     */
+    public long getFine(int handle) {
+        Table t = table;
+        return t.has(handle) ? t.fines[handle >>> CHUNK_BITS][handle & (CHUNK - 1)] : 0;
+    }
+
+    public int getLoans(int handle) {
+        Table t = table;
+        return t.has(handle) ? t.loans[handle >>> CHUNK_BITS][handle & (CHUNK - 1)] : 0;
+    }
+
+    // ===== SCANS =====
+
+    /**
+     * Get the sum of outstanding fines (paise)
+     */
+    public long getTotalFines() {
+        Table t = table;
+        long total = 0;
+        for (long[] fines : t.fines) {
+            if (fines != null) {
+                for (long fine : fines) {
+                    total += fine;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Get the sum of books on loan
+     */
+    public long getTotalLoans() {
+        Table t = table;
+        long total = 0;
+        for (int[] loans : t.loans) {
+            if (loans != null) {
+                for (int count : loans) {
+                    total += count;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Get number of registered patrons with the given status
+     */
+    public int count(PatronStatus status) {
+        Table t = table;
+        byte wanted = (byte) status.ordinal();
+        int count = 0;
+        for (byte[] statuses : t.statuses) {
+            if (statuses != null) {
+                for (byte s : statuses) {
+                    if (s == wanted) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get patrons owing at least the given fine (paise), in handle order;
+     * only matching Patron objects are touched
+     */
+    public List<Patron> findOwingAtLeast(long minFine) {
+        Table t = table;
+        List<Patron> result = new ArrayList<>();
+        for (int chunk = 0; chunk < t.patrons.length; chunk++) {
+            Patron[] patrons = t.chunk(chunk);
+            if (patrons == null) {
+                continue;
+            }
+            long[] fines = t.fines[chunk];
+            for (int offset = 0; offset < CHUNK; offset++) {
+                if (fines[offset] >= minFine && t.statuses[chunk][offset] != UNUSED) {
+                    Patron patron = (Patron) PATRONS.getAcquire(patrons, offset);
+                    if (patron != null) {
+                        result.add(patron);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // ===== ITERATION =====
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Stream every registered patron in handle order, without copying
+     * (patrons added or removed meanwhile may or may not be seen)
+     */
+    public Stream<Patron> stream() {
+        Table t;
+        int handles;
+        synchronized (this) {
+            t = table;
+            handles = nextHandle;
+        }
+        return IntStream.range(0, handles).mapToObj(t::patron).filter(Objects::nonNull);
+    }
+
+    /**
+     * Capture the registered patrons (copies references only)
+     */
+    public Supplier<Stream<Patron>> capture() {
+        Patron[] registered = stream().toArray(Patron[]::new);
+        return () -> Arrays.stream(registered);
+    }
+
+    /**
+     * Slots, plus chunked columns indexed by handle (chunks shared between
+     * successive tables, so a column write always lands in the live chunk)
+     */
+    private static final class Table {
+        final long[] slots;
+        final Patron[][] patrons;
+        final byte[][] statuses;
+        final long[][] fines;
+        final int[][] loans;
+
+        Table(long[] slots, Patron[][] patrons, byte[][] statuses, long[][] fines, int[][] loans) {
+            this.slots = slots;
+            this.patrons = patrons;
+            this.statuses = statuses;
+            this.fines = fines;
+            this.loans = loans;
+        }
+
+        // The patron chunk, or null if this table has not seen it created
+        Patron[] chunk(int chunk) {
+            return chunk < patrons.length ? (Patron[]) CHUNKS.getAcquire(patrons, chunk) : null;
+        }
+
+        // A reader's table may predate the chunk of a handle it meets
+        boolean has(int handle) {
+            return handle >= 0 && chunk(handle >>> CHUNK_BITS) != null;
+        }
+
+        Patron patron(int handle) {
+            Patron[] chunk = handle >= 0 ? chunk(handle >>> CHUNK_BITS) : null;
+            return chunk == null ? null : (Patron) PATRONS.getAcquire(chunk, handle & (CHUNK - 1));
+        }
+
+        byte status(int handle) {
+            return has(handle) ? statuses[handle >>> CHUNK_BITS][handle & (CHUNK - 1)] : UNUSED;
+        }
+    }
+}
@@ -1,61 +1,292 @@
 package com.library.services;
 
+import com.library.cache.LookupCache;
+import com.library.events.ConsoleEventSink;
+import com.library.events.EventSink;
+import com.library.events.EventType;
+import com.library.ledger.LedgerEvent;
+import com.library.ledger.LendingLedger;
+import com.library.metrics.Operation;
+import com.library.metrics.Outcome;
+import com.library.metrics.ServiceMetrics;
+import com.library.models.HistoryStore;
 import com.library.models.Patron;
+import com.library.models.PatronObserver;
+import com.library.models.PatronStatus;
+import com.library.persistence.Journal;
+import com.library.persistence.JournalRecord;
+import com.library.search.AutocompleteIndex;
+import com.library.search.NGramIndex;
+import com.library.snapshot.VersionClock;
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * PatronService Class - Handles all patron/member operations
  * 
  * Features:
- * - Register new patrons
- * - Search patrons by ID or name
+ * - Register new patrons in a PatronRegistry: O(1) lookups by ID through
+ *   a primitive hash table, with status, fine and loan count in columns
+ * - Search patrons by ID or name, optionally through a bounded
+ *   LookupCache for when patrons sit on slower storage
+ * - Trigram index on normalized names, and name autocomplete as the
+ *   user types, tolerant of typos; both sit behind a read/write lock,
+ *   so patrons can be registered from many threads
  * - Update patron information
- * - Fine tracking
+ * - Fine tracking; payments are recorded in the LendingLedger when one
+ *   is attached, and overpayments are rejected
+ * - Paging of old borrowing history out to disk
  * - Patron status management
+ * - Live active-patron count and set of patrons with fines, kept
+ *   current by observing each patron, so the dashboard statistics are O(1)
  * 
  * Design Pattern: Service Layer
  */
-public class PatronService {
-    private List<Patron> patrons;
+public class PatronService implements PatronObserver {
+    private final PatronRegistry registry;
+    private final NGramIndex<Patron> nameIndex;
+    private final AutocompleteIndex<Patron> suggestIndex;
+    private final ReentrantReadWriteLock indexLock;     // nameIndex and suggestIndex
+    private Journal journal;
+    private EventSink events;
+    private ServiceMetrics metrics;
+    private LookupCache<String, Patron> cache;
+    private VersionClock clock;
+    private LendingLedger ledger;
+    private final LongAdder activePatrons;
+    private final Set<Patron> patronsWithFines;
+    private final LongAdder finedCount;         // skip list size() is O(n)
+    private final Function<String, Patron> loader;
 
     public PatronService() {
-        this.patrons = new ArrayList<>();
+        this.registry = new PatronRegistry();
+        this.nameIndex = new NGramIndex<>();
+        this.suggestIndex = new AutocompleteIndex<>();
+        this.indexLock = new ReentrantReadWriteLock();
+        this.activePatrons = new LongAdder();
+        this.patronsWithFines = new ConcurrentSkipListSet<>(Comparator.comparing(Patron::getPatronId));
+        this.finedCount = new LongAdder();
+        this.events = new ConsoleEventSink();
+        this.loader = registry::get;
+    }
+
+    /**
+     * Record every patron change in the given journal (null to stop)
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Report what this service does to the given sink (console by default)
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Time and count calls in the given metrics (null to stop)
+     */
+    public void setMetrics(ServiceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Serve patron lookups through a bounded cache (null to stop);
+     * entries are dropped whenever a patron is registered or removed
+     */
+    public void setCache(LookupCache<String, Patron> cache) {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+        this.cache = cache;
+    }
+
+    /**
+     * Version every patron's fine, status and loans with the given clock
+     * (null to stop), so snapshots can read them as of a point in time
+     */
+    public void setVersionClock(VersionClock clock) {
+        this.clock = clock;
+        registry.stream().forEach(patron -> patron.setVersionClock(clock));
+    }
+
+    /**
+     * Record fine payments as events in the given ledger (null to stop)
+     */
+    public void setLedger(LendingLedger ledger) {
+        this.ledger = ledger;
     }
 
     /**
      * Register a new patron in the library
      */
     public void registerPatron(Patron patron) {
-        if (patron != null && findPatron(patron.getPatronId()) == null) {
-            patrons.add(patron);
-            System.out.println("✓ Patron registered: " + patron.getName());
-        } else {
-            System.out.println("✗ Patron already exists or invalid");
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Journal log = journal;
+        boolean added;
+        if (log != null) {
+            log.beginChange();
+        }
+        try {
+            added = loadPatron(patron);
+            if (added && log != null) {
+                log.append(JournalRecord.registerPatron(patron));
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        String patronId = patron == null ? null : patron.getPatronId();
+        String name = patron == null ? null : patron.getName();
+        events.emit(added ? EventType.PATRON_REGISTERED : EventType.PATRON_REJECTED, patronId, null, null, name, 0, null);
+        if (m != null) {
+            m.record(Operation.REGISTER_PATRON, added ? Outcome.OK : Outcome.REJECTED, start);
         }
     }
 
+    /**
+     * Add a patron without journaling or console output (used by recovery)
+     * 
+     * @return false if the patron is null or already registered
+     */
+    public boolean loadPatron(Patron patron) {
+        if (patron == null) {
+            return false;
+        }
+        indexLock.writeLock().lock();
+        try {
+            if (registry.add(patron) < 0) {
+                return false;
+            }
+            try {
+                nameIndex.add(patron, patron.getName());
+                suggestIndex.add(patron, patron.getName());
+            } catch (RuntimeException e) {
+                // Not journaled yet, so it must not stay registered
+                registry.remove(patron);
+                nameIndex.remove(patron);
+                suggestIndex.remove(patron);
+                throw e;
+            }
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        if (cache != null) {
+            cache.invalidate(patron.getPatronId());
+        }
+        synchronized (patron) {
+            patron.setObserver(this);
+            patron.setVersionClock(clock);
+            statusChanged(patron, null, patron.getStatus());
+            fineChanged(patron, 0, patron.getFineAmount());
+        }
+        return true;
+    }
+
+    /**
+     * Remove a patron without journaling or console output (used by recovery)
+     * 
+     * @return true if the patron was registered
+     */
+    public boolean unloadPatron(String patronId) {
+        Patron patron = registry.get(patronId);
+        if (patron == null) {
+            return false;
+        }
+        // Under the monitor, so no observer call can write to the freed handle
+        synchronized (patron) {
+            if (registry.remove(patron) < 0) {
+                return false;
+            }
+            patron.setObserver(null);
+            statusChanged(patron, patron.getStatus(), null);
+            fineChanged(patron, patron.getFineAmount(), 0);
+        }
+        indexLock.writeLock().lock();
+        try {
+            nameIndex.remove(patron);
+            suggestIndex.remove(patron);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        if (cache != null) {
+            cache.invalidate(patronId);
+        }
+        return true;
+    }
+
     /**
      * Find patron by ID
      */
     public Patron findPatron(String patronId) {
-        for (Patron p : patrons) {
-            if (p.getPatronId().equals(patronId)) {
-                return p;
-            }
+        ServiceMetrics m = metrics;
+        if (m == null) {
+            return lookup(patronId);
         }
-        return null;
+        long start = m.start();
+        Patron patron = lookup(patronId);
+        m.record(Operation.FIND_PATRON, patron != null ? Outcome.OK : Outcome.NOT_FOUND, start);
+        return patron;
+    }
+
+    private Patron lookup(String patronId) {
+        if (patronId == null) {
+            return null;
+        }
+        LookupCache<String, Patron> c = cache;
+        return c == null ? registry.get(patronId) : c.get(patronId, loader);
     }
 
     /**
      * Search patrons by name (partial match)
      */
     public List<Patron> searchByName(String name) {
-        List<Patron> result = new ArrayList<>();
-        for (Patron p : patrons) {
-            if (p.getName().toLowerCase().contains(name.toLowerCase())) {
-                result.add(p);
-            }
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        List<Patron> result;
+        indexLock.readLock().lock();
+        try {
+            result = nameIndex.search(name, Integer.MAX_VALUE);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        if (m != null) {
+            m.record(Operation.SEARCH_PATRON_BY_NAME, result.isEmpty() ? Outcome.NOT_FOUND : Outcome.OK, start);
+        }
+        return result;
+    }
+
+    /**
+     * Suggest patrons for a partly typed or misspelled name, exact
+     * prefix matches first ("mary jo", "marry jones")
+     */
+    public List<Patron> suggestNames(String query, int limit) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        List<Patron> result;
+        indexLock.readLock().lock();
+        try {
+            result = suggestIndex.suggest(query, limit);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        if (m != null) {
+            m.record(Operation.SUGGEST_PATRON, result.isEmpty() ? Outcome.NOT_FOUND : Outcome.OK, start);
         }
         return result;
     }
@@ -64,30 +295,71 @@ public class PatronService {
      * Get all patrons
      */
     public List<Patron> getAllPatrons() {
-        return new ArrayList<>(patrons);
+        return registry.stream().collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Stream every patron without copying the registry (run it while
+     * patrons are not being registered or removed)
+     */
+    public Stream<Patron> streamPatrons() {
+        return registry.stream();
     }
 
     /**
-     * Get patrons with outstanding fines
+     * Capture which patrons a snapshot holds (copies references only; do
+     * not run it while patrons are being registered or removed)
+     */
+    public Supplier<Stream<Patron>> capturePatrons() {
+        return registry.capture();
+    }
+
+    /**
+     * Stream patrons with outstanding fines, ordered by patron ID
+     * (safe while fines change)
+     */
+    public Stream<Patron> streamPatronsWithFines() {
+        return patronsWithFines.stream();
+    }
+
+    /**
+     * Get patrons with outstanding fines, ordered by patron ID
      */
     public List<Patron> getPatronsWithFines() {
-        List<Patron> result = new ArrayList<>();
-        for (Patron p : patrons) {
-            if (p.getFineAmount() > 0) {
-                result.add(p);
-            }
-        }
-        return result;
+        return new ArrayList<>(patronsWithFines);
+    }
+
+    /**
+     * Get number of patrons with outstanding fines
+     */
+    public int getPatronsWithFinesCount() {
+        return finedCount.intValue();
     }
 
     /**
      * Remove patron from system
      */
     public void removePatron(String patronId) {
-        if (patrons.removeIf(p -> p.getPatronId().equals(patronId))) {
-            System.out.println("✓ Patron removed");
-        } else {
-            System.out.println("✗ Patron not found");
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Journal log = journal;
+        boolean removed;
+        if (log != null) {
+            log.beginChange();
+        }
+        try {
+            removed = unloadPatron(patronId);
+            if (removed && log != null) {
+                log.append(JournalRecord.removePatron(patronId));
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        events.emit(removed ? EventType.PATRON_REMOVED : EventType.PATRON_REMOVE_FAILED, patronId, null, null, null, 0, null);
+        if (m != null) {
+            m.record(Operation.REMOVE_PATRON, removed ? Outcome.OK : Outcome.NOT_FOUND, start);
         }
     }
 
@@ -95,10 +367,23 @@ public class PatronService {
      * Suspend patron account
      */
     public void suspendPatron(String patronId) {
-        Patron patron = findPatron(patronId);
+        Patron patron = lookup(patronId);
         if (patron != null) {
-            patron.setStatus("SUSPENDED");
-            System.out.println("✓ Patron suspended: " + patron.getName());
+            Journal log = journal;
+            if (log != null) {
+                log.beginChange();
+            }
+            try {
+                patron.setStatus(PatronStatus.SUSPENDED);
+                if (log != null) {
+                    log.append(JournalRecord.suspendPatron(patronId));
+                }
+            } finally {
+                if (log != null) {
+                    log.endChange();
+                }
+            }
+            events.emit(EventType.PATRON_SUSPENDED, patronId, null, null, patron.getName(), 0, null);
         }
     }
 
@@ -106,30 +391,158 @@ public class PatronService {
      * Activate patron account
      */
     public void activatePatron(String patronId) {
-        Patron patron = findPatron(patronId);
+        Patron patron = lookup(patronId);
         if (patron != null) {
-            patron.setStatus("ACTIVE");
-            System.out.println("✓ Patron activated: " + patron.getName());
+            Journal log = journal;
+            if (log != null) {
+                log.beginChange();
+            }
+            try {
+                patron.setStatus(PatronStatus.ACTIVE);
+                if (log != null) {
+                    log.append(JournalRecord.activatePatron(patronId));
+                }
+            } finally {
+                if (log != null) {
+                    log.endChange();
+                }
+            }
+            events.emit(EventType.PATRON_ACTIVATED, patronId, null, null, patron.getName(), 0, null);
+        }
+    }
+
+    /**
+     * Record a fine payment (in paise) from a patron on the given date
+     * 
+     * @return true if the payment was applied
+     */
+    public boolean payFine(String patronId, long amount, LocalDate paymentDate) {
+        ServiceMetrics m = metrics;
+        long start = m != null ? m.start() : 0;
+        Patron patron = lookup(patronId);
+        if (patron == null || amount <= 0) {
+            events.emit(EventType.PAYMENT_REJECTED, patronId, null, null, null, amount, paymentDate);
+            if (m != null) {
+                m.record(Operation.PAY_FINE, patron == null ? Outcome.NOT_FOUND : Outcome.REJECTED, start);
+            }
+            return false;
+        }
+        Journal log = journal;
+        CompletableFuture<Long> logged = null;
+        boolean applied = false;
+        if (log != null) {
+            log.beginChange();
+        }
+        try {
+            synchronized (patron) {
+                if (amount <= patron.getFineAmount()) {
+                    patron.payFine(amount);
+                    applied = true;
+                    LendingLedger l = ledger;
+                    if (l != null) {
+                        l.append(LedgerEvent.Type.PAYMENT, patron.getPatronId(), null, paymentDate, amount);
+                    }
+                    if (log != null) {
+                        logged = log.appendAsync(JournalRecord.payment(patronId, amount));
+                    }
+                }
+            }
+        } finally {
+            if (log != null) {
+                log.endChange();
+            }
+        }
+        if (logged != null) {
+            logged.join();
+        }
+        events.emit(applied ? EventType.PAYMENT_RECEIVED : EventType.PAYMENT_REJECTED,
+                patronId, null, null, patron.getName(), amount, paymentDate);
+        if (m != null) {
+            m.record(Operation.PAY_FINE, applied ? Outcome.OK : Outcome.REJECTED, start);
+        }
+        return applied;
+    }
+
+    /**
+     * Move every patron's full history blocks out of memory into the store
+     * 
+     * @return number of blocks written
+     */
+    public int pageOutHistory(HistoryStore store) throws IOException {
+        int written = 0;
+        for (Patron patron : getAllPatrons()) {
+            written += patron.pageOutHistory(store);
         }
+        return written;
     }
 
     /**
      * Get total number of patrons
      */
     public int getTotalPatrons() {
-        return patrons.size();
+        return registry.size();
+    }
+
+    /**
+     * Get the sum of all outstanding fines (paise), read from the
+     * registry's fine column
+     */
+    public long getTotalFines() {
+        return registry.getTotalFines();
+    }
+
+    /**
+     * Get patrons owing at least the given fine (paise), e.g. to review
+     * for suspension; scans the fine column and touches matching
+     * patrons only
+     */
+    public List<Patron> getPatronsOwingAtLeast(long minFine) {
+        return registry.findOwingAtLeast(minFine);
     }
 
     /**
      * Get active patrons count
      */
     public int getActivePatronsCount() {
-        int count = 0;
-        for (Patron p : patrons) {
-            if ("ACTIVE".equals(p.getStatus())) {
-                count++;
-            }
+        return (int) activePatrons.sum();
+    }
+
+    /**
+     * Keep the status column and active count current (called under the
+     * patron's lock; null stands for not registered)
+     */
+    @Override
+    public void statusChanged(Patron patron, PatronStatus before, PatronStatus after) {
+        if (after != null) {
+            registry.setStatus(patron, after);
+        }
+        if (before == PatronStatus.ACTIVE) {
+            activePatrons.decrement();
+        }
+        if (after == PatronStatus.ACTIVE) {
+            activePatrons.increment();
+        }
+    }
+
+    /**
+     * Keep the fine column and the set of patrons with fines current
+     * (called under the patron's lock)
+     */
+    @Override
+    public void fineChanged(Patron patron, long before, long after) {
+        registry.setFine(patron, after);
+        if (after > 0 && patronsWithFines.add(patron)) {
+            finedCount.increment();
+        } else if (after <= 0 && patronsWithFines.remove(patron)) {
+            finedCount.decrement();
         }
-        return count;
+    }
+
+    /**
+     * Keep the registry's loan column current (called under the patron's lock)
+     */
+    @Override
+    public void loansChanged(Patron patron, int before, int after) {
+        registry.setLoans(patron, after);
     }
 }
@@ -0,0 +1,115 @@
+package com.library.snapshot;
+
+import com.library.models.Book;
+import com.library.models.Patron;
+import com.library.models.PatronStatus;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * LibrarySnapshot Class - Point-in-time view of the catalog and patrons
+ *
+ * Features:
+ * - Every book and patron as of one version: a checkout or return is
+ *   either fully in the view or not at all, however long the read takes
+ * - Reads take no locks and never stall lending
+ * - Books and patrons come back as detached copies (look them up in the
+ *   services to lend or change them)
+ * - Dashboard totals computed from the snapshot, so they agree with each
+ *   other and with the streams
+ *
+ * The books and patrons are the ones registered when the snapshot was
+ * opened. Close it when done: until then, objects that change keep the
+ * state it reads.
+ *
+ * Usage:
+ *   try (LibrarySnapshot snapshot = snapshots.open()) {
+ *       InventoryReport inventory = reports.inventory(snapshot);
+ *       FineReport fines = reports.fines(snapshot);
+ *   }
+ */
+public class LibrarySnapshot implements AutoCloseable {
+    private final VersionClock clock;
+    private final long version;
+    private final Supplier<Stream<Book>> books;
+    private final Supplier<Stream<Patron>> patrons;
+    private volatile boolean closed;
+
+    LibrarySnapshot(VersionClock clock, long version, Supplier<Stream<Book>> books, Supplier<Stream<Patron>> patrons) {
+        this.clock = clock;
+        this.version = version;
+        this.books = books;
+        this.patrons = patrons;
+    }
+
+    /**
+     * Stream every book as of this snapshot
+     */
+    public Stream<Book> streamBooks() {
+        checkOpen();
+        return books.get().map(book -> book.copyAt(version));
+    }
+
+    /**
+     * Stream every patron as of this snapshot
+     */
+    public Stream<Patron> streamPatrons() {
+        checkOpen();
+        return patrons.get().map(patron -> patron.copyAt(version));
+    }
+
+    /**
+     * Stream patrons that had outstanding fines as of this snapshot
+     */
+    public Stream<Patron> streamPatronsWithFines() {
+        return streamPatrons().filter(patron -> patron.getFineAmount() > 0);
+    }
+
+    // ===== GETTERS =====
+    public long getVersion() {
+        return version;
+    }
+
+    public long getTotalBooks() {
+        checkOpen();
+        return books.get().count();
+    }
+
+    public long getTotalAvailableCopies() {
+        return streamBooks().mapToLong(Book::getAvailableCopies).sum();
+    }
+
+    public long getTotalPatrons() {
+        checkOpen();
+        return patrons.get().count();
+    }
+
+    public long getActivePatronsCount() {
+        return streamPatrons().filter(patron -> patron.getStatus() == PatronStatus.ACTIVE).count();
+    }
+
+    public long getPatronsWithFinesCount() {
+        return streamPatronsWithFines().count();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Release the snapshot (streams already running must not be read further)
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            clock.close(version);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Snapshot " + version + " is closed");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.library.snapshot;
+
+import com.library.models.Book;
+import com.library.models.Patron;
+import com.library.services.BookService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * LibrarySnapshots Class - Opens consistent snapshots of a running library
+ *
+ * Features:
+ * - Attaches one VersionClock to the book, patron and lending services,
+ *   so every change is versioned from then on
+ * - open() costs an epoch switch, a short wait for changes already in
+ *   flight, and a copy of the book and patron references (no per-object
+ *   work, no locks held against lending), so reports can take one every
+ *   few seconds
+ * - Several snapshots may be open at once
+ *
+ * Like getAllBooks(), open() must not run while books or patrons are
+ * being added or removed; lending may go on freely.
+ *
+ * Usage:
+ *   LibrarySnapshots snapshots = new LibrarySnapshots(bookService, patronService, lendingService);
+ *   try (LibrarySnapshot snapshot = snapshots.open()) {
+ *       long available = snapshot.getTotalAvailableCopies();
+ *   }
+ */
+public class LibrarySnapshots {
+    private final VersionClock clock;
+    private final BookService bookService;
+    private final PatronService patronService;
+
+    public LibrarySnapshots(BookService bookService, PatronService patronService, LendingService lendingService) {
+        this.clock = new VersionClock();
+        this.bookService = bookService;
+        this.patronService = patronService;
+        bookService.setVersionClock(clock);
+        patronService.setVersionClock(clock);
+        lendingService.setVersionClock(clock);
+    }
+
+    /**
+     * Open a snapshot of everything committed so far
+     */
+    public LibrarySnapshot open() {
+        long version = clock.open();
+        try {
+            Supplier<Stream<Book>> books = bookService.captureBooks();
+            Supplier<Stream<Patron>> patrons = patronService.capturePatrons();
+            return new LibrarySnapshot(clock, version, books, patrons);
+        } catch (RuntimeException e) {
+            clock.close(version);
+            throw e;
+        }
+    }
+
+    // ===== GETTERS =====
+    public VersionClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Get number of snapshots not yet closed
+     */
+    public int getOpenCount() {
+        return clock.getOpenCount();
+    }
+}
@@ -0,0 +1,187 @@
+package com.library.snapshot;
+
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * VersionClock Class - Write epochs and open snapshots for MVCC reads
+ *
+ * Every change to a book or patron runs inside a write epoch: enter()
+ * pins the current epoch for the calling thread (nested calls share
+ * it, so a checkout's book and patron changes carry the same version)
+ * and exit() releases it. Changed objects are stamped with the epoch
+ * and keep their previous state only while an open snapshot may still
+ * read it.
+ *
+ * Opening a snapshot at version V holds back changes not yet started,
+ * waits for the changes still running in epoch V to finish, then
+ * advances the epoch to V + 1. From then on the snapshot reads, for
+ * every object, the newest state stamped V or earlier: all of epoch V's
+ * changes and none of V + 1's. No change of V + 1 runs alongside one of
+ * V, so an object's versions only go forward; a change of V touching an
+ * object after one of V + 1 would stamp the newer state V. Writers wait
+ * only while a snapshot opens, for critical sections already in flight,
+ * which take microseconds.
+ *
+ * A change that starts inside a book's monitor uses enterNow(), which
+ * never waits: a change of V still to finish may need that monitor.
+ *
+ * Writers pay one thread-local lookup and one striped counter update
+ * per change, plus one small state copy per object per epoch while a
+ * snapshot is open.
+ *
+ * Usage:
+ *   LibrarySnapshots snapshots = new LibrarySnapshots(bookService, patronService, lendingService);
+ *   try (LibrarySnapshot snapshot = snapshots.open()) { ... }
+ */
+public class VersionClock {
+    private static final int SPINS_BEFORE_YIELD = 100;
+
+    private volatile long epoch;
+    private volatile boolean opening;            // a snapshot is waiting for epoch's changes
+    private final LongAdder[] writers;           // threads inside an epoch, by epoch parity
+    private final ThreadLocal<long[]> entered;   // {epoch, nesting depth} of this thread
+    private final TreeMap<Long, Integer> open;   // open snapshot versions and counts (guarded by this)
+    private volatile long oldestOpen;
+    private volatile long newestOpen;
+
+    public VersionClock() {
+        this.epoch = 1;
+        this.writers = new LongAdder[] {new LongAdder(), new LongAdder()};
+        this.entered = ThreadLocal.withInitial(() -> new long[2]);
+        this.open = new TreeMap<>();
+        this.oldestOpen = Long.MAX_VALUE;
+        this.newestOpen = -1;
+    }
+
+    /**
+     * Start a change (or join the one this thread is already in); waits
+     * while a snapshot is opening. Call it before taking any book's
+     * monitor.
+     *
+     * @return the version the change is stamped with
+     */
+    public long enter() {
+        return enter(true);
+    }
+
+    /**
+     * Start a change from inside a book's monitor (or join the one this
+     * thread is already in). Never waits: while a snapshot is opening,
+     * the change joins the epoch being closed and the snapshot waits for
+     * it instead.
+     *
+     * @return the version the change is stamped with
+     */
+    public long enterNow() {
+        return enter(false);
+    }
+
+    private long enter(boolean wait) {
+        long[] mine = entered.get();
+        if (mine[1]++ > 0) {
+            return mine[0];
+        }
+        while (true) {
+            long e = epoch;
+            LongAdder count = writers[(int) e & 1];
+            count.increment();
+            if (epoch == e && !(wait && opening)) {
+                mine[0] = e;
+                return e;
+            }
+            count.decrement();                 // a snapshot is opening, or advanced the epoch meanwhile
+            for (int spins = 0; wait && opening && epoch == e; spins++) {
+                pause(spins);
+            }
+        }
+    }
+
+    /**
+     * End the change started by the matching enter()
+     */
+    public void exit() {
+        long[] mine = entered.get();
+        if (--mine[1] == 0) {
+            writers[(int) mine[0] & 1].decrement();
+        }
+    }
+
+    /**
+     * Open a snapshot of everything committed so far
+     *
+     * @return the snapshot's version; pass it to close() when done
+     */
+    public synchronized long open() {
+        if (entered.get()[1] > 0) {
+            throw new IllegalStateException("Cannot open a snapshot inside a change");
+        }
+        long version = epoch;
+        open.merge(version, 1, Integer::sum);
+        newestOpen = version;
+        oldestOpen = open.firstKey();
+        opening = true;                        // new changes wait rather than start epoch V + 1 early
+        LongAdder inFlight = writers[(int) version & 1];
+        for (int spins = 0; inFlight.sum() != 0; spins++) {
+            pause(spins);
+        }
+        epoch = version + 1;                   // new changes are no longer part of this snapshot
+        opening = false;
+        return version;
+    }
+
+    /**
+     * Close a snapshot; states only it could read are dropped as their
+     * objects next change
+     */
+    public synchronized void close(long version) {
+        Integer count = open.get(version);
+        if (count == null) {
+            throw new IllegalStateException("No open snapshot at version " + version);
+        }
+        if (count == 1) {
+            open.remove(version);
+        } else {
+            open.put(version, count - 1);
+        }
+        oldestOpen = open.isEmpty() ? Long.MAX_VALUE : open.firstKey();
+        newestOpen = open.isEmpty() ? -1 : open.lastKey();
+    }
+
+    /**
+     * Whether an open snapshot may read a state stamped with this
+     * version once it is replaced (checked by writers before a change)
+     */
+    public boolean isVisible(long version) {
+        return version <= newestOpen;
+    }
+
+    private static void pause(int spins) {
+        if (spins < SPINS_BEFORE_YIELD) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+
+    // ===== GETTERS =====
+
+    /**
+     * Get the version of the oldest open snapshot (Long.MAX_VALUE if none)
+     */
+    public long getOldestOpen() {
+        return oldestOpen;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public synchronized int getOpenCount() {
+        int count = 0;
+        for (int n : open.values()) {
+            count += n;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,248 @@
+package com.library.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * LendingLedger appends from many threads, replay and reopening from disk
+ */
+class LendingLedgerTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+    private static final int THREADS = 4;
+    private static final int PATRONS_PER_THREAD = 25;
+    private static final int ROUNDS = 40;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parallelAppendsReplayInLogOrderPerKey() throws Exception {
+        LendingLedger ledger = LendingLedger.inMemory();
+        PatronBalances followed = new PatronBalances();
+        OpenLoans followedLoans = new OpenLoans();
+        ledger.attach(followed, followedLoans);
+        appendFromThreads(ledger);
+
+        long events = (long) THREADS * PATRONS_PER_THREAD * ROUNDS * 4;
+        assertEquals(events, ledger.getEventCount());
+        List<Long> sequences = ledger.stream().map(LedgerEvent::getSequence).collect(Collectors.toList());
+        for (int i = 0; i < sequences.size(); i++) {
+            assertEquals(i + 1L, sequences.get(i));
+        }
+
+        SequenceOrder byPatron = new SequenceOrder(LedgerProjection.Key.PATRON);
+        SequenceOrder byIsbn = new SequenceOrder(LedgerProjection.Key.ISBN);
+        PatronBalances balances = new PatronBalances();
+        OpenLoans loans = new OpenLoans();
+        CopiesOnLoan copies = new CopiesOnLoan();
+        ledger.rebuild(byPatron, byIsbn, balances, loans, copies);
+
+        assertTrue(byPatron.outOfOrder.isEmpty(), () -> "out of order: " + byPatron.outOfOrder);
+        assertTrue(byIsbn.outOfOrder.isEmpty(), () -> "out of order: " + byIsbn.outOfOrder);
+        assertEquals(events, byPatron.applied.get());
+        // Payments carry no ISBN
+        assertEquals(events / 4 * 3, byIsbn.applied.get());
+        for (int t = 0; t < THREADS; t++) {
+            for (int p = 0; p < PATRONS_PER_THREAD; p++) {
+                String patronId = patron(t, p);
+                assertEquals(ROUNDS * 4, ledger.getPatronEvents(patronId).size());
+                assertEquals(0, balances.getBalance(patronId));
+                assertEquals(ROUNDS * 100L, balances.getCharged(patronId));
+                assertEquals(0, loans.getOpenLoanCount(patronId));
+                assertEquals(balances.getCharged(patronId), followed.getCharged(patronId));
+                assertEquals(0, followedLoans.getOpenLoanCount(patronId));
+            }
+        }
+        assertEquals(0, copies.getTotalOnLoan());
+    }
+
+    @Test
+    void projectionsRunWithoutHoldingTheLedger() throws Exception {
+        LendingLedger ledger = LendingLedger.inMemory();
+        CountDownLatch inProjection = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ledger.attach(new PatronBalances() {
+            @Override
+            public void apply(LedgerEvent event) {
+                if (event.getPatronId().equals("SLOW")) {
+                    inProjection.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        Thread slow = new Thread(() -> ledger.append(LedgerEvent.Type.PAYMENT, "SLOW", null, TODAY, 100));
+        slow.start();
+        assertTrue(inProjection.await(10, TimeUnit.SECONDS));
+
+        // A projection still busy with one event does not hold up appends or reads
+        Thread other = new Thread(() -> ledger.append(LedgerEvent.Type.PAYMENT, "OTHER", null, TODAY, 100));
+        other.start();
+        other.join(10_000);
+        boolean blocked = other.isAlive();
+        release.countDown();
+        slow.join();
+        other.join();
+        assertFalse(blocked);
+        assertEquals(2, ledger.getEventCount());
+        assertEquals(1, ledger.getPatronEvents("OTHER").size());
+    }
+
+    @Test
+    void reopenKeepsParallelAppends() throws Exception {
+        try (LendingLedger ledger = LendingLedger.open(dir)) {
+            appendFromThreads(ledger);
+            ledger.flush();
+        }
+        long events = (long) THREADS * PATRONS_PER_THREAD * ROUNDS * 4;
+        try (LendingLedger ledger = LendingLedger.open(dir)) {
+            assertEquals(events, ledger.getEventCount());
+            PatronBalances balances = new PatronBalances();
+            ledger.rebuild(balances);
+            assertEquals(ROUNDS * 100L, balances.getPaid(patron(THREADS - 1, PATRONS_PER_THREAD - 1)));
+            assertEquals(events + 1, ledger.append(LedgerEvent.Type.PAYMENT, "P", null, TODAY, 1));
+        }
+    }
+
+    @Test
+    void tornTailIsTruncatedOnOpen() throws IOException {
+        try (LendingLedger ledger = LendingLedger.open(dir)) {
+            ledger.append(LedgerEvent.Type.CHECKOUT, "A", "X1", TODAY, 0);
+            ledger.append(LedgerEvent.Type.RETURN, "A", "X1", TODAY, 0);
+        }
+        Path segment = onlySegment();
+        long intact = Files.size(segment);
+        // Half a record: a length and CRC with only part of the body behind them
+        byte[] torn = {0, 0, 0, 40, 1, 2, 3, 4, 0, 0, 0, 0, 0, 0, 0, 3, 1};
+        Files.write(segment, torn, StandardOpenOption.APPEND);
+
+        try (LendingLedger ledger = LendingLedger.open(dir)) {
+            assertEquals(2, ledger.getEventCount());
+            assertEquals(intact, Files.size(segment));
+            assertEquals(3, ledger.append(LedgerEvent.Type.CHECKOUT, "B", "X1", TODAY, 0));
+        }
+        try (LendingLedger ledger = LendingLedger.open(dir)) {
+            assertEquals(3, ledger.getEventCount());
+            assertEquals("B", ledger.getPatronEvents("B").get(0).getPatronId());
+        }
+    }
+
+    @Test
+    void segmentThatSkipsSequenceNumbersIsRejected() throws IOException {
+        try (LendingLedger ledger = LendingLedger.open(dir)) {
+            ledger.append(LedgerEvent.Type.CHECKOUT, "A", "X1", TODAY, 0);
+            ledger.append(LedgerEvent.Type.RETURN, "A", "X1", TODAY, 0);
+        }
+        // A segment named for sequence 5 after one ending at 2: 3 and 4 are missing
+        Path segment = onlySegment();
+        Files.copy(segment, dir.resolve(String.format("ledger-%019d.log", 5)));
+
+        IOException e = assertThrows(IOException.class, () -> LendingLedger.open(dir));
+        assertTrue(e.getMessage().contains("does not follow sequence 2"), e.getMessage());
+    }
+
+    private static void appendFromThreads(LendingLedger ledger) throws InterruptedException {
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int p = 0; p < PATRONS_PER_THREAD; p++) {
+                            String patronId = patron(thread, p);
+                            String isbn = "X" + (p % 5);
+                            LocalDate day = TODAY.plusDays(round);
+                            ledger.append(LedgerEvent.Type.CHECKOUT, patronId, isbn, day, 0);
+                            ledger.append(LedgerEvent.Type.RETURN, patronId, isbn, day, 0);
+                            ledger.append(LedgerEvent.Type.FINE, patronId, isbn, day, 100);
+                            ledger.append(LedgerEvent.Type.PAYMENT, patronId, null, day, 100);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertTrue(failures.isEmpty(), () -> "failed: " + failures.peek());
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = files.collect(Collectors.toList());
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    private static String patron(int thread, int p) {
+        return "P" + thread + "-" + p;
+    }
+
+    /**
+     * Records any event applied after a later one of the same key
+     */
+    private static class SequenceOrder implements LedgerProjection {
+        private final Key key;
+        private final Map<String, Long> last = new ConcurrentHashMap<>();
+        final List<String> outOfOrder = Collections.synchronizedList(new ArrayList<>());
+        final AtomicLong applied = new AtomicLong();
+
+        SequenceOrder(Key key) {
+            this.key = key;
+        }
+
+        @Override
+        public Key getKey() {
+            return key;
+        }
+
+        @Override
+        public void apply(LedgerEvent event) {
+            String k = key == Key.PATRON ? event.getPatronId() : event.getIsbn();
+            Long previous = last.put(k, event.getSequence());
+            if (previous != null && previous >= event.getSequence()) {
+                outOfOrder.add(k + " " + previous + " before " + event.getSequence());
+            }
+            applied.incrementAndGet();
+        }
+
+        @Override
+        public void clear() {
+            last.clear();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.library.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.events.EventSink;
+import com.library.events.EventType;
+import com.library.models.Patron;
+import com.library.services.BookService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Periodic checkpoints of LibraryStore
+ */
+class LibraryStoreCheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void scheduleCarriesOnAfterAFailedCheckpoint() throws Exception {
+        BookService books = new BookService();
+        PatronService patrons = new PatronService();
+        LendingService lending = new LendingService(books, patrons);
+        books.setEventSink(EventSink.NONE);
+        patrons.setEventSink(EventSink.NONE);
+        lending.setEventSink(EventSink.NONE);
+        // A directory where the snapshot's temp file goes makes every write fail
+        Path blocker = Files.createDirectories(dir.resolve("library.snapshot.tmp").resolve("blocker"));
+        Path snapshot = dir.resolve("library.snapshot");
+        CountDownLatch failed = new CountDownLatch(1);
+
+        try (LibraryStore store = LibraryStore.open(dir, books, patrons, lending)) {
+            patrons.registerPatron(new Patron("P1", "Ada", "ada@example.com", "000"));
+            store.setEventSink((type, patronId, isbn, title, name, amount, date) -> {
+                if (type == EventType.CHECKPOINT_FAILED) {
+                    failed.countDown();
+                }
+            });
+            store.startCheckpoints(10, TimeUnit.MILLISECONDS);
+            assertTrue(failed.await(10, TimeUnit.SECONDS));
+            assertNotNull(store.getCheckpointFailure());
+
+            Files.delete(blocker);
+            Files.delete(blocker.getParent());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while ((!Files.exists(snapshot) || store.getCheckpointFailure() != null)
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(Files.exists(snapshot));
+            assertNull(store.getCheckpointFailure());
+        }
+    }
+}
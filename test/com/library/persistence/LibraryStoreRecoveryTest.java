@@ -0,0 +1,118 @@
+package com.library.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.events.EventSink;
+import com.library.models.Book;
+import com.library.models.BookStatus;
+import com.library.models.CopyState;
+import com.library.models.Patron;
+import com.library.services.BookService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Recovery of LibraryStore from journals logged out of order
+ */
+class LibraryStoreRecoveryTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path dir;
+
+    private BookService books;
+    private PatronService patrons;
+    private LendingService lending;
+
+    @BeforeEach
+    void createServices() {
+        books = new BookService();
+        patrons = new PatronService();
+        lending = new LendingService(books, patrons);
+        books.setEventSink(EventSink.NONE);
+        patrons.setEventSink(EventSink.NONE);
+        lending.setEventSink(EventSink.NONE);
+    }
+
+    @Test
+    void replaysReturnLoggedAfterTheNextCheckout() throws IOException {
+        // A returns the only copy and B takes it, but A's return is
+        // logged after B's checkout: replay briefly has -1 copies
+        try (Journal journal = Journal.open(dir.resolve("journal"), true)) {
+            journal.append(JournalRecord.addBook(new Book("X1", "Title", "Author", "Publisher", 2000, 1)));
+            journal.append(JournalRecord.registerPatron(new Patron("A", "Ada", "a@example.com", "000")));
+            journal.append(JournalRecord.registerPatron(new Patron("B", "Bob", "b@example.com", "000")));
+            journal.append(JournalRecord.checkout("A", "X1", TODAY, 0));
+            journal.append(JournalRecord.checkout("B", "X1", TODAY, 0));
+            journal.append(JournalRecord.returned("A", "X1", TODAY, 0));
+        }
+
+        try (LibraryStore store = LibraryStore.open(dir, books, patrons, lending)) {
+            Book book = books.searchByIsbn("X1");
+            assertEquals(0, book.getAvailableCopies());
+            assertEquals(BookStatus.BORROWED, book.getStatus());
+            assertNull(lending.findLoan("A", "X1"));
+            assertNotNull(lending.findLoan("B", "X1"));
+            assertTrue(lending.findCopyDrift().isEmpty());
+
+            // The rebuilt inventory lends the copy again once B returns it
+            Patron a = patrons.findPatron("A");
+            Patron b = patrons.findPatron("B");
+            assertTrue(lending.returnBook(book, b, TODAY));
+            assertEquals(1, book.getAvailableCopies());
+            assertTrue(lending.checkoutBook(book, a, TODAY));
+            assertEquals(0, book.getAvailableCopies());
+        }
+    }
+
+    @Test
+    void snapshotKeepsWhichCopyIsOnLoan() throws IOException {
+        lendThreeCopies(true);
+        assertCopiesRecovered();
+    }
+
+    @Test
+    void journalKeepsWhichCopyIsOnLoan() throws IOException {
+        lendThreeCopies(false);
+        assertCopiesRecovered();
+    }
+
+    // A and B take copies 0 and 1, then A returns: copy 1 stays out
+    private void lendThreeCopies(boolean checkpoint) throws IOException {
+        LibraryStore store = LibraryStore.open(dir, books, patrons, lending);
+        books.addBook(new Book("X3", "Title", "Author", "Publisher", 2000, 3));
+        patrons.registerPatron(new Patron("A", "Ada", "a@example.com", "000"));
+        patrons.registerPatron(new Patron("B", "Bob", "b@example.com", "000"));
+        Book book = books.searchByIsbn("X3");
+        assertTrue(lending.checkoutBook(book, patrons.findPatron("A"), TODAY));
+        assertTrue(lending.checkoutBook(book, patrons.findPatron("B"), TODAY));
+        assertTrue(lending.returnBook(book, patrons.findPatron("A"), TODAY));
+        assertEquals(1, lending.findLoan("B", "X3").getCopy());
+        if (checkpoint) {
+            store.close();
+        } else {
+            store.getJournal().close();
+        }
+    }
+
+    private void assertCopiesRecovered() throws IOException {
+        createServices();
+        try (LibraryStore store = LibraryStore.open(dir, books, patrons, lending)) {
+            Book book = books.searchByIsbn("X3");
+            assertEquals(1, lending.findLoan("B", "X3").getCopy());
+            assertEquals(CopyState.ON_SHELF, book.getCopyState(0));
+            assertEquals(CopyState.ON_LOAN, book.getCopyState(1));
+            assertEquals(CopyState.ON_SHELF, book.getCopyState(2));
+            assertTrue(lending.findCopyDrift().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.library.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.events.EventSink;
+import com.library.models.BookIds;
+import com.library.models.Patron;
+import com.library.services.BookService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Borrowing history in snapshots, kept as encoded blocks
+ */
+class SnapshotStoreHistoryTest {
+    private static final int ENTRIES = 1_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void checkpointKeepsPagedOutHistoryPagedOut() throws IOException {
+        BookService books = newBooks();
+        PatronService patrons = newPatrons();
+        List<String> expected = new ArrayList<>();
+        try (HistoryFile pages = HistoryFile.open(dir.resolve("history.pages"));
+             LibraryStore store = LibraryStore.open(dir, books, patrons, newLending(books, patrons))) {
+            Patron patron = new Patron("P1", "Ada", "ada@example.com", "000");
+            patrons.registerPatron(patron);
+            for (int i = 0; i < ENTRIES; i++) {
+                String isbn = "H" + (i * 7 % 97);
+                patron.addToHistory(isbn);
+                expected.add(isbn);
+            }
+            assertTrue(patrons.pageOutHistory(pages) > 0);
+            store.checkpoint();
+            assertEquals(0, patron.getResidentHistoryBlocks());
+        }
+
+        BookService books2 = newBooks();
+        PatronService reopened = newPatrons();
+        try (LibraryStore store = LibraryStore.open(dir, books2, reopened, newLending(books2, reopened))) {
+            Patron patron = reopened.findPatron("P1");
+            assertEquals(ENTRIES, patron.getHistorySize());
+            assertEquals(expected, new ArrayList<>(patron.getBorrowingHistory()));
+        }
+    }
+
+    @Test
+    void historyBlocksAreRemappedToOtherBookIds() throws IOException {
+        Patron patron = new Patron("P1", "Ada", "ada@example.com", "000");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            patron.addToHistory("R" + (i % 300));
+            expected.add("S" + (i % 300));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        patron.writeHistory(new DataOutputStream(bytes));
+
+        // As if read by another process, where each ISBN got another ID
+        int[] ids = new int[BookIds.count()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = BookIds.intern("S" + BookIds.isbn(i).substring(1));
+        }
+        Patron restored = new Patron("P1", "Ada", "ada@example.com", "000");
+        restored.readHistory(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), ids);
+        assertEquals(ENTRIES, restored.getHistorySize());
+        assertEquals(expected, new ArrayList<>(restored.getBorrowingHistory()));
+    }
+
+    private static BookService newBooks() {
+        BookService books = new BookService();
+        books.setEventSink(EventSink.NONE);
+        return books;
+    }
+
+    private static PatronService newPatrons() {
+        PatronService patrons = new PatronService();
+        patrons.setEventSink(EventSink.NONE);
+        return patrons;
+    }
+
+    private static LendingService newLending(BookService books, PatronService patrons) {
+        LendingService lending = new LendingService(books, patrons);
+        lending.setEventSink(EventSink.NONE);
+        return lending;
+    }
+}
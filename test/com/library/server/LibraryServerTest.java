@@ -0,0 +1,72 @@
+package com.library.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.library.events.EventSink;
+import com.library.models.Book;
+import com.library.models.Patron;
+import com.library.services.BookService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * LibraryServer responses for refused checkouts
+ */
+class LibraryServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private BookService books;
+    private PatronService patrons;
+    private LibraryServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        books = new BookService();
+        patrons = new PatronService();
+        LendingService lending = new LendingService(books, patrons);
+        books.setEventSink(EventSink.NONE);
+        patrons.setEventSink(EventSink.NONE);
+        lending.setEventSink(EventSink.NONE);
+        books.addBook(new Book("X1", "Title", "Author", "Publisher", 2000, 1));
+        patrons.registerPatron(new Patron("A", "Ada", "a@example.com", "000"));
+        patrons.registerPatron(new Patron("S", "Sam", "s@example.com", "000"));
+        server = new LibraryServer(books, patrons, lending);
+        server.start(0);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void checkoutConflictGivesTheActualReason() throws Exception {
+        assertEquals(200, post("/checkout?patronId=A&isbn=X1&date=2024-03-01").statusCode());
+
+        // Suspended, but what stopped the checkout is the empty shelf
+        patrons.suspendPatron("S");
+        HttpResponse<String> refused = post("/checkout?patronId=S&isbn=X1&date=2024-03-01");
+        assertEquals(409, refused.statusCode());
+        assertEquals("{\"status\":\"NOT_AVAILABLE\"}", refused.body());
+
+        assertEquals(200, post("/return?patronId=A&isbn=X1&date=2024-03-01").statusCode());
+        refused = post("/checkout?patronId=S&isbn=X1&date=2024-03-01");
+        assertEquals(409, refused.statusCode());
+        assertEquals("{\"status\":\"PATRON_SUSPENDED\"}", refused.body());
+    }
+
+    private HttpResponse<String> post(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,160 @@
+package com.library.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.events.EventSink;
+import com.library.models.Book;
+import com.library.models.Patron;
+import com.library.persistence.LibraryStore;
+import com.library.persistence.MappedCatalog;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * BookService over an attached MappedCatalog
+ */
+class BookServiceMappedCatalogTest {
+    private static final int BOOKS = 200;
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path dir;
+
+    private Path catalogFile;
+
+    @BeforeEach
+    void writeCatalog() throws IOException {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(new Book(isbn(i), "Title " + i, "Author " + i % 10, "Publisher", 2000, 2));
+        }
+        catalogFile = dir.resolve("catalog.map");
+        MappedCatalog.write(catalogFile, books);
+    }
+
+    @Test
+    void lookupCopiesTheRecordIntoMemoryOnce() throws IOException {
+        BookService service = mapped();
+        assertTrue(service.getResidentBooks().isEmpty());
+        assertTrue(service.isAvailable(isbn(7)));
+        assertTrue(service.getResidentBooks().isEmpty());
+
+        Book book = service.searchByIsbn(isbn(7));
+        assertEquals("Title 7", book.getTitle());
+        assertSame(book, service.searchByIsbn(isbn(7)));
+        assertEquals(1, service.getResidentBooks().size());
+        assertNull(service.searchByIsbn("MISSING"));
+    }
+
+    @Test
+    void listingsDoNotCopyTheMappingIntoMemory() throws IOException {
+        BookService service = mapped();
+        service.searchByIsbn(isbn(3));
+        assertEquals(BOOKS, service.getAllBooks().size());
+        assertEquals(BOOKS, service.streamBooks().count());
+        assertEquals(1, service.getResidentBooks().size());
+    }
+
+    @Test
+    void authorScanMatchesMappedTextIgnoringCase() throws IOException {
+        BookService service = mapped();
+        List<Book> found = service.searchByAuthor("aUTHOR 4");
+        assertEquals(BOOKS / 10, found.size());
+        for (Book book : found) {
+            assertEquals("Author 4", book.getAuthor());
+        }
+        // A second scan finds the copies made by the first
+        assertEquals(BOOKS / 10, service.searchByAuthor("Author 4").size());
+    }
+
+    @Test
+    void concurrentLookupsShareOneCopy() throws Exception {
+        BookService service = mapped();
+        int threads = 4;
+        Set<Book> seen = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < BOOKS; i++) {
+                    Book book = service.searchByIsbn(isbn(i));
+                    if (i == 11) {
+                        seen.add(book);
+                    }
+                    service.searchByAuthor("Author " + i % 10);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(1, seen.size());
+        assertEquals(BOOKS, service.getResidentBooks().size());
+        assertEquals(BOOKS, service.getAllBooks().size());
+    }
+
+    @Test
+    void storeKeepsOnlyTheOverlay() throws IOException {
+        Path storeDir = dir.resolve("store");
+        BookService books = mapped();
+        PatronService patrons = new PatronService();
+        patrons.setEventSink(EventSink.NONE);
+        LendingService lending = new LendingService(books, patrons);
+        lending.setEventSink(EventSink.NONE);
+        try (LibraryStore store = LibraryStore.open(storeDir, books, patrons, lending)) {
+            Patron patron = new Patron("P1", "Ada", "ada@example.com", "000");
+            patrons.registerPatron(patron);
+            assertTrue(lending.checkoutBook(books.searchByIsbn(isbn(5)), patron, TODAY));
+            books.removeBook(isbn(6));
+        }
+
+        BookService reopened = mapped();
+        PatronService patrons2 = new PatronService();
+        patrons2.setEventSink(EventSink.NONE);
+        LendingService lending2 = new LendingService(reopened, patrons2);
+        lending2.setEventSink(EventSink.NONE);
+        try (LibraryStore store = LibraryStore.open(storeDir, reopened, patrons2, lending2)) {
+            assertEquals(1, reopened.getResidentBooks().size());
+            Book lent = reopened.searchByIsbn(isbn(5));
+            assertEquals(1, lent.getAvailableCopies());
+            assertNotNull(lending2.findLoan("P1", isbn(5)));
+            assertNull(reopened.searchByIsbn(isbn(6)));
+            assertFalse(reopened.isAvailable(isbn(6)));
+            assertEquals(BOOKS - 1, reopened.getTotalBooks());
+            assertTrue(lending2.findCopyDrift().isEmpty());
+        }
+    }
+
+    private BookService mapped() throws IOException {
+        BookService service = new BookService();
+        service.setEventSink(EventSink.NONE);
+        service.attachCatalog(MappedCatalog.open(catalogFile));
+        return service;
+    }
+
+    private static String isbn(int i) {
+        return String.format("978%010d", i);
+    }
+}
@@ -0,0 +1,151 @@
+package com.library.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.events.EventSink;
+import com.library.models.Book;
+import com.library.models.Holding;
+import com.library.models.Patron;
+import com.library.persistence.LibraryStore;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * BranchService holdings kept in step with the Book and its loans
+ */
+class BranchServiceTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path dir;
+
+    private BookService books;
+    private PatronService patrons;
+    private LendingService lending;
+    private BranchService branches;
+
+    @BeforeEach
+    void createServices() {
+        books = new BookService();
+        patrons = new PatronService();
+        lending = new LendingService(books, patrons);
+        branches = new BranchService(books, lending);
+        books.setEventSink(EventSink.NONE);
+        patrons.setEventSink(EventSink.NONE);
+        lending.setEventSink(EventSink.NONE);
+        branches.setEventSink(EventSink.NONE);
+    }
+
+    @Test
+    void branchesCannotShelveMoreCopiesThanTheBookHas() {
+        Book book = addBook();
+        branches.addBranch("CEN", "Central");
+        branches.addBranch("NTH", "North");
+        assertTrue(branches.addCopies("CEN", book, 2));
+        assertFalse(branches.addCopies("NTH", book, 2));
+        assertTrue(branches.addCopies("NTH", book, 1));
+        assertEquals(3, branches.getShelvedCopies("X3"));
+    }
+
+    @Test
+    void deskLoansAreLendingServiceLoans() {
+        Book book = addBook();
+        Patron ada = register("A");
+        branches.addBranch("CEN", "Central");
+        branches.addCopies("CEN", book, 2);
+
+        assertTrue(branches.checkoutBook("CEN", book, ada, TODAY));
+        assertNotNull(lending.findLoan("A", "X3"));
+        assertEquals(2, book.getAvailableCopies());
+        assertEquals(1, holding("CEN").getAvailable());
+
+        assertTrue(branches.returnBook("CEN", book, ada, TODAY));
+        assertEquals(3, book.getAvailableCopies());
+        assertEquals(2, holding("CEN").getAvailable());
+        assertTrue(lending.findCopyDrift().isEmpty());
+    }
+
+    @Test
+    void refusedCheckoutLeavesTheCopyOnTheShelf() {
+        Book book = addBook();
+        register("S");
+        patrons.suspendPatron("S");
+        branches.addBranch("CEN", "Central");
+        branches.addCopies("CEN", book, 2);
+
+        assertFalse(branches.checkoutBook("CEN", book, patrons.findPatron("S"), TODAY));
+        assertEquals(2, holding("CEN").getAvailable());
+        assertEquals(3, book.getAvailableCopies());
+        // Nothing was lent, so there is nothing to return
+        assertFalse(branches.returnBook("CEN", book, patrons.findPatron("S"), TODAY));
+        assertEquals(2, holding("CEN").getAvailable());
+    }
+
+    @Test
+    void journalKeepsHoldings() throws IOException {
+        stockBranches(false);
+        assertHoldingsRecovered();
+    }
+
+    @Test
+    void snapshotKeepsHoldings() throws IOException {
+        stockBranches(true);
+        assertHoldingsRecovered();
+    }
+
+    // CEN shelves 2 and lends one, then passes its other copy to NTH
+    private void stockBranches(boolean checkpoint) throws IOException {
+        LibraryStore store = LibraryStore.open(dir, books, patrons, lending, branches);
+        Book book = addBook();
+        Patron ada = register("A");
+        branches.addBranch("CEN", "Central");
+        branches.addBranch("NTH", "North");
+        assertTrue(branches.addCopies("CEN", book, 2));
+        assertTrue(branches.checkoutBook("CEN", book, ada, TODAY));
+        assertTrue(branches.transferCopies("X3", "CEN", "NTH", 1));
+        if (checkpoint) {
+            store.close();
+        } else {
+            store.getJournal().close();
+        }
+    }
+
+    private void assertHoldingsRecovered() throws IOException {
+        createServices();
+        try (LibraryStore store = LibraryStore.open(dir, books, patrons, lending, branches)) {
+            assertEquals(2, branches.getBranchCount());
+            assertEquals(1, holding("CEN").getCopies());
+            assertEquals(0, holding("CEN").getAvailable());
+            assertEquals(1, holding("NTH").getCopies());
+            assertEquals(1, holding("NTH").getAvailable());
+            assertNotNull(lending.findLoan("A", "X3"));
+
+            // The copy lent at CEN still goes back to CEN's shelf
+            Book book = books.searchByIsbn("X3");
+            assertTrue(branches.returnBook("CEN", book, patrons.findPatron("A"), TODAY));
+            assertEquals(1, holding("CEN").getAvailable());
+            assertEquals(3, book.getAvailableCopies());
+        }
+    }
+
+    private Book addBook() {
+        books.addBook(new Book("X3", "Title", "Author", "Publisher", 2000, 3));
+        return books.searchByIsbn("X3");
+    }
+
+    private Patron register(String patronId) {
+        patrons.registerPatron(new Patron(patronId, "Reader " + patronId, patronId + "@example.com", "000"));
+        return patrons.findPatron(patronId);
+    }
+
+    private Holding holding(String branchId) {
+        return branches.getBranch(branchId).getHolding("X3");
+    }
+}
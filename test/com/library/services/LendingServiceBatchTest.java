@@ -0,0 +1,158 @@
+package com.library.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.events.EventSink;
+import com.library.models.BatchResult;
+import com.library.models.Book;
+import com.library.models.CopyState;
+import com.library.models.Hold;
+import com.library.models.HoldStatus;
+import com.library.models.LendingOutcome;
+import com.library.models.LendingRequest;
+import com.library.models.Patron;
+import com.library.persistence.LibraryStore;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Batch checkout and return on LendingService, atomic and best-effort
+ */
+class LendingServiceBatchTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path dir;
+
+    private BookService books;
+    private PatronService patrons;
+    private LendingService lending;
+
+    @BeforeEach
+    void createServices() {
+        books = new BookService();
+        patrons = new PatronService();
+        lending = new LendingService(books, patrons);
+        books.setEventSink(EventSink.NONE);
+        patrons.setEventSink(EventSink.NONE);
+        lending.setEventSink(EventSink.NONE);
+    }
+
+    @Test
+    void failedAtomicBatchLeavesEverythingAsItWas() throws IOException {
+        try (LibraryStore store = LibraryStore.open(dir, books, patrons, lending)) {
+            addBooksAndPatrons();
+            assertTrue(lending.checkoutBook(book("X3"), patron("B"), TODAY));
+
+            BatchResult result = lending.checkoutBatch("A", List.of("X1", "X2", "X3"), TODAY, true);
+            assertFalse(result.isAllSucceeded());
+            assertEquals(0, result.getSuccessCount());
+            assertEquals(List.of(LendingOutcome.ROLLED_BACK, LendingOutcome.ROLLED_BACK, LendingOutcome.NOT_AVAILABLE),
+                    outcomes(result));
+            assertNothingLentToA();
+        }
+
+        // Nothing of the batch reached the journal either
+        createServices();
+        try (LibraryStore store = LibraryStore.open(dir, books, patrons, lending)) {
+            assertNothingLentToA();
+            assertNotNull(lending.findLoan("B", "X3"));
+        }
+    }
+
+    @Test
+    void bestEffortBatchLendsWhatItCan() {
+        addBooksAndPatrons();
+        assertTrue(lending.checkoutBook(book("X3"), patron("B"), TODAY));
+
+        BatchResult result = lending.checkoutBatch("A", List.of("X1", "X3", "X2"), TODAY, false);
+        assertEquals(List.of(LendingOutcome.CHECKED_OUT, LendingOutcome.NOT_AVAILABLE, LendingOutcome.CHECKED_OUT),
+                outcomes(result));
+        assertEquals(TODAY.plusDays(lending.getLoanPeriodDays()), result.getItems().get(0).getDueDate());
+        assertEquals(1, book("X1").getAvailableCopies());
+        assertEquals(2, patron("A").getBorrowedCount());
+
+        result = lending.returnBatch("A", List.of("X1", "X3", "X2"), TODAY, false);
+        assertEquals(List.of(LendingOutcome.RETURNED, LendingOutcome.NOT_BORROWED, LendingOutcome.RETURNED),
+                outcomes(result));
+        assertEquals(0, patron("A").getBorrowedCount());
+        assertTrue(lending.findCopyDrift().isEmpty());
+    }
+
+    @Test
+    void failedAtomicReturnKeepsEveryLoan() {
+        addBooksAndPatrons();
+        lending.checkoutBatch("A", List.of("X1", "X2"), TODAY, true);
+
+        BatchResult result = lending.returnBatch(List.of(new LendingRequest("A", "X1"), new LendingRequest("A", "X2"),
+                new LendingRequest("A", "X1")), TODAY, true);
+        assertEquals(List.of(LendingOutcome.ROLLED_BACK, LendingOutcome.ROLLED_BACK, LendingOutcome.NOT_BORROWED),
+                outcomes(result));
+        assertEquals(2, patron("A").getBorrowedCount());
+        assertEquals(1, book("X1").getAvailableCopies());
+        assertEquals(0, book("X2").getAvailableCopies());
+    }
+
+    @Test
+    void batchCollectsTheCopyHeldForThePatron() {
+        addBooksAndPatrons();
+        assertTrue(lending.checkoutBook(book("X3"), patron("B"), TODAY));
+        Hold hold = lending.placeHold(book("X3"), patron("A"), TODAY);
+        assertTrue(lending.returnBook(book("X3"), patron("B"), TODAY));
+        assertEquals(HoldStatus.READY, hold.getStatus());
+
+        // X2 fails once B has it: the rollback leaves A's hold ready
+        assertTrue(lending.checkoutBook(book("X2"), patron("B"), TODAY));
+        BatchResult result = lending.checkoutBatch("A", List.of("X3", "X2"), TODAY, true);
+        assertEquals(List.of(LendingOutcome.ROLLED_BACK, LendingOutcome.NOT_AVAILABLE), outcomes(result));
+        assertEquals(HoldStatus.READY, hold.getStatus());
+        assertEquals(1, book("X3").getHeldCopies());
+
+        result = lending.checkoutBatch("A", List.of("X1", "X3"), TODAY, true);
+        assertTrue(result.isAllSucceeded());
+        assertEquals(HoldStatus.COLLECTED, hold.getStatus());
+        assertNull(lending.findHold("A", "X3"));
+        assertEquals(0, book("X3").getHeldCopies());
+        assertEquals(CopyState.ON_LOAN, book("X3").getCopyState(lending.findLoan("A", "X3").getCopy()));
+        assertTrue(lending.findCopyDrift().isEmpty());
+    }
+
+    // X1 has 2 copies, X2 and X3 one each; A and B are patrons
+    private void addBooksAndPatrons() {
+        books.addBook(new Book("X1", "One", "Author", "Publisher", 2000, 2));
+        books.addBook(new Book("X2", "Two", "Author", "Publisher", 2000, 1));
+        books.addBook(new Book("X3", "Three", "Author", "Publisher", 2000, 1));
+        patrons.registerPatron(new Patron("A", "Ada", "a@example.com", "000"));
+        patrons.registerPatron(new Patron("B", "Bob", "b@example.com", "000"));
+    }
+
+    private void assertNothingLentToA() {
+        assertEquals(0, patron("A").getBorrowedCount());
+        assertTrue(lending.getActiveLoans("A").isEmpty());
+        assertEquals(2, book("X1").getAvailableCopies());
+        assertEquals(1, book("X2").getAvailableCopies());
+        assertEquals(CopyState.ON_SHELF, book("X2").getCopyState(0));
+        assertTrue(lending.findCopyDrift().isEmpty());
+    }
+
+    private static List<LendingOutcome> outcomes(BatchResult result) {
+        return result.getItems().stream().map(BatchResult.Item::getOutcome).toList();
+    }
+
+    private Book book(String isbn) {
+        return books.searchByIsbn(isbn);
+    }
+
+    private Patron patron(String patronId) {
+        return patrons.findPatron(patronId);
+    }
+}
@@ -0,0 +1,129 @@
+package com.library.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.events.EventSink;
+import com.library.models.Book;
+import com.library.models.CopyState;
+import com.library.models.Loan;
+import com.library.models.Patron;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Test;
+
+/**
+ * LendingService checkouts and returns racing for few copies and shared
+ * patrons (a bounded run of the LendingStressTest benchmark)
+ */
+class LendingServiceConcurrencyTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+    private static final int THREADS = 4;
+    private static final int OPS_PER_THREAD = 5_000;
+    private static final int TITLES = 8;
+    private static final int COPIES = 2;
+    private static final int PATRONS = 16;
+
+    @Test
+    void copyCountsStayCorrectUnderConcurrentLending() throws Exception {
+        BookService books = new BookService();
+        PatronService patrons = new PatronService();
+        LendingService lending = new LendingService(books, patrons);
+        books.setEventSink(EventSink.NONE);
+        patrons.setEventSink(EventSink.NONE);
+        lending.setEventSink(EventSink.NONE);
+        List<Book> titles = new ArrayList<>();
+        for (int i = 0; i < TITLES; i++) {
+            Book book = new Book("X" + i, "Title " + i, "Author", "Publisher", 2000, COPIES);
+            books.loadBook(book);
+            titles.add(book);
+        }
+        List<Patron> members = new ArrayList<>();
+        for (int i = 0; i < PATRONS; i++) {
+            Patron patron = new Patron("P" + i, "Reader " + i, "p" + i + "@example.com", "000");
+            patrons.loadPatron(patron);
+            members.add(patron);
+        }
+
+        LongAdder checkedOut = new LongAdder();
+        LongAdder returned = new LongAdder();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            Thread worker = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        // Patrons are shared, so another desk may return the same book first
+                        Patron patron = members.get(random.nextInt(PATRONS));
+                        List<String> held = patron.getBorrowedBooks();
+                        if (held.isEmpty() || random.nextInt(100) < 55) {
+                            if (lending.checkoutBook(titles.get(random.nextInt(TITLES)), patron, TODAY)) {
+                                checkedOut.increment();
+                            }
+                        } else {
+                            Book book = books.searchByIsbn(held.get(random.nextInt(held.size())));
+                            if (lending.returnBook(book, patron, TODAY)) {
+                                returned.increment();
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertTrue(failures.isEmpty(), () -> "failed: " + failures.peek());
+        assertTrue(checkedOut.sum() > 0);
+
+        List<Loan> loans = lending.getAllActiveLoans();
+        assertEquals(checkedOut.sum() - returned.sum(), loans.size());
+        int borrowed = 0;
+        for (Patron patron : members) {
+            assertEquals(lending.getActiveLoans(patron.getPatronId()).size(), patron.getBorrowedCount());
+            borrowed += patron.getBorrowedCount();
+        }
+        assertEquals(loans.size(), borrowed);
+        Set<String> lentCopies = new HashSet<>();
+        for (Loan loan : loans) {
+            assertTrue(lentCopies.add(loan.getIsbn() + "#" + loan.getCopy()), () -> "copy lent twice: " + loan);
+        }
+        int onLoan = 0;
+        for (Book book : titles) {
+            assertTrue(book.getAvailableCopies() >= 0 && book.getAvailableCopies() <= COPIES, book::toString);
+            onLoan += book.getCopiesOnLoan();
+        }
+        assertEquals(loans.size(), onLoan);
+        assertTrue(lending.findCopyDrift().isEmpty());
+
+        for (Patron patron : members) {
+            for (String isbn : patron.getBorrowedBooks()) {
+                assertTrue(lending.returnBook(books.searchByIsbn(isbn), patron, TODAY));
+            }
+        }
+        assertTrue(lending.getAllActiveLoans().isEmpty());
+        for (Book book : titles) {
+            assertEquals(COPIES, book.getAvailableCopies());
+            for (int copy = 0; copy < COPIES; copy++) {
+                assertEquals(CopyState.ON_SHELF, book.getCopyState(copy));
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.library.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.events.EventSink;
+import com.library.models.Book;
+import com.library.models.BookStatus;
+import com.library.models.Hold;
+import com.library.models.HoldStatus;
+import com.library.models.Patron;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Holds on LendingService: returned copies handed to the queue in order
+ */
+class LendingServiceHoldsTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    private PatronService patrons;
+    private LendingService lending;
+    private Book book;
+
+    @BeforeEach
+    void createServices() {
+        BookService books = new BookService();
+        patrons = new PatronService();
+        lending = new LendingService(books, patrons);
+        books.setEventSink(EventSink.NONE);
+        patrons.setEventSink(EventSink.NONE);
+        lending.setEventSink(EventSink.NONE);
+        books.addBook(new Book("X1", "Title", "Author", "Publisher", 2000, 1));
+        book = books.searchByIsbn("X1");
+        for (String id : new String[] {"A", "B", "C"}) {
+            patrons.registerPatron(new Patron(id, "Reader " + id, id + "@example.com", "000"));
+        }
+    }
+
+    @Test
+    void returnedCopyGoesToTheFirstHoldInLine() {
+        assertTrue(lending.checkoutBook(book, patron("A"), TODAY));
+        Hold first = lending.placeHold(book, patron("B"), TODAY);
+        Hold second = lending.placeHold(book, patron("C"), TODAY.plusDays(1));
+        assertEquals(2, lending.getHoldQueueLength("X1"));
+
+        assertTrue(lending.returnBook(book, patron("A"), TODAY.plusDays(2)));
+        assertEquals(HoldStatus.READY, first.getStatus());
+        assertEquals(TODAY.plusDays(9), first.getPickupDeadline());
+        assertEquals(HoldStatus.WAITING, second.getStatus());
+        assertEquals(0, book.getAvailableCopies());
+        assertEquals(1, book.getHeldCopies());
+        assertEquals(BookStatus.RESERVED, book.getStatus());
+
+        // The held copy is B's: C is refused, B collects it
+        assertFalse(lending.checkoutBook(book, patron("C"), TODAY.plusDays(3)));
+        assertTrue(lending.checkoutBook(book, patron("B"), TODAY.plusDays(3)));
+        assertEquals(HoldStatus.COLLECTED, first.getStatus());
+        assertNull(lending.findHold("B", "X1"));
+        assertEquals(0, book.getHeldCopies());
+        assertTrue(lending.findCopyDrift().isEmpty());
+    }
+
+    @Test
+    void holdOfASuspendedPatronIsPassedOver() {
+        assertTrue(lending.checkoutBook(book, patron("A"), TODAY));
+        Hold skipped = lending.placeHold(book, patron("B"), TODAY);
+        Hold next = lending.placeHold(book, patron("C"), TODAY);
+        patrons.suspendPatron("B");
+
+        assertTrue(lending.returnBook(book, patron("A"), TODAY));
+        assertEquals(HoldStatus.READY, next.getStatus());
+        // B keeps its place in line for when the suspension is lifted
+        assertEquals(HoldStatus.WAITING, skipped.getStatus());
+        assertEquals(1, lending.getHoldQueueLength("X1"));
+        assertEquals(1, book.getHeldCopies());
+    }
+
+    @Test
+    void uncollectedCopyPassesToTheNextHold() {
+        assertTrue(lending.checkoutBook(book, patron("A"), TODAY));
+        Hold first = lending.placeHold(book, patron("B"), TODAY);
+        Hold second = lending.placeHold(book, patron("C"), TODAY);
+        assertTrue(lending.returnBook(book, patron("A"), TODAY));
+
+        // Nothing expires on the deadline itself
+        assertTrue(lending.expireHolds(first.getPickupDeadline()).isEmpty());
+        List<Hold> expired = lending.expireHolds(first.getPickupDeadline().plusDays(1));
+        assertEquals(List.of(first), expired);
+        assertEquals(HoldStatus.EXPIRED, first.getStatus());
+        assertEquals(HoldStatus.READY, second.getStatus());
+        assertEquals(1, book.getHeldCopies());
+        assertEquals(0, book.getAvailableCopies());
+    }
+
+    @Test
+    void cancelledReadyHoldPassesItsCopyOn() {
+        assertTrue(lending.checkoutBook(book, patron("A"), TODAY));
+        Hold first = lending.placeHold(book, patron("B"), TODAY);
+        Hold second = lending.placeHold(book, patron("C"), TODAY);
+        assertTrue(lending.returnBook(book, patron("A"), TODAY));
+
+        assertTrue(lending.cancelHold(book, patron("B"), TODAY));
+        assertEquals(HoldStatus.CANCELLED, first.getStatus());
+        assertEquals(HoldStatus.READY, second.getStatus());
+        assertTrue(lending.cancelHold(book, patron("C"), TODAY));
+        assertEquals(1, book.getAvailableCopies());
+        assertEquals(0, book.getHeldCopies());
+        assertEquals(BookStatus.AVAILABLE, book.getStatus());
+    }
+
+    @Test
+    void noHoldWhileACopyIsOnTheShelf() {
+        assertNull(lending.placeHold(book, patron("B"), TODAY));
+        assertTrue(lending.checkoutBook(book, patron("A"), TODAY));
+        assertNotNull(lending.placeHold(book, patron("B"), TODAY));
+        // One open hold per patron and title
+        assertNull(lending.placeHold(book, patron("B"), TODAY));
+        // Nor for the patron who has the copy
+        assertNull(lending.placeHold(book, patron("A"), TODAY));
+    }
+
+    private Patron patron(String patronId) {
+        return patrons.findPatron(patronId);
+    }
+}
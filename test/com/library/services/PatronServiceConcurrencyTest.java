@@ -0,0 +1,143 @@
+package com.library.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.events.EventSink;
+import com.library.models.Patron;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+/**
+ * PatronService registration, lookup and name search from many threads
+ */
+class PatronServiceConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 2_000;
+
+    @Test
+    void concurrentRegistrationKeepsRegistryAndIndexesInStep() throws Exception {
+        PatronService service = new PatronService();
+        service.setEventSink(EventSink.NONE);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        String id = "P" + thread + "-" + i;
+                        service.registerPatron(new Patron(id, "Reader " + thread + " " + i, id + "@example.com", "000"));
+                        if (i % 50 == 0) {
+                            service.searchByName("reader " + thread);
+                            service.suggestNames("readr " + thread, 5);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> "failed: " + failures.peek());
+        assertEquals(THREADS * PER_THREAD, service.getTotalPatrons());
+        for (int t = 0; t < THREADS; t++) {
+            assertNotNull(service.findPatron("P" + t + "-" + (PER_THREAD - 1)));
+            assertEquals(1, service.searchByName("Reader " + t + " " + (PER_THREAD - 1)).size());
+        }
+        assertFalse(service.suggestNames("reader 3 199", 5).isEmpty());
+    }
+
+    @Test
+    void lookupsDuringRegistrationSeeWholePatrons() throws Exception {
+        PatronService service = new PatronService();
+        service.setEventSink(EventSink.NONE);
+        int count = THREADS * PER_THREAD;
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean done = new AtomicBoolean();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < THREADS - 1; t++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        for (int i = 0; i < count; i += 97) {
+                            Patron found = service.findPatron("P" + i);
+                            if (found != null) {
+                                assertEquals("P" + i, found.getPatronId());
+                                assertEquals("Member " + i, found.getName());
+                                assertEquals("000", found.getPhone());
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        try {
+            for (int i = 0; i < count; i++) {
+                service.registerPatron(new Patron("P" + i, "Member " + i, "m" + i + "@example.com", "000"));
+            }
+        } finally {
+            done.set(true);
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> "failed: " + failures.peek());
+        for (int i = 0; i < count; i += 97) {
+            assertNotNull(service.findPatron("P" + i));
+        }
+    }
+
+    @Test
+    void concurrentRemovalLeavesNoIndexEntries() throws Exception {
+        PatronService service = new PatronService();
+        service.setEventSink(EventSink.NONE);
+        for (int i = 0; i < THREADS * PER_THREAD; i++) {
+            service.loadPatron(new Patron("P" + i, "Member " + i, "m" + i + "@example.com", "000"));
+        }
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    for (int i = thread; i < THREADS * PER_THREAD; i += THREADS) {
+                        assertTrue(service.unloadPatron("P" + i));
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> "failed: " + failures.peek());
+        assertEquals(0, service.getTotalPatrons());
+        assertTrue(service.searchByName("member").isEmpty());
+        assertTrue(service.suggestNames("member 1", 5).isEmpty());
+    }
+}
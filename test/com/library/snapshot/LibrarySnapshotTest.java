@@ -0,0 +1,140 @@
+package com.library.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.events.EventSink;
+import com.library.models.Book;
+import com.library.models.Patron;
+import com.library.services.BookService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * LibrarySnapshot reads that stay consistent while lending goes on
+ */
+class LibrarySnapshotTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+    private static final int BOOKS = 5;
+    private static final int COPIES = 3;
+    private static final int THREADS = 4;
+    private static final int PATRONS_PER_THREAD = 5;
+    private static final int ROUNDS = 300;
+
+    private BookService books;
+    private PatronService patrons;
+    private LendingService lending;
+    private LibrarySnapshots snapshots;
+
+    @BeforeEach
+    void createServices() {
+        books = new BookService();
+        patrons = new PatronService();
+        lending = new LendingService(books, patrons);
+        books.setEventSink(EventSink.NONE);
+        patrons.setEventSink(EventSink.NONE);
+        lending.setEventSink(EventSink.NONE);
+        for (int b = 0; b < BOOKS; b++) {
+            books.addBook(new Book("X" + b, "Title " + b, "Author", "Publisher", 2000, COPIES));
+        }
+        for (int t = 0; t < THREADS; t++) {
+            for (int p = 0; p < PATRONS_PER_THREAD; p++) {
+                String id = patron(t, p);
+                patrons.registerPatron(new Patron(id, "Reader " + id, id + "@example.com", "000"));
+            }
+        }
+        snapshots = new LibrarySnapshots(books, patrons, lending);
+    }
+
+    @Test
+    void snapshotKeepsItsViewWhileLendingGoesOn() {
+        Book book = books.searchByIsbn("X0");
+        Patron patron = patrons.findPatron(patron(0, 0));
+        try (LibrarySnapshot snapshot = snapshots.open()) {
+            assertTrue(lending.checkoutBook(book, patron, TODAY));
+            lending.returnBook(book, patron, TODAY.plusDays(30));
+
+            assertEquals((long) BOOKS * COPIES, snapshot.getTotalAvailableCopies());
+            assertEquals(0, snapshot.getPatronsWithFinesCount());
+            assertEquals(0, snapshot.streamPatrons().mapToInt(Patron::getBorrowedCount).sum());
+        }
+        try (LibrarySnapshot later = snapshots.open()) {
+            assertEquals(1, later.getPatronsWithFinesCount());
+        }
+        assertEquals(0, snapshots.getOpenCount());
+    }
+
+    @Test
+    void copiesOnLoanMatchBorrowedBooksInEverySnapshot() throws Exception {
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        Patron patron = patrons.findPatron(patron(thread, round % PATRONS_PER_THREAD));
+                        List<String> isbns = List.of("X" + round % BOOKS, "X" + (round + 1) % BOOKS);
+                        // Two books in one change: a snapshot sees both loans or neither
+                        lending.checkoutBatch(patron.getPatronId(), isbns, TODAY, true);
+                        lending.returnBatch(patron.getPatronId(), isbns, TODAY, true);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+
+        AtomicInteger taken = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            try {
+                start.await();
+                while (!done.get() || taken.get() == 0) {
+                    try (LibrarySnapshot snapshot = snapshots.open()) {
+                        long onLoan = snapshot.streamBooks()
+                                .mapToLong(book -> book.getTotalCopies() - book.getAvailableCopies()).sum();
+                        long borrowed = snapshot.streamPatrons().mapToLong(Patron::getBorrowedCount).sum();
+                        assertEquals(onLoan, borrowed, "snapshot at version " + snapshot.getVersion());
+                        assertEquals(0, borrowed % 2, "half a batch at version " + snapshot.getVersion());
+                        assertEquals((long) BOOKS * COPIES - onLoan, snapshot.getTotalAvailableCopies());
+                    }
+                    taken.incrementAndGet();
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        reader.start();
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        done.set(true);
+        reader.join();
+
+        assertTrue(failures.isEmpty(), () -> "failed: " + failures.peek());
+        assertTrue(taken.get() > 0);
+        assertEquals(0, snapshots.getOpenCount());
+        assertEquals((long) BOOKS * COPIES, books.getTotalAvailableCopies());
+        assertTrue(lending.findCopyDrift().isEmpty());
+    }
+
+    private static String patron(int thread, int p) {
+        return "P" + thread + "-" + p;
+    }
+}